@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class ChipComponentBenchmark_EnvInput_jmhType extends ChipComponentBenchmark_EnvInput_jmhType_B3 {
+}
+
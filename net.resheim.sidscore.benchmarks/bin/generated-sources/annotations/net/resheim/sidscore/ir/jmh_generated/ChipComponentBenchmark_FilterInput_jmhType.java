@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class ChipComponentBenchmark_FilterInput_jmhType extends ChipComponentBenchmark_FilterInput_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class ChipComponentBenchmark_OscInput_jmhType extends ChipComponentBenchmark_OscInput_jmhType_B3 {
+}
+
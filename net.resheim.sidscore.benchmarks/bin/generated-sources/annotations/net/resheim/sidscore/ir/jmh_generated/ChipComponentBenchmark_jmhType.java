@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class ChipComponentBenchmark_jmhType extends ChipComponentBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class ParseThroughputBenchmark_Heap_jmhType extends ParseThroughputBenchmark_Heap_jmhType_B3 {
+}
+
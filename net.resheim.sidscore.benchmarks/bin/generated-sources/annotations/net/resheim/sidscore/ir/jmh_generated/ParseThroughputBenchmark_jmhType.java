@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class ParseThroughputBenchmark_jmhType extends ParseThroughputBenchmark_jmhType_B3 {
+}
+
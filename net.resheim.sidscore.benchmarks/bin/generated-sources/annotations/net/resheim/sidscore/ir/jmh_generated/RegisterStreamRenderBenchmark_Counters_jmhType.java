@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class RegisterStreamRenderBenchmark_Counters_jmhType extends RegisterStreamRenderBenchmark_Counters_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class RegisterStreamRenderBenchmark_jmhType extends RegisterStreamRenderBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class RenderThroughputBenchmark_jmhType extends RenderThroughputBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package net.resheim.sidscore.ir.jmh_generated;
+public class SteadyStateRenderBenchmark_jmhType extends SteadyStateRenderBenchmark_jmhType_B3 {
+}
+
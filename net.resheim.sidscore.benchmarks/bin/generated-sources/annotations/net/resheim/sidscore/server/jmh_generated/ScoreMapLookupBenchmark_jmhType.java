@@ -0,0 +1,4 @@
+package net.resheim.sidscore.server.jmh_generated;
+public class ScoreMapLookupBenchmark_jmhType extends ScoreMapLookupBenchmark_jmhType_B3 {
+}
+
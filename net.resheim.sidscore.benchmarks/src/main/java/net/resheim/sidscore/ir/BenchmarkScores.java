@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package net.resheim.sidscore.ir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.UnaryOperator;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import net.resheim.sidscore.parser.SIDScoreLexer;
+import net.resheim.sidscore.parser.SIDScoreParser;
+
+/**
+ * Score loading and shaping shared by the benchmarks. Corpus paths are
+ * resolved against the {@code sidscore.root} system property, defaulting to
+ * the working directory (the repository root).
+ */
+public final class BenchmarkScores {
+
+	private BenchmarkScores() {
+	}
+
+	/**
+	 * How a corpus score is reshaped before rendering, so that one example can
+	 * cover each of the render paths.
+	 */
+	public enum Variant {
+		/** Rendered as written. */
+		AS_IS,
+		/** Ring modulation set on every instrument, forcing 4× oversampling. */
+		OVERSAMPLE_4X,
+		/** All instrument filter settings removed. */
+		NO_FILTER,
+		/** The EFFECT timeline removed. */
+		NO_EFFECTS
+	}
+
+	static Path corpusRoot() {
+		return Path.of(System.getProperty("sidscore.root", "."));
+	}
+
+	static SIDScoreIR.TimedScore load(String relativePath) {
+		Path source = corpusRoot().resolve(relativePath);
+		String src;
+		try {
+			src = Files.readString(source);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read " + source.toAbsolutePath()
+					+ " (set -Dsidscore.root to the repository root)", e);
+		}
+		SIDScoreParser parser = new SIDScoreParser(new CommonTokenStream(new SIDScoreLexer(CharStreams.fromString(src))));
+		ScoreBuildingListener builder = new ScoreBuildingListener(source);
+		ParseTreeWalker.DEFAULT.walk(builder, parser.file());
+		SIDScoreIR.Resolver.Result resolved = new SIDScoreIR.Resolver().resolve(builder.buildScoreIR());
+		return resolved.timedScore();
+	}
+
+	static SIDScoreIR.TimedScore apply(SIDScoreIR.TimedScore score, Variant variant) {
+		return switch (variant) {
+		case AS_IS -> score;
+		case OVERSAMPLE_4X -> mapInstruments(score, BenchmarkScores::withRing);
+		case NO_FILTER -> mapInstruments(score, BenchmarkScores::withoutFilter);
+		case NO_EFFECTS -> new SIDScoreIR.TimedScore(score.title(), score.author(), score.released(), score.tempoBpm(),
+				score.ticksPerWhole(), score.defaultSwing(), score.system(), score.tables(), Map.of(), score.voices(),
+				score.subtunes());
+		};
+	}
+
+	/**
+	 * Three voices holding saw, pulse and triangle notes for about two minutes,
+	 * with voice 1 routed through the low-pass filter.
+	 */
+	static SIDScoreIR.TimedScore sustainedScore() {
+		int[] waves = { SIDScoreIR.Wave.SAW.mask, SIDScoreIR.Wave.PULSE.mask, SIDScoreIR.Wave.TRI.mask };
+		int[] notes = { 48, 55, 64 };
+		Map<Integer, SIDScoreIR.TimedVoice> voices = new LinkedHashMap<>();
+		for (int v = 0; v < 3; v++) {
+			SIDScoreIR.InstrumentIR instrument = new SIDScoreIR.InstrumentIR("bench" + (v + 1), waves[v],
+					new SIDScoreIR.AdsrIR(0, 0, 15, 0), OptionalInt.of(0x0800), OptionalInt.empty(),
+					OptionalInt.empty(), 0, Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+					v == 0 ? SIDScoreIR.FilterMode.LP.mask : 0, OptionalInt.of(0x0400), OptionalInt.of(8),
+					Optional.empty(), SIDScoreIR.InstrumentGateMode.RETRIGGER, 0, false, false);
+			voices.put(v + 1, new SIDScoreIR.TimedVoice(v + 1, instrument,
+					List.of(SIDScoreIR.TimedEvent.note(notes[v], 192 * 64, SIDScoreIR.GateMode.HOLD))));
+		}
+		return new SIDScoreIR.TimedScore(Optional.empty(), Optional.empty(), Optional.empty(), 120, 192,
+				new SIDScoreIR.SwingOff(), SIDScoreIR.VideoSystem.PAL, Map.of(), Map.of(), voices, Map.of());
+	}
+
+	private static SIDScoreIR.TimedScore mapInstruments(SIDScoreIR.TimedScore score,
+			UnaryOperator<SIDScoreIR.InstrumentIR> fn) {
+		Map<Integer, SIDScoreIR.TimedVoice> voices = new LinkedHashMap<>();
+		for (var e : score.voices().entrySet()) {
+			SIDScoreIR.TimedVoice tv = e.getValue();
+			voices.put(e.getKey(), new SIDScoreIR.TimedVoice(tv.index(), fn.apply(tv.instrument()), tv.events()));
+		}
+		return new SIDScoreIR.TimedScore(score.title(), score.author(), score.released(), score.tempoBpm(),
+				score.ticksPerWhole(), score.defaultSwing(), score.system(), score.tables(), score.effects(), voices,
+				score.subtunes());
+	}
+
+	private static SIDScoreIR.InstrumentIR withRing(SIDScoreIR.InstrumentIR i) {
+		return new SIDScoreIR.InstrumentIR(i.name(), i.waveMask(), i.adsr(), i.pw(), i.pwMin(), i.pwMax(),
+				i.pwSweep(), i.waveSeq(), i.pwSeq(), i.gateSeq(), i.pitchSeq(), i.filterModeMask(), i.filterCutoff(),
+				i.filterRes(), i.filterSeq(), i.gateMode(), i.gateMin(), i.sync(), true);
+	}
+
+	private static SIDScoreIR.InstrumentIR withoutFilter(SIDScoreIR.InstrumentIR i) {
+		return new SIDScoreIR.InstrumentIR(i.name(), i.waveMask(), i.adsr(), i.pw(), i.pwMin(), i.pwMax(),
+				i.pwSweep(), i.waveSeq(), i.pwSeq(), i.gateSeq(), i.pitchSeq(), 0, OptionalInt.empty(),
+				OptionalInt.empty(), Optional.empty(), i.gateMode(), i.gateMin(), i.sync(), i.ring());
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package net.resheim.sidscore.ir;
+
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.resheim.sidscore.sid.SidModel;
+import net.resheim.sidscore.sid.SidWaveforms;
+
+/**
+ * Per-component cost of the chip model: oscillator output, envelope and the
+ * global filter. Each operation covers one 512-sample block at the 2×
+ * oversampled rate so call overhead does not dominate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChipComponentBenchmark {
+	private static final int BLOCK = 512 * 2;
+	private static final float SR_OS = 44100f * 2;
+
+	@State(Scope.Thread)
+	public static class OscInput {
+		/** Waveform register bits; 3 and 7 exercise the combined-waveform tables. */
+		@Param({ "1", "2", "4", "8", "3", "7" })
+		public int waveMask;
+
+		@Param({ "MOS6581", "MOS8580" })
+		public SidModel model;
+
+		RealtimeAudioPlayer.Osc osc;
+
+		@Setup
+		public void setup() {
+			osc = new RealtimeAudioPlayer.Osc(SidWaveforms.loadTables(model, null));
+			osc.setWaveMask(waveMask, OptionalInt.of(0x0600));
+			osc.setFreq(440.0, SR_OS);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class EnvInput {
+		RealtimeAudioPlayer.Env env;
+
+		@Setup
+		public void setup() {
+			env = new RealtimeAudioPlayer.Env();
+			env.setAdsr(2, 6, 10, 6);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class FilterInput {
+		/** Filter mode bits; 0 is bypass, 7 runs LP+BP+HP. */
+		@Param({ "0", "1", "7" })
+		public int filterMode;
+
+		@Param
+		public RealtimeAudioPlayer.FilterModel filterModel;
+
+		RealtimeAudioPlayer.FilterRuntime filter;
+		final double[] input = new double[BLOCK];
+
+		@Setup
+		public void setup() {
+			filter = new RealtimeAudioPlayer.FilterRuntime();
+			filter.setModel(filterModel);
+			filter.activate(filterMode, 0x0500, 10, null, SR_OS);
+			RealtimeAudioPlayer.Osc source = new RealtimeAudioPlayer.Osc(SidWaveforms.loadTables(SidModel.MOS6581, null));
+			source.setFreq(220.0, SR_OS);
+			for (int i = 0; i < BLOCK; i++) {
+				source.advance(SR_OS);
+				input[i] = source.output(SIDScoreIR.Wave.SAW.mask, false, 0);
+			}
+		}
+	}
+
+	@Benchmark
+	public double oscOutput(OscInput in) {
+		RealtimeAudioPlayer.Osc osc = in.osc;
+		double acc = 0.0;
+		for (int i = 0; i < BLOCK; i++) {
+			int st = osc.advance(SR_OS);
+			acc += osc.output(in.waveMask, false, st);
+		}
+		return acc;
+	}
+
+	/**
+	 * Gates the envelope on for the first half of the block and off for the
+	 * second, so attack/decay/sustain and release paths all get exercised.
+	 */
+	@Benchmark
+	public double envNext(EnvInput in) {
+		RealtimeAudioPlayer.Env env = in.env;
+		double acc = 0.0;
+		env.noteOn(true, false);
+		for (int i = 0; i < BLOCK / 2; i++) {
+			acc += env.next(SR_OS);
+		}
+		env.noteOff();
+		for (int i = BLOCK / 2; i < BLOCK; i++) {
+			acc += env.next(SR_OS);
+		}
+		return acc;
+	}
+
+	@Benchmark
+	public double filterApply(FilterInput in) {
+		RealtimeAudioPlayer.FilterRuntime filter = in.filter;
+		double[] input = in.input;
+		double acc = 0.0;
+		for (int i = 0; i < BLOCK; i++) {
+			acc += filter.apply(input[i], SR_OS);
+		}
+		return acc;
+	}
+}
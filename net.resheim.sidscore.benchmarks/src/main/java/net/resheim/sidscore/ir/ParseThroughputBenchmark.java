@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package net.resheim.sidscore.ir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.resheim.sidscore.parser.SIDScoreLexer;
+import net.resheim.sidscore.parser.SIDScoreParser;
+
+/**
+ * Front-end throughput on the converted game corpus: lexing, parsing and the
+ * {@link ScoreBuildingListener} walk up to a {@link SIDScoreIR.ScoreIR}. The
+ * {@code mb} counter is source megabytes parsed per second and
+ * {@code peakHeapMB} is the highest heap occupancy seen during the iteration.
+ * <p>
+ * {@code LL} is the previous front end (file read into a string, full LL
+ * prediction, full tree walk); {@code SLL} and {@code PATH} go through
+ * {@link ScoreParsing} from a string and from the file respectively, and walk
+ * with {@link ScoreBuildingListener#WALKER}. The peak is per iteration; JMH
+ * sums it in the final summary line. Run with a fixed heap, for example
+ * {@code -jvmArgsAppend -Xmx1g}, and {@code -prof gc} to compare memory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseThroughputBenchmark {
+	public enum Front {
+		LL, SLL, PATH
+	}
+
+	@Param({ "examples/games/Great_Giana_Sisters.sidscore", "examples/games/Wizball.sidscore",
+			"examples/games/Monty_on_the_Run.sidscore", "examples/games/Scooby_Doo.sidscore" })
+	public String score;
+
+	@Param
+	public Front front;
+
+	private Path source;
+	private long sourceBytes;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public double mb;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			mb = 0.0;
+		}
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Heap {
+		public double peakHeapMB;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			System.gc();
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				pool.resetPeakUsage();
+			}
+			peakHeapMB = 0.0;
+		}
+
+		void sample() {
+			long used = 0;
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+					used += pool.getPeakUsage().getUsed();
+				}
+			}
+			peakHeapMB = Math.max(peakHeapMB, used / (1024.0 * 1024.0));
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		source = BenchmarkScores.corpusRoot().resolve(score);
+		sourceBytes = Files.size(source);
+	}
+
+	@Benchmark
+	public SIDScoreIR.ScoreIR parse(Counters counters, Heap heap) throws IOException {
+		SIDScoreParser.FileContext tree = switch (front) {
+		case LL -> new SIDScoreParser(
+				new CommonTokenStream(new SIDScoreLexer(CharStreams.fromString(Files.readString(source))))).file();
+		case SLL -> ScoreParsing.parse(Files.readString(source), new BaseErrorListener());
+		case PATH -> ScoreParsing.parse(source, new BaseErrorListener());
+		};
+		ScoreBuildingListener builder = new ScoreBuildingListener(source);
+		(front == Front.LL ? ParseTreeWalker.DEFAULT : ScoreBuildingListener.WALKER).walk(builder, tree);
+		SIDScoreIR.ScoreIR ir = builder.buildScoreIR();
+		counters.mb += sourceBytes / 1.0e6;
+		heap.sample();
+		return ir;
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package net.resheim.sidscore.ir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.resheim.sidscore.export.SIDScoreExporter;
+import net.resheim.sidscore.export.driver.SidDriverBackend;
+import net.resheim.sidscore.export.driver.SidDriverRegistry;
+import net.resheim.sidscore.sid.SidModel;
+import net.resheim.sidscore.sid.SidRegisterStream;
+
+/**
+ * Offline render throughput of a score through the IR runtimes against the
+ * register writes of its exported {@code sidscore} driver, replayed from a
+ * {@link SidRegisterStream}. Both render through the same chip model, so the
+ * difference is the cost of interpreting the score. The stream is recorded
+ * once per trial, which needs KickAssembler and the repository root as the
+ * working directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class RegisterStreamRenderBenchmark {
+	@Param({ "examples/test.sidscore", "examples/J.S.Bach/bwv794_demo.sidscore", "tests/sync_ring.sidscore" })
+	public String score;
+
+	@Param({ "MOS6581" })
+	public SidModel model;
+
+	private RealtimeAudioPlayer player;
+	private SIDScoreIR.TimedScore timed;
+	private SidRegisterStream stream;
+	private Path wavOut;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long samples;
+		public double realtime;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			samples = 0;
+			realtime = 0.0;
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException, InterruptedException {
+		player = new RealtimeAudioPlayer(model);
+		timed = BenchmarkScores.load(score);
+		SidDriverBackend driver = SidDriverRegistry.load().find("sidscore").orElseThrow();
+		Path work = Files.createTempDirectory("sidscore-bench-regs");
+		try {
+			Path asm = work.resolve("tune.asm");
+			Path prg = work.resolve("tune.prg");
+			driver.writeAsm(timed, asm, false);
+			new SIDScoreExporter().assemble(asm, prg, driver.id(), driver.psidAddresses());
+			stream = driver.recordRegisters(timed, prg);
+			Files.deleteIfExists(asm);
+			Files.deleteIfExists(prg);
+		} finally {
+			Files.deleteIfExists(work);
+		}
+		wavOut = Files.createTempFile("sidscore-bench", ".wav");
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(wavOut);
+	}
+
+	@Benchmark
+	public long renderIr(Counters counters) {
+		return count(player.renderToWav(timed, wavOut), counters);
+	}
+
+	@Benchmark
+	public long renderStream(Counters counters) {
+		return count(player.renderToWav(stream, wavOut), counters);
+	}
+
+	private static long count(RealtimeAudioPlayer.RenderStats stats, Counters counters) {
+		counters.samples += stats.samples();
+		counters.realtime += stats.seconds();
+		return stats.samples();
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package net.resheim.sidscore.ir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.resheim.sidscore.sid.SidModel;
+
+/**
+ * Offline render throughput of {@link RealtimeAudioPlayer} over the bundled
+ * corpus. Besides renders/s, the {@code samples} counter reports output
+ * samples per second and {@code realtime} reports seconds of audio rendered
+ * per second, i.e. the × realtime factor.
+ * <p>
+ * Narrow a run with JMH parameters, for example
+ * {@code -p variant=AS_IS -p model=MOS6581}. The {@code oscillators}
+ * parameter compares oversampled voices against band-limited ones rendered
+ * at the output rate, {@code filterModel} the Chamberlin filter against the
+ * ZDF one, and {@code core} the floating-point oscillator and envelope core
+ * against the fixed-point one.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderThroughputBenchmark {
+	@Param({ "examples/test.sidscore", "examples/J.S.Bach/bwv794_demo.sidscore",
+			"examples/games/Scooby_Doo.sidscore", "examples/sfx/effects.sidscore", "tests/sync_ring.sidscore" })
+	public String score;
+
+	@Param
+	public BenchmarkScores.Variant variant;
+
+	@Param({ "MOS6581", "MOS8580" })
+	public SidModel model;
+
+	@Param
+	public RealtimeAudioPlayer.OscillatorMode oscillators;
+
+	@Param
+	public RealtimeAudioPlayer.FilterModel filterModel;
+
+	@Param
+	public RealtimeAudioPlayer.SynthesisCore core;
+
+	private RealtimeAudioPlayer player;
+	private SIDScoreIR.TimedScore timed;
+	private Path wavOut;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long samples;
+		public double realtime;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			samples = 0;
+			realtime = 0.0;
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		player = new RealtimeAudioPlayer(model);
+		player.setOscillatorMode(oscillators);
+		player.setFilterModel(filterModel);
+		player.setSynthesisCore(core);
+		timed = BenchmarkScores.apply(BenchmarkScores.load(score), variant);
+		wavOut = Files.createTempFile("sidscore-bench", ".wav");
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(wavOut);
+	}
+
+	@Benchmark
+	public long render(Counters counters) {
+		RealtimeAudioPlayer.RenderStats stats = player.renderToWav(timed, wavOut);
+		counters.samples += stats.samples();
+		counters.realtime += stats.seconds();
+		return stats.samples();
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package net.resheim.sidscore.ir;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.resheim.sidscore.sid.SidModel;
+import net.resheim.sidscore.sid.SidWaveforms;
+
+/**
+ * Renders one 512-sample output block of three sustained voices through
+ * {@link RealtimeAudioPlayer.ChipSession}, the loop shared by live and offline
+ * rendering. Run with {@code -prof gc}; {@code gc.alloc.rate.norm} should stay
+ * at 0 B/op once the voices have reached their sustain phase.
+ * <p>
+ * The {@code kernel} parameter compares the sample-by-sample loop used for
+ * live MIDI input against the block renderer with scalar and Vector API
+ * arithmetic; the fork adds the incubator module for the latter, which also
+ * needs the main module built with the {@code vector} profile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+@State(Scope.Thread)
+public class SteadyStateRenderBenchmark {
+	@Param({ "interleaved", "scalar", "vector" })
+	public String kernel;
+
+	private final byte[] pcm = new byte[512 * 2];
+	private RealtimeAudioPlayer.ChipSession chip;
+
+	@Setup
+	public void setup() {
+		chip = new RealtimeAudioPlayer.ChipSession(BenchmarkScores.sustainedScore(), null,
+				SidWaveforms.loadTables(SidModel.MOS6581, null));
+		chip.setBlockKernel(switch (kernel) {
+		case "interleaved" -> null;
+		case "scalar" -> BlockKernel.scalar();
+		default -> Objects.requireNonNull(BlockKernel.vector(), "Vector kernel not available; build the main module with -Pvector");
+		});
+		// Run past attack/decay so measurements see the steady sustain phase.
+		for (int i = 0; i < 200; i++) {
+			chip.renderBlock(pcm, null, null);
+		}
+	}
+
+	@Benchmark
+	public byte[] renderBlock() {
+		chip.renderBlock(pcm, null, null);
+		return pcm;
+	}
+}
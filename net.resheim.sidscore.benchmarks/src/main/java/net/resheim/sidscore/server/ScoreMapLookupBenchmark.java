@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package net.resheim.sidscore.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Highlight lookups against a synthetic score map with {@code events} events
+ * on each of the three voices. {@code forward} walks the piece the way
+ * playback telemetry does (three lookups per 512-sample block), {@code seek}
+ * jumps to random frames, and {@code linearScan} is the per-voice list scan
+ * the indexed lookup replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoreMapLookupBenchmark {
+	// 512 samples at 44.1 kHz in PAL frames.
+	private static final double FRAMES_PER_BLOCK = 512 / 44100.0 * 50.124542;
+
+	@Param({ "100", "10000" })
+	public int events;
+
+	private ScoreMapExporter.ScoreMap map;
+	private long totalFrames;
+	private double frame;
+	private long[] seekFrames;
+	private int seekIndex;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		List<ScoreMapExporter.EventEntry> all = new ArrayList<>();
+		Map<Integer, List<ScoreMapExporter.EventEntry>> byVoice = new java.util.LinkedHashMap<>();
+		int id = 1;
+		for (int voice = 1; voice <= 3; voice++) {
+			List<ScoreMapExporter.EventEntry> voiceEvents = new ArrayList<>();
+			long start = 0;
+			for (int i = 0; i < events; i++) {
+				long length = 1 + random.nextInt(24);
+				voiceEvents.add(new ScoreMapExporter.EventEntry(id++, voice, 1, 1, start, start + length, 1, 1, 1, 1, 1,
+						"C4"));
+				start += length;
+			}
+			totalFrames = Math.max(totalFrames, start);
+			all.addAll(voiceEvents);
+			byVoice.put(voice, List.copyOf(voiceEvents));
+		}
+		map = new ScoreMapExporter.ScoreMap(1, List.of(), List.copyOf(all), Map.copyOf(byVoice));
+		seekFrames = new long[1024];
+		for (int i = 0; i < seekFrames.length; i++) {
+			seekFrames[i] = (long) (random.nextDouble() * totalFrames);
+		}
+	}
+
+	@Benchmark
+	public int forward() {
+		long f = nextForwardFrame();
+		return map.activeEventId(1, f) + map.activeEventId(2, f) + map.activeEventId(3, f);
+	}
+
+	@Benchmark
+	public int seek() {
+		long f = seekFrames[seekIndex++ & (seekFrames.length - 1)];
+		return map.activeEventId(1, f) + map.activeEventId(2, f) + map.activeEventId(3, f);
+	}
+
+	@Benchmark
+	public int linearScan() {
+		long f = nextForwardFrame();
+		return scan(1, f) + scan(2, f) + scan(3, f);
+	}
+
+	private long nextForwardFrame() {
+		frame += FRAMES_PER_BLOCK;
+		if (frame >= totalFrames) {
+			frame = 0;
+		}
+		return (long) frame;
+	}
+
+	private int scan(int voice, long f) {
+		for (ScoreMapExporter.EventEntry ev : map.eventsByVoice().get(voice)) {
+			if (f >= ev.startFrame() && f < ev.endFrame()) {
+				return ev.eventId();
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package net.resheim.sidscore;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import net.resheim.sidscore.ir.RealtimeAudioPlayer;
+import net.resheim.sidscore.ir.SIDScoreIR;
+import net.resheim.sidscore.sid.SidModel;
+import net.resheim.sidscore.sid.SidWaveforms;
+
+/**
+ * Renders every {@code .sidscore} file under a directory (or matching a glob)
+ * to WAV, including all TUNE/IMPORT AS subtunes, on a fixed worker pool.
+ * <p>
+ * Waveform tables are loaded once per SID model and shared by all workers.
+ * A line per rendered tune is printed as it completes, and the full summary is
+ * written in input order to {@code batch-summary.tsv} in the output directory.
+ * The exit status is the number of failed files, capped at 255.
+ * </p>
+ */
+public final class SIDScoreBatchRenderer {
+	private static final String USAGE = "Usage: java SIDScoreCLI --batch <dir|glob> [--out <dir>] [--jobs <n>] "
+			+ "[--sid-model <6581|8580>[,<6581|8580>]] [--sid-waveforms <path>]";
+	private static final String SUMMARY_FILE = "batch-summary.tsv";
+
+	private static final record Tune(String label, Path wav, RealtimeAudioPlayer.RenderStats stats,
+			long renderMillis) {
+	}
+
+	private static final record FileResult(Path source, List<Tune> tunes, String error) {
+		boolean failed() {
+			return error != null;
+		}
+	}
+
+	private final Path base;
+	private final List<Path> sources;
+	private final Path outDir;
+	private final int jobs;
+	private final List<SidModel> models;
+	private final Map<SidModel, SidWaveforms.TableSet> tables = new EnumMap<>(SidModel.class);
+
+	SIDScoreBatchRenderer(Path base, List<Path> sources, Path outDir, int jobs, List<SidModel> models,
+			Path sidWaveforms) {
+		this.base = base;
+		this.sources = sources;
+		this.outDir = outDir;
+		this.jobs = jobs;
+		this.models = models;
+		for (SidModel model : models) {
+			tables.put(model, SidWaveforms.loadTables(model, sidWaveforms));
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		String input = null;
+		Path outDir = Path.of("output", "batch");
+		int jobs = Runtime.getRuntime().availableProcessors();
+		List<SidModel> models = new ArrayList<>(List.of(SidModel.MOS6581));
+		Path sidWaveforms = null;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--out" -> outDir = Path.of(requireValue(args, ++i));
+			case "--jobs" -> {
+				try {
+					jobs = Integer.parseInt(requireValue(args, ++i));
+				} catch (NumberFormatException e) {
+					usage("--jobs expects a number");
+				}
+				if (jobs < 1) {
+					usage("--jobs must be at least 1");
+				}
+			}
+			case "--sid-model" -> {
+				models.clear();
+				try {
+					for (String raw : requireValue(args, ++i).split(",")) {
+						SidModel model = SidModel.parse(raw);
+						if (!models.contains(model)) {
+							models.add(model);
+						}
+					}
+				} catch (IllegalArgumentException e) {
+					usage(e.getMessage());
+				}
+			}
+			case "--sid-waveforms" -> sidWaveforms = Path.of(requireValue(args, ++i));
+			default -> {
+				if (args[i].startsWith("--") || input != null) {
+					usage(null);
+				}
+				input = args[i];
+			}
+			}
+		}
+		if (input == null) {
+			usage(null);
+		}
+
+		Path base = globBase(input);
+		List<Path> sources = findSources(input, base);
+		if (sources.isEmpty()) {
+			System.err.println("No .sidscore files found for " + input);
+			System.exit(2);
+		}
+		int failures = new SIDScoreBatchRenderer(base, sources, outDir, jobs, models, sidWaveforms).run();
+		System.exit(Math.min(failures, 255));
+	}
+
+	/**
+	 * Renders all sources and returns the number of files that failed.
+	 */
+	int run() throws IOException, InterruptedException {
+		Files.createDirectories(outDir);
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(jobs, sources.size()), r -> {
+			Thread t = new Thread(r, "sidscore-batch");
+			t.setDaemon(true);
+			return t;
+		});
+		List<FileResult> results = new ArrayList<>();
+		try {
+			List<Future<FileResult>> futures = new ArrayList<>();
+			for (Path source : sources) {
+				futures.add(pool.submit(() -> renderFile(source)));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					results.add(futures.get(i).get());
+				} catch (ExecutionException e) {
+					results.add(new FileResult(sources.get(i), List.of(), describe(e.getCause())));
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		writeSummary(results);
+		int failures = 0;
+		int tunes = 0;
+		double audioSeconds = 0.0;
+		for (FileResult result : results) {
+			if (result.failed()) {
+				failures++;
+			}
+			for (Tune tune : result.tunes()) {
+				tunes++;
+				audioSeconds += tune.stats().seconds();
+			}
+		}
+		double wallSeconds = (System.nanoTime() - start) / 1.0e9;
+		System.out.println(String.format(Locale.ROOT,
+				"Batch: files=%d tunes=%d failed=%d audio=%.1fs wall=%.1fs (%.1fx realtime) jobs=%d summary=%s",
+				results.size(), tunes, failures, audioSeconds, wallSeconds,
+				wallSeconds > 0 ? audioSeconds / wallSeconds : 0.0, Math.min(jobs, sources.size()),
+				outDir.resolve(SUMMARY_FILE)));
+		return failures;
+	}
+
+	private FileResult renderFile(Path source) {
+		List<Tune> rendered = new ArrayList<>();
+		try {
+			SIDScoreCLI.ParsedScore parsed = SIDScoreCLI.parseResolved(source);
+			List<SIDScoreCLI.Tune> tunes = SIDScoreCLI.collectSubtunes(source, parsed, List.of(), false, 1);
+			if (tunes.isEmpty()) {
+				tunes = List.of(new SIDScoreCLI.Tune(source.toString(), parsed.resolved().timedScore()));
+			}
+			Path relative = base.relativize(source.toAbsolutePath().normalize());
+			String stem = stripExtension(relative.toString());
+			for (SidModel model : models) {
+				RealtimeAudioPlayer player = new RealtimeAudioPlayer(model, tables.get(model));
+				for (int t = 0; t < tunes.size(); t++) {
+					StringBuilder name = new StringBuilder(stem);
+					if (tunes.size() > 1) {
+						name.append("-tune").append(t + 1);
+					}
+					if (models.size() > 1) {
+						name.append('-').append(modelSuffix(model));
+					}
+					Path wav = outDir.resolve(name + ".wav");
+					Files.createDirectories(wav.getParent());
+					SIDScoreIR.TimedScore timed = tunes.get(t).timed();
+					long t0 = System.nanoTime();
+					RealtimeAudioPlayer.RenderStats stats = player.renderToWav(timed, wav);
+					long millis = (System.nanoTime() - t0) / 1_000_000L;
+					Tune tune = new Tune(tunes.get(t).source(), wav, stats, millis);
+					rendered.add(tune);
+					System.out.println(String.format(Locale.ROOT, "OK   %s  %.1fs in %dms, peak %.1f dBFS", wav,
+							stats.seconds(), millis, stats.peakDbfs()));
+				}
+			}
+			return new FileResult(source, rendered, null);
+		} catch (Exception | StackOverflowError e) {
+			String error = describe(e);
+			System.out.println("FAIL " + source + "  " + error);
+			return new FileResult(source, rendered, error);
+		}
+	}
+
+	private void writeSummary(List<FileResult> results) throws IOException {
+		try (PrintWriter out = new PrintWriter(
+				Files.newBufferedWriter(outDir.resolve(SUMMARY_FILE), StandardCharsets.UTF_8))) {
+			out.println("status\tsource\ttune\twav\tduration_s\trender_ms\tpeak_dbfs\terror");
+			for (FileResult result : results) {
+				for (Tune tune : result.tunes()) {
+					out.println(String.format(Locale.ROOT, "OK\t%s\t%s\t%s\t%.3f\t%d\t%.2f\t", result.source(),
+							tune.label(), tune.wav(), tune.stats().seconds(), tune.renderMillis(),
+							tune.stats().peakDbfs()));
+				}
+				if (result.failed()) {
+					out.println("FAIL\t" + result.source() + "\t\t\t\t\t\t" + result.error().replace('\t', ' '));
+				}
+			}
+		}
+	}
+
+	static List<Path> findSources(String input, Path base) throws IOException {
+		Path direct = Path.of(input);
+		if (!isGlob(input) && Files.isRegularFile(direct)) {
+			return List.of(direct.toAbsolutePath().normalize());
+		}
+		PathMatcher matcher;
+		if (isGlob(input)) {
+			String pattern = base.relativize(Path.of(input).toAbsolutePath().normalize()).toString();
+			PathMatcher glob = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+			matcher = p -> glob.matches(base.relativize(p));
+		} else {
+			matcher = p -> p.getFileName().toString().endsWith(".sidscore");
+		}
+		if (!Files.isDirectory(base)) {
+			return List.of();
+		}
+		try (Stream<Path> walk = Files.walk(base)) {
+			return walk.map(p -> p.toAbsolutePath().normalize())
+					.filter(Files::isRegularFile)
+					.filter(matcher::matches)
+					.sorted()
+					.toList();
+		}
+	}
+
+	/**
+	 * Returns the directory that relative output paths are computed from: the
+	 * input itself for a directory, its parent for a single file, or the part of
+	 * a glob before the first wildcard.
+	 */
+	static Path globBase(String input) {
+		if (!isGlob(input)) {
+			Path p = Path.of(input).toAbsolutePath().normalize();
+			return Files.isDirectory(p) ? p : p.getParent();
+		}
+		Path prefix = null;
+		for (Path part : Path.of(input)) {
+			if (isGlob(part.toString())) {
+				break;
+			}
+			prefix = prefix == null ? part : prefix.resolve(part);
+		}
+		if (Path.of(input).isAbsolute()) {
+			prefix = prefix == null ? Path.of(input).getRoot() : Path.of(input).getRoot().resolve(prefix);
+		}
+		return (prefix == null ? Path.of("") : prefix).toAbsolutePath().normalize();
+	}
+
+	private static boolean isGlob(String s) {
+		return s.indexOf('*') >= 0 || s.indexOf('?') >= 0 || s.indexOf('[') >= 0 || s.indexOf('{') >= 0;
+	}
+
+	private static String stripExtension(String name) {
+		return name.endsWith(".sidscore") ? name.substring(0, name.length() - ".sidscore".length()) : name;
+	}
+
+	private static String modelSuffix(SidModel model) {
+		return model == SidModel.MOS8580 ? "8580" : "6581";
+	}
+
+	private static String describe(Throwable e) {
+		String message = e.getMessage();
+		return e.getClass().getSimpleName() + (message != null ? ": " + message.lines().findFirst().orElse("") : "");
+	}
+
+	private static String requireValue(String[] args, int i) {
+		if (i >= args.length) {
+			usage(args[i - 1] + " requires a value");
+		}
+		return args[i];
+	}
+
+	private static void usage(String message) {
+		if (message != null) {
+			System.err.println(message);
+		}
+		System.err.println(USAGE);
+		System.exit(2);
+	}
+}
@@ -12,27 +12,36 @@
 package net.resheim.sidscore;
 
 import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
+import net.resheim.sidscore.c64.PsidFile;
+import net.resheim.sidscore.c64.PsidPlayer;
 import net.resheim.sidscore.export.SIDScoreExporter;
+import net.resheim.sidscore.export.driver.RasterTime;
 import net.resheim.sidscore.export.driver.SidDriverBackend;
 import net.resheim.sidscore.export.driver.SidDriverRegistry;
+import net.resheim.sidscore.ir.IrCache;
+import net.resheim.sidscore.ir.MidiLatencyMeter;
 import net.resheim.sidscore.ir.RealtimeAudioPlayer;
+import net.resheim.sidscore.ir.RenderDiff;
 import net.resheim.sidscore.ir.SIDScoreIR;
-import net.resheim.sidscore.ir.ScoreBuildingListener;
 import net.resheim.sidscore.midi.MidiInputRouter;
-import net.resheim.sidscore.parser.SIDScoreLexer;
-import net.resheim.sidscore.parser.SIDScoreParser;
 import net.resheim.sidscore.sid.SidModel;
+import net.resheim.sidscore.sid.SidRegisterStream;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -47,14 +56,30 @@ import java.util.stream.Collectors;
  *   java SIDScoreCLI demo.sidscore
  */ 
   public final class SIDScoreCLI {
-  private static final record ParsedScore(SIDScoreIR.ScoreIR scoreIR, SIDScoreIR.Resolver.Result resolved) {}
+  static final record ParsedScore(SIDScoreIR.ScoreIR scoreIR, SIDScoreIR.Resolver.Result resolved) {}
+
+  static final record Tune(String source, SIDScoreIR.TimedScore timed) {}
 
   private static final String DEFAULT_DRIVER = "sidscore";
+  private static final int RASTERTIME_WORST_FRAMES = 5;
+  private static final int VERIFY_WORST_FRAMES = 5;
+  /** Largest difference --verify-core accepts, relative to the floating-point render's RMS level. */
+  private static final double VERIFY_CORE_BOUND_DB = -90.0;
+  /** Longest recording made by --render-sid when the tune never falls silent. */
+  private static final double RENDER_SID_MAX_SECONDS = 600.0;
+  private static final String[] NOTE_NAMES = { "C", "C#", "D", "D#", "E", "F", "F#", "G", "G#", "A", "A#", "B" };
   private static final String USAGE = "Usage: java SIDScoreCLI <file.sidscore> [--stitch <more.sidscore>]... "
       + "[--wav <out.wav>] [--asm <out.asm>] [--prg <out.prg>] [--sid <out.sid>] [--driver <id>] [--list-drivers] "
       + "[--sid-model <6581|8580>] [--sid-waveforms <path>] [--midi] [--midi-device <index|name>] "
-      + "[--midi-map <voice:channel,...>] [--list-midi-devices] [--no-play]\n"
-      + "       java SIDScoreCLI --player-server [--port <port>]";
+      + "[--midi-map <voice:channel,...>] [--midi-latency] [--list-midi-devices] "
+      + "[--latency <low|balanced|safe>] [--osc <oversampled|band-limited>] [--filter-model <chamberlin|zdf>] [--core <floating-point|fixed-point>] [--block-size <samples>] [--line-buffer <samples>] [--jobs <n>] [--rastertime] [--verify-sid] [--verify-core] [--regs <out.sidregs>] [--no-play]\n"
+      + "       java SIDScoreCLI --render-sid <in.sid|in.sidregs> [--wav <out.wav>] [--regs <out.sidregs>] "
+      + "[--tune <n>] [--seconds <s>] "
+      + "[--sid-model <6581|8580>] [--sid-waveforms <path>] [--osc <oversampled|band-limited>] [--filter-model <chamberlin|zdf>] "
+      + "[--core <floating-point|fixed-point>]\n"
+      + "       java SIDScoreCLI --player-server [--port <port>]\n"
+      + "       java SIDScoreCLI --batch <dir|glob> [--out <dir>] [--jobs <n>] [--sid-model <6581|8580>[,...]] "
+      + "[--sid-waveforms <path>]";
 
   public static void main(String[] args) throws Exception {
     if (args.length > 0 && "--player-server".equals(args[0])) {
@@ -62,6 +87,14 @@ import java.util.stream.Collectors;
       SIDScorePlayerServer.main(serverArgs);
       return;
     }
+    if (args.length > 0 && "--batch".equals(args[0])) {
+      SIDScoreBatchRenderer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    if (args.length > 0 && "--render-sid".equals(args[0])) {
+      renderSid(java.util.Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
 
     SidDriverRegistry driverRegistry = SidDriverRegistry.load();
 
@@ -83,12 +116,24 @@ import java.util.stream.Collectors;
     Path asmOut = null;
     Path prgOut = null;
     Path sidOut = null;
+    Path regsOut = null;
     Path sidWaveforms = null;
     SidModel sidModel = SidModel.MOS6581;
     String driverId = DEFAULT_DRIVER;
     boolean noPlay = false;
     boolean midiEnabled = false;
+    boolean midiLatency = false;
     String midiDeviceSelector = null;
+    RealtimeAudioPlayer.LatencyProfile latencyProfile = RealtimeAudioPlayer.LatencyProfile.BALANCED;
+    RealtimeAudioPlayer.OscillatorMode oscillatorMode = RealtimeAudioPlayer.OscillatorMode.OVERSAMPLED;
+    RealtimeAudioPlayer.FilterModel filterModel = RealtimeAudioPlayer.FilterModel.CHAMBERLIN;
+    RealtimeAudioPlayer.SynthesisCore synthesisCore = RealtimeAudioPlayer.SynthesisCore.FLOATING_POINT;
+    Integer blockSamples = null;
+    Integer lineBufferSamples = null;
+    int jobs = Runtime.getRuntime().availableProcessors();
+    boolean rasterTime = false;
+    boolean verifySid = false;
+    boolean verifyCore = false;
     Map<Integer, Integer> midiVoiceMap = MidiInputRouter.defaultVoiceChannelMap();
     List<Path> stitchInputs = new ArrayList<>();
     for (int i = 1; i < args.length; i++) {
@@ -128,6 +173,13 @@ import java.util.stream.Collectors;
           }
           sidOut = Path.of(args[++i]);
         }
+        case "--regs" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          regsOut = Path.of(args[++i]);
+        }
         case "--sid-model" -> {
           if (i + 1 >= args.length) {
             System.err.println(USAGE);
@@ -164,6 +216,10 @@ import java.util.stream.Collectors;
           return;
         }
         case "--midi" -> midiEnabled = true;
+        case "--midi-latency" -> {
+          midiLatency = true;
+          midiEnabled = true;
+        }
         case "--midi-device" -> {
           if (i + 1 >= args.length) {
             System.err.println(USAGE);
@@ -186,6 +242,96 @@ import java.util.stream.Collectors;
           }
           midiEnabled = true;
         }
+        case "--latency" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            latencyProfile = RealtimeAudioPlayer.LatencyProfile.named(args[++i]);
+          } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+        }
+        case "--osc" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            oscillatorMode = RealtimeAudioPlayer.OscillatorMode.named(args[++i]);
+          } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+        }
+        case "--filter-model" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            filterModel = RealtimeAudioPlayer.FilterModel.named(args[++i]);
+          } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+        }
+        case "--core" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            synthesisCore = RealtimeAudioPlayer.SynthesisCore.named(args[++i]);
+          } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+        }
+        case "--block-size", "--line-buffer" -> {
+          String option = args[i];
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            int samples = Integer.parseInt(args[++i]);
+            if ("--block-size".equals(option)) {
+              blockSamples = samples;
+            } else {
+              lineBufferSamples = samples;
+            }
+          } catch (NumberFormatException e) {
+            System.err.println(option + " expects a number of samples");
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+        }
+        case "--jobs" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            jobs = Integer.parseInt(args[++i]);
+          } catch (NumberFormatException e) {
+            jobs = 0;
+          }
+          if (jobs < 1) {
+            System.err.println("--jobs expects a positive number of threads");
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+        }
+        case "--rastertime" -> rasterTime = true;
+        case "--verify-sid" -> verifySid = true;
+        case "--verify-core" -> verifyCore = true;
         case "--no-play" -> noPlay = true;
         default -> {
           System.err.println(USAGE);
@@ -209,6 +355,11 @@ import java.util.stream.Collectors;
       }
     }
 
+    if (verifySid && sidOut == null) {
+      System.err.println("--verify-sid requires --sid <out.sid>");
+      System.exit(2);
+    }
+
     if (midiEnabled && noPlay) {
       System.err.println("--midi requires realtime playback and cannot be used with --no-play");
       System.exit(2);
@@ -218,8 +369,21 @@ import java.util.stream.Collectors;
       System.exit(2);
     }
 
-    if (noPlay && wavOut == null && asmOut == null && prgOut == null && sidOut == null) {
-      System.err.println("--no-play requires an output option (e.g. --wav, --asm, --prg, --sid)");
+    try {
+      if (blockSamples != null) {
+        latencyProfile = latencyProfile.withBlockSamples(blockSamples);
+      }
+      if (lineBufferSamples != null) {
+        latencyProfile = latencyProfile.withLineBufferSamples(lineBufferSamples);
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(2);
+    }
+
+    if (noPlay && wavOut == null && asmOut == null && prgOut == null && sidOut == null && !rasterTime
+        && regsOut == null && !verifyCore) {
+      System.err.println("--no-play requires an output option (e.g. --wav, --asm, --prg, --sid, --rastertime, --regs)");
       System.exit(2);
     }
 
@@ -236,63 +400,11 @@ import java.util.stream.Collectors;
     }
     List<String> sidBundleSources = new ArrayList<>();
     List<SIDScoreIR.TimedScore> sidBundleTunes = new ArrayList<>();
-    if (sidOut != null && (!scoreIR.subtunes().isEmpty() || !scoreIR.songs().isEmpty() || !stitchInputs.isEmpty())) {
-      Map<Integer, SIDScoreIR.TimedScore> inlineSongs = new TreeMap<>();
-      for (var entry : scoreIR.songs().entrySet()) {
-        int number = entry.getKey();
-        if (number <= 1) {
-          throw new IllegalStateException("TUNE number must be >= 2, got " + number);
-        }
-        SIDScoreIR.ScoreIR inlineScoreIR = buildInlineSongScore(scoreIR, entry.getValue());
-        SIDScoreIR.Resolver.Result inlineResult = new SIDScoreIR.Resolver().resolve(inlineScoreIR);
-        printWarnings(inlineResult, sourcePath + " [TUNE " + number + "]");
-        inlineSongs.put(number, inlineResult.timedScore());
-      }
-
-      Map<Integer, Path> externalSubtunes = new TreeMap<>();
-      for (var entry : scoreIR.subtunes().entrySet()) {
-        int number = entry.getKey();
-        if (number <= 1) {
-          throw new IllegalStateException("IMPORT AS number must be >= 2, got " + number);
-        }
-        if (inlineSongs.containsKey(number)) {
-          throw new IllegalStateException("Duplicate subtune number " + number
-              + " in both TUNE and IMPORT definitions");
-        }
-        externalSubtunes.put(number, entry.getValue().toAbsolutePath().normalize());
-      }
-      int nextImplicitSong = maxSongNumber(inlineSongs, externalSubtunes) + 1;
-      for (Path stitchPath : stitchInputs) {
-        while (inlineSongs.containsKey(nextImplicitSong) || externalSubtunes.containsKey(nextImplicitSong)) {
-          nextImplicitSong++;
-        }
-        externalSubtunes.put(nextImplicitSong, stitchPath.toAbsolutePath().normalize());
-        nextImplicitSong++;
-      }
-      validateContiguousSongs(inlineSongs, externalSubtunes);
-
-      if (!inlineSongs.isEmpty() || !externalSubtunes.isEmpty()) {
-        sidBundleSources.add(sourcePath.toString());
-        sidBundleTunes.add(timed);
-        int maxSong = Math.max(
-            inlineSongs.isEmpty() ? 1 : inlineSongs.keySet().stream().max(Integer::compareTo).orElse(1),
-            externalSubtunes.isEmpty() ? 1 : externalSubtunes.keySet().stream().max(Integer::compareTo).orElse(1));
-        for (int song = 2; song <= maxSong; song++) {
-          SIDScoreIR.TimedScore inlineTimed = inlineSongs.get(song);
-          if (inlineTimed != null) {
-            sidBundleSources.add(sourcePath + " [TUNE " + song + "]");
-            sidBundleTunes.add(inlineTimed);
-            continue;
-          }
-          Path tunePath = externalSubtunes.get(song);
-          if (tunePath == null) {
-            throw new IllegalStateException("Subtune numbers must be contiguous starting at 1 (missing tune " + song + ")");
-          }
-          ParsedScore extra = parseResolved(tunePath);
-          printWarnings(extra.resolved(), tunePath.toString());
-          sidBundleSources.add(tunePath.toString());
-          sidBundleTunes.add(extra.resolved().timedScore());
-        }
+    if ((sidOut != null || rasterTime)
+        && (!scoreIR.subtunes().isEmpty() || !scoreIR.songs().isEmpty() || !stitchInputs.isEmpty())) {
+      for (Tune tune : collectSubtunes(sourcePath, parsed, stitchInputs, true, jobs)) {
+        sidBundleSources.add(tune.source());
+        sidBundleTunes.add(tune.timed());
       }
     }
 
@@ -339,7 +451,7 @@ import java.util.stream.Collectors;
           System.out.println("ASM: " + asmForPrg);
         }
         deleteIfExists(prgForPrg);
-        exporter.assemble(asmForPrg, prgForPrg);
+        exporter.assemble(asmForPrg, prgForPrg, driver.id(), driver.psidAddresses());
         System.out.println("PRG: " + prgForPrg);
         compiledProgram = prgForPrg;
       }
@@ -360,7 +472,7 @@ import java.util.stream.Collectors;
           }
           if (prgForPrg == null || !prgForSid.equals(prgForPrg)) {
             deleteIfExists(prgForSid);
-            exporter.assemble(asmForSid, prgForSid);
+            exporter.assemble(asmForSid, prgForSid, driver.id(), driver.psidAddresses());
             System.out.println("PRG (SID): " + prgForSid);
           }
           compiledProgram = prgForSid;
@@ -369,15 +481,21 @@ import java.util.stream.Collectors;
           System.out.println("SID: " + sidOut);
         } else {
           Path bundleDir = Files.createTempDirectory("sidscore-bundle-");
-          List<Path> tunePrgs = new ArrayList<>();
           try {
+            // Tunes are generated and assembled concurrently; the bundle keeps tune order.
+            List<Callable<Path>> tuneTasks = new ArrayList<>();
             for (int i = 0; i < sidBundleTunes.size(); i++) {
               SIDScoreIR.TimedScore tune = sidBundleTunes.get(i);
               Path tuneAsm = bundleDir.resolve("tune-" + (i + 1) + ".asm");
               Path tunePrg = bundleDir.resolve("tune-" + (i + 1) + ".prg");
-              driver.writeAsm(tune, tuneAsm, false);
-              exporter.assemble(tuneAsm, tunePrg);
-              tunePrgs.add(tunePrg);
+              tuneTasks.add(() -> {
+                driver.writeAsm(tune, tuneAsm, false);
+                exporter.assemble(tuneAsm, tunePrg, driver.id(), driver.psidAddresses());
+                return tunePrg;
+              });
+            }
+            List<Path> tunePrgs = runOrdered(tuneTasks, jobs);
+            for (int i = 0; i < tunePrgs.size(); i++) {
               System.out.println("SID Tune " + (i + 1) + ": " + sidBundleSources.get(i));
             }
             deleteIfExists(sidOut);
@@ -397,28 +515,122 @@ import java.util.stream.Collectors;
       System.out.println();
     }
 
+    if (rasterTime) {
+      if (!driver.supportsSidExport()) {
+        System.err.println("--rastertime requires a driver with SID export: " + driver.id());
+        System.exit(2);
+      }
+      List<SIDScoreIR.TimedScore> tunes = sidBundleTunes.isEmpty() ? List.of(timed) : sidBundleTunes;
+      SIDScoreExporter exporter = new SIDScoreExporter();
+      Path workDir = Files.createTempDirectory("sidscore-rastertime-");
+      try {
+        for (int i = 0; i < tunes.size(); i++) {
+          Path tuneAsm = workDir.resolve("tune-" + (i + 1) + ".asm");
+          Path tunePrg = workDir.resolve("tune-" + (i + 1) + ".prg");
+          driver.writeAsm(tunes.get(i), tuneAsm, false);
+          exporter.assemble(tuneAsm, tunePrg, driver.id(), driver.psidAddresses());
+          if (tunes.size() > 1) {
+            System.out.println("Tune " + (i + 1) + ": " + sidBundleSources.get(i));
+          }
+          printRasterTime(tunes.get(i), driver.measureRasterTime(tunes.get(i), tunePrg));
+        }
+      } finally {
+        deleteRecursively(workDir);
+      }
+      System.out.println();
+    }
+
+    if (regsOut != null) {
+      if (!driver.supportsSidExport()) {
+        System.err.println("--regs requires a driver with SID export: " + driver.id());
+        System.exit(2);
+      }
+      SIDScoreExporter exporter = new SIDScoreExporter();
+      Path workDir = Files.createTempDirectory("sidscore-regs-");
+      try {
+        Path tuneAsm = workDir.resolve("tune.asm");
+        Path tunePrg = workDir.resolve("tune.prg");
+        driver.writeAsm(timed, tuneAsm, false);
+        exporter.assemble(tuneAsm, tunePrg, driver.id(), driver.psidAddresses());
+        SidRegisterStream stream = driver.recordRegisters(timed, tunePrg);
+        deleteIfExists(regsOut);
+        stream.write(regsOut);
+        System.out.println("REGS: " + regsOut + " frames=" + stream.frames() + " writes=" + stream.writes()
+            + " size=" + Files.size(regsOut) + " bytes");
+      } finally {
+        deleteRecursively(workDir);
+      }
+      System.out.println();
+    }
+
+    if (verifySid && Files.exists(sidOut)) {
+      List<SIDScoreIR.TimedScore> tunes = sidBundleTunes.isEmpty() ? List.of(timed) : sidBundleTunes;
+      PsidFile psid = PsidFile.read(sidOut);
+      RealtimeAudioPlayer renderer = createPlayer(sidModel, sidWaveforms, oscillatorMode, filterModel, synthesisCore);
+      for (int i = 0; i < tunes.size(); i++) {
+        if (tunes.size() > 1) {
+          System.out.println("Tune " + (i + 1) + ": " + sidBundleSources.get(i));
+        }
+        short[] reference = renderer.renderPcm(tunes.get(i));
+        double frameRate = psid.ntsc() ? PsidPlayer.FRAME_RATE_NTSC : PsidPlayer.FRAME_RATE_PAL;
+        int frames = (int) Math.ceil(reference.length * frameRate / RealtimeAudioPlayer.sampleRate());
+        SidRegisterStream stream = PsidPlayer.record(psid, i + 1, frames);
+        short[] exported = renderer.renderPcm(stream);
+        printRenderDiff(RenderDiff.compare(reference, exported, RealtimeAudioPlayer.sampleRate(),
+            stream.frameRate(), VERIFY_WORST_FRAMES));
+      }
+      System.out.println();
+    }
+
+    if (verifyCore) {
+      if (oscillatorMode == RealtimeAudioPlayer.OscillatorMode.BAND_LIMITED) {
+        System.out.println("Verify: band-limited oscillators always use the floating-point core");
+      } else {
+        short[] reference = createPlayer(sidModel, sidWaveforms, oscillatorMode, filterModel,
+            RealtimeAudioPlayer.SynthesisCore.FLOATING_POINT).renderPcm(timed);
+        short[] fixed = createPlayer(sidModel, sidWaveforms, oscillatorMode, filterModel,
+            RealtimeAudioPlayer.SynthesisCore.FIXED_POINT).renderPcm(timed);
+        if (!printCoreDiff(reference, fixed)) {
+          System.exit(1);
+        }
+      }
+      System.out.println();
+    }
+
 	// Play music (and optionally capture WAV)
 	if (noPlay) {
 		if (wavOut != null) {
 			deleteIfExists(wavOut);
-			new RealtimeAudioPlayer(sidModel, sidWaveforms).renderToWav(timed, wavOut);
+			createPlayer(sidModel, sidWaveforms, oscillatorMode, filterModel, synthesisCore).renderToWav(timed, wavOut);
 			System.out.println("WAV: " + wavOut);
 		}
 	} else if (wavOut != null) {
 		deleteIfExists(wavOut);
-		new RealtimeAudioPlayer(sidModel, sidWaveforms).play(timed, wavOut);
+		RealtimeAudioPlayer player = createPlayer(sidModel, sidWaveforms, oscillatorMode, filterModel, synthesisCore);
+		player.setLatencyProfile(latencyProfile);
+		player.play(timed, wavOut);
+		printUnderruns(player);
 		System.out.println("WAV: " + wavOut);
 	} else if (midiEnabled) {
-		RealtimeAudioPlayer player = new RealtimeAudioPlayer(sidModel, sidWaveforms);
+		RealtimeAudioPlayer player = createPlayer(sidModel, sidWaveforms, oscillatorMode, filterModel, synthesisCore);
+		player.setLatencyProfile(latencyProfile);
+		MidiLatencyMeter latencyMeter = midiLatency ? new MidiLatencyMeter() : null;
+		player.setMidiLatencyMeter(latencyMeter);
 		try (MidiInputRouter midi = MidiInputRouter.open(midiDeviceSelector, midiVoiceMap)) {
 			Thread shutdownHook = new Thread(() -> {
 				player.stop();
 				midi.close();
+				if (latencyMeter != null) {
+					System.out.println("MIDI latency (note-on to audio line): " + latencyMeter.summary().format());
+					System.out.println("MIDI events dropped (render thread behind): " + midi.droppedEvents());
+				}
+				printUnderruns(player);
 			}, "sidscore-midi-shutdown");
 			Runtime.getRuntime().addShutdownHook(shutdownHook);
 			try {
 				System.out.println("MIDI Input: " + midi.deviceName());
 				System.out.println("MIDI Map: " + formatMidiMap(midi.voiceChannelMap()));
+				System.out.println("Audio Latency: " + latencyProfile);
 				System.out.println("MIDI playback active. Press Ctrl+C to stop.");
 				player.play(timed, midi);
 			} finally {
@@ -434,7 +646,10 @@ import java.util.stream.Collectors;
 			System.exit(1);
 		}
 	} else {
-		new RealtimeAudioPlayer(sidModel, sidWaveforms).play(timed);
+		RealtimeAudioPlayer player = createPlayer(sidModel, sidWaveforms, oscillatorMode, filterModel, synthesisCore);
+		player.setLatencyProfile(latencyProfile);
+		player.play(timed);
+		printUnderruns(player);
 	}
 
     System.out.println("Title: " + timed.title().orElse("(none)"));
@@ -456,21 +671,133 @@ import java.util.stream.Collectors;
     }
   }
 
-  private static ParsedScore parseResolved(Path sourcePath) throws Exception {
-    String src = Files.readString(sourcePath);
+  /**
+   * Resolves inline TUNE blocks, IMPORT AS subtunes and stitched inputs into
+   * tune order, starting with the main score as tune 1. Returns an empty list
+   * when there are no subtunes. Subtunes are parsed and resolved on up to
+   * {@code jobs} threads; warnings are still printed in tune order.
+   */
+  static List<Tune> collectSubtunes(Path sourcePath, ParsedScore parsed, List<Path> stitchInputs,
+                                    boolean warnings, int jobs) throws Exception {
+    SIDScoreIR.ScoreIR scoreIR = parsed.scoreIR();
+    List<Tune> tunes = new ArrayList<>();
+    Map<Integer, SIDScoreIR.TimedScore> inlineSongs = new TreeMap<>();
+    List<Integer> inlineNumbers = new ArrayList<>();
+    List<Callable<SIDScoreIR.Resolver.Result>> inlineTasks = new ArrayList<>();
+    for (var entry : scoreIR.songs().entrySet()) {
+      int number = entry.getKey();
+      if (number <= 1) {
+        throw new IllegalStateException("TUNE number must be >= 2, got " + number);
+      }
+      SIDScoreIR.SongIR song = entry.getValue();
+      inlineNumbers.add(number);
+      inlineTasks.add(() -> new SIDScoreIR.Resolver().resolve(buildInlineSongScore(scoreIR, song)));
+    }
+    List<SIDScoreIR.Resolver.Result> inlineResults = runOrdered(inlineTasks, jobs);
+    for (int i = 0; i < inlineResults.size(); i++) {
+      int number = inlineNumbers.get(i);
+      SIDScoreIR.Resolver.Result inlineResult = inlineResults.get(i);
+      if (warnings) {
+        printWarnings(inlineResult, sourcePath + " [TUNE " + number + "]");
+      }
+      inlineSongs.put(number, inlineResult.timedScore());
+    }
 
-    SIDScoreLexer lexer = new SIDScoreLexer(CharStreams.fromString(src));
-    CommonTokenStream tokens = new CommonTokenStream(lexer);
-    SIDScoreParser parser = new SIDScoreParser(tokens);
+    Map<Integer, Path> externalSubtunes = new TreeMap<>();
+    for (var entry : scoreIR.subtunes().entrySet()) {
+      int number = entry.getKey();
+      if (number <= 1) {
+        throw new IllegalStateException("IMPORT AS number must be >= 2, got " + number);
+      }
+      if (inlineSongs.containsKey(number)) {
+        throw new IllegalStateException("Duplicate subtune number " + number
+            + " in both TUNE and IMPORT definitions");
+      }
+      externalSubtunes.put(number, entry.getValue().toAbsolutePath().normalize());
+    }
+    int nextImplicitSong = maxSongNumber(inlineSongs, externalSubtunes) + 1;
+    for (Path stitchPath : stitchInputs) {
+      while (inlineSongs.containsKey(nextImplicitSong) || externalSubtunes.containsKey(nextImplicitSong)) {
+        nextImplicitSong++;
+      }
+      externalSubtunes.put(nextImplicitSong, stitchPath.toAbsolutePath().normalize());
+      nextImplicitSong++;
+    }
+    validateContiguousSongs(inlineSongs, externalSubtunes);
 
-    parser.removeErrorListeners();
-    parser.addErrorListener(new ThrowingErrorListener());
+    if (!inlineSongs.isEmpty() || !externalSubtunes.isEmpty()) {
+      tunes.add(new Tune(sourcePath.toString(), parsed.resolved().timedScore()));
+      int maxSong = Math.max(
+          inlineSongs.isEmpty() ? 1 : inlineSongs.keySet().stream().max(Integer::compareTo).orElse(1),
+          externalSubtunes.isEmpty() ? 1 : externalSubtunes.keySet().stream().max(Integer::compareTo).orElse(1));
+      List<Callable<ParsedScore>> externalTasks = new ArrayList<>();
+      for (int song = 2; song <= maxSong; song++) {
+        Path tunePath = externalSubtunes.get(song);
+        if (!inlineSongs.containsKey(song) && tunePath != null) {
+          externalTasks.add(() -> parseResolved(tunePath));
+        }
+      }
+      Iterator<ParsedScore> externalResults = runOrdered(externalTasks, jobs).iterator();
+      for (int song = 2; song <= maxSong; song++) {
+        SIDScoreIR.TimedScore inlineTimed = inlineSongs.get(song);
+        if (inlineTimed != null) {
+          tunes.add(new Tune(sourcePath + " [TUNE " + song + "]", inlineTimed));
+          continue;
+        }
+        Path tunePath = externalSubtunes.get(song);
+        if (tunePath == null) {
+          throw new IllegalStateException("Subtune numbers must be contiguous starting at 1 (missing tune " + song + ")");
+        }
+        ParsedScore extra = externalResults.next();
+        if (warnings) {
+          printWarnings(extra.resolved(), tunePath.toString());
+        }
+        tunes.add(new Tune(tunePath.toString(), extra.resolved().timedScore()));
+      }
+    }
+    return tunes;
+  }
 
-    ParseTree tree = parser.file();
-    ScoreBuildingListener builder = new ScoreBuildingListener(sourcePath);
-    ParseTreeWalker.DEFAULT.walk(builder, tree);
+  /**
+   * Runs {@code tasks} on up to {@code jobs} threads and returns their results
+   * in task order. The first failure in task order is rethrown.
+   */
+  static <T> List<T> runOrdered(List<Callable<T>> tasks, int jobs) throws Exception {
+    List<T> results = new ArrayList<>(tasks.size());
+    if (jobs <= 1 || tasks.size() <= 1) {
+      for (Callable<T> task : tasks) {
+        results.add(task.call());
+      }
+      return results;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(jobs, tasks.size()), r -> {
+      Thread t = new Thread(r, "sidscore-subtune");
+      t.setDaemon(true);
+      return t;
+    });
+    try {
+      List<Future<T>> futures = new ArrayList<>();
+      for (Callable<T> task : tasks) {
+        futures.add(pool.submit(task));
+      }
+      for (Future<T> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception cause) {
+            throw cause;
+          }
+          throw e;
+        }
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 
-    SIDScoreIR.ScoreIR scoreIR = builder.buildScoreIR();
+  static ParsedScore parseResolved(Path sourcePath) throws Exception {
+    SIDScoreIR.ScoreIR scoreIR = IrCache.load(sourcePath, new ThrowingErrorListener());
     SIDScoreIR.Resolver.Result resolved = new SIDScoreIR.Resolver().resolve(scoreIR);
     return new ParsedScore(scoreIR, resolved);
   }
@@ -575,6 +902,14 @@ import java.util.stream.Collectors;
     }
   }
 
+  private static void printUnderruns(RealtimeAudioPlayer player) {
+    RealtimeAudioPlayer.AudioLineStats stats = player.audioLineStats();
+    if (stats.underruns() > 0) {
+      System.out.println("Audio underruns: " + stats.underruns() + " (line buffer grown " + stats.bufferGrowths()
+          + "x to " + stats.lineBufferSamples() + " samples)");
+    }
+  }
+
   private static void printMidiDevices() {
     List<MidiInputRouter.InputDevice> devices = MidiInputRouter.listInputDevices();
     if (devices.isEmpty()) {
@@ -638,6 +973,280 @@ import java.util.stream.Collectors;
     return (bytes[0] & 0xFF) | ((bytes[1] & 0xFF) << 8);
   }
 
+  private static void printRasterTime(SIDScoreIR.TimedScore score, RasterTime report) {
+    int budget = report.frameCycles();
+    System.out.println("Rastertime: " + report.frames() + " frames, " + report.system() + " budget " + budget
+        + " cycles/frame");
+    System.out.println("Init: " + report.initCycles() + " cycles");
+    if (report.frames() == 0) {
+      System.out.println("Play: not measured, the tune has no voice events");
+      return;
+    }
+    System.out.printf(Locale.ROOT, "Play: min=%d avg=%.1f p99=%d max=%d cycles (max %.1f raster lines, %.1f%% of frame)%n",
+        report.min(), report.average(), report.percentile(99), report.max(),
+        report.max() / (double) report.lineCycles(),
+        report.max() * 100.0 / budget);
+    int[] worst = report.worstFrames(RASTERTIME_WORST_FRAMES);
+    if (worst.length > 0) {
+      System.out.println("Worst frames:");
+    }
+    for (int frame : worst) {
+      List<String> events = new ArrayList<>();
+      for (RasterTime.FrameSource source : RasterTime.sourcesAt(score, frame)) {
+        if (source.starts()) {
+          events.add("V" + source.voice() + " " + describeEvent(source.timed()) + " (event " + source.event()
+              + ", tick " + source.startTick() + ")");
+        }
+      }
+      System.out.println("  frame " + frame + ": " + report.cycles(frame) + " cycles"
+          + (events.isEmpty() ? "" : " <- " + String.join(", ", events)));
+    }
+  }
+
+  private static void printRenderDiff(RenderDiff diff) {
+    System.out.println(String.format(Locale.ROOT,
+        "Verify: score vs. exported SID, level difference %.1f dB (reference RMS %.4f, difference RMS %.4f)",
+        diff.differenceDb(), diff.referenceRms(), diff.differenceRms()));
+    System.out.println(String.format(Locale.ROOT,
+        "  Alignment: SID lags by %d frame(s), %d frames compared, length differs by %+d frames",
+        diff.lagFrames(), diff.comparedFrames(), diff.lengthDifference()));
+    if (diff.worstWindows().isEmpty()) {
+      return;
+    }
+    System.out.println("  Worst frames:");
+    for (RenderDiff.Window window : diff.worstWindows()) {
+      System.out.println(String.format(Locale.ROOT, "    frame %d (%.2f s): score %.4f, SID %.4f", window.frame(),
+          window.frame() / diff.frameRate(), window.referenceLevel(), window.candidateLevel()));
+    }
+  }
+
+  /**
+   * Compares the fixed-point render against the floating-point one sample by
+   * sample. The two may differ where a phase lands on the other side of a
+   * waveform step, so the check bounds the RMS of the difference rather than
+   * its peak. Returns whether it is within {@link #VERIFY_CORE_BOUND_DB}.
+   */
+  private static boolean printCoreDiff(short[] reference, short[] fixed) {
+    int n = Math.min(reference.length, fixed.length);
+    int differing = 0;
+    int peak = 0;
+    double referenceSum = 0.0;
+    double differenceSum = 0.0;
+    for (int i = 0; i < n; i++) {
+      int d = Math.abs(fixed[i] - reference[i]);
+      if (d != 0) {
+        differing++;
+        peak = Math.max(peak, d);
+      }
+      referenceSum += (double) reference[i] * reference[i];
+      differenceSum += (double) d * d;
+    }
+    double differenceDb = differenceSum == 0.0 ? Double.NEGATIVE_INFINITY
+        : 10.0 * Math.log10(differenceSum / Math.max(referenceSum, 1.0));
+    boolean ok = reference.length == fixed.length && differenceDb <= VERIFY_CORE_BOUND_DB;
+    System.out.println(String.format(Locale.ROOT,
+        "Verify: fixed-point vs. floating-point core, difference %.1f dB (bound %.0f dB): %s", differenceDb,
+        VERIFY_CORE_BOUND_DB, ok ? "OK" : "FAILED"));
+    System.out.println(String.format(Locale.ROOT, "  %d of %d samples differ, peak difference %d LSB", differing, n,
+        peak));
+    if (reference.length != fixed.length) {
+      System.out.println(String.format(Locale.ROOT, "  Length differs by %+d samples",
+          fixed.length - reference.length));
+    }
+    return ok;
+  }
+
+  /**
+   * {@code --render-sid}: plays a PSID file on the built-in 6502 and renders
+   * its SID register writes to WAV, without VICE. The writes can also be
+   * saved with {@code --regs}, and a saved stream can be rendered in place
+   * of the PSID file.
+   */
+  private static void renderSid(String[] args) throws Exception {
+    if (args.length < 1 || args[0].startsWith("--")) {
+      System.err.println(USAGE);
+      System.exit(2);
+    }
+    Path sidIn = Path.of(args[0]);
+    Path wavOut = null;
+    Path regsOut = null;
+    Integer tune = null;
+    double seconds = 0.0;
+    SidModel sidModel = SidModel.MOS6581;
+    Path sidWaveforms = null;
+    RealtimeAudioPlayer.OscillatorMode oscillatorMode = RealtimeAudioPlayer.OscillatorMode.OVERSAMPLED;
+    RealtimeAudioPlayer.FilterModel filterModel = RealtimeAudioPlayer.FilterModel.CHAMBERLIN;
+    RealtimeAudioPlayer.SynthesisCore synthesisCore = RealtimeAudioPlayer.SynthesisCore.FLOATING_POINT;
+    for (int i = 1; i < args.length; i++) {
+      switch (args[i]) {
+        case "--wav" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          wavOut = Path.of(args[++i]);
+        }
+        case "--regs" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          regsOut = Path.of(args[++i]);
+        }
+        case "--tune" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            tune = Integer.parseInt(args[++i]);
+          } catch (NumberFormatException e) {
+            System.err.println("--tune expects a tune number");
+            System.exit(2);
+          }
+        }
+        case "--seconds" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            seconds = Double.parseDouble(args[++i]);
+          } catch (NumberFormatException e) {
+            seconds = -1.0;
+          }
+          if (!(seconds > 0.0)) {
+            System.err.println("--seconds expects a positive duration");
+            System.exit(2);
+          }
+        }
+        case "--sid-model" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            sidModel = SidModel.parse(args[++i]);
+          } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+          }
+        }
+        case "--sid-waveforms" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          sidWaveforms = Path.of(args[++i]);
+        }
+        case "--osc" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            oscillatorMode = RealtimeAudioPlayer.OscillatorMode.named(args[++i]);
+          } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+          }
+        }
+        case "--filter-model" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            filterModel = RealtimeAudioPlayer.FilterModel.named(args[++i]);
+          } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+          }
+        }
+        case "--core" -> {
+          if (i + 1 >= args.length) {
+            System.err.println(USAGE);
+            System.exit(2);
+          }
+          try {
+            synthesisCore = RealtimeAudioPlayer.SynthesisCore.named(args[++i]);
+          } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+          }
+        }
+        default -> {
+          System.err.println(USAGE);
+          System.exit(2);
+        }
+      }
+    }
+    if (wavOut == null && regsOut == null) {
+      System.err.println("--render-sid requires an output option (--wav <out.wav> or --regs <out.sidregs>)");
+      System.exit(2);
+    }
+
+    if (!Files.isRegularFile(sidIn)) {
+      System.err.println("SID file not found: " + sidIn);
+      System.exit(1);
+    }
+    SidRegisterStream stream;
+    try {
+      if (SidRegisterStream.isStream(sidIn)) {
+        stream = SidRegisterStream.read(sidIn);
+        System.out.println("Register stream: " + sidIn);
+      } else {
+        PsidFile psid = PsidFile.read(sidIn);
+        int song = tune != null ? tune : psid.startSong();
+        double frameRate = psid.ntsc() ? PsidPlayer.FRAME_RATE_NTSC : PsidPlayer.FRAME_RATE_PAL;
+        stream = seconds > 0.0
+            ? PsidPlayer.record(psid, song, (int) Math.ceil(seconds * frameRate))
+            : PsidPlayer.recordUntilSilent(psid, song, (int) Math.ceil(RENDER_SID_MAX_SECONDS * frameRate));
+        System.out.println("SID: " + sidIn + " tune " + song + "/" + psid.songs()
+            + (psid.title().isEmpty() ? "" : " (" + psid.title() + ")"));
+      }
+    } catch (java.io.IOException e) {
+      System.err.println("Cannot play " + sidIn + ": " + e.getMessage());
+      System.exit(1);
+      return;
+    }
+    System.out.println(String.format(Locale.ROOT, "Frames: %d at %.2f Hz, %d register writes", stream.frames(),
+        stream.frameRate(), stream.writes()));
+    if (regsOut != null) {
+      deleteIfExists(regsOut);
+      stream.write(regsOut);
+      System.out.println("REGS: " + regsOut + " (" + Files.size(regsOut) + " bytes)");
+    }
+    if (wavOut != null) {
+      deleteIfExists(wavOut);
+      RealtimeAudioPlayer.RenderStats stats = createPlayer(sidModel, sidWaveforms, oscillatorMode, filterModel,
+          synthesisCore).renderToWav(stream, wavOut);
+      System.out.println(String.format(Locale.ROOT, "WAV: %s (%.2f s, peak %.1f dBFS)", wavOut, stats.seconds(),
+          stats.peakDbfs()));
+    }
+  }
+
+  private static RealtimeAudioPlayer createPlayer(SidModel sidModel, Path sidWaveforms,
+      RealtimeAudioPlayer.OscillatorMode oscillatorMode, RealtimeAudioPlayer.FilterModel filterModel,
+      RealtimeAudioPlayer.SynthesisCore synthesisCore) {
+    RealtimeAudioPlayer player = new RealtimeAudioPlayer(sidModel, sidWaveforms);
+    player.setOscillatorMode(oscillatorMode);
+    player.setFilterModel(filterModel);
+    player.setSynthesisCore(synthesisCore);
+    return player;
+  }
+
+  private static String describeEvent(SIDScoreIR.TimedEvent event) {
+    return switch (event.type()) {
+      case NOTE -> {
+        int midi = event.pitchMidi().orElse(0);
+        yield "NOTE " + NOTE_NAMES[Math.floorMod(midi, 12)] + (Math.floorDiv(midi, 12) - 1);
+      }
+      case NOISE -> "NOISE";
+      case REST -> "REST";
+    };
+  }
+
   private static String hex4(int v) {
     return String.format("%04x", v & 0xFFFF);
   }
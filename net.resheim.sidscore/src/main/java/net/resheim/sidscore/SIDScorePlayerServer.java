@@ -28,16 +28,13 @@ import java.util.concurrent.atomic.AtomicLong;
 import javax.sound.sampled.LineUnavailableException;
 
 import org.antlr.v4.runtime.BaseErrorListener;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import net.resheim.sidscore.ir.RealtimeAudioPlayer;
 import net.resheim.sidscore.ir.SIDScoreIR;
 import net.resheim.sidscore.ir.ScoreBuildingListener;
-import net.resheim.sidscore.parser.SIDScoreLexer;
+import net.resheim.sidscore.ir.ScoreParsing;
 import net.resheim.sidscore.parser.SIDScoreParser;
 import net.resheim.sidscore.server.ScoreMapExporter;
 import net.resheim.sidscore.server.SrapProtocol;
@@ -65,6 +62,7 @@ public final class SIDScorePlayerServer {
 
 	private volatile boolean running = true;
 	private volatile int clientCapabilities = SrapProtocol.CAP_ALL;
+	private volatile RealtimeAudioPlayer.LatencyProfile latencyProfile = RealtimeAudioPlayer.LatencyProfile.BALANCED;
 	private volatile int playbackState = SrapProtocol.STATE_IDLE;
 	private volatile long currentScoreId = 0;
 	private volatile ScoreMapExporter.ScoreMap currentScoreMap = null;
@@ -154,6 +152,7 @@ public final class SIDScorePlayerServer {
 		int minVersion = in.u16();
 		int maxVersion = in.u16();
 		int caps = (int) in.u32();
+		int latency = in.remaining() > 0 ? in.u8() : SrapProtocol.LATENCY_DEFAULT;
 		if (minVersion > SrapProtocol.VERSION || maxVersion < SrapProtocol.VERSION) {
 			enqueueError(0, SrapProtocol.ERR_UNSUPPORTED_VERSION, "Unsupported client protocol range from " + clientName,
 					true);
@@ -161,10 +160,19 @@ public final class SIDScorePlayerServer {
 			return;
 		}
 		clientCapabilities = caps & SrapProtocol.CAP_ALL;
+		latencyProfile = switch (latency) {
+		case SrapProtocol.LATENCY_LOW -> RealtimeAudioPlayer.LatencyProfile.LOW;
+		case SrapProtocol.LATENCY_BALANCED -> RealtimeAudioPlayer.LatencyProfile.BALANCED;
+		case SrapProtocol.LATENCY_SAFE -> RealtimeAudioPlayer.LatencyProfile.SAFE;
+		// LATENCY_DEFAULT and values from newer clients.
+		default -> RealtimeAudioPlayer.LatencyProfile.BALANCED;
+		};
 		byte[] payload = SrapProtocol.payload()
 				.u16(SrapProtocol.VERSION)
 				.u32(SrapProtocol.CAP_ALL)
 				.str("SIDScore Player Server")
+				.u16(latencyProfile.blockSamples())
+				.u32(latencyProfile.lineBufferSamples())
 				.toByteArray();
 		enqueue(SrapProtocol.HELLO_ACK, payload, true);
 		sendAllInstrumentStates(0, true);
@@ -285,6 +293,7 @@ public final class SIDScorePlayerServer {
 		sendSilentVoiceState(scoreId, true);
 
 		RealtimeAudioPlayer player = new RealtimeAudioPlayer(loaded.sidModel());
+		player.setLatencyProfile(latencyProfile);
 		currentPlayer = player;
 		Thread thread = new Thread(() -> runPlayer(requestId, scoreId, player, timed),
 				"sidscore-srap-player");
@@ -458,15 +467,9 @@ public final class SIDScorePlayerServer {
 	}
 
 	private ParsedScore parse(Path sourcePath, String sourceText) throws Exception {
-		SIDScoreLexer lexer = new SIDScoreLexer(CharStreams.fromString(sourceText != null ? sourceText : ""));
-		CommonTokenStream tokens = new CommonTokenStream(lexer);
-		SIDScoreParser parser = new SIDScoreParser(tokens);
-		parser.removeErrorListeners();
-		parser.addErrorListener(new ThrowingErrorListener());
-
-		SIDScoreParser.FileContext tree = parser.file();
+		SIDScoreParser.FileContext tree = ScoreParsing.parse(sourceText, new ThrowingErrorListener());
 		ScoreBuildingListener builder = new ScoreBuildingListener(sourcePath);
-		ParseTreeWalker.DEFAULT.walk(builder, tree);
+		ScoreBuildingListener.WALKER.walk(builder, tree);
 		SIDScoreIR.ScoreIR scoreIR = builder.buildScoreIR();
 		SIDScoreIR.Resolver.Result resolved = new SIDScoreIR.Resolver().resolve(scoreIR);
 		return new ParsedScore(tree, resolved.timedScore());
@@ -0,0 +1,543 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.c64;
+
+/**
+ * Cycle-counting NMOS 6502 core for running exported driver code.
+ * <p>
+ * Executes all documented opcodes, including decimal mode, with their cycle
+ * counts and the extra cycles for page-crossing indexed reads and taken
+ * branches. Memory is a flat 64 KiB of RAM without ROMs or bank switching,
+ * which is what a PSID player gives the tune; writes to the I/O area
+ * {@code $D000-$DFFF} are stored as well and reported to an
+ * {@link IoListener}, so SID register writes can be observed. Undocumented
+ * opcodes stop execution with an {@link IllegalStateException}.
+ * </p>
+ */
+public final class Mos6502 {
+	/**
+	 * Receives writes to {@code $D000-$DFFF}.
+	 */
+	@FunctionalInterface
+	public interface IoListener {
+		/**
+		 * @param cycle the cycle count at the end of the writing instruction
+		 */
+		void write(int address, int value, long cycle);
+	}
+
+	/** Return address used by {@link #call}; execution stops when it is reached. */
+	private static final int RETURN_TRAP = 0x0000;
+
+	private final byte[] memory = new byte[0x10000];
+	private IoListener ioListener;
+
+	private int a;
+	private int x;
+	private int y;
+	private int sp = 0xFF;
+	private int pc;
+	private boolean carry;
+	private boolean zero;
+	private boolean interruptDisable;
+	private boolean decimal;
+	private boolean overflow;
+	private boolean negative;
+	private long cycles;
+
+	public void setIoListener(IoListener listener) {
+		this.ioListener = listener;
+	}
+
+	/**
+	 * Copies a C64 PRG image (two byte load address followed by data) into
+	 * memory.
+	 *
+	 * @return the load address
+	 */
+	public int loadPrg(byte[] prg) {
+		if (prg.length < 2) {
+			throw new IllegalArgumentException("PRG too small");
+		}
+		int load = (prg[0] & 0xFF) | ((prg[1] & 0xFF) << 8);
+		if (load + prg.length - 2 > memory.length) {
+			throw new IllegalArgumentException("PRG does not fit in memory");
+		}
+		System.arraycopy(prg, 2, memory, load, prg.length - 2);
+		return load;
+	}
+
+	public int peek(int address) {
+		return memory[address & 0xFFFF] & 0xFF;
+	}
+
+	public void poke(int address, int value) {
+		memory[address & 0xFFFF] = (byte) value;
+	}
+
+	/**
+	 * Total cycles executed so far.
+	 */
+	public long cycles() {
+		return cycles;
+	}
+
+	/**
+	 * Calls the subroutine at {@code address} with {@code accumulator} in A
+	 * and X and Y cleared, the way a SID player calls {@code init} and
+	 * {@code play}, and runs until it returns.
+	 *
+	 * @return the cycles used, from the first instruction up to and including
+	 *         the final {@code RTS}
+	 * @throws IllegalStateException if the routine does not return within
+	 *                               {@code maxCycles} or executes an
+	 *                               unsupported opcode
+	 */
+	public long call(int address, int accumulator, long maxCycles) {
+		int entrySp = sp;
+		push((RETURN_TRAP - 1) >> 8 & 0xFF);
+		push((RETURN_TRAP - 1) & 0xFF);
+		a = accumulator & 0xFF;
+		x = 0;
+		y = 0;
+		pc = address & 0xFFFF;
+		long start = cycles;
+		while (pc != RETURN_TRAP || sp != entrySp) {
+			if (cycles - start > maxCycles) {
+				throw new IllegalStateException("Routine at $" + hex4(address) + " did not return within "
+						+ maxCycles + " cycles (PC $" + hex4(pc) + ")");
+			}
+			step();
+		}
+		return cycles - start;
+	}
+
+	/**
+	 * Executes one instruction.
+	 *
+	 * @return the cycles it took
+	 */
+	public int step() {
+		long start = cycles;
+		int opPc = pc;
+		int op = fetch();
+		switch (op) {
+		// Loads and stores
+		case 0xA9 -> { a = nz(fetch()); cycles += 2; }
+		case 0xA5 -> { a = nz(read(zp())); cycles += 3; }
+		case 0xB5 -> { a = nz(read(zpX())); cycles += 4; }
+		case 0xAD -> { a = nz(read(abs())); cycles += 4; }
+		case 0xBD -> { a = nz(read(absX(true))); cycles += 4; }
+		case 0xB9 -> { a = nz(read(absY(true))); cycles += 4; }
+		case 0xA1 -> { a = nz(read(indX())); cycles += 6; }
+		case 0xB1 -> { a = nz(read(indY(true))); cycles += 5; }
+		case 0xA2 -> { x = nz(fetch()); cycles += 2; }
+		case 0xA6 -> { x = nz(read(zp())); cycles += 3; }
+		case 0xB6 -> { x = nz(read(zpY())); cycles += 4; }
+		case 0xAE -> { x = nz(read(abs())); cycles += 4; }
+		case 0xBE -> { x = nz(read(absY(true))); cycles += 4; }
+		case 0xA0 -> { y = nz(fetch()); cycles += 2; }
+		case 0xA4 -> { y = nz(read(zp())); cycles += 3; }
+		case 0xB4 -> { y = nz(read(zpX())); cycles += 4; }
+		case 0xAC -> { y = nz(read(abs())); cycles += 4; }
+		case 0xBC -> { y = nz(read(absX(true))); cycles += 4; }
+		case 0x85 -> { cycles += 3; write(zp(), a); }
+		case 0x95 -> { cycles += 4; write(zpX(), a); }
+		case 0x8D -> { cycles += 4; write(abs(), a); }
+		case 0x9D -> { cycles += 5; write(absX(false), a); }
+		case 0x99 -> { cycles += 5; write(absY(false), a); }
+		case 0x81 -> { cycles += 6; write(indX(), a); }
+		case 0x91 -> { cycles += 6; write(indY(false), a); }
+		case 0x86 -> { cycles += 3; write(zp(), x); }
+		case 0x96 -> { cycles += 4; write(zpY(), x); }
+		case 0x8E -> { cycles += 4; write(abs(), x); }
+		case 0x84 -> { cycles += 3; write(zp(), y); }
+		case 0x94 -> { cycles += 4; write(zpX(), y); }
+		case 0x8C -> { cycles += 4; write(abs(), y); }
+		// Transfers and stack
+		case 0xAA -> { x = nz(a); cycles += 2; }
+		case 0xA8 -> { y = nz(a); cycles += 2; }
+		case 0x8A -> { a = nz(x); cycles += 2; }
+		case 0x98 -> { a = nz(y); cycles += 2; }
+		case 0xBA -> { x = nz(sp); cycles += 2; }
+		case 0x9A -> { sp = x; cycles += 2; }
+		case 0x48 -> { push(a); cycles += 3; }
+		case 0x08 -> { push(status(true)); cycles += 3; }
+		case 0x68 -> { a = nz(pull()); cycles += 4; }
+		case 0x28 -> { setStatus(pull()); cycles += 4; }
+		// Logic and arithmetic
+		case 0x09 -> { a = nz(a | fetch()); cycles += 2; }
+		case 0x05 -> { a = nz(a | read(zp())); cycles += 3; }
+		case 0x15 -> { a = nz(a | read(zpX())); cycles += 4; }
+		case 0x0D -> { a = nz(a | read(abs())); cycles += 4; }
+		case 0x1D -> { a = nz(a | read(absX(true))); cycles += 4; }
+		case 0x19 -> { a = nz(a | read(absY(true))); cycles += 4; }
+		case 0x01 -> { a = nz(a | read(indX())); cycles += 6; }
+		case 0x11 -> { a = nz(a | read(indY(true))); cycles += 5; }
+		case 0x29 -> { a = nz(a & fetch()); cycles += 2; }
+		case 0x25 -> { a = nz(a & read(zp())); cycles += 3; }
+		case 0x35 -> { a = nz(a & read(zpX())); cycles += 4; }
+		case 0x2D -> { a = nz(a & read(abs())); cycles += 4; }
+		case 0x3D -> { a = nz(a & read(absX(true))); cycles += 4; }
+		case 0x39 -> { a = nz(a & read(absY(true))); cycles += 4; }
+		case 0x21 -> { a = nz(a & read(indX())); cycles += 6; }
+		case 0x31 -> { a = nz(a & read(indY(true))); cycles += 5; }
+		case 0x49 -> { a = nz(a ^ fetch()); cycles += 2; }
+		case 0x45 -> { a = nz(a ^ read(zp())); cycles += 3; }
+		case 0x55 -> { a = nz(a ^ read(zpX())); cycles += 4; }
+		case 0x4D -> { a = nz(a ^ read(abs())); cycles += 4; }
+		case 0x5D -> { a = nz(a ^ read(absX(true))); cycles += 4; }
+		case 0x59 -> { a = nz(a ^ read(absY(true))); cycles += 4; }
+		case 0x41 -> { a = nz(a ^ read(indX())); cycles += 6; }
+		case 0x51 -> { a = nz(a ^ read(indY(true))); cycles += 5; }
+		case 0x69 -> { adc(fetch()); cycles += 2; }
+		case 0x65 -> { adc(read(zp())); cycles += 3; }
+		case 0x75 -> { adc(read(zpX())); cycles += 4; }
+		case 0x6D -> { adc(read(abs())); cycles += 4; }
+		case 0x7D -> { adc(read(absX(true))); cycles += 4; }
+		case 0x79 -> { adc(read(absY(true))); cycles += 4; }
+		case 0x61 -> { adc(read(indX())); cycles += 6; }
+		case 0x71 -> { adc(read(indY(true))); cycles += 5; }
+		case 0xE9 -> { sbc(fetch()); cycles += 2; }
+		case 0xE5 -> { sbc(read(zp())); cycles += 3; }
+		case 0xF5 -> { sbc(read(zpX())); cycles += 4; }
+		case 0xED -> { sbc(read(abs())); cycles += 4; }
+		case 0xFD -> { sbc(read(absX(true))); cycles += 4; }
+		case 0xF9 -> { sbc(read(absY(true))); cycles += 4; }
+		case 0xE1 -> { sbc(read(indX())); cycles += 6; }
+		case 0xF1 -> { sbc(read(indY(true))); cycles += 5; }
+		case 0xC9 -> { compare(a, fetch()); cycles += 2; }
+		case 0xC5 -> { compare(a, read(zp())); cycles += 3; }
+		case 0xD5 -> { compare(a, read(zpX())); cycles += 4; }
+		case 0xCD -> { compare(a, read(abs())); cycles += 4; }
+		case 0xDD -> { compare(a, read(absX(true))); cycles += 4; }
+		case 0xD9 -> { compare(a, read(absY(true))); cycles += 4; }
+		case 0xC1 -> { compare(a, read(indX())); cycles += 6; }
+		case 0xD1 -> { compare(a, read(indY(true))); cycles += 5; }
+		case 0xE0 -> { compare(x, fetch()); cycles += 2; }
+		case 0xE4 -> { compare(x, read(zp())); cycles += 3; }
+		case 0xEC -> { compare(x, read(abs())); cycles += 4; }
+		case 0xC0 -> { compare(y, fetch()); cycles += 2; }
+		case 0xC4 -> { compare(y, read(zp())); cycles += 3; }
+		case 0xCC -> { compare(y, read(abs())); cycles += 4; }
+		case 0x24 -> { bit(read(zp())); cycles += 3; }
+		case 0x2C -> { bit(read(abs())); cycles += 4; }
+		// Increments and decrements
+		case 0xE8 -> { x = nz(x + 1 & 0xFF); cycles += 2; }
+		case 0xC8 -> { y = nz(y + 1 & 0xFF); cycles += 2; }
+		case 0xCA -> { x = nz(x - 1 & 0xFF); cycles += 2; }
+		case 0x88 -> { y = nz(y - 1 & 0xFF); cycles += 2; }
+		case 0xE6 -> { cycles += 5; modify(zp(), 0); }
+		case 0xF6 -> { cycles += 6; modify(zpX(), 0); }
+		case 0xEE -> { cycles += 6; modify(abs(), 0); }
+		case 0xFE -> { cycles += 7; modify(absX(false), 0); }
+		case 0xC6 -> { cycles += 5; modify(zp(), 1); }
+		case 0xD6 -> { cycles += 6; modify(zpX(), 1); }
+		case 0xCE -> { cycles += 6; modify(abs(), 1); }
+		case 0xDE -> { cycles += 7; modify(absX(false), 1); }
+		// Shifts and rotates
+		case 0x0A -> { a = asl(a); cycles += 2; }
+		case 0x06 -> { cycles += 5; modify(zp(), 2); }
+		case 0x16 -> { cycles += 6; modify(zpX(), 2); }
+		case 0x0E -> { cycles += 6; modify(abs(), 2); }
+		case 0x1E -> { cycles += 7; modify(absX(false), 2); }
+		case 0x4A -> { a = lsr(a); cycles += 2; }
+		case 0x46 -> { cycles += 5; modify(zp(), 3); }
+		case 0x56 -> { cycles += 6; modify(zpX(), 3); }
+		case 0x4E -> { cycles += 6; modify(abs(), 3); }
+		case 0x5E -> { cycles += 7; modify(absX(false), 3); }
+		case 0x2A -> { a = rol(a); cycles += 2; }
+		case 0x26 -> { cycles += 5; modify(zp(), 4); }
+		case 0x36 -> { cycles += 6; modify(zpX(), 4); }
+		case 0x2E -> { cycles += 6; modify(abs(), 4); }
+		case 0x3E -> { cycles += 7; modify(absX(false), 4); }
+		case 0x6A -> { a = ror(a); cycles += 2; }
+		case 0x66 -> { cycles += 5; modify(zp(), 5); }
+		case 0x76 -> { cycles += 6; modify(zpX(), 5); }
+		case 0x6E -> { cycles += 6; modify(abs(), 5); }
+		case 0x7E -> { cycles += 7; modify(absX(false), 5); }
+		// Branches and jumps
+		case 0x10 -> branch(!negative);
+		case 0x30 -> branch(negative);
+		case 0x50 -> branch(!overflow);
+		case 0x70 -> branch(overflow);
+		case 0x90 -> branch(!carry);
+		case 0xB0 -> branch(carry);
+		case 0xD0 -> branch(!zero);
+		case 0xF0 -> branch(zero);
+		case 0x4C -> { pc = abs(); cycles += 3; }
+		case 0x6C -> {
+			int ptr = abs();
+			// The indirect vector does not carry into the high byte.
+			pc = read(ptr) | (read((ptr & 0xFF00) | ((ptr + 1) & 0xFF)) << 8);
+			cycles += 5;
+		}
+		case 0x20 -> {
+			int target = abs();
+			int ret = (pc - 1) & 0xFFFF;
+			push(ret >> 8);
+			push(ret & 0xFF);
+			pc = target;
+			cycles += 6;
+		}
+		case 0x60 -> {
+			int lo = pull();
+			pc = ((pull() << 8) | lo) + 1 & 0xFFFF;
+			cycles += 6;
+		}
+		case 0x40 -> {
+			setStatus(pull());
+			int lo = pull();
+			pc = (pull() << 8) | lo;
+			cycles += 6;
+		}
+		case 0x00 -> {
+			int ret = (pc + 1) & 0xFFFF;
+			push(ret >> 8);
+			push(ret & 0xFF);
+			push(status(true));
+			interruptDisable = true;
+			pc = read(0xFFFE) | (read(0xFFFF) << 8);
+			cycles += 7;
+		}
+		// Flags
+		case 0x18 -> { carry = false; cycles += 2; }
+		case 0x38 -> { carry = true; cycles += 2; }
+		case 0x58 -> { interruptDisable = false; cycles += 2; }
+		case 0x78 -> { interruptDisable = true; cycles += 2; }
+		case 0xB8 -> { overflow = false; cycles += 2; }
+		case 0xD8 -> { decimal = false; cycles += 2; }
+		case 0xF8 -> { decimal = true; cycles += 2; }
+		case 0xEA -> cycles += 2;
+		default -> {
+			pc = opPc;
+			throw new IllegalStateException("Unsupported opcode $" + hex2(op) + " at $" + hex4(opPc));
+		}
+		}
+		return (int) (cycles - start);
+	}
+
+	// ---------------------------
+	// Memory and addressing
+	// ---------------------------
+
+	private int read(int address) {
+		return memory[address] & 0xFF;
+	}
+
+	private void write(int address, int value) {
+		memory[address] = (byte) value;
+		if ((address & 0xF000) == 0xD000 && ioListener != null) {
+			ioListener.write(address, value & 0xFF, cycles);
+		}
+	}
+
+	private int fetch() {
+		int value = memory[pc] & 0xFF;
+		pc = (pc + 1) & 0xFFFF;
+		return value;
+	}
+
+	private int zp() {
+		return fetch();
+	}
+
+	private int zpX() {
+		return (fetch() + x) & 0xFF;
+	}
+
+	private int zpY() {
+		return (fetch() + y) & 0xFF;
+	}
+
+	private int abs() {
+		int lo = fetch();
+		return lo | (fetch() << 8);
+	}
+
+	private int absX(boolean pagePenalty) {
+		return indexed(abs(), x, pagePenalty);
+	}
+
+	private int absY(boolean pagePenalty) {
+		return indexed(abs(), y, pagePenalty);
+	}
+
+	private int indX() {
+		int ptr = (fetch() + x) & 0xFF;
+		return read(ptr) | (read((ptr + 1) & 0xFF) << 8);
+	}
+
+	private int indY(boolean pagePenalty) {
+		int ptr = fetch();
+		int base = read(ptr) | (read((ptr + 1) & 0xFF) << 8);
+		return indexed(base, y, pagePenalty);
+	}
+
+	private int indexed(int base, int index, boolean pagePenalty) {
+		int address = (base + index) & 0xFFFF;
+		if (pagePenalty && ((base ^ address) & 0xFF00) != 0) {
+			cycles++;
+		}
+		return address;
+	}
+
+	private void push(int value) {
+		memory[0x100 | sp] = (byte) value;
+		sp = (sp - 1) & 0xFF;
+	}
+
+	private int pull() {
+		sp = (sp + 1) & 0xFF;
+		return memory[0x100 | sp] & 0xFF;
+	}
+
+	// ---------------------------
+	// Operations
+	// ---------------------------
+
+	private int nz(int value) {
+		zero = value == 0;
+		negative = (value & 0x80) != 0;
+		return value;
+	}
+
+	private int status(boolean breakFlag) {
+		return (negative ? 0x80 : 0) | (overflow ? 0x40 : 0) | 0x20 | (breakFlag ? 0x10 : 0)
+				| (decimal ? 0x08 : 0) | (interruptDisable ? 0x04 : 0) | (zero ? 0x02 : 0) | (carry ? 0x01 : 0);
+	}
+
+	private void setStatus(int p) {
+		negative = (p & 0x80) != 0;
+		overflow = (p & 0x40) != 0;
+		decimal = (p & 0x08) != 0;
+		interruptDisable = (p & 0x04) != 0;
+		zero = (p & 0x02) != 0;
+		carry = (p & 0x01) != 0;
+	}
+
+	private void adc(int m) {
+		int c = carry ? 1 : 0;
+		int sum = a + m + c;
+		if (decimal) {
+			int lo = (a & 0x0F) + (m & 0x0F) + c;
+			int hi = (a & 0xF0) + (m & 0xF0);
+			zero = (sum & 0xFF) == 0;
+			if (lo > 0x09) {
+				hi += 0x10;
+				lo += 0x06;
+			}
+			negative = (hi & 0x80) != 0;
+			overflow = (~(a ^ m) & (a ^ hi) & 0x80) != 0;
+			if (hi > 0x90) {
+				hi += 0x60;
+			}
+			carry = hi > 0xFF;
+			a = (lo & 0x0F) | (hi & 0xF0);
+		} else {
+			overflow = (~(a ^ m) & (a ^ sum) & 0x80) != 0;
+			carry = sum > 0xFF;
+			a = nz(sum & 0xFF);
+		}
+	}
+
+	private void sbc(int m) {
+		int borrow = carry ? 0 : 1;
+		int diff = a - m - borrow;
+		overflow = ((a ^ m) & (a ^ diff) & 0x80) != 0;
+		carry = diff >= 0;
+		if (decimal) {
+			// NMOS: flags follow the binary result.
+			nz(diff & 0xFF);
+			int lo = (a & 0x0F) - (m & 0x0F) - borrow;
+			int result;
+			if ((lo & 0x10) != 0) {
+				result = ((lo - 0x06) & 0x0F) | ((a & 0xF0) - (m & 0xF0) - 0x10);
+			} else {
+				result = (lo & 0x0F) | ((a & 0xF0) - (m & 0xF0));
+			}
+			if ((result & 0x100) != 0) {
+				result -= 0x60;
+			}
+			a = result & 0xFF;
+		} else {
+			a = nz(diff & 0xFF);
+		}
+	}
+
+	private void compare(int register, int m) {
+		carry = register >= m;
+		nz((register - m) & 0xFF);
+	}
+
+	private void bit(int m) {
+		zero = (a & m) == 0;
+		negative = (m & 0x80) != 0;
+		overflow = (m & 0x40) != 0;
+	}
+
+	private int asl(int value) {
+		carry = (value & 0x80) != 0;
+		return nz((value << 1) & 0xFF);
+	}
+
+	private int lsr(int value) {
+		carry = (value & 0x01) != 0;
+		return nz(value >> 1);
+	}
+
+	private int rol(int value) {
+		int result = ((value << 1) | (carry ? 1 : 0)) & 0xFF;
+		carry = (value & 0x80) != 0;
+		return nz(result);
+	}
+
+	private int ror(int value) {
+		int result = (value >> 1) | (carry ? 0x80 : 0);
+		carry = (value & 0x01) != 0;
+		return nz(result);
+	}
+
+	/**
+	 * Read-modify-write on memory: 0 INC, 1 DEC, 2 ASL, 3 LSR, 4 ROL, 5 ROR.
+	 */
+	private void modify(int address, int operation) {
+		int value = read(address);
+		int result = switch (operation) {
+		case 0 -> nz((value + 1) & 0xFF);
+		case 1 -> nz((value - 1) & 0xFF);
+		case 2 -> asl(value);
+		case 3 -> lsr(value);
+		case 4 -> rol(value);
+		default -> ror(value);
+		};
+		write(address, result);
+	}
+
+	private void branch(boolean taken) {
+		int offset = (byte) fetch();
+		cycles += 2;
+		if (taken) {
+			int target = (pc + offset) & 0xFFFF;
+			cycles += ((pc ^ target) & 0xFF00) != 0 ? 2 : 1;
+			pc = target;
+		}
+	}
+
+	private static String hex2(int v) {
+		return String.format("%02X", v & 0xFF);
+	}
+
+	private static String hex4(int v) {
+		return String.format("%04X", v & 0xFFFF);
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.c64;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Header and C64 image of a PSID or RSID file (versions 1 to 4).
+ *
+ * @param rsid        whether the file is RSID, which needs a real C64
+ *                    environment
+ * @param version     header version
+ * @param loadAddress where {@code data} is loaded
+ * @param initAddress the init routine, called with the tune number minus one
+ *                    in A
+ * @param playAddress the play routine, or {@code 0} if init installs its own
+ *                    interrupt handler
+ * @param songs       number of tunes
+ * @param startSong   default tune, from 1
+ * @param speed       per-tune timing bits: clear for the vertical blank,
+ *                    set for the CIA 1 timer
+ * @param flags       the v2+ flags word; {@code 0} for version 1
+ * @param data        the C64 image, without load address
+ */
+public final record PsidFile(boolean rsid, int version, int loadAddress, int initAddress, int playAddress,
+		int songs, int startSong, int speed, int flags, String title, String author, String released, byte[] data) {
+
+	public static PsidFile read(Path path) throws IOException {
+		return parse(Files.readAllBytes(path));
+	}
+
+	public static PsidFile parse(byte[] bytes) throws IOException {
+		if (bytes.length < 0x76) {
+			throw new IOException("Not a PSID file: too short");
+		}
+		String magic = new String(bytes, 0, 4, StandardCharsets.US_ASCII);
+		if (!"PSID".equals(magic) && !"RSID".equals(magic)) {
+			throw new IOException("Not a PSID file: bad magic '" + magic + "'");
+		}
+		int version = read16be(bytes, 0x04);
+		int dataOffset = read16be(bytes, 0x06);
+		if (version < 1 || version > 4 || dataOffset > bytes.length || dataOffset < 0x76) {
+			throw new IOException("Unsupported PSID header (version " + version + ", data offset $"
+					+ Integer.toHexString(dataOffset) + ")");
+		}
+		int loadAddress = read16be(bytes, 0x08);
+		byte[] data = Arrays.copyOfRange(bytes, dataOffset, bytes.length);
+		if (loadAddress == 0) {
+			if (data.length < 2) {
+				throw new IOException("PSID data too small");
+			}
+			loadAddress = (data[0] & 0xFF) | ((data[1] & 0xFF) << 8);
+			data = Arrays.copyOfRange(data, 2, data.length);
+		}
+		int initAddress = read16be(bytes, 0x0A);
+		int songs = Math.max(1, read16be(bytes, 0x0E));
+		int startSong = read16be(bytes, 0x10);
+		int flags = version >= 2 && dataOffset >= 0x78 ? read16be(bytes, 0x76) : 0;
+		return new PsidFile("RSID".equals(magic), version, loadAddress, initAddress == 0 ? loadAddress : initAddress,
+				read16be(bytes, 0x0C), songs, Math.max(1, Math.min(songs, startSong)), readInt(bytes, 0x12), flags,
+				readString(bytes, 0x16), readString(bytes, 0x36), readString(bytes, 0x56), data);
+	}
+
+	/**
+	 * Whether the tune was made for NTSC machines. Files that declare both
+	 * or neither are played as PAL.
+	 */
+	public boolean ntsc() {
+		return ((flags >> 2) & 0x03) == 0x02;
+	}
+
+	/**
+	 * Whether {@code song} (from 1) is timed by the CIA 1 timer rather than
+	 * the vertical blank.
+	 */
+	public boolean ciaTimed(int song) {
+		return ((speed >>> Math.min(31, song - 1)) & 1) != 0;
+	}
+
+	private static int read16be(byte[] b, int off) {
+		return ((b[off] & 0xFF) << 8) | (b[off + 1] & 0xFF);
+	}
+
+	private static int readInt(byte[] b, int off) {
+		return (read16be(b, off) << 16) | read16be(b, off + 2);
+	}
+
+	private static String readString(byte[] b, int off) {
+		int end = off;
+		while (end < off + 32 && b[end] != 0) {
+			end++;
+		}
+		return new String(b, off, end - off, StandardCharsets.ISO_8859_1).trim();
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.c64;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import net.resheim.sidscore.sid.SidRegisterStream;
+
+/**
+ * Plays a {@link PsidFile} on a {@link Mos6502} and records the SID register
+ * writes of every frame, without any audio hardware or external emulator.
+ * <p>
+ * {@code init} is called once with the tune number, then {@code play} once
+ * per frame at the PSID speed: the vertical blank rate, or the rate set by the
+ * CIA 1 timer for CIA-timed tunes. Writes made by {@code init} belong to the
+ * first frame. Writes to {@code $D400-$D7FF}, the SID and its mirrors, are
+ * recorded with the address taken modulo 32; writes to the VIC, CIAs and other
+ * I/O are ignored. Tunes that need a real C64 (RSID) or install their own
+ * interrupt handler (play address {@code $0000}) are rejected.
+ * </p>
+ */
+public final class PsidPlayer {
+	/** Vertical blank rates; the same as the score timing uses. */
+	public static final double FRAME_RATE_PAL = 50.124542;
+	public static final double FRAME_RATE_NTSC = 60.098814;
+	public static final double CLOCK_PAL = 985248.0;
+	public static final double CLOCK_NTSC = 1022727.0;
+
+	/** Calls taking longer than this many frames are assumed to be stuck. */
+	private static final int MAX_CALL_FRAMES = 50;
+	/** {@link #recordUntilSilent} stops after this long with all gates off and no register changes. */
+	private static final double SILENCE_SECONDS = 3.0;
+	/** CIA timer rate when init does not program the timer. */
+	private static final double DEFAULT_CIA_RATE = 60.0;
+
+	private PsidPlayer() {
+	}
+
+	/**
+	 * Records exactly {@code frames} frames of {@code song} (from 1).
+	 */
+	public static SidRegisterStream record(PsidFile sid, int song, int frames) throws IOException {
+		return run(sid, song, frames, false);
+	}
+
+	/**
+	 * Records {@code frames} frames of a PSID build given as a PRG image,
+	 * calling {@code initAddress} with tune 0 and then {@code playAddress}
+	 * once per vertical blank.
+	 */
+	public static SidRegisterStream record(byte[] prg, int initAddress, int playAddress, boolean ntsc, int frames)
+			throws IOException {
+		if (prg.length < 2) {
+			throw new IOException("PRG image too small");
+		}
+		int loadAddress = (prg[0] & 0xFF) | ((prg[1] & 0xFF) << 8);
+		PsidFile sid = new PsidFile(false, 2, loadAddress, initAddress, playAddress, 1, 1, 0, ntsc ? 0x08 : 0x04,
+				"", "", "", Arrays.copyOfRange(prg, 2, prg.length));
+		return run(sid, 1, frames, false);
+	}
+
+	/**
+	 * Records {@code song} until every voice has been gated off with no
+	 * register changes for three seconds, or for at most {@code maxFrames}
+	 * frames.
+	 */
+	public static SidRegisterStream recordUntilSilent(PsidFile sid, int song, int maxFrames) throws IOException {
+		return run(sid, song, maxFrames, true);
+	}
+
+	private static SidRegisterStream run(PsidFile sid, int song, int frames, boolean stopWhenSilent)
+			throws IOException {
+		if (sid.rsid()) {
+			throw new IOException("RSID tunes need a full C64 environment and are not supported");
+		}
+		if (sid.playAddress() == 0) {
+			throw new IOException("Tunes that install their own interrupt handler are not supported");
+		}
+		if (song < 1 || song > sid.songs()) {
+			throw new IOException("Tune " + song + " is out of range 1.." + sid.songs());
+		}
+		if (sid.loadAddress() + sid.data().length > 0x10000) {
+			throw new IOException("PSID data does not fit in memory");
+		}
+		double clock = sid.ntsc() ? CLOCK_NTSC : CLOCK_PAL;
+		Mos6502 cpu = new Mos6502();
+		cpu.loadPrg(prgImage(sid));
+		int[] registers = new int[SidRegisterStream.REGISTERS];
+		boolean[] changed = new boolean[1];
+		SidRegisterStream.Builder[] out = new SidRegisterStream.Builder[1];
+		cpu.setIoListener((address, value, cycle) -> {
+			int reg = address & 0x1F;
+			if (address >= 0xD400 && address < 0xD800 && reg < SidRegisterStream.REGISTERS && out[0] != null) {
+				out[0].write(reg, value);
+				changed[0] |= registers[reg] != value;
+				registers[reg] = value;
+			}
+		});
+
+		long limit = (long) (MAX_CALL_FRAMES * clock / FRAME_RATE_PAL);
+		try {
+			// init may program the CIA timer, so the rate is only known afterwards;
+			// its writes are kept and moved into the stream once it exists.
+			SidRegisterStream.Builder initWrites = new SidRegisterStream.Builder(FRAME_RATE_PAL, clock);
+			out[0] = initWrites;
+			cpu.call(sid.initAddress(), song - 1, limit);
+			double frameRate = frameRate(sid, song, cpu, clock);
+			SidRegisterStream init = initWrites.build();
+			SidRegisterStream.Builder stream = new SidRegisterStream.Builder(frameRate, clock);
+			for (int i = 0; i < init.writes(); i++) {
+				stream.write(init.register(i), init.value(i));
+			}
+			out[0] = stream;
+
+			int silentFrames = 0;
+			int silenceLimit = (int) Math.ceil(SILENCE_SECONDS * frameRate);
+			for (int frame = 0; frame < frames; frame++) {
+				if (frame > 0) {
+					stream.nextFrame();
+				}
+				changed[0] = false;
+				cpu.call(sid.playAddress(), 0, limit);
+				if (stopWhenSilent) {
+					boolean gatesOff = (registers[4] & 1) == 0 && (registers[11] & 1) == 0
+							&& (registers[18] & 1) == 0;
+					silentFrames = gatesOff && !changed[0] ? silentFrames + 1 : 0;
+					if (silentFrames >= silenceLimit) {
+						break;
+					}
+				}
+			}
+			return stream.build();
+		} catch (IllegalStateException e) {
+			throw new IOException("PSID playback failed: " + e.getMessage(), e);
+		}
+	}
+
+	private static double frameRate(PsidFile sid, int song, Mos6502 cpu, double clock) {
+		if (!sid.ciaTimed(song)) {
+			return sid.ntsc() ? FRAME_RATE_NTSC : FRAME_RATE_PAL;
+		}
+		int timer = cpu.peek(0xDC04) | (cpu.peek(0xDC05) << 8);
+		return timer == 0 ? DEFAULT_CIA_RATE : clock / (timer + 1);
+	}
+
+	private static byte[] prgImage(PsidFile sid) {
+		byte[] prg = new byte[sid.data().length + 2];
+		prg[0] = (byte) sid.loadAddress();
+		prg[1] = (byte) (sid.loadAddress() >> 8);
+		System.arraycopy(sid.data(), 0, prg, 2, sid.data().length);
+		return prg;
+	}
+}
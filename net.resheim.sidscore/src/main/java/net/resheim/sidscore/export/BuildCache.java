@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import net.resheim.sidscore.export.driver.DriverAddresses;
+import net.resheim.sidscore.ir.CacheDirectory;
+
+/**
+ * Persistent on-disk cache of assembled PRGs, so exporting an unchanged tune
+ * skips KickAssembler.
+ * <p>
+ * Entries are keyed by the SHA-256 of the generated ASM together with the
+ * driver id, its {@link DriverAddresses} and the size and modification time
+ * of the KickAssembler jar, and hold the PRG bytes as written by the
+ * assembler. In a bundle each subtune is a separate entry, so only the tunes
+ * whose ASM changed are assembled again.
+ * </p>
+ * <p>
+ * The cache lives in {@code $XDG_CACHE_HOME/sidscore/build} (or
+ * {@code ~/.cache/sidscore/build}); set {@code -Dsidscore.buildCache=<dir>}
+ * or {@code SIDSCORE_BUILD_CACHE=<dir>} to move it, or either to {@code off}
+ * to disable it. Any failure to read or write the cache falls back to
+ * assembling; only successful builds are stored.
+ * </p>
+ */
+final class BuildCache {
+	/** Bump when the key layout changes. */
+	private static final int VERSION = 1;
+	private static final String SUFFIX = ".prg";
+	/** Entries kept; the least recently used are removed beyond this. */
+	private static final int MAX_ENTRIES = 512;
+
+	private static final CacheDirectory CACHE = CacheDirectory.configured("sidscore.buildCache",
+			"SIDSCORE_BUILD_CACHE", "build", SUFFIX, MAX_ENTRIES);
+
+	private BuildCache() {
+	}
+
+	/**
+	 * The cache key for assembling {@code asm} with {@code kickAssJar}, or
+	 * {@code null} if the cache is disabled or the inputs cannot be read.
+	 * {@code driverId} and {@code addresses} may be {@code null}.
+	 */
+	static String key(Path asm, Path kickAssJar, String driverId, DriverAddresses addresses) {
+		if (CACHE == null) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(asm, StandardOpenOption.READ)) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			ByteBuffer header = ByteBuffer.allocate(40);
+			header.putInt(VERSION);
+			if (addresses != null) {
+				header.putInt(addresses.loadAddress()).putInt(addresses.initAddress()).putInt(addresses.playAddress());
+			} else {
+				header.putInt(-1).putInt(-1).putInt(-1);
+			}
+			header.putLong(Files.size(kickAssJar)).putLong(Files.getLastModifiedTime(kickAssJar).toMillis());
+			digest.update(header.flip());
+			digest.update((driverId != null ? driverId : "").getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			long size = channel.size();
+			if (size > 0) {
+				digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (IOException | NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Copies the cached PRG for {@code key} to {@code outPrg}.
+	 *
+	 * @return {@code true} on a hit, {@code false} if the PRG must be assembled
+	 */
+	static boolean restore(String key, Path outPrg) {
+		if (key == null) {
+			return false;
+		}
+		Path entry = CACHE.entry(key);
+		if (!Files.isRegularFile(entry)) {
+			return false;
+		}
+		try {
+			// Written rather than copied so the output gets normal permissions,
+			// not those of the private cache entry.
+			Files.write(outPrg, Files.readAllBytes(entry));
+			CACHE.touch(entry);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/** Stores the freshly assembled {@code prg} under {@code key}. */
+	static void store(String key, Path prg) {
+		if (key == null) {
+			return;
+		}
+		try {
+			CACHE.store(key, Files.readAllBytes(prg));
+		} catch (IOException e) {
+			// The cache is an optimisation only.
+		}
+	}
+}
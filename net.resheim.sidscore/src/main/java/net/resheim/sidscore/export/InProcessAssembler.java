@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs KickAssembler inside this JVM instead of as a child process.
+ * <p>
+ * The jar is loaded into its own class loader, parented to the platform
+ * loader so its bundled parser runtime cannot clash with ours, and
+ * {@code kickass.KickAssembler.main2} is called for each assembly; it returns
+ * the exit code instead of calling {@code System.exit}.
+ * </p>
+ * <p>
+ * KickAssembler keeps static state, so each concurrent call borrows its own
+ * loaded instance from a pool; instances are reused by later calls. At most
+ * one instance per processor is kept idle for each jar, and the class loaders
+ * of the rest are closed, releasing the jar file.
+ * </p>
+ * <p>
+ * KickAssembler also prints to {@code System.out}: while any call runs,
+ * standard output and error are replaced for the whole JVM by streams that
+ * capture what each assembling thread writes and pass everything else
+ * through, so other threads keep printing normally. Code that fetches
+ * {@code System.out} or {@code System.err} during that window and holds on to
+ * it keeps the routing stream after it has been uninstalled; it still passes
+ * output through, but to the streams that were installed when the call began.
+ * Do not call {@link System#setOut} or {@link System#setErr} while assembling.
+ * </p>
+ */
+final class InProcessAssembler {
+	static final record Result(int exitCode, String output) {
+	}
+
+	/** A loaded KickAssembler and the loader that owns it. */
+	private static final record Instance(URLClassLoader loader, Method main) {
+	}
+
+	/** Idle instances kept per jar; more are closed when released. */
+	private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors();
+
+	private static final Map<Path, Deque<Instance>> IDLE = new HashMap<>();
+	private static final Map<Thread, ByteArrayOutputStream> CAPTURES = new ConcurrentHashMap<>();
+	private static final Object STREAMS = new Object();
+	private static int active = 0;
+	private static PrintStream originalOut;
+	private static PrintStream originalErr;
+
+	private InProcessAssembler() {
+	}
+
+	/**
+	 * Assembles with the given command line arguments. Safe to call from
+	 * several threads at once.
+	 *
+	 * @throws IOException if the jar cannot be loaded or the assembler fails
+	 *                     with an exception rather than an exit code
+	 */
+	static Result run(Path kickAssJar, String... args) throws IOException {
+		Path key = kickAssJar.toAbsolutePath().normalize();
+		Instance instance = acquire(key);
+		Thread self = Thread.currentThread();
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		ClassLoader context = self.getContextClassLoader();
+		beginCapture(self, captured);
+		self.setContextClassLoader(instance.loader());
+		try {
+			int code = (Integer) instance.main().invoke(null, (Object) args);
+			return new Result(code, captured.toString(StandardCharsets.UTF_8));
+		} catch (InvocationTargetException e) {
+			throw new IOException("KickAssembler failed:\n" + captured.toString(StandardCharsets.UTF_8),
+					e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new IOException("Cannot invoke KickAssembler", e);
+		} finally {
+			self.setContextClassLoader(context);
+			endCapture(self);
+			release(key, instance);
+		}
+	}
+
+	private static Instance acquire(Path key) throws IOException {
+		synchronized (IDLE) {
+			Deque<Instance> idle = IDLE.get(key);
+			if (idle != null && !idle.isEmpty()) {
+				return idle.pop();
+			}
+		}
+		URLClassLoader loader = new URLClassLoader("kickass", new URL[] { key.toUri().toURL() },
+				ClassLoader.getPlatformClassLoader());
+		try {
+			return new Instance(loader, loader.loadClass("kickass.KickAssembler").getMethod("main2", String[].class));
+		} catch (ReflectiveOperationException | LinkageError e) {
+			close(loader);
+			throw new IOException("Cannot load KickAssembler from " + key, e);
+		}
+	}
+
+	private static void release(Path key, Instance instance) {
+		synchronized (IDLE) {
+			Deque<Instance> idle = IDLE.computeIfAbsent(key, k -> new ArrayDeque<>());
+			if (idle.size() < MAX_IDLE) {
+				idle.push(instance);
+				return;
+			}
+		}
+		close(instance.loader());
+	}
+
+	private static void close(URLClassLoader loader) {
+		try {
+			loader.close();
+		} catch (IOException e) {
+			// Only leaves the jar open until the loader is collected.
+		}
+	}
+
+	private static void beginCapture(Thread thread, ByteArrayOutputStream captured) {
+		synchronized (STREAMS) {
+			CAPTURES.put(thread, captured);
+			if (active++ == 0) {
+				originalOut = System.out;
+				originalErr = System.err;
+				System.setOut(new PrintStream(new RoutingOutput(originalOut), true, StandardCharsets.UTF_8));
+				System.setErr(new PrintStream(new RoutingOutput(originalErr), true, StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	private static void endCapture(Thread thread) {
+		synchronized (STREAMS) {
+			System.out.flush();
+			System.err.flush();
+			CAPTURES.remove(thread);
+			if (--active == 0) {
+				System.setOut(originalOut);
+				System.setErr(originalErr);
+				originalOut = null;
+				originalErr = null;
+			}
+		}
+	}
+
+	/**
+	 * Sends bytes written by an assembling thread to that call's capture
+	 * buffer and everyone else's to the stream that was installed before.
+	 */
+	private static final class RoutingOutput extends OutputStream {
+		private final PrintStream passThrough;
+
+		RoutingOutput(PrintStream passThrough) {
+			this.passThrough = passThrough;
+		}
+
+		@Override
+		public void write(int b) {
+			ByteArrayOutputStream captured = CAPTURES.get(Thread.currentThread());
+			if (captured != null) {
+				captured.write(b);
+			} else {
+				passThrough.write(b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			ByteArrayOutputStream captured = CAPTURES.get(Thread.currentThread());
+			if (captured != null) {
+				captured.write(b, off, len);
+			} else {
+				passThrough.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() {
+			passThrough.flush();
+		}
+	}
+}
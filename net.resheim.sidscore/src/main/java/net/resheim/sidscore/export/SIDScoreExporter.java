@@ -616,28 +616,40 @@ public final class SIDScoreExporter {
 		return new ProgramStats(voiceEventBytes, tableBytes, NOTE_FREQ_TABLE_BYTES);
 	}
 
+	/**
+	 * Assembles {@code asm} into {@code outPrg} with KickAssembler, run
+	 * in-process so repeated calls (one per subtune for bundles) share one
+	 * loaded assembler.
+	 */
 	public void assemble(Path asm, Path outPrg) throws IOException, InterruptedException {
+		assemble(asm, outPrg, null, null);
+	}
+
+	/**
+	 * Assembles {@code asm} into {@code outPrg}, reusing the PRG from the
+	 * {@link BuildCache} when the same ASM was assembled before for the same
+	 * driver and addresses.
+	 *
+	 * @param driverId  the driver backend that generated {@code asm}, or
+	 *                  {@code null}
+	 * @param addresses the addresses the driver builds for, or {@code null}
+	 */
+	public void assemble(Path asm, Path outPrg, String driverId, DriverAddresses addresses)
+			throws IOException, InterruptedException {
 		Path kickAssJar = resolveKickAssJar();
 		if (kickAssJar == null) {
 			throw new IOException("KickAssembler jar not found. Tried: " + KICKASS_JAR + " and "
 					+ Path.of("net.resheim.sidscore/lib/KickAss.jar"));
 		}
-		List<String> cmd = List.of(
-				"java",
-				"-jar",
-				kickAssJar.toString(),
-				asm.toString(),
-				"-o",
-				outPrg.toString()
-		);
-		ProcessBuilder pb = new ProcessBuilder(cmd);
-		pb.redirectErrorStream(true);
-		Process p = pb.start();
-		byte[] out = p.getInputStream().readAllBytes();
-		int code = p.waitFor();
-		if (code != 0) {
-			throw new IOException("KickAssembler failed (exit " + code + "):\n" + new String(out, StandardCharsets.UTF_8));
+		String key = BuildCache.key(asm, kickAssJar, driverId, addresses);
+		if (BuildCache.restore(key, outPrg)) {
+			return;
+		}
+		InProcessAssembler.Result result = InProcessAssembler.run(kickAssJar, asm.toString(), "-o", outPrg.toString());
+		if (result.exitCode() != 0) {
+			throw new IOException("KickAssembler failed (exit " + result.exitCode() + "):\n" + result.output());
 		}
+		BuildCache.store(key, outPrg);
 	}
 
 	private Path resolveKickAssJar() {
@@ -782,7 +794,7 @@ public final class SIDScoreExporter {
 		try {
 			String asm = buildSidBundleAsm(payloads, effective, bundleInit);
 			Files.writeString(tmpAsm, asm, StandardCharsets.US_ASCII);
-			assemble(tmpAsm, tmpPrg);
+			assemble(tmpAsm, tmpPrg, "bundle", effective);
 			int bundleEnd = prgEndExclusive(tmpPrg);
 			if (bundleEnd > BUNDLE_MAX_RAM_END) {
 				throw new IOException("Bundle image ends at $" + hex4(bundleEnd - 1)
@@ -1846,8 +1858,7 @@ public final class SIDScoreExporter {
 
 	private List<Integer> buildVoiceData(SIDScoreIR.TimedVoice tv, SIDScoreIR.InstrumentIR instr,
 								 SIDScoreIR.TimedScore score) {
-		List<FrameEventCompiler.FrameEvent> events = FrameEventCompiler.compileVoice(tv, score);
-		return FrameEventCompiler.toBytes(events);
+		return FrameEventCompiler.toBytes(FrameEventCompiler.timeline(tv, score));
 	}
 
 	private int clampMidi(int midi) {
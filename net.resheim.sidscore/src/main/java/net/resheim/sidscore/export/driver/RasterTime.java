@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.export.driver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import net.resheim.sidscore.c64.Mos6502;
+import net.resheim.sidscore.ir.CompiledTimeline;
+import net.resheim.sidscore.ir.FrameEventCompiler;
+import net.resheim.sidscore.ir.SIDScoreIR;
+
+/**
+ * CPU cycles used by an exported driver, measured by running its PSID build
+ * on a {@link Mos6502}: {@code init} once, then {@code play} once per frame
+ * for the length of the tune.
+ * <p>
+ * Games run the music driver inside their own raster budget, so the figure
+ * that matters is the cost of the heaviest frames rather than the program
+ * size. Cycles are counted from the first instruction of the routine up to
+ * and including its {@code RTS}; the player's {@code JSR} and any interrupt
+ * overhead are not included.
+ * </p>
+ */
+public final class RasterTime {
+	/** Cycles per PAL frame: 312 raster lines of 63 cycles. */
+	public static final int PAL_FRAME_CYCLES = 312 * 63;
+	/** Cycles per NTSC frame: 263 raster lines of 65 cycles. */
+	public static final int NTSC_FRAME_CYCLES = 263 * 65;
+
+	/** Routines taking longer than this many frames are assumed to be stuck. */
+	private static final int MAX_CALL_FRAMES = 50;
+
+	/**
+	 * A score event being played by a voice in a given frame.
+	 *
+	 * @param voice     the voice number
+	 * @param event     index of the event in {@link SIDScoreIR.TimedVoice#events()}
+	 * @param timed     the event
+	 * @param startTick tick at which the event starts
+	 * @param starts    whether the driver starts the event in this frame
+	 */
+	public static final record FrameSource(int voice, int event, SIDScoreIR.TimedEvent timed, long startTick,
+			boolean starts) {
+	}
+
+	private final SIDScoreIR.VideoSystem system;
+	private final long initCycles;
+	private final int[] playCycles;
+	private final int[] sorted;
+
+	private RasterTime(SIDScoreIR.VideoSystem system, long initCycles, int[] playCycles) {
+		this.system = system;
+		this.initCycles = initCycles;
+		this.playCycles = playCycles;
+		this.sorted = playCycles.clone();
+		Arrays.sort(sorted);
+	}
+
+	/**
+	 * Loads {@code prg}, calls {@code init} with tune 0 and then {@code play}
+	 * {@code frames} times.
+	 *
+	 * @throws IOException if the PRG cannot be read or the driver executes an
+	 *                     unsupported opcode or never returns
+	 */
+	public static RasterTime measure(Path prg, DriverAddresses addresses, int frames, SIDScoreIR.VideoSystem system)
+			throws IOException {
+		Mos6502 cpu = new Mos6502();
+		try {
+			cpu.loadPrg(Files.readAllBytes(prg));
+			long limit = (long) MAX_CALL_FRAMES * frameCycles(system);
+			long init = cpu.call(addresses.initAddress(), 0, limit);
+			int[] play = new int[Math.max(0, frames)];
+			for (int frame = 0; frame < play.length; frame++) {
+				play[frame] = (int) cpu.call(addresses.playAddress(), 0, limit);
+			}
+			return new RasterTime(system, init, play);
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			throw new IOException("Cannot measure rastertime of " + prg + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Length of {@code score} in driver frames: the longest voice, including
+	 * its trailing release.
+	 */
+	public static int tuneFrames(SIDScoreIR.TimedScore score) {
+		long frames = 0;
+		for (SIDScoreIR.TimedVoice voice : score.voices().values()) {
+			frames = Math.max(frames, FrameEventCompiler.timeline(voice, score).totalFrames());
+		}
+		return (int) Math.min(frames, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Cycles available per frame on {@code system}.
+	 */
+	public static int frameCycles(SIDScoreIR.VideoSystem system) {
+		return system == SIDScoreIR.VideoSystem.NTSC ? NTSC_FRAME_CYCLES : PAL_FRAME_CYCLES;
+	}
+
+	/**
+	 * The event each voice of {@code score} is playing in {@code frame}.
+	 * <p>
+	 * The driver counts down the current row in the frame after it was
+	 * started, so an event whose first frame is {@code frame} or the one
+	 * before is reported as starting.
+	 * </p>
+	 */
+	public static List<FrameSource> sourcesAt(SIDScoreIR.TimedScore score, int frame) {
+		List<FrameSource> sources = new ArrayList<>();
+		List<Integer> voiceNumbers = new ArrayList<>(score.voices().keySet());
+		voiceNumbers.sort(Comparator.naturalOrder());
+		for (int number : voiceNumbers) {
+			SIDScoreIR.TimedVoice voice = score.voices().get(number);
+			CompiledTimeline timeline = FrameEventCompiler.timeline(voice, score);
+			int row = rowAt(timeline, frame);
+			if (row < 0 || timeline.sourceEvent(row) < 0) {
+				continue;
+			}
+			int event = timeline.sourceEvent(row);
+			long startTick = 0;
+			for (int i = 0; i < event; i++) {
+				startTick += voice.events().get(i).durationTicks();
+			}
+			long delay = frame - timeline.startFrame(row);
+			sources.add(new FrameSource(number, event, voice.events().get(event), startTick, delay <= 1));
+		}
+		return sources;
+	}
+
+	private static int rowAt(CompiledTimeline timeline, long frame) {
+		int lo = 0;
+		int hi = timeline.rows() - 2; // the terminator spans no frames
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (timeline.endFrame(mid) <= frame) {
+				lo = mid + 1;
+			} else if (timeline.startFrame(mid) > frame) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	public SIDScoreIR.VideoSystem system() {
+		return system;
+	}
+
+	public long initCycles() {
+		return initCycles;
+	}
+
+	/**
+	 * Number of {@code play} calls measured.
+	 */
+	public int frames() {
+		return playCycles.length;
+	}
+
+	/**
+	 * Cycles used by {@code play} in {@code frame}.
+	 */
+	public int cycles(int frame) {
+		return playCycles[frame];
+	}
+
+	public int min() {
+		return sorted.length == 0 ? 0 : sorted[0];
+	}
+
+	public int max() {
+		return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+	}
+
+	public double average() {
+		return Arrays.stream(playCycles).average().orElse(0.0);
+	}
+
+	/**
+	 * Nearest-rank percentile of the per-frame cycles, {@code p} in
+	 * {@code (0, 100]}.
+	 */
+	public int percentile(double p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+		return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+	}
+
+	/**
+	 * The {@code count} most expensive frames, most expensive first; ties are
+	 * listed in frame order.
+	 */
+	public int[] worstFrames(int count) {
+		return IntStream.range(0, playCycles.length)
+				.boxed()
+				.sorted(Comparator.<Integer>comparingInt(f -> playCycles[f]).reversed())
+				.limit(Math.max(0, count))
+				.mapToInt(Integer::intValue)
+				.toArray();
+	}
+
+	/**
+	 * Cycles available per frame.
+	 */
+	public int frameCycles() {
+		return frameCycles(system);
+	}
+
+	/**
+	 * Cycles per raster line, for expressing cycles as raster lines.
+	 */
+	public int lineCycles() {
+		return system == SIDScoreIR.VideoSystem.NTSC ? 65 : 63;
+	}
+}
@@ -9,9 +9,12 @@
 package net.resheim.sidscore.export.driver;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
+import net.resheim.sidscore.c64.PsidPlayer;
 import net.resheim.sidscore.ir.SIDScoreIR;
+import net.resheim.sidscore.sid.SidRegisterStream;
 
 /**
  * Backend for emitting assembly driver code from a resolved SIDScore.
@@ -32,7 +35,8 @@ public interface SidDriverBackend {
 	String description();
 
 	/**
-	 * Writes assembler source for the score.
+	 * Writes assembler source for the score. Multi-tune bundles call this
+	 * concurrently for different scores and output files.
 	 *
 	 * @param installIrq true for standalone PRG style output; false for PSID output
 	 */
@@ -49,4 +53,26 @@ public interface SidDriverBackend {
 	default boolean supportsSidExport() {
 		return true;
 	}
+
+	/**
+	 * Measures the CPU cycles per frame of the driver for {@code score} by
+	 * running {@code prg}, assembled from {@link #writeAsm} output without IRQ
+	 * installation, on an emulated 6502 using the {@link #psidAddresses()}.
+	 */
+	default RasterTime measureRasterTime(SIDScoreIR.TimedScore score, Path prg) throws IOException {
+		return RasterTime.measure(prg, psidAddresses(), RasterTime.tuneFrames(score), score.system());
+	}
+
+	/**
+	 * Records the SID register writes of the driver for the whole of
+	 * {@code score} by running {@code prg}, as for
+	 * {@link #measureRasterTime}. The result can be replayed by
+	 * {@link net.resheim.sidscore.ir.RealtimeAudioPlayer} without
+	 * interpreting the score again.
+	 */
+	default SidRegisterStream recordRegisters(SIDScoreIR.TimedScore score, Path prg) throws IOException {
+		DriverAddresses addresses = psidAddresses();
+		return PsidPlayer.record(Files.readAllBytes(prg), addresses.initAddress(), addresses.playAddress(),
+				score.system() == SIDScoreIR.VideoSystem.NTSC, Math.max(1, RasterTime.tuneFrames(score)));
+	}
 }
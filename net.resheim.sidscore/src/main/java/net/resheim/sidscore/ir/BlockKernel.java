@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+/**
+ * Element-wise arithmetic over the per-voice buffers of the block renderer in
+ * {@link RealtimeAudioPlayer.ChipSession}. Every operation gives exactly the
+ * result of the scalar expression it replaces, so switching implementations
+ * never changes the rendered samples.
+ * <p>
+ * {@link #preferred()} uses the incubating Vector API when the kernel was
+ * built (the {@code vector} Maven profile) and the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, unless
+ * {@code -Dsidscore.vector=false} is given, and the scalar loops otherwise.
+ * </p>
+ */
+interface BlockKernel {
+	/** The module holding the Vector API. */
+	String VECTOR_MODULE = "jdk.incubator.vector";
+
+	/**
+	 * Turns unsigned 8-bit waveform values into levels in place:
+	 * {@code (v - 128) / 128}.
+	 */
+	void levels(double[] values, int n);
+
+	/**
+	 * {@code out[i] = a[i] * b[i]}; {@code out} may be either input.
+	 */
+	void multiply(double[] a, double[] b, double[] out, int n);
+
+	/**
+	 * {@code a[i] = k * a[i]}.
+	 */
+	void scale(double[] a, double k, int n);
+
+	/**
+	 * {@code dst[i] += src[i]}.
+	 */
+	void add(double[] src, double[] dst, int n);
+
+	String name();
+
+	static BlockKernel scalar() {
+		return Scalar.INSTANCE;
+	}
+
+	/**
+	 * The Vector API kernel, or {@code null} when it was not built or the module
+	 * is not loaded.
+	 */
+	static BlockKernel vector() {
+		if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+			return null;
+		}
+		try {
+			// Loaded by name so the scalar path never links against the incubator module.
+			return (BlockKernel) Class.forName(BlockKernel.class.getPackageName() + ".VectorBlockKernel")
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	static BlockKernel preferred() {
+		return Holder.PREFERRED;
+	}
+
+	final class Holder {
+		private static final BlockKernel PREFERRED = choose();
+
+		private Holder() {
+		}
+
+		private static BlockKernel choose() {
+			if (!Boolean.parseBoolean(System.getProperty("sidscore.vector", "true"))) {
+				return scalar();
+			}
+			BlockKernel vector = vector();
+			return vector != null ? vector : scalar();
+		}
+	}
+
+	final class Scalar implements BlockKernel {
+		private static final Scalar INSTANCE = new Scalar();
+
+		private Scalar() {
+		}
+
+		@Override
+		public void levels(double[] values, int n) {
+			for (int i = 0; i < n; i++) {
+				values[i] = (values[i] - 128.0) / 128.0;
+			}
+		}
+
+		@Override
+		public void multiply(double[] a, double[] b, double[] out, int n) {
+			for (int i = 0; i < n; i++) {
+				out[i] = a[i] * b[i];
+			}
+		}
+
+		@Override
+		public void scale(double[] a, double k, int n) {
+			for (int i = 0; i < n; i++) {
+				a[i] = k * a[i];
+			}
+		}
+
+		@Override
+		public void add(double[] src, double[] dst, int n) {
+			for (int i = 0; i < n; i++) {
+				dst[i] += src[i];
+			}
+		}
+
+		@Override
+		public String name() {
+			return "scalar";
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A directory of persistent cache entries, shared by {@link IrCache} and the
+ * PRG build cache. Each entry is one file named by its key and a suffix; the
+ * least recently used entries are removed beyond a fixed count.
+ * <p>
+ * A cache named {@code name} lives in {@code $XDG_CACHE_HOME/sidscore/<name>}
+ * (or {@code ~/.cache/sidscore/<name>}) unless a system property or
+ * environment variable names another directory, or {@code off}.
+ * </p>
+ */
+public final class CacheDirectory {
+	private final Path directory;
+	private final String suffix;
+	private final int maxEntries;
+
+	private CacheDirectory(Path directory, String suffix, int maxEntries) {
+		this.directory = directory;
+		this.suffix = suffix;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * The cache directory configured by system property {@code property} or
+	 * environment variable {@code environment}, or {@code name} in the user's
+	 * cache directory; {@code null} if either is set to {@code off}.
+	 */
+	public static CacheDirectory configured(String property, String environment, String name, String suffix,
+			int maxEntries) {
+		String configured = System.getProperty(property, System.getenv(environment));
+		if (configured != null && !configured.isBlank()) {
+			return "off".equalsIgnoreCase(configured.trim()) ? null
+					: new CacheDirectory(Path.of(configured.trim()), suffix, maxEntries);
+		}
+		String xdg = System.getenv("XDG_CACHE_HOME");
+		Path base = xdg != null && !xdg.isBlank() ? Path.of(xdg) : Path.of(System.getProperty("user.home"), ".cache");
+		return new CacheDirectory(base.resolve("sidscore").resolve(name), suffix, maxEntries);
+	}
+
+	/** The file of the entry for {@code key}, which may not exist. */
+	public Path entry(String key) {
+		return directory.resolve(key + suffix);
+	}
+
+	/**
+	 * Writes {@code data} as the entry for {@code key}, replacing it
+	 * atomically where the file system allows, and prunes the directory.
+	 */
+	public void store(String key, byte[] data) throws IOException {
+		Files.createDirectories(directory);
+		Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+		try {
+			Files.write(tmp, data);
+			Path entry = entry(key);
+			try {
+				Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+		prune();
+	}
+
+	/** Marks an entry as used, so it is pruned last. */
+	public void touch(Path entry) {
+		try {
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			// Only affects which entries are pruned first.
+		}
+	}
+
+	private void prune() throws IOException {
+		List<Path> entries;
+		try (Stream<Path> files = Files.list(directory)) {
+			entries = files.filter(p -> p.getFileName().toString().endsWith(suffix))
+					.collect(Collectors.toCollection(ArrayList::new));
+		}
+		if (entries.size() <= maxEntries) {
+			return;
+		}
+		Map<Path, FileTime> used = new HashMap<>();
+		for (Path entry : entries) {
+			used.put(entry, Files.getLastModifiedTime(entry));
+		}
+		entries.sort(Comparator.comparing(used::get));
+		for (Path entry : entries.subList(0, entries.size() - maxEntries)) {
+			Files.deleteIfExists(entry);
+		}
+	}
+}
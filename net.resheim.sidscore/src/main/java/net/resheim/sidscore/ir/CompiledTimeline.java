@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable per-voice frame timeline compiled by {@link FrameEventCompiler}.
+ * <p>
+ * One row per driver frame event, stored column-wise in primitive arrays:
+ * duration in frames, SID frequency register, control register and base note,
+ * plus the index of the {@link SIDScoreIR.TimedEvent} that produced the row.
+ * The exporter, SRAP and the score map all read the same instance, so note and
+ * gate timing is computed once per resolved score.
+ * </p>
+ * <p>
+ * Rows added by the compiler rather than by a score event (the trailing
+ * release and the terminator) have source event {@code -1}. The last row is
+ * always the {@code 0,0,0,0} terminator.
+ * </p>
+ */
+public final class CompiledTimeline {
+	/** Score identities whose timelines are kept; older scores are evicted. */
+	private static final int CACHED_SCORES = 8;
+	private static final List<CacheEntry> CACHE = new ArrayList<>();
+
+	private static final CompiledTimeline SILENT = new Builder(0).end();
+
+	private final int[] frames;
+	private final int[] freq;
+	private final int[] ctrl;
+	private final int[] baseNote;
+	private final int[] sourceEvent;
+	private final boolean[] retrigGap;
+	/** Start frame of each row, plus the total length at index {@code rows}. */
+	private final long[] startFrame;
+	/** First row of each source event, plus {@code rows} at index {@code eventCount}. */
+	private final int[] eventFirstRow;
+
+	private CompiledTimeline(Builder b, int eventCount) {
+		int rows = b.rows;
+		this.frames = Arrays.copyOf(b.frames, rows);
+		this.freq = Arrays.copyOf(b.freq, rows);
+		this.ctrl = Arrays.copyOf(b.ctrl, rows);
+		this.baseNote = Arrays.copyOf(b.baseNote, rows);
+		this.sourceEvent = Arrays.copyOf(b.sourceEvent, rows);
+		this.retrigGap = Arrays.copyOf(b.retrigGap, rows);
+		this.startFrame = new long[rows + 1];
+		for (int i = 0; i < rows; i++) {
+			startFrame[i + 1] = startFrame[i] + frames[i];
+		}
+		this.eventFirstRow = new int[eventCount + 1];
+		Arrays.fill(eventFirstRow, rows);
+		for (int i = rows - 1; i >= 0; i--) {
+			if (sourceEvent[i] >= 0) {
+				eventFirstRow[sourceEvent[i]] = i;
+			}
+		}
+		for (int e = eventCount - 1; e >= 0; e--) {
+			eventFirstRow[e] = Math.min(eventFirstRow[e], eventFirstRow[e + 1]);
+		}
+	}
+
+	/**
+	 * Returns the timeline for {@code voice} in {@code score}, compiling it on
+	 * first use. Lookups are by identity, so a score resolved again compiles
+	 * again.
+	 */
+	static CompiledTimeline of(SIDScoreIR.TimedVoice voice, SIDScoreIR.TimedScore score) {
+		if (voice == null || voice.instrument() == null) {
+			return SILENT;
+		}
+		synchronized (CACHE) {
+			CacheEntry entry = null;
+			for (int i = CACHE.size() - 1; i >= 0; i--) {
+				CacheEntry candidate = CACHE.get(i);
+				SIDScoreIR.TimedScore cached = candidate.score.get();
+				if (cached == null) {
+					CACHE.remove(i);
+				} else if (cached == score) {
+					entry = candidate;
+				}
+			}
+			if (entry == null) {
+				if (CACHE.size() == CACHED_SCORES) {
+					CACHE.remove(0);
+				}
+				entry = new CacheEntry(score);
+				CACHE.add(entry);
+			}
+			return entry.timelines.computeIfAbsent(voice, v -> FrameEventCompiler.compile(v, score));
+		}
+	}
+
+	public int rows() {
+		return frames.length;
+	}
+
+	public int frames(int row) {
+		return frames[row];
+	}
+
+	public int freq(int row) {
+		return freq[row];
+	}
+
+	public int ctrl(int row) {
+		return ctrl[row];
+	}
+
+	public int baseNote(int row) {
+		return baseNote[row];
+	}
+
+	/**
+	 * Index of the score event that produced {@code row}, or {@code -1} for the
+	 * trailing release and terminator.
+	 */
+	public int sourceEvent(int row) {
+		return sourceEvent[row];
+	}
+
+	/**
+	 * Whether {@code row} is the short gate-off inserted before a retriggered
+	 * note.
+	 */
+	public boolean retrigGap(int row) {
+		return retrigGap[row];
+	}
+
+	public long startFrame(int row) {
+		return startFrame[row];
+	}
+
+	public long endFrame(int row) {
+		return startFrame[row + 1];
+	}
+
+	/**
+	 * Length of the whole timeline in frames, including the trailing release.
+	 */
+	public long totalFrames() {
+		return startFrame[frames.length];
+	}
+
+	/**
+	 * Number of score events the timeline was compiled from.
+	 */
+	public int eventCount() {
+		return eventFirstRow.length - 1;
+	}
+
+	/**
+	 * Frames spanned by score event {@code event}, across all of its rows.
+	 */
+	public int eventFrames(int event) {
+		return (int) (startFrame[eventFirstRow[event + 1]] - startFrame[eventFirstRow[event]]);
+	}
+
+	public FrameEventCompiler.FrameEvent event(int row) {
+		return new FrameEventCompiler.FrameEvent(frames[row], freq[row], ctrl[row], baseNote[row]);
+	}
+
+	/**
+	 * Read-only list view of the rows as frame events.
+	 */
+	public List<FrameEventCompiler.FrameEvent> events() {
+		return new AbstractList<>() {
+			@Override
+			public FrameEventCompiler.FrameEvent get(int index) {
+				return event(index);
+			}
+
+			@Override
+			public int size() {
+				return rows();
+			}
+		};
+	}
+
+	private static final class CacheEntry {
+		final WeakReference<SIDScoreIR.TimedScore> score;
+		final Map<SIDScoreIR.TimedVoice, CompiledTimeline> timelines = new IdentityHashMap<>();
+
+		CacheEntry(SIDScoreIR.TimedScore score) {
+			this.score = new WeakReference<>(score);
+		}
+	}
+
+	/**
+	 * Appends rows in order; used by the compiler only.
+	 */
+	static final class Builder {
+		private final int eventCount;
+		private int rows = 0;
+		private int[] frames = new int[16];
+		private int[] freq = new int[16];
+		private int[] ctrl = new int[16];
+		private int[] baseNote = new int[16];
+		private int[] sourceEvent = new int[16];
+		private boolean[] retrigGap = new boolean[16];
+
+		Builder(int eventCount) {
+			this.eventCount = eventCount;
+		}
+
+		void add(int frames, int freq, int ctrl, int baseNote, int sourceEvent, boolean retrigGap) {
+			if (rows == this.frames.length) {
+				int size = rows * 2;
+				this.frames = Arrays.copyOf(this.frames, size);
+				this.freq = Arrays.copyOf(this.freq, size);
+				this.ctrl = Arrays.copyOf(this.ctrl, size);
+				this.baseNote = Arrays.copyOf(this.baseNote, size);
+				this.sourceEvent = Arrays.copyOf(this.sourceEvent, size);
+				this.retrigGap = Arrays.copyOf(this.retrigGap, size);
+			}
+			this.frames[rows] = frames;
+			this.freq[rows] = freq;
+			this.ctrl[rows] = ctrl;
+			this.baseNote[rows] = baseNote;
+			this.sourceEvent[rows] = sourceEvent;
+			this.retrigGap[rows] = retrigGap;
+			rows++;
+		}
+
+		/**
+		 * Appends the terminator and freezes the timeline.
+		 */
+		CompiledTimeline end() {
+			add(0, 0, 0, 0, -1, false);
+			return new CompiledTimeline(this, eventCount);
+		}
+	}
+}
@@ -0,0 +1,445 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-frame SID state of one {@code EFFECT}, compiled to primitive columns.
+ * <p>
+ * Each frame holds the voice registers (wave, gate, sync, ring, frequency,
+ * pulse width, ADSR) and the global filter/volume settings the effect
+ * drives, plus a bitmask of the fields that differ from the previous frame so
+ * the runtime only touches what changed.
+ * </p>
+ * <p>
+ * Assignments hold from their tick to the end of the effect and sweeps cover
+ * the frames from the start of the effect; where steps overlap, the later
+ * step wins. Rather than replaying every step over every frame, the compiler
+ * finds the winning step per field and frame with a prefix (assignments) and
+ * suffix (sweeps) maximum over step indices, which keeps long converted
+ * timelines linear in their size.
+ * </p>
+ * <p>
+ * Timelines are cached per {@link SIDScoreIR.EffectIR} instance and SID clock,
+ * so replays and subtunes reuse them.
+ * </p>
+ */
+final class EffectTimeline {
+	static final int CHANGED_WAVE = 1 << 0;
+	static final int CHANGED_GATE = 1 << 1;
+	static final int CHANGED_SYNC_RING = 1 << 2;
+	static final int CHANGED_FREQ = 1 << 3;
+	static final int CHANGED_PW = 1 << 4;
+	static final int CHANGED_ADSR = 1 << 5;
+	static final int CHANGED_FILTER = 1 << 6;
+	static final int CHANGED_ROUTE = 1 << 7;
+	static final int CHANGED_VOLUME = 1 << 8;
+	static final int CHANGED_ALL = (1 << 9) - 1;
+
+	static final int FLAG_GATE = 1 << 0;
+	static final int FLAG_SYNC = 1 << 1;
+	static final int FLAG_RING = 1 << 2;
+	static final int FLAG_RESET = 1 << 3;
+
+	/** A single frame of defaults, used where no effect covers the timeline. */
+	static final EffectTimeline IDLE = new EffectTimeline(1, false, Integer.MIN_VALUE);
+
+	private static final int CACHED_EFFECTS = 256;
+	private static final List<CacheEntry> CACHE = new ArrayList<>();
+
+	// Columns resolved independently; PW is split because HIPULSE/LOWPULSE
+	// only write one half of it.
+	private static final int C_WAVE = 0;
+	private static final int C_GATE = 1;
+	private static final int C_SYNC = 2;
+	private static final int C_RING = 3;
+	private static final int C_FREQ = 4;
+	private static final int C_PW_HI = 5;
+	private static final int C_PW_LO = 6;
+	private static final int C_ATTACK = 7;
+	private static final int C_DECAY = 8;
+	private static final int C_SUSTAIN = 9;
+	private static final int C_RELEASE = 10;
+	private static final int C_FILTER = 11;
+	private static final int C_ROUTE = 12;
+	private static final int C_CUTOFF = 13;
+	private static final int C_RES = 14;
+	private static final int C_VOLUME = 15;
+	private static final int COLUMNS = 16;
+
+	final int length;
+	final boolean controlsVoice;
+	final int priority;
+
+	final int[] waveMask;
+	final byte[] flags;
+	final char[] freqReg;
+	final byte[] baseMidi;
+	final short[] pw;
+	/** Attack, decay, sustain and release nibbles, high to low. */
+	final short[] adsr;
+	final int[] filterModeMask;
+	final byte[] filterRouteMask;
+	final short[] filterCutoff;
+	final byte[] filterRes;
+	final byte[] volume;
+	final short[] changed;
+
+	private EffectTimeline(int length, boolean controlsVoice, int priority) {
+		this.length = length;
+		this.controlsVoice = controlsVoice;
+		this.priority = priority;
+		waveMask = new int[length];
+		flags = new byte[length];
+		freqReg = new char[length];
+		baseMidi = new byte[length];
+		Arrays.fill(baseMidi, (byte) -1);
+		pw = new short[length];
+		Arrays.fill(pw, (short) 0x0800);
+		adsr = new short[length];
+		Arrays.fill(adsr, (short) 0x00F0);
+		filterModeMask = new int[length];
+		filterRouteMask = new byte[length];
+		Arrays.fill(filterRouteMask, (byte) -1);
+		filterCutoff = new short[length];
+		filterRes = new byte[length];
+		volume = new byte[length];
+		Arrays.fill(volume, (byte) -1);
+		changed = new short[length];
+		changed[0] = (short) CHANGED_ALL;
+	}
+
+	boolean gate(int frame) {
+		return (flags[frame] & FLAG_GATE) != 0;
+	}
+
+	boolean sync(int frame) {
+		return (flags[frame] & FLAG_SYNC) != 0;
+	}
+
+	boolean ring(int frame) {
+		return (flags[frame] & FLAG_RING) != 0;
+	}
+
+	boolean reset(int frame) {
+		return (flags[frame] & FLAG_RESET) != 0;
+	}
+
+	int attack(int frame) {
+		return (adsr[frame] >> 12) & 0x0F;
+	}
+
+	int decay(int frame) {
+		return (adsr[frame] >> 8) & 0x0F;
+	}
+
+	int sustain(int frame) {
+		return (adsr[frame] >> 4) & 0x0F;
+	}
+
+	int release(int frame) {
+		return adsr[frame] & 0x0F;
+	}
+
+	/**
+	 * Returns the compiled timeline for {@code effect}, compiling it on first
+	 * use for this SID clock.
+	 */
+	static EffectTimeline of(SIDScoreIR.EffectIR effect, double sidClockHz) {
+		synchronized (CACHE) {
+			for (int i = CACHE.size() - 1; i >= 0; i--) {
+				CacheEntry entry = CACHE.get(i);
+				SIDScoreIR.EffectIR cached = entry.effect.get();
+				if (cached == null) {
+					CACHE.remove(i);
+				} else if (cached == effect && entry.sidClockHz == sidClockHz) {
+					return entry.timeline;
+				}
+			}
+		}
+		EffectTimeline timeline = compile(effect, sidClockHz);
+		synchronized (CACHE) {
+			if (CACHE.size() == CACHED_EFFECTS) {
+				CACHE.remove(0);
+			}
+			CACHE.add(new CacheEntry(effect, sidClockHz, timeline));
+		}
+		return timeline;
+	}
+
+	static EffectTimeline compile(SIDScoreIR.EffectIR effect, double sidClockHz) {
+		int length = Math.max(1, effect.lengthTicks());
+		EffectTimeline t = new EffectTimeline(length, controlsVoice(effect), effect.priority());
+		List<SIDScoreIR.EffectStepIR> steps = effect.steps();
+		int[] assigned = new int[length];
+		int[] swept = new int[length];
+		int[] pwHi = new int[length];
+		int[] pwLo = new int[length];
+		Arrays.fill(pwHi, 0x08);
+
+		for (int column = 0; column < COLUMNS; column++) {
+			Arrays.fill(assigned, -1);
+			Arrays.fill(swept, -1);
+			boolean any = false;
+			for (int i = 0; i < steps.size(); i++) {
+				SIDScoreIR.EffectStepIR step = steps.get(i);
+				if (step instanceof SIDScoreIR.EffectAssignmentIR assignment) {
+					int tick = assignment.tick();
+					if (tick >= 0 && tick < length && writes(assignment.parameter(), column)) {
+						assigned[tick] = i;
+						any = true;
+					}
+				} else if (step instanceof SIDScoreIR.EffectSweepIR sweep) {
+					if (sweeps(sweep.parameter(), column)) {
+						swept[Math.min(Math.max(1, sweep.durationTicks()), length) - 1] = i;
+						any = true;
+					}
+				}
+			}
+			if (!any) {
+				continue;
+			}
+			for (int f = 1; f < length; f++) {
+				assigned[f] = Math.max(assigned[f], assigned[f - 1]);
+			}
+			for (int f = length - 2; f >= 0; f--) {
+				swept[f] = Math.max(swept[f], swept[f + 1]);
+			}
+			int lastAssignment = -1;
+			int value = 0;
+			for (int f = 0; f < length; f++) {
+				int winner = Math.max(assigned[f], swept[f]);
+				if (winner < 0) {
+					continue;
+				}
+				SIDScoreIR.EffectStepIR step = steps.get(winner);
+				if (step instanceof SIDScoreIR.EffectAssignmentIR assignment) {
+					if (winner != lastAssignment) {
+						value = assignedValue(assignment, column, sidClockHz);
+						lastAssignment = winner;
+					}
+				} else {
+					value = sweptValue((SIDScoreIR.EffectSweepIR) step, f, length, column, sidClockHz);
+					lastAssignment = -1;
+				}
+				store(t, column, f, value, pwHi, pwLo);
+			}
+		}
+
+		for (int f = 0; f < length; f++) {
+			t.pw[f] = (short) clampPw((pwHi[f] << 8) | pwLo[f]);
+		}
+		for (SIDScoreIR.EffectStepIR step : steps) {
+			if (step instanceof SIDScoreIR.EffectAssignmentIR assignment
+					&& assignment.parameter() == SIDScoreIR.EffectParameter.RESET && assignment.tick() >= 0
+					&& assignment.tick() < length) {
+				t.flags[assignment.tick()] |= FLAG_RESET;
+			}
+		}
+		for (int f = 1; f < length; f++) {
+			int mask = 0;
+			if (t.waveMask[f] != t.waveMask[f - 1])
+				mask |= CHANGED_WAVE;
+			if (((t.flags[f] ^ t.flags[f - 1]) & FLAG_GATE) != 0)
+				mask |= CHANGED_GATE;
+			if (((t.flags[f] ^ t.flags[f - 1]) & (FLAG_SYNC | FLAG_RING)) != 0)
+				mask |= CHANGED_SYNC_RING;
+			if (t.freqReg[f] != t.freqReg[f - 1] || t.baseMidi[f] != t.baseMidi[f - 1])
+				mask |= CHANGED_FREQ;
+			if (t.pw[f] != t.pw[f - 1])
+				mask |= CHANGED_PW;
+			if (t.adsr[f] != t.adsr[f - 1])
+				mask |= CHANGED_ADSR;
+			if (t.filterModeMask[f] != t.filterModeMask[f - 1] || t.filterCutoff[f] != t.filterCutoff[f - 1]
+					|| t.filterRes[f] != t.filterRes[f - 1])
+				mask |= CHANGED_FILTER;
+			if (t.filterRouteMask[f] != t.filterRouteMask[f - 1])
+				mask |= CHANGED_ROUTE;
+			if (t.volume[f] != t.volume[f - 1])
+				mask |= CHANGED_VOLUME;
+			t.changed[f] = (short) mask;
+		}
+		return t;
+	}
+
+	private static boolean writes(SIDScoreIR.EffectParameter parameter, int column) {
+		return switch (parameter) {
+		case WAVE -> column == C_WAVE;
+		case GATE -> column == C_GATE;
+		case SYNC -> column == C_SYNC;
+		case RING -> column == C_RING;
+		case PITCH, FREQ -> column == C_FREQ;
+		case PW -> column == C_PW_HI || column == C_PW_LO;
+		case HIPULSE -> column == C_PW_HI;
+		case LOWPULSE -> column == C_PW_LO;
+		case ADSR -> column >= C_ATTACK && column <= C_RELEASE;
+		case ATTACK -> column == C_ATTACK;
+		case DECAY -> column == C_DECAY;
+		case SUSTAIN -> column == C_SUSTAIN;
+		case RELEASE -> column == C_RELEASE;
+		case FILTER -> column == C_FILTER;
+		case FILTERROUTE -> column == C_ROUTE;
+		case CUTOFF -> column == C_CUTOFF;
+		case RES -> column == C_RES;
+		case VOLUME -> column == C_VOLUME;
+		case RESET -> false;
+		};
+	}
+
+	private static boolean sweeps(SIDScoreIR.EffectParameter parameter, int column) {
+		return switch (parameter) {
+		case PITCH, FREQ -> column == C_FREQ;
+		case PW -> column == C_PW_HI || column == C_PW_LO;
+		case CUTOFF -> column == C_CUTOFF;
+		case VOLUME -> column == C_VOLUME;
+		// Parser validation only permits the sweep parameters above.
+		default -> false;
+		};
+	}
+
+	private static int assignedValue(SIDScoreIR.EffectAssignmentIR assignment, int column, double sidClockHz) {
+		SIDScoreIR.EffectValueIR value = assignment.value();
+		return switch (assignment.parameter()) {
+		case WAVE, FILTER -> value.value();
+		case GATE, SYNC, RING -> value.value() != 0 ? 1 : 0;
+		case PITCH -> pitch(value.value(), sidClockHz);
+		case FREQ -> value.value() & 0xFFFF;
+		case PW -> column == C_PW_HI ? clampPw(value.value()) >> 8 : clampPw(value.value()) & 0xFF;
+		case HIPULSE -> value.value() & 0x0F;
+		case LOWPULSE -> value.value() & 0xFF;
+		case ADSR -> {
+			SIDScoreIR.AdsrIR adsr = value.adsr().orElse(new SIDScoreIR.AdsrIR(0, 0, 15, 0));
+			yield clampNibble(switch (column) {
+			case C_ATTACK -> adsr.a();
+			case C_DECAY -> adsr.d();
+			case C_SUSTAIN -> adsr.s();
+			default -> adsr.r();
+			});
+		}
+		case ATTACK, DECAY, SUSTAIN, RELEASE, FILTERROUTE, RES, VOLUME -> clampNibble(value.value());
+		case CUTOFF -> clampCutoff(value.value());
+		case RESET -> 0;
+		};
+	}
+
+	private static int sweptValue(SIDScoreIR.EffectSweepIR sweep, int frame, int length, int column,
+			double sidClockHz) {
+		int duration = Math.min(Math.max(1, sweep.durationTicks()), length);
+		double pos = duration == 1 ? 1.0 : frame / (double) (duration - 1);
+		pos = switch (sweep.curve()) {
+		case EXP -> pos * pos;
+		case LOG -> Math.sqrt(pos);
+		case LINEAR, STEP -> pos;
+		};
+		int from = sweep.fromValue().value();
+		int to = sweep.toValue().value();
+		int value = (int) Math.round(from + (to - from) * pos);
+		return switch (sweep.parameter()) {
+		case PITCH -> pitch(value, sidClockHz);
+		case FREQ -> Math.max(0, Math.min(0xFFFF, value));
+		case PW -> column == C_PW_HI ? clampPw(value) >> 8 : clampPw(value) & 0xFF;
+		case CUTOFF -> clampCutoff(value);
+		default -> clampNibble(value);
+		};
+	}
+
+	/**
+	 * Frequency column value: the register in the low 16 bits and the base MIDI
+	 * note plus one above, so a plain FREQ value decodes to no base note.
+	 */
+	private static int pitch(int midi, double sidClockHz) {
+		int clamped = Math.max(0, Math.min(127, midi));
+		return ((clamped + 1) << 16) | freqRegFromMidi(clamped, sidClockHz);
+	}
+
+	private static void store(EffectTimeline t, int column, int f, int value, int[] pwHi, int[] pwLo) {
+		switch (column) {
+		case C_WAVE -> t.waveMask[f] = value;
+		case C_GATE -> t.flags[f] = (byte) (value != 0 ? t.flags[f] | FLAG_GATE : t.flags[f] & ~FLAG_GATE);
+		case C_SYNC -> t.flags[f] = (byte) (value != 0 ? t.flags[f] | FLAG_SYNC : t.flags[f] & ~FLAG_SYNC);
+		case C_RING -> t.flags[f] = (byte) (value != 0 ? t.flags[f] | FLAG_RING : t.flags[f] & ~FLAG_RING);
+		case C_FREQ -> {
+			t.freqReg[f] = (char) (value & 0xFFFF);
+			t.baseMidi[f] = (byte) ((value >>> 16) - 1);
+		}
+		case C_PW_HI -> pwHi[f] = value;
+		case C_PW_LO -> pwLo[f] = value;
+		case C_ATTACK -> t.adsr[f] = (short) ((t.adsr[f] & 0x0FFF) | (value << 12));
+		case C_DECAY -> t.adsr[f] = (short) ((t.adsr[f] & 0xF0FF) | (value << 8));
+		case C_SUSTAIN -> t.adsr[f] = (short) ((t.adsr[f] & 0xFF0F) | (value << 4));
+		case C_RELEASE -> t.adsr[f] = (short) ((t.adsr[f] & 0xFFF0) | value);
+		case C_FILTER -> t.filterModeMask[f] = value;
+		case C_ROUTE -> t.filterRouteMask[f] = (byte) value;
+		case C_CUTOFF -> t.filterCutoff[f] = (short) value;
+		case C_RES -> t.filterRes[f] = (byte) value;
+		case C_VOLUME -> t.volume[f] = (byte) value;
+		default -> throw new IllegalStateException("Unknown effect column " + column);
+		}
+	}
+
+	private static boolean controlsVoice(SIDScoreIR.EffectIR effect) {
+		for (SIDScoreIR.EffectStepIR step : effect.steps()) {
+			SIDScoreIR.EffectParameter parameter = null;
+			if (step instanceof SIDScoreIR.EffectAssignmentIR assignment) {
+				parameter = assignment.parameter();
+			} else if (step instanceof SIDScoreIR.EffectSweepIR sweep) {
+				parameter = sweep.parameter();
+			}
+			if (parameter != null && !isGlobalParameter(parameter)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isGlobalParameter(SIDScoreIR.EffectParameter parameter) {
+		return parameter == SIDScoreIR.EffectParameter.FILTER
+				|| parameter == SIDScoreIR.EffectParameter.FILTERROUTE
+				|| parameter == SIDScoreIR.EffectParameter.CUTOFF
+				|| parameter == SIDScoreIR.EffectParameter.RES
+				|| parameter == SIDScoreIR.EffectParameter.VOLUME;
+	}
+
+	private static int freqRegFromMidi(int midi, double sidClockHz) {
+		double hz = 440.0 * Math.pow(2.0, (midi - 69) / 12.0);
+		int reg = (int) Math.round(hz * 16777216.0 / sidClockHz);
+		return Math.max(1, Math.min(0xFFFF, reg));
+	}
+
+	private static int clampPw(int value) {
+		return Math.max(0, Math.min(0x0FFF, value));
+	}
+
+	private static int clampCutoff(int value) {
+		return Math.max(0, Math.min(0x07FF, value));
+	}
+
+	private static int clampNibble(int value) {
+		return Math.max(0, Math.min(15, value));
+	}
+
+	private static final class CacheEntry {
+		final WeakReference<SIDScoreIR.EffectIR> effect;
+		final double sidClockHz;
+		final EffectTimeline timeline;
+
+		CacheEntry(SIDScoreIR.EffectIR effect, double sidClockHz, EffectTimeline timeline) {
+			this.effect = new WeakReference<>(effect);
+			this.sidClockHz = sidClockHz;
+			this.timeline = timeline;
+		}
+	}
+}
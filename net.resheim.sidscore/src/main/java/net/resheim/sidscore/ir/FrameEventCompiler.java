@@ -17,7 +17,8 @@ import java.util.List;
 /**
  * Compiles TimedScore voice events into the same frame-based event stream
  * used by the exported ASM player. This keeps realtime playback and exports
- * aligned.
+ * aligned. Compiled voices are cached as {@link CompiledTimeline}s and shared
+ * with the score map.
  */
 public final class FrameEventCompiler {
 	public static final record FrameEvent(int frames, int freq, int ctrl, int baseNote) {
@@ -33,14 +34,22 @@ public final class FrameEventCompiler {
 	private FrameEventCompiler() {
 	}
 
+	/**
+	 * Returns the shared, cached frame timeline for a voice. A {@code null}
+	 * voice or one without an instrument yields only the terminator.
+	 */
+	public static CompiledTimeline timeline(SIDScoreIR.TimedVoice voice, SIDScoreIR.TimedScore score) {
+		return CompiledTimeline.of(voice, score);
+	}
+
 	public static List<FrameEvent> compileVoice(SIDScoreIR.TimedVoice voice, SIDScoreIR.TimedScore score) {
-		List<FrameEvent> out = new ArrayList<>();
-		if (voice == null || voice.instrument() == null) {
-			out.add(new FrameEvent(0, 0, 0, 0));
-			return out;
-		}
+		return timeline(voice, score).events();
+	}
 
+	static CompiledTimeline compile(SIDScoreIR.TimedVoice voice, SIDScoreIR.TimedScore score) {
 		SIDScoreIR.InstrumentIR instr = voice.instrument();
+		List<SIDScoreIR.TimedEvent> events = voice.events();
+		CompiledTimeline.Builder out = new CompiledTimeline.Builder(events.size());
 
 		double ticksPerQuarter = score.ticksPerWhole() / 4.0;
 		double secondsPerTick = 60.0 / score.tempoBpm() / ticksPerQuarter;
@@ -51,7 +60,8 @@ public final class FrameEventCompiler {
 		int ctrlBase = waveBits | (instr.sync() ? 0x02 : 0x00) | (instr.ring() ? 0x04 : 0x00);
 		boolean lastGateOn = false;
 
-		for (SIDScoreIR.TimedEvent ev : voice.events()) {
+		for (int i = 0; i < events.size(); i++) {
+			SIDScoreIR.TimedEvent ev = events.get(i);
 			double framesExact = ev.durationTicks() * secondsPerTick * frameRate + rem;
 			int frames = (int) Math.max(1, Math.round(framesExact));
 			rem = framesExact - frames;
@@ -70,7 +80,7 @@ public final class FrameEventCompiler {
 				freq = freqRegFromMidi(midi, score.system());
 				baseNote = clampMidi(midi);
 				if (gate == SIDScoreIR.GateMode.RETRIG && lastGateOn && frames > RETRIG_GAP_FRAMES) {
-					out.add(new FrameEvent(RETRIG_GAP_FRAMES, freq, ctrlBase, baseNote));
+					out.add(RETRIG_GAP_FRAMES, freq, ctrlBase, baseNote, i, true);
 					frames -= RETRIG_GAP_FRAMES;
 				}
 				ctrl |= 0x01;
@@ -80,7 +90,7 @@ public final class FrameEventCompiler {
 				freq = freqRegFromHz(NOISE_HZ, score.system());
 				baseNote = 0x80;
 				if (gate == SIDScoreIR.GateMode.RETRIG && lastGateOn && frames > RETRIG_GAP_FRAMES) {
-					out.add(new FrameEvent(RETRIG_GAP_FRAMES, freq, ctrlBase, baseNote));
+					out.add(RETRIG_GAP_FRAMES, freq, ctrlBase, baseNote, i, true);
 					frames -= RETRIG_GAP_FRAMES;
 				}
 				ctrl = 0x80 | (instr.sync() ? 0x02 : 0x00) | (instr.ring() ? 0x04 : 0x00) | 0x01;
@@ -91,15 +101,27 @@ public final class FrameEventCompiler {
 
 			while (frames > 0) {
 				int chunk = Math.min(frames, 0xFFFF);
-				out.add(new FrameEvent(chunk, freq, ctrl, baseNote));
+				out.add(chunk, freq, ctrl, baseNote, i, false);
 				frames -= chunk;
 			}
 		}
 
 		if (lastGateOn) {
-			out.add(new FrameEvent(RETRIG_GAP_FRAMES, 0, 0, 0));
+			out.add(RETRIG_GAP_FRAMES, 0, 0, 0, -1, false);
+		}
+		return out.end();
+	}
+
+	public static List<Integer> toBytes(CompiledTimeline timeline) {
+		List<Integer> out = new ArrayList<>(timeline.rows() * 6);
+		for (int i = 0; i < timeline.rows(); i++) {
+			out.add(timeline.frames(i) & 0xff);
+			out.add((timeline.frames(i) >> 8) & 0xff);
+			out.add(timeline.freq(i) & 0xff);
+			out.add((timeline.freq(i) >> 8) & 0xff);
+			out.add(timeline.ctrl(i) & 0xff);
+			out.add(timeline.baseNote(i) & 0xff);
 		}
-		out.add(new FrameEvent(0, 0, 0, 0));
 		return out;
 	}
 
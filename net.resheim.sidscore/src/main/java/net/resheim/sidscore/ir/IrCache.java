@@ -0,0 +1,772 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+
+/**
+ * Persistent on-disk cache of built {@link SIDScoreIR.ScoreIR}s, so unchanged
+ * scores and instrument libraries skip lexing, parsing and the listener walk.
+ * <p>
+ * Entries are keyed by the SHA-256 of the source and its absolute location
+ * (relative imports resolve against it) and hold the IR in a compact binary
+ * form together with the path and hash of every file it was built from:
+ * imported instrument files and {@code IMPORT AS} subtunes. An entry is only
+ * used if the source and all of those files still hash the same, and if it
+ * was written by the same build: every entry records a hash of the classes
+ * that build and encode the IR, so a new SIDScore version never reads IR
+ * built by an older one. Sources and entries are read through memory-mapped
+ * buffers.
+ * </p>
+ * <p>
+ * The cache lives in {@code $XDG_CACHE_HOME/sidscore/ir} (or
+ * {@code ~/.cache/sidscore/ir}); set {@code -Dsidscore.irCache=<dir>} or
+ * {@code SIDSCORE_IR_CACHE=<dir>} to move it, or either to {@code off} to
+ * disable it. Any failure to read or write the cache falls back to parsing;
+ * only successfully built IR is stored, so errors are always reported from
+ * the source. The cache is also disabled when the build cannot be
+ * fingerprinted.
+ * </p>
+ */
+public final class IrCache {
+	private static final int MAGIC = 0x53495243; // "SIRC"
+	/** Bump when the encoding or any encoded enum changes. */
+	private static final int VERSION = 2;
+	private static final byte KIND_SCORE = 0;
+	private static final byte KIND_IMPORT = 1;
+	private static final String SUFFIX = ".sir";
+	/** Entries kept; the least recently used are removed beyond this. */
+	private static final int MAX_ENTRIES = 512;
+	/** Classes, with their nested classes, whose behaviour shapes a cached IR. */
+	private static final List<String> BUILD_CLASSES = List.of("net/resheim/sidscore/ir/IrCache",
+			"net/resheim/sidscore/ir/SIDScoreIR", "net/resheim/sidscore/ir/ScoreBuildingListener",
+			"net/resheim/sidscore/ir/ScoreParsing");
+	/** The generated lexer and parser. */
+	private static final String PARSER_PACKAGE = "net/resheim/sidscore/parser/";
+
+	/** SHA-256 of the {@link #BUILD_CLASSES} and parser class files, or {@code null}. */
+	private static final byte[] BUILD = buildFingerprint();
+	private static final CacheDirectory CACHE = BUILD != null
+			? CacheDirectory.configured("sidscore.irCache", "SIDSCORE_IR_CACHE", "ir", SUFFIX, MAX_ENTRIES)
+			: null;
+
+	private IrCache() {
+	}
+
+	/**
+	 * Returns the IR of {@code sourcePath}, from the cache when the file and
+	 * everything it imports are unchanged, otherwise by parsing it and storing
+	 * the result.
+	 */
+	public static SIDScoreIR.ScoreIR load(Path sourcePath, ANTLRErrorListener errors) throws IOException {
+		Path abs = sourcePath.toAbsolutePath().normalize();
+		byte[] hash = CACHE != null ? hash(abs) : null;
+		if (hash != null) {
+			SIDScoreIR.ScoreIR cached = read(abs, KIND_SCORE, hash);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		var tree = ScoreParsing.parse(sourcePath, errors);
+		ScoreBuildingListener builder = new ScoreBuildingListener(sourcePath);
+		ScoreBuildingListener.WALKER.walk(builder, tree);
+		SIDScoreIR.ScoreIR ir = builder.buildScoreIR();
+		if (hash != null) {
+			write(abs, KIND_SCORE, hash, builder.dependencies(), ir);
+		}
+		return ir;
+	}
+
+	/**
+	 * Cached tables and instruments of the instrument file {@code abs}, or
+	 * {@code null}.
+	 */
+	static SIDScoreIR.ScoreIR loadImport(Path abs) {
+		byte[] hash = CACHE != null ? hash(abs) : null;
+		return hash != null ? read(abs, KIND_IMPORT, hash) : null;
+	}
+
+	static void storeImport(Path abs, Map<String, SIDScoreIR.TableIR> tables,
+			Map<String, SIDScoreIR.InstrumentIR> instruments) {
+		byte[] hash = CACHE != null ? hash(abs) : null;
+		if (hash != null) {
+			write(abs, KIND_IMPORT, hash, Set.of(), new SIDScoreIR.ScoreIR(Optional.empty(), Optional.empty(),
+					Optional.empty(), 0, Optional.empty(), Optional.empty(), new SIDScoreIR.SwingOff(), tables,
+					instruments, Map.of(), Map.of(), Map.of(), Map.of()));
+		}
+	}
+
+	/**
+	 * Hashes the class files that build and encode the IR, as found in the jar
+	 * or class directory IrCache was loaded from.
+	 */
+	private static byte[] buildFingerprint() {
+		try {
+			CodeSource source = IrCache.class.getProtectionDomain().getCodeSource();
+			if (source == null || source.getLocation() == null) {
+				return null;
+			}
+			Path location = Path.of(source.getLocation().toURI());
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			int classes = 0;
+			if (Files.isDirectory(location)) {
+				List<Path> files;
+				try (Stream<Path> walk = Files.walk(location.resolve("net/resheim/sidscore"))) {
+					files = walk.filter(p -> isBuildClass(classFileName(location, p))).sorted().toList();
+				}
+				for (Path file : files) {
+					digest.update(classFileName(location, file).getBytes(StandardCharsets.UTF_8));
+					digest.update(Files.readAllBytes(file));
+					classes++;
+				}
+			} else {
+				try (JarFile jar = new JarFile(location.toFile())) {
+					List<JarEntry> entries = jar.stream().filter(e -> isBuildClass(e.getName()))
+							.sorted(Comparator.comparing(JarEntry::getName)).toList();
+					for (JarEntry entry : entries) {
+						digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+						try (InputStream in = jar.getInputStream(entry)) {
+							digest.update(in.readAllBytes());
+						}
+						classes++;
+					}
+				}
+			}
+			return classes > 0 ? digest.digest() : null;
+		} catch (IOException | URISyntaxException | NoSuchAlgorithmException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static String classFileName(Path root, Path file) {
+		return root.relativize(file).toString().replace(root.getFileSystem().getSeparator(), "/");
+	}
+
+	private static boolean isBuildClass(String name) {
+		if (!name.endsWith(".class")) {
+			return false;
+		}
+		if (name.startsWith(PARSER_PACKAGE)) {
+			return true;
+		}
+		for (String c : BUILD_CLASSES) {
+			if (name.equals(c + ".class") || name.startsWith(c + "$")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static byte[] hash(Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			long size = channel.size();
+			if (size > 0) {
+				digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+			}
+			return digest.digest();
+		} catch (IOException | NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	private static String entryKey(Path abs, byte kind, byte[] hash) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(kind);
+			digest.update(abs.toString().getBytes(StandardCharsets.UTF_8));
+			digest.update(hash);
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static SIDScoreIR.ScoreIR read(Path abs, byte kind, byte[] hash) {
+		Path entry = CACHE.entry(entryKey(abs, kind, hash));
+		if (!Files.isRegularFile(entry)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			Decoder in = new Decoder(buffer);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !Arrays.equals(in.bytes(32), BUILD)
+					|| buffer.get() != kind || !Arrays.equals(in.bytes(32), hash)) {
+				return null;
+			}
+			int deps = in.uint();
+			for (int i = 0; i < deps; i++) {
+				Path dep = Path.of(in.string());
+				byte[] depHash = in.bytes(32);
+				if (!Arrays.equals(hash(dep), depHash)) {
+					return null;
+				}
+			}
+			SIDScoreIR.ScoreIR ir = in.score();
+			CACHE.touch(entry);
+			return ir;
+		} catch (IOException | RuntimeException e) {
+			// Unreadable, truncated or from an incompatible build: parse instead.
+			return null;
+		}
+	}
+
+	private static void write(Path abs, byte kind, byte[] hash, Collection<Path> dependencies,
+			SIDScoreIR.ScoreIR ir) {
+		Encoder out = new Encoder();
+		out.i32(MAGIC);
+		out.i32(VERSION);
+		out.raw(BUILD);
+		out.u8(kind);
+		out.raw(hash);
+		List<byte[]> depHashes = new ArrayList<>();
+		for (Path dep : dependencies) {
+			byte[] depHash = hash(dep);
+			if (depHash == null) {
+				return;
+			}
+			depHashes.add(depHash);
+		}
+		out.uint(dependencies.size());
+		int i = 0;
+		for (Path dep : dependencies) {
+			out.string(dep.toAbsolutePath().normalize().toString());
+			out.raw(depHashes.get(i++));
+		}
+		out.score(ir);
+		try {
+			CACHE.store(entryKey(abs, kind, hash), out.toByteArray());
+		} catch (IOException e) {
+			// The cache is an optimisation only.
+		}
+	}
+
+	// ---------------------------
+	// Encoding
+	// ---------------------------
+
+	/**
+	 * Big-endian header fields, then zigzag varints for ints and sizes, enums
+	 * by ordinal, and strings interned in a table as they are first written.
+	 */
+	private static final class Encoder {
+		private byte[] buf = new byte[1 << 12];
+		private int pos = 0;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(buf, pos);
+		}
+
+		private void ensure(int n) {
+			if (pos + n > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+			}
+		}
+
+		void u8(int v) {
+			ensure(1);
+			buf[pos++] = (byte) v;
+		}
+
+		void i32(int v) {
+			ensure(4);
+			buf[pos++] = (byte) (v >>> 24);
+			buf[pos++] = (byte) (v >>> 16);
+			buf[pos++] = (byte) (v >>> 8);
+			buf[pos++] = (byte) v;
+		}
+
+		void raw(byte[] bytes) {
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buf, pos, bytes.length);
+			pos += bytes.length;
+		}
+
+		void uint(int v) {
+			ensure(5);
+			while ((v & ~0x7F) != 0) {
+				buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buf[pos++] = (byte) v;
+		}
+
+		void sint(int v) {
+			uint((v << 1) ^ (v >> 31));
+		}
+
+		void bool(boolean v) {
+			u8(v ? 1 : 0);
+		}
+
+		void string(String s) {
+			Integer index = strings.get(s);
+			if (index != null) {
+				uint(index + 1);
+				return;
+			}
+			strings.put(s, strings.size());
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			uint(0);
+			uint(bytes.length);
+			raw(bytes);
+		}
+
+		void enumValue(Enum<?> e) {
+			uint(e.ordinal());
+		}
+
+		void optString(Optional<String> s) {
+			bool(s.isPresent());
+			s.ifPresent(this::string);
+		}
+
+		void optInt(OptionalInt v) {
+			bool(v.isPresent());
+			if (v.isPresent()) {
+				sint(v.getAsInt());
+			}
+		}
+
+		void optEnum(Optional<? extends Enum<?>> e) {
+			bool(e.isPresent());
+			e.ifPresent(this::enumValue);
+		}
+
+		void swing(SIDScoreIR.SwingSetting swing) {
+			if (swing instanceof SIDScoreIR.SwingPercent p) {
+				u8(1);
+				sint(p.percent());
+			} else {
+				u8(0);
+			}
+		}
+
+		void optTimeSig(Optional<SIDScoreIR.TimeSigIR> timeSig) {
+			bool(timeSig.isPresent());
+			timeSig.ifPresent(t -> {
+				sint(t.numerator());
+				sint(t.denominator());
+			});
+		}
+
+		void adsr(SIDScoreIR.AdsrIR adsr) {
+			sint(adsr.a());
+			sint(adsr.d());
+			sint(adsr.s());
+			sint(adsr.r());
+		}
+
+		void score(SIDScoreIR.ScoreIR ir) {
+			optString(ir.title());
+			optString(ir.author());
+			optString(ir.released());
+			sint(ir.tempoBpm());
+			optTimeSig(ir.timeSig());
+			optEnum(ir.system());
+			swing(ir.defaultSwing());
+			uint(ir.tables().size());
+			ir.tables().forEach((name, table) -> {
+				string(name);
+				table(table);
+			});
+			uint(ir.instruments().size());
+			ir.instruments().forEach((name, instrument) -> {
+				string(name);
+				instrument(instrument);
+			});
+			effects(ir.effects());
+			voices(ir.voices());
+			uint(ir.subtunes().size());
+			ir.subtunes().forEach((number, path) -> {
+				sint(number);
+				string(path.toString());
+			});
+			uint(ir.songs().size());
+			ir.songs().forEach((number, song) -> {
+				sint(number);
+				optString(song.title());
+				optString(song.author());
+				optString(song.released());
+				optInt(song.tempoBpm());
+				optTimeSig(song.timeSig());
+				optEnum(song.system());
+				bool(song.defaultSwing().isPresent());
+				song.defaultSwing().ifPresent(this::swing);
+				effects(song.effects());
+				voices(song.voices());
+			});
+		}
+
+		void table(SIDScoreIR.TableIR table) {
+			string(table.name());
+			enumValue(table.type());
+			bool(table.loop());
+			uint(table.steps().size());
+			for (SIDScoreIR.TableStepIR step : table.steps()) {
+				sint(step.value());
+				sint(step.durationFrames());
+				u8((step.hold() ? 1 : 0) | (step.waveSet() ? 2 : 0) | (step.reset() ? 4 : 0));
+				enumValue(step.noteMode());
+				sint(step.noteValue());
+				enumValue(step.gate());
+				enumValue(step.ring());
+				enumValue(step.sync());
+			}
+		}
+
+		void instrument(SIDScoreIR.InstrumentIR in) {
+			string(in.name());
+			sint(in.waveMask());
+			adsr(in.adsr());
+			optInt(in.pw());
+			optInt(in.pwMin());
+			optInt(in.pwMax());
+			sint(in.pwSweep());
+			optString(in.waveSeq());
+			optString(in.pwSeq());
+			optString(in.gateSeq());
+			optString(in.pitchSeq());
+			sint(in.filterModeMask());
+			optInt(in.filterCutoff());
+			optInt(in.filterRes());
+			optString(in.filterSeq());
+			enumValue(in.gateMode());
+			sint(in.gateMin());
+			bool(in.sync());
+			bool(in.ring());
+		}
+
+		void effects(Map<String, SIDScoreIR.EffectIR> effects) {
+			uint(effects.size());
+			effects.forEach((name, effect) -> {
+				string(name);
+				string(effect.name());
+				optInt(effect.preferredVoice());
+				sint(effect.lengthTicks());
+				sint(effect.priority());
+				enumValue(effect.retriggerMode());
+				uint(effect.steps().size());
+				for (SIDScoreIR.EffectStepIR step : effect.steps()) {
+					switch (step) {
+					case SIDScoreIR.EffectAssignmentIR a -> {
+						u8(0);
+						sint(a.tick());
+						enumValue(a.parameter());
+						effectValue(a.value());
+					}
+					case SIDScoreIR.EffectSweepIR s -> {
+						u8(1);
+						enumValue(s.parameter());
+						effectValue(s.fromValue());
+						effectValue(s.toValue());
+						sint(s.durationTicks());
+						enumValue(s.curve());
+					}
+					}
+				}
+			});
+		}
+
+		void effectValue(SIDScoreIR.EffectValueIR value) {
+			enumValue(value.kind());
+			sint(value.value());
+			bool(value.adsr().isPresent());
+			value.adsr().ifPresent(this::adsr);
+		}
+
+		void voices(Map<Integer, SIDScoreIR.VoiceIR> voices) {
+			uint(voices.size());
+			voices.forEach((index, voice) -> {
+				sint(index);
+				sint(voice.index());
+				string(voice.instrumentName());
+				items(voice.items());
+			});
+		}
+
+		void items(List<SIDScoreIR.VoiceItemIR> items) {
+			uint(items.size());
+			for (SIDScoreIR.VoiceItemIR item : items) {
+				switch (item) {
+				case SIDScoreIR.NoteIR n -> {
+					u8(0);
+					enumValue(n.pitch().letter());
+					enumValue(n.pitch().acc());
+					sint(n.pitch().octave());
+					optEnum(n.length());
+					bool(n.dotted());
+				}
+				case SIDScoreIR.RestIR r -> {
+					u8(1);
+					optEnum(r.length());
+					bool(r.dotted());
+				}
+				case SIDScoreIR.HitIR h -> {
+					u8(2);
+					optEnum(h.length());
+					bool(h.dotted());
+				}
+				case SIDScoreIR.SetDefaultLengthIR l -> {
+					u8(3);
+					enumValue(l.length());
+				}
+				case SIDScoreIR.SetSwingIR s -> {
+					u8(4);
+					swing(s.swing());
+				}
+				case SIDScoreIR.TieIR t -> u8(5);
+				case SIDScoreIR.LegatoScopeIR l -> {
+					u8(6);
+					items(l.items());
+				}
+				case SIDScoreIR.TupletIR t -> {
+					u8(7);
+					items(t.items());
+				}
+				case SIDScoreIR.RepeatIR r -> {
+					u8(8);
+					sint(r.times());
+					items(r.items());
+				}
+				}
+			}
+		}
+	}
+
+	private static final class Decoder {
+		private static final SIDScoreIR.TieIR TIE = new SIDScoreIR.TieIR();
+
+		private final ByteBuffer in;
+		private final List<String> strings = new ArrayList<>();
+
+		Decoder(ByteBuffer in) {
+			this.in = in;
+		}
+
+		byte[] bytes(int n) {
+			byte[] bytes = new byte[n];
+			in.get(bytes);
+			return bytes;
+		}
+
+		int u8() {
+			return in.get() & 0xFF;
+		}
+
+		int uint() {
+			int v = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = in.get();
+				v |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					return v;
+				}
+			}
+			throw new BufferUnderflowException();
+		}
+
+		int sint() {
+			int v = uint();
+			return (v >>> 1) ^ -(v & 1);
+		}
+
+		boolean bool() {
+			return in.get() != 0;
+		}
+
+		String string() {
+			int index = uint();
+			if (index > 0) {
+				return strings.get(index - 1);
+			}
+			String s = new String(bytes(uint()), StandardCharsets.UTF_8);
+			strings.add(s);
+			return s;
+		}
+
+		<E extends Enum<E>> E enumValue(E[] values) {
+			return values[uint()];
+		}
+
+		Optional<String> optString() {
+			return bool() ? Optional.of(string()) : Optional.empty();
+		}
+
+		OptionalInt optInt() {
+			return bool() ? OptionalInt.of(sint()) : OptionalInt.empty();
+		}
+
+		<E extends Enum<E>> Optional<E> optEnum(E[] values) {
+			return bool() ? Optional.of(enumValue(values)) : Optional.empty();
+		}
+
+		SIDScoreIR.SwingSetting swing() {
+			return u8() == 1 ? new SIDScoreIR.SwingPercent(sint()) : new SIDScoreIR.SwingOff();
+		}
+
+		Optional<SIDScoreIR.TimeSigIR> optTimeSig() {
+			return bool() ? Optional.of(new SIDScoreIR.TimeSigIR(sint(), sint())) : Optional.empty();
+		}
+
+		SIDScoreIR.AdsrIR adsr() {
+			return new SIDScoreIR.AdsrIR(sint(), sint(), sint(), sint());
+		}
+
+		<K, V> Map<K, V> map(Supplier<K> key, Function<K, V> value) {
+			int n = uint();
+			Map<K, V> map = new LinkedHashMap<>();
+			for (int i = 0; i < n; i++) {
+				K k = key.get();
+				map.put(k, value.apply(k));
+			}
+			return Collections.unmodifiableMap(map);
+		}
+
+		SIDScoreIR.ScoreIR score() {
+			Optional<String> title = optString();
+			Optional<String> author = optString();
+			Optional<String> released = optString();
+			int tempoBpm = sint();
+			Optional<SIDScoreIR.TimeSigIR> timeSig = optTimeSig();
+			Optional<SIDScoreIR.VideoSystem> system = optEnum(SIDScoreIR.VideoSystem.values());
+			SIDScoreIR.SwingSetting defaultSwing = swing();
+			Map<String, SIDScoreIR.TableIR> tables = map(this::string, k -> table());
+			Map<String, SIDScoreIR.InstrumentIR> instruments = map(this::string, k -> instrument());
+			Map<String, SIDScoreIR.EffectIR> effects = effects();
+			Map<Integer, SIDScoreIR.VoiceIR> voices = voices();
+			Map<Integer, Path> subtunes = map(this::sint, k -> Path.of(string()));
+			Map<Integer, SIDScoreIR.SongIR> songs = map(this::sint, k -> new SIDScoreIR.SongIR(optString(),
+					optString(), optString(), optInt(), optTimeSig(), optEnum(SIDScoreIR.VideoSystem.values()),
+					bool() ? Optional.of(swing()) : Optional.empty(), effects(), voices()));
+			return new SIDScoreIR.ScoreIR(title, author, released, tempoBpm, timeSig, system, defaultSwing, tables,
+					instruments, effects, voices, subtunes, songs);
+		}
+
+		SIDScoreIR.TableIR table() {
+			String name = string();
+			SIDScoreIR.TableType type = enumValue(SIDScoreIR.TableType.values());
+			boolean loop = bool();
+			int n = uint();
+			List<SIDScoreIR.TableStepIR> steps = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) {
+				int value = sint();
+				int durationFrames = sint();
+				int flags = u8();
+				SIDScoreIR.NoteMode noteMode = enumValue(SIDScoreIR.NoteMode.values());
+				int noteValue = sint();
+				SIDScoreIR.TriState gate = enumValue(SIDScoreIR.TriState.values());
+				SIDScoreIR.TriState ring = enumValue(SIDScoreIR.TriState.values());
+				SIDScoreIR.TriState sync = enumValue(SIDScoreIR.TriState.values());
+				steps.add(new SIDScoreIR.TableStepIR(value, durationFrames, (flags & 1) != 0, (flags & 2) != 0,
+						noteMode, noteValue, gate, ring, sync, (flags & 4) != 0));
+			}
+			return new SIDScoreIR.TableIR(name, type, List.copyOf(steps), loop);
+		}
+
+		SIDScoreIR.InstrumentIR instrument() {
+			return new SIDScoreIR.InstrumentIR(string(), sint(), adsr(), optInt(), optInt(), optInt(), sint(),
+					optString(), optString(), optString(), optString(), sint(), optInt(), optInt(), optString(),
+					enumValue(SIDScoreIR.InstrumentGateMode.values()), sint(), bool(), bool());
+		}
+
+		Map<String, SIDScoreIR.EffectIR> effects() {
+			return map(this::string, k -> {
+				String name = string();
+				OptionalInt preferredVoice = optInt();
+				int lengthTicks = sint();
+				int priority = sint();
+				SIDScoreIR.EffectRetriggerMode retrigger = enumValue(SIDScoreIR.EffectRetriggerMode.values());
+				int n = uint();
+				List<SIDScoreIR.EffectStepIR> steps = new ArrayList<>(n);
+				for (int i = 0; i < n; i++) {
+					if (u8() == 0) {
+						steps.add(new SIDScoreIR.EffectAssignmentIR(sint(),
+								enumValue(SIDScoreIR.EffectParameter.values()), effectValue()));
+					} else {
+						steps.add(new SIDScoreIR.EffectSweepIR(enumValue(SIDScoreIR.EffectParameter.values()),
+								effectValue(), effectValue(), sint(), enumValue(SIDScoreIR.EffectSweepCurve.values())));
+					}
+				}
+				return new SIDScoreIR.EffectIR(name, preferredVoice, lengthTicks, priority, retrigger,
+						List.copyOf(steps));
+			});
+		}
+
+		SIDScoreIR.EffectValueIR effectValue() {
+			SIDScoreIR.EffectValueKind kind = enumValue(SIDScoreIR.EffectValueKind.values());
+			int value = sint();
+			Optional<SIDScoreIR.AdsrIR> adsr = bool() ? Optional.of(adsr()) : Optional.empty();
+			return new SIDScoreIR.EffectValueIR(kind, value, adsr);
+		}
+
+		Map<Integer, SIDScoreIR.VoiceIR> voices() {
+			return map(this::sint, k -> new SIDScoreIR.VoiceIR(sint(), string(), items()));
+		}
+
+		List<SIDScoreIR.VoiceItemIR> items() {
+			int n = uint();
+			List<SIDScoreIR.VoiceItemIR> items = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) {
+				items.add(switch (u8()) {
+				case 0 -> new SIDScoreIR.NoteIR(new SIDScoreIR.PitchIR(enumValue(SIDScoreIR.NoteLetter.values()),
+						enumValue(SIDScoreIR.Accidental.values()), sint()), optEnum(SIDScoreIR.LengthIR.values()),
+						bool());
+				case 1 -> new SIDScoreIR.RestIR(optEnum(SIDScoreIR.LengthIR.values()), bool());
+				case 2 -> new SIDScoreIR.HitIR(optEnum(SIDScoreIR.LengthIR.values()), bool());
+				case 3 -> new SIDScoreIR.SetDefaultLengthIR(enumValue(SIDScoreIR.LengthIR.values()));
+				case 4 -> new SIDScoreIR.SetSwingIR(swing());
+				case 5 -> TIE;
+				case 6 -> new SIDScoreIR.LegatoScopeIR(items());
+				case 7 -> new SIDScoreIR.TupletIR(items());
+				case 8 -> new SIDScoreIR.RepeatIR(sint(), items());
+				default -> throw new IllegalStateException("Unknown voice item tag");
+				});
+			}
+			return List.copyOf(items);
+		}
+	}
+}
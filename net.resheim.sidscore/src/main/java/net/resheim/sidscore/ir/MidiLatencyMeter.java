@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Measures live MIDI note-on to audio-out latency during realtime playback.
+ * <p>
+ * The start is the {@link System#nanoTime()} stamp the MIDI source put on the
+ * note-on. The end is estimated when the block holding the note start has
+ * been written to the audio line: the write time plus the frames still queued
+ * ahead of that sample in the line. Output device latency below the Java line
+ * is not included.
+ * </p>
+ * <p>
+ * The render thread only appends to fixed arrays; the most recent
+ * {@value #CAPACITY} measurements are kept for {@link #summary()}.
+ * </p>
+ */
+public final class MidiLatencyMeter {
+	static final int CAPACITY = 8192;
+	private static final int MAX_PENDING = 64;
+
+	private final long[] pendingNanos = new long[MAX_PENDING];
+	private final int[] pendingSample = new int[MAX_PENDING];
+	private int pendingCount = 0;
+
+	private final long[] latencies = new long[CAPACITY];
+	private long recorded = 0;
+
+	/**
+	 * Latency percentiles over the retained measurements, in milliseconds.
+	 */
+	public static final record Summary(int count, double p50Millis, double p90Millis, double p99Millis,
+			double maxMillis) {
+		public String format() {
+			if (count == 0) {
+				return "no note-on events measured";
+			}
+			return String.format(Locale.ROOT, "n=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms", count, p50Millis,
+					p90Millis, p99Millis, maxMillis);
+		}
+	}
+
+	/**
+	 * Render thread: a note-on received at {@code receivedNanos} starts at
+	 * output sample {@code blockSample} of the block being rendered.
+	 */
+	void noteApplied(long receivedNanos, int blockSample) {
+		if (receivedNanos == 0 || pendingCount == MAX_PENDING) {
+			return;
+		}
+		pendingNanos[pendingCount] = receivedNanos;
+		pendingSample[pendingCount] = blockSample;
+		pendingCount++;
+	}
+
+	/**
+	 * Render thread: the block starting at output sample {@code blockStart} has
+	 * been handed to the audio line, which had played {@code framesPlayed}
+	 * frames at {@code nowNanos}.
+	 */
+	void blockWritten(long blockStart, long framesPlayed, long nowNanos, float sampleRate) {
+		if (pendingCount == 0) {
+			return;
+		}
+		synchronized (this) {
+			for (int i = 0; i < pendingCount; i++) {
+				long queued = Math.max(0, blockStart + pendingSample[i] - framesPlayed);
+				long outNanos = nowNanos + (long) (queued * 1.0e9 / sampleRate);
+				latencies[(int) (recorded++ % CAPACITY)] = Math.max(0, outNanos - pendingNanos[i]);
+			}
+		}
+		pendingCount = 0;
+	}
+
+	/**
+	 * Drops measurements that never reached the line, e.g. on stop.
+	 */
+	void discardPending() {
+		pendingCount = 0;
+	}
+
+	public synchronized Summary summary() {
+		int count = (int) Math.min(recorded, CAPACITY);
+		if (count == 0) {
+			return new Summary(0, 0.0, 0.0, 0.0, 0.0);
+		}
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		return new Summary(count, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+				sorted[count - 1] / 1.0e6);
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		int index = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1.0e6;
+	}
+}
@@ -12,20 +12,22 @@
 package net.resheim.sidscore.ir;
 
 import net.resheim.sidscore.sid.SidModel;
+import net.resheim.sidscore.sid.SidRegisterStream;
 import net.resheim.sidscore.sid.SidWaveforms;
 
 import javax.sound.sampled.*;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Realtime mock player for TimedScore via javax.sound.sampled.
@@ -64,13 +66,29 @@ public final class RealtimeAudioPlayer {
 	private static final float SAMPLE_RATE = 44100f;
 	private static final int BUFFER_SAMPLES = 512;
 	private static final int AUDIO_LINE_BUFFER_SAMPLES = BUFFER_SAMPLES * 8;
+	private static final int MIN_BLOCK_SAMPLES = 32;
+	private static final int MAX_BLOCK_SAMPLES = 4096;
+	private static final int MAX_LINE_BUFFER_SAMPLES = 32768;
+	// Underruns while the JIT warms up are not held against the profile.
+	private static final int UNDERRUN_GRACE_SAMPLES = (int) (44100f / 2);
 	private static final double SID_CLOCK_NTSC = 1022727.0;
 	private static final double SID_CLOCK_PAL = 985248.0;
 	private static final double RASTER_RATE_PAL = 50.124542;
 	private static final double RASTER_RATE_NTSC = 60.098814;
 	private static final double MIX_GAIN = 0.25;
+	/** Gain of one unit of a fixed-point voice level: envelope (255) times waveform (128). */
+	private static final double LEVEL_GAIN = MIX_GAIN / (255.0 * 128.0);
+	/**
+	 * Filter and output states below this level (about -180 dBFS) are flushed
+	 * to zero once their input has gone silent, so decaying tails end in true
+	 * silence instead of denormals.
+	 */
+	private static final double SETTLED_LEVEL = 1.0e-9;
 	private static final int OVERSAMPLE_BASE = 2;
 	private static final int OVERSAMPLE_RING = 4;
+	// The Chamberlin filter is unstable above ~6 kHz at 1x, so band-limited
+	// sessions run it at 2x; the ZDF filter runs at 1x.
+	private static final int BAND_LIMITED_FILTER_SUBSTEPS = 2;
 	// Output stage reconstruction (not the SID programmable filter).
 	private static final double OUTPUT_LP_HZ = 12000.0;
 	private static final SIDScoreIR.InstrumentIR SILENT_INSTR = new SIDScoreIR.InstrumentIR("silence", 0,
@@ -85,15 +103,23 @@ public final class RealtimeAudioPlayer {
 	private final AtomicBoolean stopRequested = new AtomicBoolean(false);
 	private final AtomicBoolean pauseRequested = new AtomicBoolean(false);
 	private volatile SourceDataLine activeLine = null;
+	private volatile MidiLatencyMeter midiLatencyMeter = null;
+	private volatile LatencyProfile latencyProfile = LatencyProfile.BALANCED;
+	private volatile OscillatorMode oscillatorMode = OscillatorMode.OVERSAMPLED;
+	private volatile FilterModel filterModel = FilterModel.CHAMBERLIN;
+	private volatile SynthesisCore synthesisCore = SynthesisCore.FLOATING_POINT;
+	private volatile int lineBufferSamples = AUDIO_LINE_BUFFER_SAMPLES;
+	private volatile long underruns = 0;
+	private volatile int lineBufferGrowths = 0;
 	private final SidModel sidModel;
 	private final SidWaveforms.TableSet waveTables;
 
 	public RealtimeAudioPlayer() {
-		this(SidModel.MOS6581, null);
+		this(SidModel.MOS6581, (Path) null);
 	}
 
 	public RealtimeAudioPlayer(SidModel model) {
-		this(model, null);
+		this(model, (Path) null);
 	}
 
 	public RealtimeAudioPlayer(SidModel model, Path waveformsPath) {
@@ -101,6 +127,93 @@ public final class RealtimeAudioPlayer {
 		this.waveTables = SidWaveforms.loadTables(this.sidModel, waveformsPath);
 	}
 
+	/**
+	 * Creates a player around already loaded waveform tables, so that many
+	 * players (e.g. batch render workers) can share one {@link SidWaveforms.TableSet}
+	 * per model. The tables are only read.
+	 */
+	public RealtimeAudioPlayer(SidModel model, SidWaveforms.TableSet waveTables) {
+		this.sidModel = model != null ? model : SidModel.MOS6581;
+		this.waveTables = waveTables != null ? waveTables : SidWaveforms.loadTables(this.sidModel, null);
+	}
+
+	/**
+	 * How oscillators suppress aliasing.
+	 */
+	public enum OscillatorMode {
+		/**
+		 * Naive waveforms with voices, envelopes and filter run at 2×, or 4×
+		 * when ring modulation is used, and smoothed down to the output rate.
+		 */
+		OVERSAMPLED,
+		/**
+		 * Band-limited (polyBLEP) waveforms rendered at the output rate; only
+		 * the filter runs at 2×.
+		 */
+		BAND_LIMITED;
+
+		public static OscillatorMode named(String name) {
+			return switch (name == null ? "" : name.trim().toLowerCase(java.util.Locale.ROOT)) {
+			case "oversampled", "default" -> OVERSAMPLED;
+			case "band-limited", "bandlimited", "blep" -> BAND_LIMITED;
+			default -> throw new IllegalArgumentException(
+					"Unknown oscillator mode: " + name + " (expected oversampled or band-limited)");
+			};
+		}
+	}
+
+	/**
+	 * State-variable filter topology of the global SID filter.
+	 */
+	public enum FilterModel {
+		/**
+		 * Chamberlin SVF; needs twice the output rate to stay stable at high
+		 * cutoffs.
+		 */
+		CHAMBERLIN,
+		/**
+		 * Zero-delay-feedback (topology-preserving transform) SVF, stable up to
+		 * Nyquist at the output rate.
+		 */
+		ZDF;
+
+		public static FilterModel named(String name) {
+			return switch (name == null ? "" : name.trim().toLowerCase(java.util.Locale.ROOT)) {
+			case "chamberlin", "default" -> CHAMBERLIN;
+			case "zdf", "tpt" -> ZDF;
+			default -> throw new IllegalArgumentException(
+					"Unknown filter model: " + name + " (expected chamberlin or zdf)");
+			};
+		}
+	}
+
+	/**
+	 * Number format of the oscillators, envelopes and voice mix.
+	 */
+	public enum SynthesisCore {
+		/**
+		 * Phase, envelope and mix in {@code double}.
+		 */
+		FLOATING_POINT,
+		/**
+		 * A 24-bit integer phase accumulator with a 32-bit fractional step for
+		 * the host rate, 8-bit envelope levels and integer voice mixing; the
+		 * mix only turns into floating point at the filter and output stage.
+		 * Applies to {@link OscillatorMode#OVERSAMPLED} oscillators; band-limited
+		 * ones place their edges between samples and keep floating point.
+		 */
+		FIXED_POINT;
+
+		public static SynthesisCore named(String name) {
+			return switch (name == null ? "" : name.trim().toLowerCase(java.util.Locale.ROOT)) {
+			case "floating-point", "float", "double", "default" -> FLOATING_POINT;
+			case "fixed-point", "fixed", "integer" -> FIXED_POINT;
+			default -> throw new IllegalArgumentException(
+					"Unknown synthesis core: " + name + " (expected floating-point or fixed-point)");
+			};
+		}
+	}
+
 	public interface SampleListener {
 		void onSamples(float[] voice1, float[] voice2, float[] voice3, int length, float sampleRate);
 	}
@@ -110,6 +223,12 @@ public final class RealtimeAudioPlayer {
 	}
 
 	public interface MidiSource {
+		/**
+		 * Most events a live source delivers per voice and drain. The render
+		 * thread sizes its per-block event queue to this up front.
+		 */
+		int MAX_EVENTS_PER_DRAIN = 64;
+
 		boolean controlsVoice(int voiceIndex);
 
 		MidiSnapshot snapshot(int voiceIndex);
@@ -117,9 +236,35 @@ public final class RealtimeAudioPlayer {
 		default List<MidiEvent> drainEvents(int voiceIndex) {
 			return List.of();
 		}
+
+		/**
+		 * Whether {@link #drainEvents(int, Consumer)} has anything to deliver.
+		 * Called from the render thread once per block, so it must not block.
+		 */
+		default boolean hasEvents(int voiceIndex) {
+			return true;
+		}
+
+		/**
+		 * Hands pending events for {@code voiceIndex} to {@code sink} in arrival
+		 * order and returns how many were delivered. Implementations used for
+		 * live playback should do this without locking or allocating.
+		 */
+		default int drainEvents(int voiceIndex, Consumer<MidiEvent> sink) {
+			List<MidiEvent> events = drainEvents(voiceIndex);
+			events.forEach(sink);
+			return events.size();
+		}
 	}
 
-	public static final record MidiEvent(int note, int velocity, boolean gate, double pitchBendSemitones, long id) {
+	/**
+	 * A note-on ({@code gate}) or note-off for one voice. {@code timestampNanos}
+	 * is the {@link System#nanoTime()} at which the message was received, or 0
+	 * when unknown; stamped events are placed at the matching sample offset in
+	 * the next render block.
+	 */
+	public static final record MidiEvent(int note, int velocity, boolean gate, double pitchBendSemitones, long id,
+			long timestampNanos) {
 	}
 
 	public static final record MidiSnapshot(int note, int velocity, boolean gate, double pitchBendSemitones,
@@ -139,6 +284,91 @@ public final class RealtimeAudioPlayer {
 			VoiceSnapshot[] voices, float[][] samples, int length) {
 	}
 
+	/**
+	 * Outcome of an offline render: the number of output samples written and
+	 * the largest absolute 16-bit sample value.
+	 */
+	public static final record RenderStats(long samples, float sampleRate, int peak) {
+		public double seconds() {
+			return samples / (double) sampleRate;
+		}
+
+		public double peakDbfs() {
+			return peak == 0 ? Double.NEGATIVE_INFINITY : 20.0 * Math.log10(peak / 32767.0);
+		}
+	}
+
+	/**
+	 * Block size and audio line depth for live playback, in output samples.
+	 * Smaller values lower the latency from MIDI input (or any other control)
+	 * to audio out, at the cost of more wakeups and less headroom for the
+	 * render thread. Offline rendering always uses the default block size.
+	 */
+	public static final record LatencyProfile(int blockSamples, int lineBufferSamples) {
+		public static final LatencyProfile LOW = new LatencyProfile(128, 1024);
+		public static final LatencyProfile BALANCED = new LatencyProfile(BUFFER_SAMPLES, AUDIO_LINE_BUFFER_SAMPLES);
+		public static final LatencyProfile SAFE = new LatencyProfile(1024, 8192);
+
+		public LatencyProfile {
+			if (blockSamples < MIN_BLOCK_SAMPLES || blockSamples > MAX_BLOCK_SAMPLES) {
+				throw new IllegalArgumentException("Block size must be " + MIN_BLOCK_SAMPLES + ".."
+						+ MAX_BLOCK_SAMPLES + " samples, got " + blockSamples);
+			}
+			if (lineBufferSamples < blockSamples * 2 || lineBufferSamples > MAX_LINE_BUFFER_SAMPLES) {
+				throw new IllegalArgumentException("Line buffer must be at least two blocks (" + blockSamples * 2
+						+ ") and at most " + MAX_LINE_BUFFER_SAMPLES + " samples, got " + lineBufferSamples);
+			}
+		}
+
+		/**
+		 * Parses {@code low}, {@code balanced} or {@code safe}.
+		 */
+		public static LatencyProfile named(String name) {
+			return switch (name == null ? "" : name.trim().toLowerCase(java.util.Locale.ROOT)) {
+			case "low" -> LOW;
+			case "balanced", "default" -> BALANCED;
+			case "safe" -> SAFE;
+			default -> throw new IllegalArgumentException("Unknown latency profile: " + name
+					+ " (expected low, balanced or safe)");
+			};
+		}
+
+		public LatencyProfile withBlockSamples(int samples) {
+			return new LatencyProfile(samples, Math.max(lineBufferSamples, samples * 2));
+		}
+
+		public LatencyProfile withLineBufferSamples(int samples) {
+			return new LatencyProfile(blockSamples, samples);
+		}
+
+		/**
+		 * Worst-case delay from a control change to audio out: one block plus a
+		 * full line buffer.
+		 */
+		public double latencyMillis() {
+			return (blockSamples + lineBufferSamples) * 1000.0 / SAMPLE_RATE;
+		}
+
+		@Override
+		public String toString() {
+			String name = equals(LOW) ? "Low" : equals(BALANCED) ? "Balanced" : equals(SAFE) ? "Safe" : "Custom";
+			return String.format(java.util.Locale.ROOT, "%s (%d/%d, ~%.0f ms)", name, blockSamples,
+					lineBufferSamples, latencyMillis());
+		}
+	}
+
+	/**
+	 * Audio line counters for the current or last live playback.
+	 * {@code underruns} counts blocks where the line had run dry before the
+	 * render thread delivered the next block; each underrun doubles the line
+	 * buffer (up to a limit) and {@code bufferGrowths} counts those. The next
+	 * playback opens the line at the latency profile's depth again and starts
+	 * both counts from zero.
+	 */
+	public static final record AudioLineStats(int blockSamples, int lineBufferSamples, long underruns,
+			int bufferGrowths) {
+	}
+
 	public static final record VoiceSnapshot(int voiceIndex, int noteKind, int noteLetter, int accidental,
 			int octave, int waveMask, int flags, int freqReg, int pulseWidth, int pitchOffsetSemitones,
 			float envelopeLevel, float outputLevel) {
@@ -173,19 +403,64 @@ public final class RealtimeAudioPlayer {
 		render(score, null, true, null, listener, null);
 	}
 
-	public void renderToWav(SIDScoreIR.TimedScore score, Path wavOut) {
-		renderToWav(score, wavOut, null);
+	/**
+	 * Plays recorded SID register writes in realtime, bypassing score
+	 * interpretation entirely.
+	 */
+	public void play(SidRegisterStream stream) throws LineUnavailableException {
+		play(stream, null);
 	}
 
-	public void renderToWav(SIDScoreIR.TimedScore score, Path wavOut, SampleListener listener) {
+	public void play(SidRegisterStream stream, SampleListener listener) throws LineUnavailableException {
+		render(new ChipSession(stream, waveTables, oscillatorMode, filterModel, synthesisCore), null, true, listener,
+				null, null);
+	}
+
+	public RenderStats renderToWav(SIDScoreIR.TimedScore score, Path wavOut) {
+		return renderToWav(score, wavOut, null);
+	}
+
+	public RenderStats renderToWav(SIDScoreIR.TimedScore score, Path wavOut, SampleListener listener) {
 		if (wavOut == null) {
 			throw new IllegalArgumentException("wavOut is required");
 		}
-		try {
-			render(score, wavOut, false, listener, null, null);
-		} catch (LineUnavailableException e) {
-			e.printStackTrace();
+		return renderOffline(new ChipSession(score, null, waveTables, null, oscillatorMode, filterModel, synthesisCore),
+				wavOut, listener);
+	}
+
+	/**
+	 * Renders recorded SID register writes, for example from
+	 * {@link net.resheim.sidscore.c64.PsidPlayer}, through the same chip model
+	 * as scores. The output ends with the last frame of the stream.
+	 */
+	public RenderStats renderToWav(SidRegisterStream stream, Path wavOut) {
+		if (wavOut == null) {
+			throw new IllegalArgumentException("wavOut is required");
 		}
+		return renderOffline(new ChipSession(stream, waveTables, oscillatorMode, filterModel, synthesisCore), wavOut, null);
+	}
+
+	/**
+	 * Renders {@code score} offline and returns the 16-bit mono samples at
+	 * {@link #sampleRate()}, exactly as {@link #renderToWav} would write them.
+	 */
+	public short[] renderPcm(SIDScoreIR.TimedScore score) {
+		return renderPcm(new ChipSession(score, null, waveTables, null, oscillatorMode, filterModel, synthesisCore));
+	}
+
+	/**
+	 * Renders {@code stream} offline and returns the 16-bit mono samples at
+	 * {@link #sampleRate()}.
+	 */
+	public short[] renderPcm(SidRegisterStream stream) {
+		return renderPcm(new ChipSession(stream, waveTables, oscillatorMode, filterModel, synthesisCore));
+	}
+
+	/**
+	 * Output sample rate of all renders, in Hz.
+	 */
+	public static float sampleRate() {
+		return SAMPLE_RATE;
 	}
 
 	public void stop() {
@@ -206,6 +481,65 @@ public final class RealtimeAudioPlayer {
 		pauseRequested.set(true);
 	}
 
+	/**
+	 * Enables note-on to audio-out latency measurement for subsequent live MIDI
+	 * playback, or disables it when {@code meter} is null.
+	 */
+	public void setMidiLatencyMeter(MidiLatencyMeter meter) {
+		this.midiLatencyMeter = meter;
+	}
+
+	/**
+	 * Sets block size and line depth for subsequent live playback and resets
+	 * any line growth from earlier underruns.
+	 */
+	public void setLatencyProfile(LatencyProfile profile) {
+		LatencyProfile p = profile != null ? profile : LatencyProfile.BALANCED;
+		this.latencyProfile = p;
+		this.lineBufferSamples = p.lineBufferSamples();
+	}
+
+	/**
+	 * Selects the oscillator mode for renders started after this call.
+	 */
+	public void setOscillatorMode(OscillatorMode mode) {
+		oscillatorMode = mode != null ? mode : OscillatorMode.OVERSAMPLED;
+	}
+
+	public OscillatorMode oscillatorMode() {
+		return oscillatorMode;
+	}
+
+	/**
+	 * Selects the filter model for renders started after this call.
+	 */
+	public void setFilterModel(FilterModel model) {
+		filterModel = model != null ? model : FilterModel.CHAMBERLIN;
+	}
+
+	public FilterModel filterModel() {
+		return filterModel;
+	}
+
+	/**
+	 * Selects the synthesis core for renders started after this call.
+	 */
+	public void setSynthesisCore(SynthesisCore core) {
+		synthesisCore = core != null ? core : SynthesisCore.FLOATING_POINT;
+	}
+
+	public SynthesisCore synthesisCore() {
+		return synthesisCore;
+	}
+
+	public LatencyProfile latencyProfile() {
+		return latencyProfile;
+	}
+
+	public AudioLineStats audioLineStats() {
+		return new AudioLineStats(latencyProfile.blockSamples(), lineBufferSamples, underruns, lineBufferGrowths);
+	}
+
 	public void resume() {
 		pauseRequested.set(false);
 	}
@@ -213,194 +547,103 @@ public final class RealtimeAudioPlayer {
 	private void render(SIDScoreIR.TimedScore score, Path wavOut, boolean playAudio, SampleListener listener,
 			PlaybackListener playbackListener, MidiSource midiSource)
 			throws LineUnavailableException {
+		MidiLatencyMeter latencyMeter = midiSource != null && playAudio ? midiLatencyMeter : null;
+		render(new ChipSession(score, midiSource, waveTables, latencyMeter, oscillatorMode, filterModel,
+				synthesisCore), wavOut, playAudio, listener, playbackListener, latencyMeter);
+	}
+
+	private void render(ChipSession chip, Path wavOut, boolean playAudio, SampleListener listener,
+			PlaybackListener playbackListener, MidiLatencyMeter latencyMeter)
+			throws LineUnavailableException {
 		pauseRequested.set(false);
 		AudioFormat fmt = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
 		SourceDataLine line = null;
+		WavFileWriter wavWriter = null;
 		try {
 			if (stopRequested.get()) {
 				return;
 			}
+			LatencyProfile profile = latencyProfile;
+			int blockSamples = profile.blockSamples();
 			if (playAudio) {
+				// A buffer grown after underruns only lasts for one playback, and so do its counters.
+				lineBufferSamples = profile.lineBufferSamples();
+				underruns = 0;
+				lineBufferGrowths = 0;
 				line = AudioSystem.getSourceDataLine(fmt);
-				line.open(fmt, AUDIO_LINE_BUFFER_SAMPLES * fmt.getFrameSize());
+				line.open(fmt, lineBufferSamples * fmt.getFrameSize());
 				activeLine = line;
 			}
 
-			double sidClockHz = score.system() == SIDScoreIR.VideoSystem.NTSC ? SID_CLOCK_NTSC : SID_CLOCK_PAL;
-			double frameRate = score.system() == SIDScoreIR.VideoSystem.NTSC ? RASTER_RATE_NTSC : RASTER_RATE_PAL;
-
-			FilterRuntime filter = new FilterRuntime(frameRate);
-			RuntimeVoice[] vr = new RuntimeVoice[3];
-			for (int i = 0; i < 3; i++) {
-				int voiceIndex = i + 1;
-				var tv = score.voices().get(i + 1);
-				SIDScoreIR.InstrumentIR instrument = tv != null ? tv.instrument() : DEFAULT_MIDI_INSTR;
-				RuntimeVoice primary;
-				boolean midiControlsVoice = midiSource != null && midiSource.controlsVoice(voiceIndex);
-				if (midiControlsVoice || tv == null) {
-					List<FrameEventCompiler.FrameEvent> events = FrameEventCompiler.compileVoice(null, score);
-					primary = new VoiceRuntime(SILENT_INSTR, events, sidClockHz, frameRate, score.tables(), filter,
-							waveTables);
-				} else {
-					List<FrameEventCompiler.FrameEvent> events = FrameEventCompiler.compileVoice(tv, score);
-					primary = new VoiceRuntime(instrument, events, sidClockHz, frameRate, score.tables(), filter,
-							waveTables);
-				}
-				if (midiControlsVoice) {
-					RuntimeVoice midiRuntime = new MidiRuntime(voiceIndex, instrument, midiSource, sidClockHz,
-							frameRate, score.tables(), filter, waveTables);
-					vr[i] = new SharedTimelineRuntimeVoice(primary, midiRuntime);
-				} else {
-					vr[i] = primary;
-				}
-			}
-			if (!score.effects().isEmpty()) {
-				Map<Integer, List<ScheduledEffect>> scheduledEffects = scheduleEffects(score.effects(), 0);
-				for (int i = 0; i < 3; i++) {
-					RuntimeVoice effectRuntime = new EffectRuntime(i + 1,
-							scheduledEffects.getOrDefault(i + 1, List.of()), sidClockHz, frameRate, filter, waveTables);
-					vr[i] = new SharedTimelineRuntimeVoice(vr[i], effectRuntime);
-				}
+			byte[] buf = new byte[blockSamples * 2];
+			if (wavOut != null) {
+				wavWriter = new WavFileWriter(wavOut, (int) SAMPLE_RATE, 1);
 			}
-
-			byte[] buf = new byte[BUFFER_SAMPLES * 2];
-			ByteArrayOutputStream wavBuffer = wavOut != null ? new ByteArrayOutputStream() : null;
 			boolean wantsVoiceSamples = listener != null || playbackListener != null;
-			float[][] voiceBuf = wantsVoiceSamples ? new float[3][BUFFER_SAMPLES] : null;
+			float[][] voiceBuf = wantsVoiceSamples ? new float[3][blockSamples] : null;
 			double[] voiceMix = wantsVoiceSamples ? new double[3] : null;
-			double[] voiceSampleByVoice = wantsVoiceSamples ? new double[3] : null;
-			boolean[] voiceRouted = wantsVoiceSamples ? new boolean[3] : null;
 			long blockIndex = 0;
 			long renderedSamples = 0;
 
-			boolean[] msb = new boolean[3];
-			boolean[] rise = new boolean[3];
-			int[] modIndex = new int[] { 2, 0, 1 };
-
-			int oversample = OVERSAMPLE_BASE;
-			if (effectsMayUseRing(score.effects())) {
-				oversample = Math.max(oversample, OVERSAMPLE_RING);
-			}
-			for (int i = 0; i < 3; i++) {
-				var tv = score.voices().get(i + 1);
-				SIDScoreIR.InstrumentIR instrument = tv != null ? tv.instrument()
-						: (midiSource != null && midiSource.controlsVoice(i + 1) ? DEFAULT_MIDI_INSTR : null);
-				if (instrument != null && instrument.ring()) {
-					oversample = Math.max(oversample, OVERSAMPLE_RING);
-				}
-			}
 			boolean linePaused = false;
 			boolean lineStarted = false;
+			// After an underrun the line is reopened empty; it is refilled to half
+			// its new depth before it starts again.
+			boolean linePriming = false;
+			long lineFrameBase = 0;
 
-			double outLP = 0.0;
-			double srOS = SAMPLE_RATE * oversample;
-			double outLPAlpha = onePoleAlpha(OUTPUT_LP_HZ, srOS);
-
-			boolean done;
 			do {
-				done = true;
-				int samplesWritten = 0;
-				for (int s = 0; s < BUFFER_SAMPLES; s++) {
-					while (pauseRequested.get() && !stopRequested.get()) {
-						if (playAudio && line != null && lineStarted && !linePaused) {
-							line.stop();
-							linePaused = true;
-						}
-						try {
-							Thread.sleep(8);
-						} catch (InterruptedException ie) {
-							Thread.currentThread().interrupt();
-							stopRequested.set(true);
-							break;
-						}
-					}
-					if (linePaused && playAudio && line != null && !stopRequested.get()) {
-						line.start();
-						lineStarted = true;
-						linePaused = false;
+				// Pause and stop take effect between blocks, at most one block late.
+				while (pauseRequested.get() && !stopRequested.get()) {
+					if (playAudio && line != null && lineStarted && !linePaused) {
+						line.stop();
+						linePaused = true;
 					}
-					if (stopRequested.get()) {
+					try {
+						Thread.sleep(8);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+						stopRequested.set(true);
 						break;
 					}
-					if (voiceMix != null) {
-						voiceMix[0] = 0.0;
-						voiceMix[1] = 0.0;
-						voiceMix[2] = 0.0;
-					}
-					for (int os = 0; os < oversample; os++) {
-						for (int v = 0; v < 3; v++) {
-							vr[v].prepareSample((float) srOS);
-						}
-						for (int v = 0; v < 3; v++) {
-							OscState st = vr[v].advanceOsc((float) srOS);
-							msb[v] = st.msb;
-							rise[v] = st.msbRise;
-						}
-						for (int v = 0; v < 3; v++) {
-							vr[v].applySync(rise[modIndex[v]]);
-						}
-
-						double dry = 0.0;
-						double wet = 0.0;
-						for (int v = 0; v < 3; v++) {
-							double voiceSample = vr[v].renderSample((float) srOS, msb[modIndex[v]]);
-							boolean routed = filter.routesVoice(v + 1, vr[v].filterRoute());
-							if (routed) {
-								wet += voiceSample;
-							} else {
-								dry += voiceSample;
-							}
-							if (wantsVoiceSamples) {
-								voiceSampleByVoice[v] = voiceSample;
-								voiceRouted[v] = routed;
-							}
-							done &= vr[v].done();
-						}
-
-						double filtered = filter.apply(wet, (float) srOS);
-						double volumeScale = filter.volumeScale();
-						if (wantsVoiceSamples) {
-							for (int v = 0; v < 3; v++) {
-								if (voiceRouted[v]) {
-									if (Math.abs(wet) > 1.0e-9) {
-										voiceMix[v] += filtered * (voiceSampleByVoice[v] / wet) * volumeScale;
-									}
-								} else {
-									voiceMix[v] += voiceSampleByVoice[v] * volumeScale;
-								}
-							}
-						}
-						double mix = (dry + filtered) * volumeScale;
-
-						// Output stage smoothing (simple RC) at oversampled rate.
-						outLP += outLPAlpha * (mix - outLP);
-					}
-
-					// Safety clamp at output sample rate.
-					double mix = Math.max(-1.0, Math.min(1.0, outLP));
-
-					short pcm = (short) (mix * 32767);
-					buf[s * 2] = (byte) (pcm & 0xFF);
-					buf[s * 2 + 1] = (byte) ((pcm >>> 8) & 0xFF);
-
-					if (voiceBuf != null) {
-						voiceBuf[0][s] = (float) (voiceMix[0] / oversample);
-						voiceBuf[1][s] = (float) (voiceMix[1] / oversample);
-						voiceBuf[2][s] = (float) (voiceMix[2] / oversample);
-					}
-					samplesWritten++;
+				}
+				if (linePaused && playAudio && line != null && !stopRequested.get()) {
+					line.start();
+					lineStarted = true;
+					linePaused = false;
+				}
+				int samplesWritten = 0;
+				if (!stopRequested.get()) {
+					chip.renderBlock(buf, blockSamples, voiceBuf, voiceMix);
+					samplesWritten = blockSamples;
 				}
 				if (playAudio && line != null && samplesWritten > 0 && !stopRequested.get()) {
+					if (lineStarted && !linePaused && renderedSamples > UNDERRUN_GRACE_SAMPLES
+							&& line.available() >= line.getBufferSize()) {
+						if (handleUnderrun(line, fmt)) {
+							lineStarted = false;
+							linePriming = true;
+							lineFrameBase = renderedSamples;
+						}
+					}
 					line.write(buf, 0, samplesWritten * 2);
-					if (!lineStarted && !stopRequested.get()) {
+					if (!lineStarted && !stopRequested.get()
+							&& (!linePriming || line.available() <= line.getBufferSize() / 2)) {
 						line.start();
 						lineStarted = true;
+						linePriming = false;
 					} else if (lineStarted && !line.isRunning() && !pauseRequested.get() && !stopRequested.get()) {
 						line.start();
 					}
+					if (latencyMeter != null) {
+						latencyMeter.blockWritten(renderedSamples - lineFrameBase, line.getLongFramePosition(),
+								System.nanoTime(), SAMPLE_RATE);
+					}
+				} else if (latencyMeter != null) {
+					latencyMeter.discardPending();
 				}
-				if (wavBuffer != null) {
-					wavBuffer.write(buf, 0, samplesWritten * 2);
+				if (wavWriter != null) {
+					wavWriter.write(buf, 0, samplesWritten * 2);
 				}
 				if (listener != null && samplesWritten > 0) {
 					listener.onSamples(voiceBuf[0], voiceBuf[1], voiceBuf[2], samplesWritten, SAMPLE_RATE);
@@ -408,17 +651,17 @@ public final class RealtimeAudioPlayer {
 				if (playbackListener != null && samplesWritten > 0) {
 					VoiceSnapshot[] snapshots = new VoiceSnapshot[3];
 					for (int i = 0; i < 3; i++) {
-						snapshots[i] = vr[i].snapshot(i + 1);
+						snapshots[i] = chip.voices[i].snapshot(i + 1);
 					}
-					long frameIndex = (long) Math.floor(renderedSamples * frameRate / SAMPLE_RATE);
+					long frameIndex = (long) Math.floor(renderedSamples * chip.frameRate / SAMPLE_RATE);
 					playbackListener.onBlock(new PlaybackBlock(blockIndex++, frameIndex, SAMPLE_RATE, snapshots, voiceBuf,
 							samplesWritten));
 				}
 				renderedSamples += samplesWritten;
-			} while (!done && !stopRequested.get());
+			} while (!chip.blockDone() && !stopRequested.get());
 
 			if (stopRequested.get()) {
-				emitSilentTelemetry(listener, playbackListener, blockIndex++, renderedSamples, frameRate);
+				emitSilentTelemetry(listener, playbackListener, blockIndex++, renderedSamples, chip.frameRate);
 			}
 
 			if (playAudio && line != null) {
@@ -426,18 +669,31 @@ public final class RealtimeAudioPlayer {
 					line.stop();
 					line.flush();
 				} else {
+					if (!lineStarted) {
+						line.start();
+					}
 					line.drain();
 					line.stop();
 				}
 				line.close();
 			}
 
-			if (wavBuffer != null) {
-				writeWav(wavBuffer.toByteArray(), fmt, wavOut);
+			if (wavWriter != null) {
+				wavWriter.close();
 			}
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to write WAV: " + wavOut, e);
 		} finally {
 			pauseRequested.set(false);
 			stopRequested.set(false);
+			if (wavWriter != null) {
+				try {
+					// Keeps whatever was rendered before a failure as a valid file.
+					wavWriter.close();
+				} catch (IOException ignored) {
+					// Already reporting the original failure.
+				}
+			}
 			if (activeLine == line) {
 				activeLine = null;
 			}
@@ -453,6 +709,90 @@ public final class RealtimeAudioPlayer {
 		}
 	}
 
+	/**
+	 * Headless counterpart to {@link #render}: same chip model and therefore the
+	 * same samples, but no audio line, no pause handling and {@link #stop()} is
+	 * only checked between blocks.
+	 */
+	private RenderStats renderOffline(ChipSession chip, Path wavOut, SampleListener listener) {
+		pauseRequested.set(false);
+		try {
+			if (stopRequested.get()) {
+				return new RenderStats(0, SAMPLE_RATE, 0);
+			}
+			byte[] buf = new byte[BUFFER_SAMPLES * 2];
+			float[][] voiceBuf = listener != null ? new float[3][BUFFER_SAMPLES] : null;
+			double[] voiceMix = listener != null ? new double[3] : null;
+			long renderedSamples = 0;
+			int peak = 0;
+			try (WavFileWriter wavWriter = new WavFileWriter(wavOut, (int) SAMPLE_RATE, 1)) {
+				do {
+					chip.renderBlock(buf, voiceBuf, voiceMix);
+					peak = Math.max(peak, peakOf(buf));
+					wavWriter.write(buf, 0, buf.length);
+					if (listener != null) {
+						listener.onSamples(voiceBuf[0], voiceBuf[1], voiceBuf[2], BUFFER_SAMPLES, SAMPLE_RATE);
+					}
+					renderedSamples += BUFFER_SAMPLES;
+				} while (!chip.blockDone() && !stopRequested.get());
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to write WAV: " + wavOut, e);
+			}
+			if (stopRequested.get()) {
+				emitSilentTelemetry(listener, null, 0, renderedSamples, chip.frameRate);
+			}
+			return new RenderStats(renderedSamples, SAMPLE_RATE, peak);
+		} finally {
+			pauseRequested.set(false);
+			stopRequested.set(false);
+		}
+	}
+
+	private static short[] renderPcm(ChipSession chip) {
+		byte[] buf = new byte[BUFFER_SAMPLES * 2];
+		short[] out = new short[BUFFER_SAMPLES * 64];
+		int samples = 0;
+		do {
+			chip.renderBlock(buf, null, null);
+			if (samples + BUFFER_SAMPLES > out.length) {
+				out = Arrays.copyOf(out, out.length * 2);
+			}
+			for (int i = 0; i < BUFFER_SAMPLES; i++) {
+				out[samples++] = (short) ((buf[i * 2] & 0xFF) | (buf[i * 2 + 1] << 8));
+			}
+		} while (!chip.blockDone());
+		return Arrays.copyOf(out, samples);
+	}
+
+	private static int peakOf(byte[] pcm) {
+		int peak = 0;
+		for (int i = 0; i < pcm.length; i += 2) {
+			int sample = (short) ((pcm[i] & 0xFF) | (pcm[i + 1] << 8));
+			peak = Math.max(peak, Math.abs(sample));
+		}
+		return peak;
+	}
+
+	/**
+	 * Records an underrun and, unless the line is already at its maximum
+	 * depth, reopens it with twice the buffer. Returns whether the line was
+	 * reopened (and so must be started again).
+	 */
+	private boolean handleUnderrun(SourceDataLine line, AudioFormat fmt) throws LineUnavailableException {
+		underruns++;
+		if (lineBufferSamples >= MAX_LINE_BUFFER_SAMPLES) {
+			return false;
+		}
+		int grown = Math.min(MAX_LINE_BUFFER_SAMPLES, lineBufferSamples * 2);
+		line.stop();
+		line.flush();
+		line.close();
+		line.open(fmt, grown * fmt.getFrameSize());
+		lineBufferSamples = grown;
+		lineBufferGrowths++;
+		return true;
+	}
+
 	private static void emitSilentTelemetry(SampleListener listener, PlaybackListener playbackListener,
 			long blockIndex, long renderedSamples, double frameRate) {
 		if (listener == null && playbackListener == null) {
@@ -486,17 +826,151 @@ public final class RealtimeAudioPlayer {
 
 		boolean filterRoute();
 
-		void prepareSample(float sr);
-
-		OscState advanceOsc(float sr);
-
-		void applySync(boolean modRise);
+		/**
+		 * Called once at the start of every output block of
+		 * {@code blockSamples} output samples, before the first
+		 * {@link #prepareSample(float)} of that block.
+		 */
+		default void beginBlock(float sr, int blockSamples) {
+		}
+
+		/**
+		 * Advances everything that changes at the player's frame rate: score
+		 * events, table sequencers, effect frames and register writes. Called
+		 * once per raster frame, before the first sample of the frame.
+		 */
+		void tickFrame(float sr);
+
+		/**
+		 * Control work that cannot wait for the next frame tick, such as live
+		 * MIDI notes; called before every sample.
+		 */
+		default void prepareSample(float sr) {
+		}
+
+		/**
+		 * Advances the oscillator one sample and returns its {@link OscState} bits.
+		 */
+		int advanceOsc(float sr);
+
+		/**
+		 * Hard-syncs the oscillator when the modulating voice, whose
+		 * {@link OscState} bits are {@code modState}, has just risen.
+		 */
+		void applySync(int modState);
+
+		/**
+		 * Renders one sample; {@code modState} carries the modulating voice's
+		 * {@link OscState} bits for ring modulation.
+		 */
+		double renderSample(float sr, int modState);
+
+		/**
+		 * Whether the voice can be rendered on its own until the next frame
+		 * tick: no sync or ring coupling to its modulating voice and no control
+		 * work between samples. Asked after every frame tick.
+		 */
+		default boolean independent() {
+			return false;
+		}
 
-		double renderSample(float sr, boolean modMsb);
+		/**
+		 * Renders the next {@code n} samples of an {@link #independent()} voice
+		 * into {@code out}, advancing its oscillator as
+		 * {@link #advanceOsc(float)} and {@link #renderSample(float, int)}
+		 * would, sample by sample. Returns {@code false}, leaving {@code out}
+		 * untouched, when the voice is silent for the whole span.
+		 */
+		default boolean renderSpan(float sr, double[] out, int n, SpanBuffers buffers) {
+			for (int i = 0; i < n; i++) {
+				advanceOsc(sr);
+				out[i] = renderSample(sr, OscState.OFF);
+			}
+			return true;
+		}
+
+		/**
+		 * Advances an {@link #independent()} voice by {@code n} samples whose
+		 * output is not heard, keeping its envelope, oscillator phase and noise
+		 * generator where rendering would have left them.
+		 */
+		default void skipSpan(float sr, int n, SpanBuffers buffers) {
+			for (int i = 0; i < n; i++) {
+				advanceOsc(sr);
+				renderSample(sr, OscState.OFF);
+			}
+		}
+
+		/**
+		 * Switches the voice's oscillators to {@link OscillatorMode#BAND_LIMITED}
+		 * rendering before the first sample.
+		 */
+		void useBandLimitedOsc();
+
+		/**
+		 * Switches the voice to the {@link SynthesisCore#FIXED_POINT} core
+		 * before the first sample; it is then rendered with
+		 * {@link #renderLevel} and {@link #renderSpanLevels}.
+		 */
+		void useFixedPointCore();
+
+		/**
+		 * {@link #renderSample} of the fixed-point core: the envelope level
+		 * ({@code 0-255}) times the signed waveform level ({@code -128..127}),
+		 * which {@code LEVEL_GAIN} scales to what {@link #renderSample}
+		 * returns.
+		 */
+		int renderLevel(float sr, int modState);
+
+		/**
+		 * {@link #renderSpan} of the fixed-point core, writing
+		 * {@link #renderLevel} levels.
+		 */
+		default boolean renderSpanLevels(float sr, int[] out, int n, SpanBuffers buffers) {
+			for (int i = 0; i < n; i++) {
+				advanceOsc(sr);
+				out[i] = renderLevel(sr, OscState.OFF);
+			}
+			return true;
+		}
 
 		VoiceSnapshot snapshot(int voiceIndex);
 	}
 
+	/**
+	 * Scratch buffers for {@link RuntimeVoice#renderSpan}, sized for one
+	 * oversampled output block, and the kernel that does their element-wise
+	 * arithmetic.
+	 */
+	static final class SpanBuffers {
+		final BlockKernel kernel;
+		final double[] wave;
+		final int[] phase;
+		final double[] env;
+
+		/** Signed waveform and 8-bit envelope levels of the fixed-point core. */
+		final int[] waveLevel;
+		final int[] envLevel;
+
+		SpanBuffers(BlockKernel kernel, int samples) {
+			this.kernel = kernel;
+			wave = new double[samples];
+			phase = new int[samples];
+			env = new double[samples];
+			waveLevel = new int[samples];
+			envLevel = new int[samples];
+		}
+
+		/**
+		 * {@code out[i] = envLevel[i] * waveLevel[i]}.
+		 */
+		void multiplyLevels(int[] out, int n) {
+			for (int i = 0; i < n; i++) {
+				out[i] = envLevel[i] * waveLevel[i];
+			}
+		}
+	}
+
 	private static boolean effectsMayUseRing(Map<String, SIDScoreIR.EffectIR> effects) {
 		for (SIDScoreIR.EffectIR effect : effects.values()) {
 			for (SIDScoreIR.EffectStepIR step : effect.steps()) {
@@ -558,6 +1032,18 @@ public final class RealtimeAudioPlayer {
 			return effect.ownsVoice() ? effect.filterRoute() : primary.filterRoute();
 		}
 
+		@Override
+		public void beginBlock(float sr, int blockSamples) {
+			primary.beginBlock(sr, blockSamples);
+			effect.beginBlock(sr, blockSamples);
+		}
+
+		@Override
+		public void tickFrame(float sr) {
+			primary.tickFrame(sr);
+			effect.tickFrame(sr);
+		}
+
 		@Override
 		public void prepareSample(float sr) {
 			primary.prepareSample(sr);
@@ -565,28 +1051,79 @@ public final class RealtimeAudioPlayer {
 		}
 
 		@Override
-		public OscState advanceOsc(float sr) {
-			OscState primaryState = primary.advanceOsc(sr);
-			OscState effectState = effect.advanceOsc(sr);
+		public int advanceOsc(float sr) {
+			int primaryState = primary.advanceOsc(sr);
+			int effectState = effect.advanceOsc(sr);
 			return effect.ownsVoice() ? effectState : primaryState;
 		}
 
 		@Override
-		public void applySync(boolean modRise) {
+		public void applySync(int modState) {
 			if (effect.ownsVoice()) {
-				effect.applySync(modRise);
+				effect.applySync(modState);
 			} else {
-				primary.applySync(modRise);
+				primary.applySync(modState);
 			}
 		}
 
 		@Override
-		public double renderSample(float sr, boolean modMsb) {
-			double primarySample = primary.renderSample(sr, modMsb);
-			double effectSample = effect.renderSample(sr, modMsb);
+		public double renderSample(float sr, int modState) {
+			double primarySample = primary.renderSample(sr, modState);
+			double effectSample = effect.renderSample(sr, modState);
 			return effect.ownsVoice() ? effectSample : primarySample;
 		}
 
+		@Override
+		public boolean independent() {
+			return primary.independent() && effect.independent();
+		}
+
+		@Override
+		public boolean renderSpan(float sr, double[] out, int n, SpanBuffers buffers) {
+			// Both runtimes keep running; only the owner is heard.
+			if (effect.ownsVoice()) {
+				primary.skipSpan(sr, n, buffers);
+				return effect.renderSpan(sr, out, n, buffers);
+			}
+			effect.skipSpan(sr, n, buffers);
+			return primary.renderSpan(sr, out, n, buffers);
+		}
+
+		@Override
+		public void skipSpan(float sr, int n, SpanBuffers buffers) {
+			primary.skipSpan(sr, n, buffers);
+			effect.skipSpan(sr, n, buffers);
+		}
+
+		@Override
+		public void useBandLimitedOsc() {
+			primary.useBandLimitedOsc();
+			effect.useBandLimitedOsc();
+		}
+
+		@Override
+		public void useFixedPointCore() {
+			primary.useFixedPointCore();
+			effect.useFixedPointCore();
+		}
+
+		@Override
+		public int renderLevel(float sr, int modState) {
+			int primaryLevel = primary.renderLevel(sr, modState);
+			int effectLevel = effect.renderLevel(sr, modState);
+			return effect.ownsVoice() ? effectLevel : primaryLevel;
+		}
+
+		@Override
+		public boolean renderSpanLevels(float sr, int[] out, int n, SpanBuffers buffers) {
+			if (effect.ownsVoice()) {
+				primary.skipSpan(sr, n, buffers);
+				return effect.renderSpanLevels(sr, out, n, buffers);
+			}
+			effect.skipSpan(sr, n, buffers);
+			return primary.renderSpanLevels(sr, out, n, buffers);
+		}
+
 		@Override
 		public VoiceSnapshot snapshot(int voiceIndex) {
 			return effect.ownsVoice() ? effect.snapshot(voiceIndex) : primary.snapshot(voiceIndex);
@@ -601,7 +1138,6 @@ public final class RealtimeAudioPlayer {
 		private final SIDScoreIR.InstrumentIR instr;
 		private final MidiSource midiSource;
 		private final double sidClockHz;
-		private final double frameRate;
 		private final Osc osc;
 		private final Env env = new Env();
 		private final FilterRuntime filter;
@@ -626,21 +1162,17 @@ public final class RealtimeAudioPlayer {
 		private int pwMin = 0x0000;
 		private int pwMax = 0x0FFF;
 		private int pwSweep = 0;
-		private int pwSamplesLeft = 0;
-		private double pwSampleRemainder = 0.0;
+		private int pwFramesLeft = 0;
 		private int pwStep = 0;
 		private boolean pwHolding = false;
 		private int waveStep = 0;
-		private int waveSamplesLeft = 0;
-		private double waveSampleRemainder = 0.0;
+		private int waveFramesLeft = 0;
 		private boolean waveHolding = false;
 		private int gateStep = 0;
-		private int gateSamplesLeft = 0;
-		private double gateSampleRemainder = 0.0;
+		private int gateFramesLeft = 0;
 		private boolean gateHolding = false;
 		private int pitchStep = 0;
-		private int pitchSamplesLeft = 0;
-		private double pitchSampleRemainder = 0.0;
+		private int pitchFramesLeft = 0;
 		private boolean pitchHolding = false;
 		private int currentMidi = -1;
 		private int noteBaseMidi = -1;
@@ -648,20 +1180,36 @@ public final class RealtimeAudioPlayer {
 		private double currentBend = 0.0;
 		private int currentFreqReg = 0;
 		private double velocityScale = 1.0;
+		/** MIDI velocity ({@code 0-127}) for the fixed-point core. */
+		private int velocity = 127;
 		private double lastEnvelopeLevel = 0.0;
 		private double lastOutputLevel = 0.0;
 		private long seenNoteOnId = 0;
 		private long seenNoteOffId = 0;
 		private int pendingReleaseSamples = 0;
+		/** A note started since the last frame tick; its first table steps are not counted down yet. */
+		private boolean noteStarted = false;
+		private MidiSnapshot snapshot = MidiSnapshot.off();
+		private final MidiLatencyMeter latencyMeter;
+		private final Consumer<MidiEvent> eventSink = this::queueEvent;
+		private MidiEvent[] pendingEvents = new MidiEvent[MidiSource.MAX_EVENTS_PER_DRAIN];
+		private int[] pendingDue = new int[MidiSource.MAX_EVENTS_PER_DRAIN];
+		private int pendingCount = 0;
+		private int pendingNext = 0;
+		private int blockSample = 0;
+		private int blockLength = 0;
+		private int oversample = 1;
+		private float blockSampleRate;
+		private long blockStartNanos;
 
 		MidiRuntime(int voiceIndex, SIDScoreIR.InstrumentIR instr, MidiSource midiSource, double sidClockHz,
-				double frameRate, java.util.Map<String, SIDScoreIR.TableIR> tables, FilterRuntime filter,
-				SidWaveforms.TableSet waveTables) {
+				java.util.Map<String, SIDScoreIR.TableIR> tables, FilterRuntime filter,
+				SidWaveforms.TableSet waveTables, MidiLatencyMeter latencyMeter) {
 			this.voiceIndex = voiceIndex;
+			this.latencyMeter = latencyMeter;
 			this.instr = instr != null ? instr : DEFAULT_MIDI_INSTR;
 			this.midiSource = midiSource;
 			this.sidClockHz = sidClockHz;
-			this.frameRate = frameRate;
 			this.filter = filter;
 			this.osc = new Osc(waveTables);
 			this.waveMask = this.instr.waveMask();
@@ -694,28 +1242,92 @@ public final class RealtimeAudioPlayer {
 			return filterRoute;
 		}
 
+		/**
+		 * Polls the MIDI source once per block. Queued note events are scheduled
+		 * at the sample offset matching their arrival time, so that an event
+		 * received one block duration ago lands at the start of this block; the
+		 * render path thereby adds a constant block of latency instead of a
+		 * block of jitter. Unstamped or older events apply at the first sample.
+		 * The snapshot read here takes over once all scheduled events are due.
+		 */
+		@Override
+		public void beginBlock(float sr, int blockSamples) {
+			pendingCount = 0;
+			pendingNext = 0;
+			blockSample = 0;
+			oversample = Math.max(1, Math.round(sr / SAMPLE_RATE));
+			blockLength = blockSamples * oversample;
+			if (midiSource.hasEvents(voiceIndex)) {
+				blockSampleRate = sr;
+				blockStartNanos = System.nanoTime();
+				midiSource.drainEvents(voiceIndex, eventSink);
+			}
+			snapshot = midiSource.snapshot(voiceIndex);
+		}
+
+		private void queueEvent(MidiEvent event) {
+			int due = 0;
+			if (event.timestampNanos() != 0) {
+				double ageSamples = Math.max(0L, blockStartNanos - event.timestampNanos()) * 1.0e-9 * blockSampleRate;
+				due = ageSamples >= blockLength ? 0 : Math.min(blockLength - 1, blockLength - (int) Math.ceil(ageSamples));
+			}
+			if (pendingCount > 0) {
+				due = Math.max(due, pendingDue[pendingCount - 1]);
+			}
+			if (pendingCount == pendingEvents.length) {
+				// Only for sources that deliver more than MAX_EVENTS_PER_DRAIN at once.
+				pendingEvents = Arrays.copyOf(pendingEvents, pendingCount * 2);
+				pendingDue = Arrays.copyOf(pendingDue, pendingCount * 2);
+			}
+			pendingEvents[pendingCount] = event;
+			pendingDue[pendingCount] = due;
+			pendingCount++;
+		}
+
+		private void applyEvent(MidiEvent event, float sr, int sample) {
+			if (event.gate()) {
+				if (event.id() <= seenNoteOnId) {
+					return;
+				}
+				seenNoteOnId = event.id();
+				keyHeld = true;
+				pendingReleaseSamples = 0;
+				velocityScale = Math.max(0.0, Math.min(1.0, event.velocity() / 127.0));
+				velocity = Math.max(0, Math.min(127, event.velocity()));
+				startNote(clampMidi(event.note()), event.pitchBendSemitones(), sr);
+				if (latencyMeter != null) {
+					latencyMeter.noteApplied(event.timestampNanos(), sample / oversample);
+				}
+			} else if (event.id() > seenNoteOffId && (currentMidi < 0 || event.note() == currentMidi)) {
+				seenNoteOffId = event.id();
+				keyHeld = false;
+				pendingReleaseSamples = Math.max(pendingReleaseSamples, minTriggerSamples(sr));
+			}
+		}
+
 		@Override
 		public void prepareSample(float sr) {
-			List<MidiEvent> events = midiSource.drainEvents(voiceIndex);
-			for (MidiEvent event : events) {
-				if (event.gate()) {
-					seenNoteOnId = Math.max(seenNoteOnId, event.id());
-					keyHeld = true;
-					pendingReleaseSamples = 0;
-					velocityScale = Math.max(0.0, Math.min(1.0, event.velocity() / 127.0));
-					startNote(clampMidi(event.note()), event.pitchBendSemitones(), sr);
-				} else if (currentMidi < 0 || event.note() == currentMidi) {
-					seenNoteOffId = Math.max(seenNoteOffId, event.id());
-					keyHeld = false;
-					pendingReleaseSamples = Math.max(pendingReleaseSamples, minTriggerSamples(sr));
+			int sample = blockSample++;
+			while (pendingNext < pendingCount && pendingDue[pendingNext] <= sample) {
+				MidiEvent event = pendingEvents[pendingNext];
+				pendingEvents[pendingNext++] = null;
+				applyEvent(event, sr, sample);
+			}
+			if (pendingNext < pendingCount) {
+				// Later events of this block have not arrived yet in audio time,
+				// so the newer snapshot must not be applied ahead of them.
+				if (pendingReleaseSamples > 0 && --pendingReleaseSamples == 0 && !keyHeld) {
+					releaseGate();
 				}
+				return;
 			}
 
-			MidiSnapshot snapshot = midiSource.snapshot(voiceIndex);
+			MidiSnapshot snapshot = this.snapshot;
 			if (snapshot.noteOnId() > seenNoteOnId && snapshot.note() >= 0 && snapshot.velocity() > 0) {
 				seenNoteOnId = snapshot.noteOnId();
 				keyHeld = snapshot.gate();
 				velocityScale = Math.max(0.0, Math.min(1.0, snapshot.velocity() / 127.0));
+				velocity = Math.max(0, Math.min(127, snapshot.velocity()));
 				startNote(clampMidi(snapshot.note()), snapshot.pitchBendSemitones(), sr);
 				if (!snapshot.gate() && snapshot.noteOffId() >= snapshot.noteOnId()) {
 					seenNoteOffId = Math.max(seenNoteOffId, snapshot.noteOffId());
@@ -750,6 +1362,7 @@ public final class RealtimeAudioPlayer {
 			boolean noteChanged = currentMidi != midi;
 			boolean bendChanged = Math.abs(currentBend - bend) > 0.0001;
 			velocityScale = Math.max(0.0, Math.min(1.0, snapshot.velocity() / 127.0));
+			velocity = Math.max(0, Math.min(127, snapshot.velocity()));
 			if (noteChanged) {
 				startNote(midi, bend, sr);
 			} else if (bendChanged) {
@@ -758,8 +1371,29 @@ public final class RealtimeAudioPlayer {
 			}
 		}
 
+		/**
+		 * Steps the instrument tables. Notes start at the sample their MIDI
+		 * event is due, between ticks, so the frame a note starts in does not
+		 * count towards its first table steps.
+		 */
+		@Override
+		public void tickFrame(float sr) {
+			if (noteStarted) {
+				noteStarted = false;
+				return;
+			}
+			if (!ownsVoice()) {
+				return;
+			}
+			advanceGateSeq(sr);
+			advanceWaveSeq(sr);
+			advancePwm(sr);
+			advancePitchSeq(sr);
+			osc.setPulseWidth(pw);
+		}
+
 		@Override
-		public OscState advanceOsc(float sr) {
+		public int advanceOsc(float sr) {
 			if (!ownsVoice()) {
 				return OscState.OFF;
 			}
@@ -767,36 +1401,60 @@ public final class RealtimeAudioPlayer {
 		}
 
 		@Override
-		public void applySync(boolean modRise) {
-			if (ownsVoice() && sync && modRise) {
-				osc.syncReset();
+		public void applySync(int modState) {
+			if (ownsVoice() && sync && (modState & OscState.MSB_RISE) != 0) {
+				osc.syncReset(modState);
 			}
 		}
 
 		@Override
-		public double renderSample(float sr, boolean modMsb) {
+		public void useBandLimitedOsc() {
+			osc.setBandLimited(true);
+		}
+
+		@Override
+		public void useFixedPointCore() {
+			osc.setFixedPoint(true);
+		}
+
+		@Override
+		public double renderSample(float sr, int modState) {
 			if (!ownsVoice()) {
 				lastOutputLevel = 0.0;
 				return 0.0;
 			}
-			advanceGateSeq(sr);
-			advanceWaveSeq(sr);
-			advancePwm(sr);
-			advancePitchSeq(sr);
-			osc.setPulseWidth(pw);
 			double e = env.next(sr);
-			double o = activeWaveMask != 0 ? osc.output(activeWaveMask, ring, modMsb) : 0.0;
+			double o = activeWaveMask != 0 ? osc.output(activeWaveMask, ring, modState) : 0.0;
 			double out = MIX_GAIN * velocityScale * e * o;
 			lastEnvelopeLevel = e;
 			lastOutputLevel = Math.abs(out);
-			active = gateOn || e > RELEASE_SILENCE || (keyHeld && active);
-			if (!active) {
+			updateActive(e);
+			return out;
+		}
+
+		@Override
+		public int renderLevel(float sr, int modState) {
+			if (!ownsVoice()) {
+				lastOutputLevel = 0.0;
+				return 0;
+			}
+			int e = env.nextLevel(sr);
+			int o = activeWaveMask != 0 ? osc.outputLevel(activeWaveMask, ring, modState) : 0;
+			int out = e * o * velocity / 127;
+			lastEnvelopeLevel = e / 255.0;
+			lastOutputLevel = Math.abs(out * LEVEL_GAIN);
+			updateActive(lastEnvelopeLevel);
+			return out;
+		}
+
+		private void updateActive(double envelopeLevel) {
+			active = gateOn || envelopeLevel > RELEASE_SILENCE || (keyHeld && active);
+			if (!active) {
 				currentFreqReg = 0;
 				currentMidi = -1;
 				noteBaseMidi = -1;
 				pitchOffset = 0;
 			}
-			return out;
 		}
 
 		@Override
@@ -852,6 +1510,7 @@ public final class RealtimeAudioPlayer {
 			resetPitchSeq(sr);
 			osc.setWaveMask(activeWaveMask, OptionalInt.of(pw));
 			applyFrequency(sr);
+			noteStarted = true;
 			if (filterRoute) {
 				filter.activate(filterModeMask, filterCutoff, filterRes, filterTable, sr);
 			}
@@ -885,8 +1544,7 @@ public final class RealtimeAudioPlayer {
 		private void resetPwm(float sr) {
 			pw = instr.pw().orElse(0x0800) & 0x0FFF;
 			pwSweep = instr.pwSweep();
-			pwSamplesLeft = 0;
-			pwSampleRemainder = 0.0;
+			pwFramesLeft = 0;
 			pwStep = 0;
 			pwHolding = false;
 			if (pwTable != null && !pwTable.steps().isEmpty()) {
@@ -904,7 +1562,7 @@ public final class RealtimeAudioPlayer {
 			}
 			pw = clampPw(pw);
 			if (pwSweep != 0) {
-				setPwSamplesLeft(1, sr);
+				pwFramesLeft = 1;
 			}
 		}
 
@@ -914,9 +1572,9 @@ public final class RealtimeAudioPlayer {
 			if (pwTable != null && !pwTable.steps().isEmpty()) {
 				if (pwHolding)
 					return;
-				if (pwSamplesLeft > 0) {
-					pwSamplesLeft--;
-					if (pwSamplesLeft > 0)
+				if (pwFramesLeft > 0) {
+					pwFramesLeft--;
+					if (pwFramesLeft > 0)
 						return;
 				}
 				loadPwTableStep(sr);
@@ -924,19 +1582,18 @@ public final class RealtimeAudioPlayer {
 			}
 			if (pwSweep == 0)
 				return;
-			if (pwSamplesLeft > 0) {
-				pwSamplesLeft--;
-				if (pwSamplesLeft > 0)
+			if (pwFramesLeft > 0) {
+				pwFramesLeft--;
+				if (pwFramesLeft > 0)
 					return;
 			}
 			pw = clampPw(pw + pwSweep);
-			setPwSamplesLeft(1, sr);
+			pwFramesLeft = 1;
 		}
 
 		private void resetWaveSeq(float sr) {
 			waveStep = 0;
-			waveSamplesLeft = 0;
-			waveSampleRemainder = 0.0;
+			waveFramesLeft = 0;
 			waveHolding = false;
 			activeWaveMask = waveMask;
 			if (waveTable != null && !waveTable.steps().isEmpty()) {
@@ -946,8 +1603,7 @@ public final class RealtimeAudioPlayer {
 
 		private void resetGateSeq() {
 			gateStep = 0;
-			gateSamplesLeft = 0;
-			gateSampleRemainder = 0.0;
+			gateFramesLeft = 0;
 			gateHolding = false;
 		}
 
@@ -956,17 +1612,16 @@ public final class RealtimeAudioPlayer {
 			applyGateValue(step.value() != 0, sr, true);
 			if (step.hold() || step.durationFrames() <= 0) {
 				gateHolding = true;
-				gateSamplesLeft = 0;
+				gateFramesLeft = 0;
 			} else {
-				setGateSamplesLeft(step.durationFrames(), sr);
+				gateFramesLeft = step.durationFrames();
 			}
 			gateStep = 1;
 		}
 
 		private void resetPitchSeq(float sr) {
 			pitchStep = 0;
-			pitchSamplesLeft = 0;
-			pitchSampleRemainder = 0.0;
+			pitchFramesLeft = 0;
 			pitchHolding = false;
 			pitchOffset = 0;
 			noteBaseMidi = currentMidi;
@@ -980,9 +1635,9 @@ public final class RealtimeAudioPlayer {
 		private void advanceWaveSeq(float sr) {
 			if (!active || waveTable == null || waveTable.steps().isEmpty() || waveHolding)
 				return;
-			if (waveSamplesLeft > 0) {
-				waveSamplesLeft--;
-				if (waveSamplesLeft > 0)
+			if (waveFramesLeft > 0) {
+				waveFramesLeft--;
+				if (waveFramesLeft > 0)
 					return;
 			}
 			loadWaveTableStep(sr);
@@ -992,9 +1647,9 @@ public final class RealtimeAudioPlayer {
 		private void advanceGateSeq(float sr) {
 			if (!active || gateTable == null || gateTable.steps().isEmpty() || gateHolding)
 				return;
-			if (gateSamplesLeft > 0) {
-				gateSamplesLeft--;
-				if (gateSamplesLeft > 0)
+			if (gateFramesLeft > 0) {
+				gateFramesLeft--;
+				if (gateFramesLeft > 0)
 					return;
 			}
 			loadGateTableStep(sr);
@@ -1003,9 +1658,9 @@ public final class RealtimeAudioPlayer {
 		private void advancePitchSeq(float sr) {
 			if (!active || currentMidi < 0 || pitchTable == null || pitchTable.steps().isEmpty() || pitchHolding)
 				return;
-			if (pitchSamplesLeft > 0) {
-				pitchSamplesLeft--;
-				if (pitchSamplesLeft > 0)
+			if (pitchFramesLeft > 0) {
+				pitchFramesLeft--;
+				if (pitchFramesLeft > 0)
 					return;
 			}
 			loadPitchTableStep(sr);
@@ -1028,10 +1683,10 @@ public final class RealtimeAudioPlayer {
 			applyWaveControls(step, sr);
 			if (step.hold() || step.durationFrames() <= 0) {
 				waveHolding = true;
-				waveSamplesLeft = 0;
+				waveFramesLeft = 0;
 				return;
 			}
-			setWaveSamplesLeft(step.durationFrames(), sr);
+			waveFramesLeft = step.durationFrames();
 			waveStep++;
 		}
 
@@ -1072,10 +1727,10 @@ public final class RealtimeAudioPlayer {
 			applyGateValue(step.value() != 0, sr, false);
 			if (step.hold() || step.durationFrames() <= 0) {
 				gateHolding = true;
-				gateSamplesLeft = 0;
+				gateFramesLeft = 0;
 				return;
 			}
-			setGateSamplesLeft(step.durationFrames(), sr);
+			gateFramesLeft = step.durationFrames();
 			gateStep++;
 		}
 
@@ -1094,10 +1749,10 @@ public final class RealtimeAudioPlayer {
 			applyFrequency(sr);
 			if (step.hold() || step.durationFrames() <= 0) {
 				pitchHolding = true;
-				pitchSamplesLeft = 0;
+				pitchFramesLeft = 0;
 				return;
 			}
-			setPitchSamplesLeft(step.durationFrames(), sr);
+			pitchFramesLeft = step.durationFrames();
 			pitchStep++;
 		}
 
@@ -1115,10 +1770,10 @@ public final class RealtimeAudioPlayer {
 			pw = clampPw(step.value() & 0x0FFF);
 			if (step.hold() || step.durationFrames() <= 0) {
 				pwHolding = true;
-				pwSamplesLeft = 0;
+				pwFramesLeft = 0;
 				return;
 			}
-			setPwSamplesLeft(step.durationFrames(), sr);
+			pwFramesLeft = step.durationFrames();
 			pwStep++;
 		}
 
@@ -1139,30 +1794,6 @@ public final class RealtimeAudioPlayer {
 			}
 		}
 
-		private void setPwSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + pwSampleRemainder;
-			pwSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			pwSampleRemainder = samplesExact - pwSamplesLeft;
-		}
-
-		private void setWaveSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + waveSampleRemainder;
-			waveSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			waveSampleRemainder = samplesExact - waveSamplesLeft;
-		}
-
-		private void setGateSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + gateSampleRemainder;
-			gateSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			gateSampleRemainder = samplesExact - gateSamplesLeft;
-		}
-
-		private void setPitchSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + pitchSampleRemainder;
-			pitchSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			pitchSampleRemainder = samplesExact - pitchSamplesLeft;
-		}
-
 		private static int minTriggerSamples(float sr) {
 			return Math.max(1, (int) Math.round(sr * MIN_TRIGGER_SECONDS));
 		}
@@ -1218,9 +1849,8 @@ public final class RealtimeAudioPlayer {
 
 	static final class VoiceRuntime implements RuntimeVoice {
 		private final SIDScoreIR.InstrumentIR instr;
-		private final List<FrameEventCompiler.FrameEvent> events;
+		private final CompiledTimeline events;
 		private final double sidClockHz;
-		private final double frameRate;
 		private final int waveMask;
 		private boolean sync;
 		private boolean ring;
@@ -1236,8 +1866,7 @@ public final class RealtimeAudioPlayer {
 		private final SIDScoreIR.TableIR filterTable;
 
 		private int ev = 0;
-		private int samplesLeft = 0;
-		private double eventSampleRemainder = 0.0;
+		private int framesLeft = 0;
 		private final Osc osc;
 		private final Env env = new Env();
 		private boolean done = false;
@@ -1249,21 +1878,17 @@ public final class RealtimeAudioPlayer {
 		private int pwMax = 0x0FFF;
 		private int pwSweep = 0;
 		private int pwStep = 0;
-		private int pwSamplesLeft = 0;
-		private double pwSampleRemainder = 0.0;
+		private int pwFramesLeft = 0;
 		private boolean pwHolding = false;
 		private int waveStep = 0;
-		private int waveSamplesLeft = 0;
-		private double waveSampleRemainder = 0.0;
+		private int waveFramesLeft = 0;
 		private boolean waveHolding = false;
 		private int gateStep = 0;
-		private int gateSamplesLeft = 0;
-		private double gateSampleRemainder = 0.0;
+		private int gateFramesLeft = 0;
 		private boolean gateHolding = false;
 		private boolean gateOn = false;
 		private int pitchStep = 0;
-		private int pitchSamplesLeft = 0;
-		private double pitchSampleRemainder = 0.0;
+		private int pitchFramesLeft = 0;
 		private boolean pitchHolding = false;
 		private int baseMidi = -1;
 		private int noteBaseMidi = -1;
@@ -1272,19 +1897,18 @@ public final class RealtimeAudioPlayer {
 		private double lastEnvelopeLevel = 0.0;
 		private double lastOutputLevel = 0.0;
 
-		VoiceRuntime(SIDScoreIR.InstrumentIR instr, List<FrameEventCompiler.FrameEvent> events,
-				double sidClockHz, double frameRate, java.util.Map<String, SIDScoreIR.TableIR> tables,
+		VoiceRuntime(SIDScoreIR.InstrumentIR instr, CompiledTimeline events,
+				double sidClockHz, java.util.Map<String, SIDScoreIR.TableIR> tables,
 				FilterRuntime filter, SidWaveforms.TableSet waveTables) {
 			this.instr = instr;
 			this.events = events;
 			this.sidClockHz = sidClockHz;
-			this.frameRate = frameRate;
 			this.filter = filter;
 			this.osc = new Osc(waveTables);
 			this.waveMask = instr.waveMask();
 			this.sync = instr.sync();
 			this.ring = instr.ring();
-			this.done = events.isEmpty();
+			this.done = events.rows() == 0;
 			this.pwTable = instr.pwSeq().isPresent() ? tables.get(instr.pwSeq().get()) : null;
 			this.waveTable = instr.waveSeq().isPresent() ? tables.get(instr.waveSeq().get()) : null;
 			this.gateTable = instr.gateSeq().isPresent() ? tables.get(instr.gateSeq().get()) : null;
@@ -1312,51 +1936,65 @@ public final class RealtimeAudioPlayer {
 			return filterRoute;
 		}
 
+		/**
+		 * Steps the tables of the current note, then starts the next event
+		 * once the current one has run its frames. Steps loaded by a new note
+		 * are first counted down on the following tick.
+		 */
 		@Override
-		public void prepareSample(float sr) {
+		public void tickFrame(float sr) {
 			if (done)
 				return;
-			if (samplesLeft > 0)
-				return;
-			if (ev >= events.size()) {
-				done = true;
-				resetSidState();
-				return;
+			advanceGateSeq(sr);
+			advanceWaveSeq(sr);
+			advancePwm(sr);
+			advancePitchSeq(sr);
+			if (framesLeft > 0) {
+				framesLeft--;
+			}
+			if (framesLeft == 0) {
+				if (ev >= events.rows()) {
+					done = true;
+					resetSidState();
+					return;
+				}
+				start(ev++, sr);
 			}
-			start(events.get(ev++), sr);
+			osc.setPulseWidth(pw);
 		}
 
 		@Override
-		public OscState advanceOsc(float sr) {
+		public int advanceOsc(float sr) {
 			if (done)
 				return OscState.OFF;
 			return osc.advance(sr);
 		}
 
 		@Override
-		public void applySync(boolean modRise) {
+		public void applySync(int modState) {
 			if (done || !sync)
 				return;
-			if (modRise)
-				osc.syncReset();
+			if ((modState & OscState.MSB_RISE) != 0)
+				osc.syncReset(modState);
+		}
+
+		@Override
+		public void useBandLimitedOsc() {
+			osc.setBandLimited(true);
+		}
+
+		@Override
+		public void useFixedPointCore() {
+			osc.setFixedPoint(true);
 		}
 
 		@Override
-		public double renderSample(float sr, boolean modMsb) {
+		public double renderSample(float sr, int modState) {
 			if (done)
 				return 0.0;
-			if (samplesLeft > 0) {
-				samplesLeft--;
-			}
-
-			advanceGateSeq(sr);
-			advanceWaveSeq(sr);
-			advancePwm(sr);
-			advancePitchSeq(sr);
-			osc.setPulseWidth(pw);
 
 			double e = env.next(sr);
-			double o = osc.output(activeWaveMask, ring, modMsb);
+			double o = osc.output(activeWaveMask, ring, modState);
 
 			double raw = e * o;
 			double out = MIX_GAIN * raw;
@@ -1367,6 +2005,71 @@ public final class RealtimeAudioPlayer {
 			return out;
 		}
 
+		@Override
+		public int renderLevel(float sr, int modState) {
+			if (done)
+				return 0;
+
+			int e = env.nextLevel(sr);
+			int out = e * osc.outputLevel(activeWaveMask, ring, modState);
+			lastEnvelopeLevel = e / 255.0;
+			lastOutputLevel = Math.abs(out * LEVEL_GAIN);
+			return out;
+		}
+
+		@Override
+		public boolean independent() {
+			return done || (!sync && !ring);
+		}
+
+		@Override
+		public boolean renderSpan(float sr, double[] out, int n, SpanBuffers buffers) {
+			if (done) {
+				return false;
+			}
+			if (env.isSilent()) {
+				skipSpan(sr, n, buffers);
+				lastEnvelopeLevel = 0.0;
+				lastOutputLevel = 0.0;
+				return false;
+			}
+			env.fill(sr, buffers.env, n);
+			osc.fill(sr, activeWaveMask, n, buffers);
+			buffers.kernel.multiply(buffers.env, buffers.wave, out, n);
+			buffers.kernel.scale(out, MIX_GAIN, n);
+			lastEnvelopeLevel = buffers.env[n - 1];
+			lastOutputLevel = Math.abs(out[n - 1]);
+			return true;
+		}
+
+		@Override
+		public boolean renderSpanLevels(float sr, int[] out, int n, SpanBuffers buffers) {
+			if (done) {
+				return false;
+			}
+			if (env.isSilent()) {
+				skipSpan(sr, n, buffers);
+				lastEnvelopeLevel = 0.0;
+				lastOutputLevel = 0.0;
+				return false;
+			}
+			env.fillLevels(sr, buffers.envLevel, n);
+			osc.fillLevels(sr, activeWaveMask, n, buffers);
+			buffers.multiplyLevels(out, n);
+			lastEnvelopeLevel = buffers.envLevel[n - 1] / 255.0;
+			lastOutputLevel = Math.abs(out[n - 1] * LEVEL_GAIN);
+			return true;
+		}
+
+		@Override
+		public void skipSpan(float sr, int n, SpanBuffers buffers) {
+			if (done) {
+				return;
+			}
+			env.skip(sr, n, buffers.env);
+			osc.skip(sr, activeWaveMask, n);
+		}
+
 		@Override
 		public VoiceSnapshot snapshot(int voiceIndex) {
 			int noteKind = 0;
@@ -1411,29 +2114,30 @@ public final class RealtimeAudioPlayer {
 					(float) clamp01(lastOutputLevel / Math.max(0.0001, MIX_GAIN)));
 		}
 
-		private void start(FrameEventCompiler.FrameEvent e, float sr) {
-			if (e.frames() <= 0) {
+		private void start(int row, float sr) {
+			int frames = events.frames(row);
+			int freq = events.freq(row);
+			int baseNote = events.baseNote(row);
+			if (frames <= 0) {
 				done = true;
 				resetSidState();
 				return;
 			}
 
-			double samplesExact = e.frames() * (sr / frameRate) + eventSampleRemainder;
-			samplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			eventSampleRemainder = samplesExact - samplesLeft;
+			framesLeft = frames;
 
-			int ctrl = e.ctrl() & 0xF7;
+			int ctrl = events.ctrl(row) & 0xF7;
 			boolean gateBit = (ctrl & 0x01) != 0;
 			sync = (ctrl & 0x02) != 0;
 			ring = (ctrl & 0x04) != 0;
 
-			noise = (e.baseNote() & 0x80) != 0;
-			baseMidi = noise ? -1 : (e.baseNote() & 0x7f);
+			noise = (baseNote & 0x80) != 0;
+			baseMidi = noise ? -1 : (baseNote & 0x7f);
 			noteBaseMidi = baseMidi;
 			pitchOffset = 0;
-			currentFreqReg = e.freq() & 0xFFFF;
+			currentFreqReg = freq & 0xFFFF;
 
-			active = gateBit || e.freq() != 0;
+			active = gateBit || freq != 0;
 
 			int waveBits = ctrl & 0xF0;
 			if (gateBit) {
@@ -1464,7 +2168,7 @@ public final class RealtimeAudioPlayer {
 				applyGateValue(gateBit, sr);
 			}
 
-			osc.setFreq(freqRegToHz(e.freq(), sidClockHz), sr);
+			osc.setFreq(freqRegToHz(freq, sidClockHz), sr);
 			if (!noise && gateOn) {
 				applyPitchOffset(sr, pitchOffset);
 			}
@@ -1480,20 +2184,16 @@ public final class RealtimeAudioPlayer {
 			pw = 0x0800;
 			pwSweep = 0;
 			pwStep = 0;
-			pwSamplesLeft = 0;
-			pwSampleRemainder = 0.0;
+			pwFramesLeft = 0;
 			pwHolding = false;
 			waveStep = 0;
-			waveSamplesLeft = 0;
-			waveSampleRemainder = 0.0;
+			waveFramesLeft = 0;
 			waveHolding = false;
 			gateStep = 0;
-			gateSamplesLeft = 0;
-			gateSampleRemainder = 0.0;
+			gateFramesLeft = 0;
 			gateHolding = false;
 			pitchStep = 0;
-			pitchSamplesLeft = 0;
-			pitchSampleRemainder = 0.0;
+			pitchFramesLeft = 0;
 			pitchHolding = false;
 			baseMidi = -1;
 			noteBaseMidi = -1;
@@ -1508,8 +2208,7 @@ public final class RealtimeAudioPlayer {
 			pw = instr.pw().orElse(0x0800) & 0x0FFF;
 			pwSweep = instr.pwSweep();
 			pwStep = 0;
-			pwSamplesLeft = 0;
-			pwSampleRemainder = 0.0;
+			pwFramesLeft = 0;
 			pwHolding = false;
 
 			if (pwTable != null && !pwTable.steps().isEmpty()) {
@@ -1528,14 +2227,13 @@ public final class RealtimeAudioPlayer {
 			}
 			pw = clampPw(pw);
 			if (pwSweep != 0) {
-				setPwSamplesLeft(1, sr);
+				pwFramesLeft = 1;
 			}
 		}
 
 		private void resetWaveSeq(float sr) {
 			waveStep = 0;
-			waveSamplesLeft = 0;
-			waveSampleRemainder = 0.0;
+			waveFramesLeft = 0;
 			waveHolding = false;
 			activeWaveMask = waveMask;
 
@@ -1546,8 +2244,7 @@ public final class RealtimeAudioPlayer {
 
 		private void resetGateSeq(float sr) {
 			gateStep = 0;
-			gateSamplesLeft = 0;
-			gateSampleRemainder = 0.0;
+			gateFramesLeft = 0;
 			gateHolding = false;
 		}
 
@@ -1559,17 +2256,16 @@ public final class RealtimeAudioPlayer {
 			applyGateValue(step.value() != 0, sr);
 			if (step.hold() || step.durationFrames() <= 0) {
 				gateHolding = true;
-				gateSamplesLeft = 0;
+				gateFramesLeft = 0;
 			} else {
-				setGateSamplesLeft(step.durationFrames(), sr);
+				gateFramesLeft = step.durationFrames();
 			}
 			gateStep = 1;
 		}
 
 		private void resetPitchSeq(float sr) {
 			pitchStep = 0;
-			pitchSamplesLeft = 0;
-			pitchSampleRemainder = 0.0;
+			pitchFramesLeft = 0;
 			pitchHolding = false;
 			pitchOffset = 0;
 			noteBaseMidi = baseMidi;
@@ -1591,9 +2287,9 @@ public final class RealtimeAudioPlayer {
 				return;
 			if (waveHolding)
 				return;
-			if (waveSamplesLeft > 0) {
-				waveSamplesLeft--;
-				if (waveSamplesLeft > 0)
+			if (waveFramesLeft > 0) {
+				waveFramesLeft--;
+				if (waveFramesLeft > 0)
 					return;
 			}
 			loadWaveTableStep(sr);
@@ -1607,9 +2303,9 @@ public final class RealtimeAudioPlayer {
 				return;
 			if (gateHolding)
 				return;
-			if (gateSamplesLeft > 0) {
-				gateSamplesLeft--;
-				if (gateSamplesLeft > 0)
+			if (gateFramesLeft > 0) {
+				gateFramesLeft--;
+				if (gateFramesLeft > 0)
 					return;
 			}
 			loadGateTableStep(sr);
@@ -1638,10 +2334,10 @@ public final class RealtimeAudioPlayer {
 			applyWaveControls(step, sr);
 			if (step.hold() || step.durationFrames() <= 0) {
 				waveHolding = true;
-				waveSamplesLeft = 0;
+				waveFramesLeft = 0;
 				return;
 			}
-			setWaveSamplesLeft(step.durationFrames(), sr);
+			waveFramesLeft = step.durationFrames();
 			waveStep++;
 		}
 
@@ -1689,25 +2385,13 @@ public final class RealtimeAudioPlayer {
 			applyGateValue(step.value() != 0, sr);
 			if (step.hold() || step.durationFrames() <= 0) {
 				gateHolding = true;
-				gateSamplesLeft = 0;
+				gateFramesLeft = 0;
 				return;
 			}
-			setGateSamplesLeft(step.durationFrames(), sr);
+			gateFramesLeft = step.durationFrames();
 			gateStep++;
 		}
 
-		private void setWaveSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + waveSampleRemainder;
-			waveSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			waveSampleRemainder = samplesExact - waveSamplesLeft;
-		}
-
-		private void setGateSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + gateSampleRemainder;
-			gateSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			gateSampleRemainder = samplesExact - gateSamplesLeft;
-		}
-
 		private void applyGateValue(boolean on, float sr) {
 			if (on) {
 				if (!gateOn) {
@@ -1729,9 +2413,9 @@ public final class RealtimeAudioPlayer {
 			if (pwTable != null && !pwTable.steps().isEmpty()) {
 				if (pwHolding)
 					return;
-				if (pwSamplesLeft > 0) {
-					pwSamplesLeft--;
-					if (pwSamplesLeft > 0)
+				if (pwFramesLeft > 0) {
+					pwFramesLeft--;
+					if (pwFramesLeft > 0)
 						return;
 				}
 				loadPwTableStep(sr);
@@ -1740,13 +2424,13 @@ public final class RealtimeAudioPlayer {
 
 			if (pwSweep == 0)
 				return;
-			if (pwSamplesLeft > 0) {
-				pwSamplesLeft--;
-				if (pwSamplesLeft > 0)
+			if (pwFramesLeft > 0) {
+				pwFramesLeft--;
+				if (pwFramesLeft > 0)
 					return;
 			}
 			pw = clampPw(pw + pwSweep);
-			setPwSamplesLeft(1, sr);
+			pwFramesLeft = 1;
 		}
 
 		private void advancePitchSeq(float sr) {
@@ -1758,9 +2442,9 @@ public final class RealtimeAudioPlayer {
 				return;
 			if (pitchHolding)
 				return;
-			if (pitchSamplesLeft > 0) {
-				pitchSamplesLeft--;
-				if (pitchSamplesLeft > 0)
+			if (pitchFramesLeft > 0) {
+				pitchFramesLeft--;
+				if (pitchFramesLeft > 0)
 					return;
 			}
 			loadPitchTableStep(sr);
@@ -1787,19 +2471,13 @@ public final class RealtimeAudioPlayer {
 			applyPitchOffset(sr, pitchOffset);
 			if (step.hold() || step.durationFrames() <= 0) {
 				pitchHolding = true;
-				pitchSamplesLeft = 0;
+				pitchFramesLeft = 0;
 				return;
 			}
-			setPitchSamplesLeft(step.durationFrames(), sr);
+			pitchFramesLeft = step.durationFrames();
 			pitchStep++;
 		}
 
-		private void setPitchSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + pitchSampleRemainder;
-			pitchSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			pitchSampleRemainder = samplesExact - pitchSamplesLeft;
-		}
-
 		private void applyPitchOffset(float sr, int offset) {
 			if (noteBaseMidi < 0)
 				return;
@@ -1841,19 +2519,13 @@ public final class RealtimeAudioPlayer {
 			pw = clampPw(step.value() & 0x0FFF);
 			if (step.hold() || step.durationFrames() <= 0) {
 				pwHolding = true;
-				pwSamplesLeft = 0;
+				pwFramesLeft = 0;
 				return;
 			}
-			setPwSamplesLeft(step.durationFrames(), sr);
+			pwFramesLeft = step.durationFrames();
 			pwStep++;
 		}
 
-		private void setPwSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + pwSampleRemainder;
-			pwSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			pwSampleRemainder = samplesExact - pwSamplesLeft;
-		}
-
 		private int clampPw(int v) {
 			if (v < pwMin)
 				return pwMin;
@@ -1936,17 +2608,20 @@ public final class RealtimeAudioPlayer {
 
 	// -------- Effect preview runtime --------
 	static final class EffectRuntime implements RuntimeVoice {
-		private final List<EffectFrameState> frames;
+		/** Compiled timelines of the scheduled effects, in schedule order. */
+		private final EffectTimeline[] sources;
+		private final int[] sourceStart;
+		/** Winning source per output frame, or -1 where no effect plays. */
+		private final int[] frameSource;
 		private final double sidClockHz;
-		private final double frameRate;
 		private final FilterRuntime filter;
 		private final int voiceIndex;
 		private final Osc osc;
 		private final Env env = new Env();
 
 		private int frameIndex = 0;
-		private int samplesLeft = 0;
-		private double sampleRemainder = 0.0;
+		private int lastSource = -2;
+		private int lastLocal = -2;
 		private boolean done = false;
 		private boolean active = false;
 		private boolean ownsVoice = false;
@@ -1966,15 +2641,20 @@ public final class RealtimeAudioPlayer {
 		private double lastEnvelopeLevel = 0.0;
 		private double lastOutputLevel = 0.0;
 
-		EffectRuntime(int voiceIndex, List<ScheduledEffect> scheduled, double sidClockHz, double frameRate,
+		EffectRuntime(int voiceIndex, List<ScheduledEffect> scheduled, double sidClockHz,
 				FilterRuntime filter, SidWaveforms.TableSet waveTables) {
 			this.voiceIndex = voiceIndex;
 			this.sidClockHz = sidClockHz;
-			this.frameRate = frameRate;
 			this.filter = filter;
 			this.osc = new Osc(waveTables);
-			this.frames = compileFrames(scheduled, sidClockHz);
-			this.done = frames.isEmpty();
+			this.sources = new EffectTimeline[scheduled.size()];
+			this.sourceStart = new int[scheduled.size()];
+			for (int i = 0; i < scheduled.size(); i++) {
+				sources[i] = EffectTimeline.of(scheduled.get(i).effect(), sidClockHz);
+				sourceStart[i] = scheduled.get(i).startFrame();
+			}
+			this.frameSource = resolveFrames(sources, sourceStart);
+			this.done = frameSource.length == 0;
 			env.setAdsr(0, 0, 15, 0);
 		}
 
@@ -1997,21 +2677,28 @@ public final class RealtimeAudioPlayer {
 		}
 
 		@Override
-		public void prepareSample(float sr) {
-			if (done || samplesLeft > 0) {
+		public void tickFrame(float sr) {
+			if (done) {
 				return;
 			}
-			if (frameIndex >= frames.size()) {
+			if (frameIndex >= frameSource.length) {
 				done = true;
 				resetSidState();
 				return;
 			}
-			setSamplesLeft(1, sr);
-			applyFrame(frames.get(frameIndex++), sr);
+			int source = frameSource[frameIndex];
+			EffectTimeline timeline = source >= 0 ? sources[source] : EffectTimeline.IDLE;
+			int local = source >= 0 ? frameIndex - sourceStart[source] : 0;
+			int changed = source == lastSource && local == lastLocal + 1 ? timeline.changed[local]
+					: EffectTimeline.CHANGED_ALL;
+			lastSource = source;
+			lastLocal = local;
+			frameIndex++;
+			applyFrame(timeline, local, changed, sr);
 		}
 
 		@Override
-		public OscState advanceOsc(float sr) {
+		public int advanceOsc(float sr) {
 			if (done) {
 				return OscState.OFF;
 			}
@@ -2019,23 +2706,29 @@ public final class RealtimeAudioPlayer {
 		}
 
 		@Override
-		public void applySync(boolean modRise) {
-			if (!done && sync && modRise) {
-				osc.syncReset();
+		public void applySync(int modState) {
+			if (!done && sync && (modState & OscState.MSB_RISE) != 0) {
+				osc.syncReset(modState);
 			}
 		}
 
 		@Override
-		public double renderSample(float sr, boolean modMsb) {
+		public void useBandLimitedOsc() {
+			osc.setBandLimited(true);
+		}
+
+		@Override
+		public void useFixedPointCore() {
+			osc.setFixedPoint(true);
+		}
+
+		@Override
+		public double renderSample(float sr, int modState) {
 			if (done) {
 				return 0.0;
 			}
-			if (samplesLeft > 0) {
-				samplesLeft--;
-			}
-			osc.setPulseWidth(pw);
 			double e = env.next(sr);
-			double o = activeWaveMask != 0 ? osc.output(activeWaveMask, ring, modMsb) : 0.0;
+			double o = osc.output(activeWaveMask, ring, modState);
 			active = gateOn || currentFreqReg != 0 || env.isActive();
 			double out = MIX_GAIN * e * o;
 			lastEnvelopeLevel = e;
@@ -2043,6 +2736,75 @@ public final class RealtimeAudioPlayer {
 			return out;
 		}
 
+		@Override
+		public int renderLevel(float sr, int modState) {
+			if (done) {
+				return 0;
+			}
+			int e = env.nextLevel(sr);
+			int out = e * osc.outputLevel(activeWaveMask, ring, modState);
+			active = gateOn || currentFreqReg != 0 || env.isActive();
+			lastEnvelopeLevel = e / 255.0;
+			lastOutputLevel = Math.abs(out * LEVEL_GAIN);
+			return out;
+		}
+
+		@Override
+		public boolean independent() {
+			return done || (!sync && !ring);
+		}
+
+		@Override
+		public boolean renderSpan(float sr, double[] out, int n, SpanBuffers buffers) {
+			if (done) {
+				return false;
+			}
+			if (env.isSilent()) {
+				skipSpan(sr, n, buffers);
+				lastEnvelopeLevel = 0.0;
+				lastOutputLevel = 0.0;
+				return false;
+			}
+			env.fill(sr, buffers.env, n);
+			osc.fill(sr, activeWaveMask, n, buffers);
+			active = gateOn || currentFreqReg != 0 || env.isActive();
+			lastEnvelopeLevel = buffers.env[n - 1];
+			buffers.kernel.scale(buffers.env, MIX_GAIN, n);
+			buffers.kernel.multiply(buffers.env, buffers.wave, out, n);
+			lastOutputLevel = Math.abs(out[n - 1]);
+			return true;
+		}
+
+		@Override
+		public boolean renderSpanLevels(float sr, int[] out, int n, SpanBuffers buffers) {
+			if (done) {
+				return false;
+			}
+			if (env.isSilent()) {
+				skipSpan(sr, n, buffers);
+				lastEnvelopeLevel = 0.0;
+				lastOutputLevel = 0.0;
+				return false;
+			}
+			env.fillLevels(sr, buffers.envLevel, n);
+			osc.fillLevels(sr, activeWaveMask, n, buffers);
+			active = gateOn || currentFreqReg != 0 || env.isActive();
+			buffers.multiplyLevels(out, n);
+			lastEnvelopeLevel = buffers.envLevel[n - 1] / 255.0;
+			lastOutputLevel = Math.abs(out[n - 1] * LEVEL_GAIN);
+			return true;
+		}
+
+		@Override
+		public void skipSpan(float sr, int n, SpanBuffers buffers) {
+			if (done) {
+				return;
+			}
+			env.skip(sr, n, buffers.env);
+			osc.skip(sr, activeWaveMask, n);
+			active = gateOn || currentFreqReg != 0 || env.isActive();
+		}
+
 		@Override
 		public VoiceSnapshot snapshot(int voiceIndex) {
 			int noteKind = 0;
@@ -2078,51 +2840,69 @@ public final class RealtimeAudioPlayer {
 					(float) clamp01(lastOutputLevel / Math.max(0.0001, MIX_GAIN)));
 		}
 
-		private void applyFrame(EffectFrameState frame, float sr) {
-			ownsVoice = frame.ownsVoice;
-			if (frame.reset) {
+		/**
+		 * Applies {@code frame} of {@code t}. Only the fields flagged in
+		 * {@code changed} are re-derived; the rest still hold the values set by
+		 * the previous frame of the same timeline.
+		 */
+		private void applyFrame(EffectTimeline t, int frame, int changed, float sr) {
+			ownsVoice = t.controlsVoice;
+			if (t.reset(frame)) {
 				osc.hardReset();
 			}
 
-			env.setAdsr(frame.attack, frame.decay, frame.sustain, frame.release);
-			if (frame.gate && !gateOn) {
+			if ((changed & EffectTimeline.CHANGED_ADSR) != 0) {
+				env.setAdsr(t.attack(frame), t.decay(frame), t.sustain(frame), t.release(frame));
+			}
+			boolean gate = t.gate(frame);
+			if (gate && !gateOn) {
 				boolean shortAttack = env.isActive() && !env.isReleasing();
 				gateOn = true;
 				env.noteOn(true, shortAttack);
-			} else if (!frame.gate && gateOn) {
+			} else if (!gate && gateOn) {
 				gateOn = false;
 				env.noteOff();
 			}
 
-			sync = frame.sync;
-			ring = frame.ring;
-			activeWaveMask = frame.waveMask;
-			noise = (activeWaveMask & SIDScoreIR.Wave.NOISE.mask) != 0;
-			pw = clampPw(frame.pw);
-			baseMidi = frame.baseMidi;
-			currentFreqReg = frame.freqReg & 0xFFFF;
+			if ((changed & EffectTimeline.CHANGED_SYNC_RING) != 0) {
+				sync = t.sync(frame);
+				ring = t.ring(frame);
+			}
+			if ((changed & EffectTimeline.CHANGED_WAVE) != 0) {
+				activeWaveMask = t.waveMask[frame];
+				noise = (activeWaveMask & SIDScoreIR.Wave.NOISE.mask) != 0;
+			}
+			if ((changed & EffectTimeline.CHANGED_PW) != 0) {
+				pw = t.pw[frame];
+			}
+			// Called every frame: it also clears the noise latch when noise is off.
 			osc.setWaveMask(activeWaveMask, OptionalInt.of(pw));
-			osc.setFreq(freqRegToHz(currentFreqReg, sidClockHz), sr);
+			if ((changed & EffectTimeline.CHANGED_FREQ) != 0) {
+				baseMidi = t.baseMidi[frame];
+				currentFreqReg = t.freqReg[frame];
+				osc.setFreq(freqRegToHz(currentFreqReg, sidClockHz), sr);
+			}
 
-			if (frame.volume >= 0 && volume != frame.volume) {
-				volume = frame.volume;
+			if ((changed & EffectTimeline.CHANGED_VOLUME) != 0 && t.volume[frame] >= 0 && volume != t.volume[frame]) {
+				volume = t.volume[frame];
 				filter.setVolume(volume);
 			}
-			if (frame.filterRouteMask >= 0 && filterRouteMask != frame.filterRouteMask) {
-				filterRouteMask = frame.filterRouteMask;
+			if ((changed & EffectTimeline.CHANGED_ROUTE) != 0 && t.filterRouteMask[frame] >= 0
+					&& filterRouteMask != t.filterRouteMask[frame]) {
+				filterRouteMask = t.filterRouteMask[frame];
 				filter.setRouteMask(filterRouteMask);
 			}
-			if (filterModeMask != frame.filterModeMask || filterCutoff != frame.filterCutoff
-					|| filterRes != frame.filterRes) {
-				filterModeMask = frame.filterModeMask;
-				filterCutoff = frame.filterCutoff;
-				filterRes = frame.filterRes;
+			if ((changed & EffectTimeline.CHANGED_FILTER) != 0 && (filterModeMask != t.filterModeMask[frame]
+					|| filterCutoff != t.filterCutoff[frame] || filterRes != t.filterRes[frame])) {
+				filterModeMask = t.filterModeMask[frame];
+				filterCutoff = t.filterCutoff[frame];
+				filterRes = t.filterRes[frame];
 				if (filterModeMask != 0) {
 					filter.activate(filterModeMask, filterCutoff, filterRes, null, sr);
 				}
 			}
 
-			active = frame.gate || currentFreqReg != 0 || env.isActive();
+			active = gate || currentFreqReg != 0 || env.isActive();
 		}
 
 		private void resetSidState() {
@@ -2146,264 +2926,983 @@ public final class RealtimeAudioPlayer {
 			env.noteOff();
 		}
 
-		private void setSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + sampleRemainder;
-			samplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			sampleRemainder = samplesExact - samplesLeft;
-		}
-
-		private static List<EffectFrameState> compileFrames(List<ScheduledEffect> scheduled, double sidClockHz) {
+		/**
+		 * Picks the effect that plays each output frame: the highest priority
+		 * covering it, the later one on ties.
+		 */
+		private static int[] resolveFrames(EffectTimeline[] sources, int[] sourceStart) {
 			int totalFrames = 0;
-			for (ScheduledEffect item : scheduled) {
-				totalFrames = Math.max(totalFrames,
-						item.startFrame() + Math.max(1, item.effect().lengthTicks()));
+			for (int i = 0; i < sources.length; i++) {
+				totalFrames = Math.max(totalFrames, sourceStart[i] + sources[i].length);
 			}
 			if (totalFrames <= 0) {
-				return List.of();
+				return new int[0];
 			}
 
-			List<EffectFrameState> frames = new ArrayList<>(totalFrames);
+			int[] frameSource = new int[totalFrames];
 			int[] framePriority = new int[totalFrames];
-			for (int i = 0; i < totalFrames; i++) {
-				frames.add(EffectFrameState.defaults());
-				framePriority[i] = -1;
-			}
-
-			for (ScheduledEffect item : scheduled) {
-				boolean controlsVoice = effectControlsVoice(item.effect());
-				int length = Math.max(1, item.effect().lengthTicks());
-				List<EffectFrameState> local = new ArrayList<>(length);
-				for (int i = 0; i < length; i++) {
-					local.add(EffectFrameState.defaults());
-				}
-				for (SIDScoreIR.EffectStepIR step : item.effect().steps()) {
-					if (step instanceof SIDScoreIR.EffectAssignmentIR assignment) {
-						applyAssignment(local, assignment, sidClockHz);
-					} else if (step instanceof SIDScoreIR.EffectSweepIR sweep) {
-						applySweep(local, sweep, sidClockHz);
+			Arrays.fill(frameSource, -1);
+			Arrays.fill(framePriority, -1);
+			for (int s = 0; s < sources.length; s++) {
+				int end = Math.min(totalFrames, sourceStart[s] + sources[s].length);
+				for (int target = sourceStart[s]; target < end; target++) {
+					if (sources[s].priority >= framePriority[target]) {
+						frameSource[target] = s;
+						framePriority[target] = sources[s].priority;
 					}
 				}
-				for (int i = 0; i < local.size() && item.startFrame() + i < frames.size(); i++) {
-					int targetFrame = item.startFrame() + i;
-					if (item.effect().priority() >= framePriority[targetFrame]) {
-						local.get(i).ownsVoice = controlsVoice;
-						frames.set(targetFrame, local.get(i));
-						framePriority[targetFrame] = item.effect().priority();
-					}
+			}
+			return frameSource;
+		}
+
+		private static double freqRegToHz(int reg, double sidClockHz) {
+			if (reg <= 0)
+				return 0.0;
+			return (reg & 0xFFFF) * sidClockHz / 16777216.0;
+		}
+
+		private static int clampMidi(int midi) {
+			return Math.max(0, Math.min(127, midi));
+		}
+
+		private static double clamp01(double value) {
+			return Math.max(0.0, Math.min(1.0, value));
+		}
+
+		private static NoteParts noteParts(int midi) {
+			int semitone = Math.floorMod(midi, 12);
+			int octave = midi / 12 - 1;
+			return switch (semitone) {
+			case 0 -> new NoteParts(0, 0, octave);
+			case 1 -> new NoteParts(0, 1, octave);
+			case 2 -> new NoteParts(1, 0, octave);
+			case 3 -> new NoteParts(1, 1, octave);
+			case 4 -> new NoteParts(2, 0, octave);
+			case 5 -> new NoteParts(3, 0, octave);
+			case 6 -> new NoteParts(3, 1, octave);
+			case 7 -> new NoteParts(4, 0, octave);
+			case 8 -> new NoteParts(4, 1, octave);
+			case 9 -> new NoteParts(5, 0, octave);
+			case 10 -> new NoteParts(5, 1, octave);
+			case 11 -> new NoteParts(6, 0, octave);
+			default -> new NoteParts(255, 0, 0);
+			};
+		}
+
+		private static final class NoteParts {
+			final int letter;
+			final int accidental;
+			final int octave;
+
+			NoteParts(int letter, int accidental, int octave) {
+				this.letter = letter;
+				this.accidental = accidental;
+				this.octave = octave;
+			}
+		}
+	}
+
+	/**
+	 * Voice driven by recorded SID register writes. Each frame it applies the
+	 * writes to its own seven registers in recorded order; voice 1 also
+	 * applies the filter and volume registers to the shared filter.
+	 */
+	static final class RegisterRuntime implements RuntimeVoice {
+		private static final int REG_FC_LO = 21;
+		private static final int REG_FC_HI = 22;
+		private static final int REG_RES_FILT = 23;
+		private static final int REG_MODE_VOL = 24;
+
+		private final int voiceIndex;
+		private final int base;
+		private final SidRegisterStream stream;
+		private final FilterRuntime filter;
+		private final double sidClockHz;
+		private final Osc osc;
+		private final Env env = new Env();
+
+		private int frameIndex = 0;
+		private boolean done = false;
+		private int freqReg = 0;
+		private int pw = 0;
+		private int ad = 0;
+		private int sr = 0;
+		private boolean gateOn = false;
+		private boolean sync = false;
+		private boolean ring = false;
+		private boolean test = false;
+		private int activeWaveMask = 0;
+		private int cutoff = 0;
+		private int resFilt = 0;
+		private int modeVol = 0;
+		private double lastEnvelopeLevel = 0.0;
+		private double lastOutputLevel = 0.0;
+
+		RegisterRuntime(int voiceIndex, SidRegisterStream stream, FilterRuntime filter,
+				SidWaveforms.TableSet waveTables) {
+			this.voiceIndex = voiceIndex;
+			this.base = (voiceIndex - 1) * 7;
+			this.stream = stream;
+			this.filter = filter;
+			this.sidClockHz = stream.clockHz();
+			this.osc = new Osc(waveTables);
+			this.done = stream.frames() == 0;
+			env.setAdsr(0, 0, 0, 0);
+		}
+
+		/**
+		 * Whether any voice of {@code stream} ever enables ring modulation.
+		 */
+		static boolean usesRing(SidRegisterStream stream) {
+			for (int i = 0; i < stream.writes(); i++) {
+				int reg = stream.register(i);
+				if ((reg == 4 || reg == 11 || reg == 18) && (stream.value(i) & 0x04) != 0) {
+					return true;
 				}
 			}
+			return false;
+		}
 
-			return List.copyOf(frames);
+		@Override
+		public boolean done() {
+			return done;
+		}
+
+		@Override
+		public boolean ownsVoice() {
+			return !done;
+		}
+
+		@Override
+		public boolean filterRoute() {
+			return (resFilt & (1 << (voiceIndex - 1))) != 0;
 		}
 
-		private static void applyAssignment(List<EffectFrameState> frames,
-				SIDScoreIR.EffectAssignmentIR assignment, double sidClockHz) {
-			int tick = assignment.tick();
-			if (tick < 0 || tick >= frames.size()) {
+		@Override
+		public void tickFrame(float sr) {
+			if (done) {
 				return;
 			}
-			if (assignment.parameter() == SIDScoreIR.EffectParameter.RESET) {
-				frames.get(tick).reset = true;
+			if (frameIndex >= stream.frames()) {
+				done = true;
+				env.noteOff();
 				return;
 			}
-			for (int i = tick; i < frames.size(); i++) {
-				applyValue(frames.get(i), assignment.parameter(), assignment.value(), sidClockHz);
+			applyFrame(frameIndex++, sr);
+		}
+
+		@Override
+		public int advanceOsc(float sr) {
+			if (done) {
+				return OscState.OFF;
+			}
+			return osc.advance(sr);
+		}
+
+		@Override
+		public void applySync(int modState) {
+			if (!done && sync && (modState & OscState.MSB_RISE) != 0) {
+				osc.syncReset(modState);
 			}
 		}
 
-		private static void applyValue(EffectFrameState frame, SIDScoreIR.EffectParameter parameter,
-				SIDScoreIR.EffectValueIR value, double sidClockHz) {
-			switch (parameter) {
-			case WAVE -> frame.waveMask = value.value();
-			case GATE -> frame.gate = value.value() != 0;
-			case SYNC -> frame.sync = value.value() != 0;
-			case RING -> frame.ring = value.value() != 0;
-			case PITCH -> {
-				int midi = clampMidi(value.value());
-				frame.baseMidi = midi;
-				frame.freqReg = freqRegFromMidi(midi, sidClockHz);
+		@Override
+		public void useBandLimitedOsc() {
+			osc.setBandLimited(true);
+		}
+
+		@Override
+		public void useFixedPointCore() {
+			osc.setFixedPoint(true);
+		}
+
+		@Override
+		public double renderSample(float sr, int modState) {
+			if (done) {
+				return 0.0;
 			}
-			case FREQ -> {
-				frame.freqReg = value.value() & 0xFFFF;
-				frame.baseMidi = -1;
+			double e = env.next(sr);
+			double o = osc.output(test ? 0 : activeWaveMask, ring, modState);
+			// Voice 3 can be disconnected from the output unless it goes through the filter.
+			if (voiceIndex == 3 && (modeVol & 0x80) != 0 && !filterRoute()) {
+				o = 0.0;
 			}
-			case PW -> frame.pw = clampPw(value.value());
-			case HIPULSE -> frame.pw = clampPw((frame.pw & 0x00FF) | ((value.value() & 0x0F) << 8));
-			case LOWPULSE -> frame.pw = clampPw((frame.pw & 0x0F00) | (value.value() & 0xFF));
-			case ADSR -> {
-				SIDScoreIR.AdsrIR adsr = value.adsr().orElse(new SIDScoreIR.AdsrIR(0, 0, 15, 0));
-				frame.attack = clampNibble(adsr.a());
-				frame.decay = clampNibble(adsr.d());
-				frame.sustain = clampNibble(adsr.s());
-				frame.release = clampNibble(adsr.r());
+			double out = MIX_GAIN * e * o;
+			lastEnvelopeLevel = e;
+			lastOutputLevel = Math.abs(out);
+			return out;
+		}
+
+		@Override
+		public int renderLevel(float sr, int modState) {
+			if (done) {
+				return 0;
 			}
-			case ATTACK -> frame.attack = clampNibble(value.value());
-			case DECAY -> frame.decay = clampNibble(value.value());
-			case SUSTAIN -> frame.sustain = clampNibble(value.value());
-			case RELEASE -> frame.release = clampNibble(value.value());
-			case FILTER -> frame.filterModeMask = value.value();
-			case FILTERROUTE -> frame.filterRouteMask = clampNibble(value.value());
-			case CUTOFF -> frame.filterCutoff = clampCutoff(value.value());
-			case RES -> frame.filterRes = clampNibble(value.value());
-			case VOLUME -> frame.volume = clampNibble(value.value());
-			case RESET -> frame.reset = true;
+			int e = env.nextLevel(sr);
+			int o = osc.outputLevel(test ? 0 : activeWaveMask, ring, modState);
+			if (voiceIndex == 3 && (modeVol & 0x80) != 0 && !filterRoute()) {
+				o = 0;
 			}
+			int out = e * o;
+			lastEnvelopeLevel = e / 255.0;
+			lastOutputLevel = Math.abs(out * LEVEL_GAIN);
+			return out;
+		}
+
+		@Override
+		public boolean independent() {
+			return done || (!sync && !ring);
 		}
 
-		private static void applySweep(List<EffectFrameState> frames, SIDScoreIR.EffectSweepIR sweep,
-				double sidClockHz) {
-			int duration = Math.min(Math.max(1, sweep.durationTicks()), frames.size());
-			for (int i = 0; i < duration; i++) {
-				double pos = duration == 1 ? 1.0 : i / (double) (duration - 1);
-				pos = switch (sweep.curve()) {
-				case EXP -> pos * pos;
-				case LOG -> Math.sqrt(pos);
-				case LINEAR, STEP -> pos;
-				};
-				int from = sweep.fromValue().value();
-				int to = sweep.toValue().value();
-				int value = (int) Math.round(from + (to - from) * pos);
-				applySweepValue(frames.get(i), sweep.parameter(), value, sidClockHz);
+		@Override
+		public boolean renderSpan(float sr, double[] out, int n, SpanBuffers buffers) {
+			if (done) {
+				return false;
+			}
+			if (env.isSilent()) {
+				skipSpan(sr, n, buffers);
+				lastEnvelopeLevel = 0.0;
+				lastOutputLevel = 0.0;
+				return false;
 			}
+			env.fill(sr, buffers.env, n);
+			osc.fill(sr, test ? 0 : activeWaveMask, n, buffers);
+			if (voiceIndex == 3 && (modeVol & 0x80) != 0 && !filterRoute()) {
+				Arrays.fill(buffers.wave, 0, n, 0.0);
+			}
+			lastEnvelopeLevel = buffers.env[n - 1];
+			buffers.kernel.scale(buffers.env, MIX_GAIN, n);
+			buffers.kernel.multiply(buffers.env, buffers.wave, out, n);
+			lastOutputLevel = Math.abs(out[n - 1]);
+			return true;
 		}
 
-		private static void applySweepValue(EffectFrameState frame, SIDScoreIR.EffectParameter parameter,
-				int value, double sidClockHz) {
-			switch (parameter) {
-			case PITCH -> {
-				int midi = clampMidi(value);
-				frame.baseMidi = midi;
-				frame.freqReg = freqRegFromMidi(midi, sidClockHz);
+		@Override
+		public boolean renderSpanLevels(float sr, int[] out, int n, SpanBuffers buffers) {
+			if (done) {
+				return false;
 			}
-			case FREQ -> {
-				frame.freqReg = Math.max(0, Math.min(0xFFFF, value));
-				frame.baseMidi = -1;
+			if (env.isSilent()) {
+				skipSpan(sr, n, buffers);
+				lastEnvelopeLevel = 0.0;
+				lastOutputLevel = 0.0;
+				return false;
 			}
-			case PW -> frame.pw = clampPw(value);
-			case CUTOFF -> frame.filterCutoff = clampCutoff(value);
-			case VOLUME -> frame.volume = clampNibble(value);
-			default -> {
-				// Parser validation only permits the sweep parameters above.
+			env.fillLevels(sr, buffers.envLevel, n);
+			osc.fillLevels(sr, test ? 0 : activeWaveMask, n, buffers);
+			if (voiceIndex == 3 && (modeVol & 0x80) != 0 && !filterRoute()) {
+				Arrays.fill(buffers.waveLevel, 0, n, 0);
 			}
+			buffers.multiplyLevels(out, n);
+			lastEnvelopeLevel = buffers.envLevel[n - 1] / 255.0;
+			lastOutputLevel = Math.abs(out[n - 1] * LEVEL_GAIN);
+			return true;
+		}
+
+		@Override
+		public void skipSpan(float sr, int n, SpanBuffers buffers) {
+			if (done) {
+				return;
 			}
+			env.skip(sr, n, buffers.env);
+			osc.skip(sr, test ? 0 : activeWaveMask, n);
 		}
 
-		private static int freqRegFromMidi(int midi, double sidClockHz) {
-			double hz = 440.0 * Math.pow(2.0, (midi - 69) / 12.0);
-			int reg = (int) Math.round(hz * 16777216.0 / sidClockHz);
-			return Math.max(1, Math.min(0xFFFF, reg));
+		@Override
+		public VoiceSnapshot snapshot(int voiceIndex) {
+			boolean active = gateOn || env.isActive();
+			int flags = 0;
+			if (active)
+				flags |= 1;
+			if (gateOn)
+				flags |= 1 << 1;
+			if (sync)
+				flags |= 1 << 2;
+			if (ring)
+				flags |= 1 << 3;
+			if (filterRoute())
+				flags |= 1 << 4;
+			if (done)
+				flags |= 1 << 5;
+			int noteKind = (activeWaveMask & SIDScoreIR.Wave.NOISE.mask) != 0 && active ? 2 : 0;
+			return new VoiceSnapshot(voiceIndex, noteKind, 255, 0, 0, activeWaveMask, flags, freqReg, pw, 0,
+					(float) Math.max(0.0, Math.min(1.0, lastEnvelopeLevel)),
+					(float) Math.max(0.0, Math.min(1.0, lastOutputLevel / MIX_GAIN)));
+		}
+
+		private void applyFrame(int frame, float sampleRate) {
+			boolean filterChanged = false;
+			for (int i = stream.firstWrite(frame), end = stream.firstWrite(frame + 1); i < end; i++) {
+				int reg = stream.register(i);
+				int value = stream.value(i);
+				switch (reg - base) {
+				case 0 -> freqReg = (freqReg & 0xFF00) | value;
+				case 1 -> freqReg = (freqReg & 0x00FF) | (value << 8);
+				case 2 -> pw = (pw & 0x0F00) | value;
+				case 3 -> pw = (pw & 0x00FF) | ((value & 0x0F) << 8);
+				case 4 -> writeControl(value);
+				case 5 -> {
+					ad = value;
+					env.setAdsr(ad >> 4, ad & 0x0F, sr >> 4, sr & 0x0F);
+				}
+				case 6 -> {
+					sr = value;
+					env.setAdsr(ad >> 4, ad & 0x0F, sr >> 4, sr & 0x0F);
+				}
+				default -> {
+					switch (reg) {
+					case REG_FC_LO -> cutoff = (cutoff & 0x7F8) | (value & 0x07);
+					case REG_FC_HI -> cutoff = (cutoff & 0x007) | (value << 3);
+					case REG_RES_FILT -> resFilt = value;
+					case REG_MODE_VOL -> modeVol = value;
+					default -> {
+						// another voice's register
+					}
+					}
+					filterChanged |= reg >= REG_FC_LO;
+				}
+				}
+			}
+			osc.setPulseWidth(pw);
+			osc.setFreq(freqReg * sidClockHz / 16777216.0, sampleRate);
+			if (test) {
+				osc.hardReset();
+			}
+			if (voiceIndex == 1 && filterChanged) {
+				filter.setRouteMask(resFilt & 0x0F);
+				filter.setVolume(modeVol & 0x0F);
+				filter.activate((modeVol >> 4) & 0x07, cutoff, resFilt >> 4, null, sampleRate);
+			}
 		}
 
-		private static double freqRegToHz(int reg, double sidClockHz) {
-			if (reg <= 0)
-				return 0.0;
-			return (reg & 0xFFFF) * sidClockHz / 16777216.0;
+		private void writeControl(int value) {
+			boolean gate = (value & 0x01) != 0;
+			if (gate && !gateOn) {
+				boolean shortAttack = env.isActive() && !env.isReleasing();
+				env.noteOn(true, shortAttack);
+			} else if (!gate && gateOn) {
+				env.noteOff();
+			}
+			gateOn = gate;
+			sync = (value & 0x02) != 0;
+			ring = (value & 0x04) != 0;
+			test = (value & 0x08) != 0;
+			int mask = 0;
+			if ((value & 0x10) != 0)
+				mask |= SIDScoreIR.Wave.TRI.mask;
+			if ((value & 0x20) != 0)
+				mask |= SIDScoreIR.Wave.SAW.mask;
+			if ((value & 0x40) != 0)
+				mask |= SIDScoreIR.Wave.PULSE.mask;
+			if ((value & 0x80) != 0)
+				mask |= SIDScoreIR.Wave.NOISE.mask;
+			activeWaveMask = mask;
+			osc.setWaveMask(mask, OptionalInt.of(pw));
+		}
+	}
+
+	// -------- Chip session (voices, filter and output stage for one render) --------
+	/**
+	 * Everything that turns a score into output samples: the three voice
+	 * runtimes, the global filter and the output smoothing stage. Live playback
+	 * and offline rendering both drive one of these, so they produce identical
+	 * PCM.
+	 */
+	static final class ChipSession {
+		private static final int[] MOD_INDEX = new int[] { 2, 0, 1 };
+
+		final RuntimeVoice[] voices = new RuntimeVoice[3];
+		final FilterRuntime filter;
+		final double frameRate;
+		final int oversample;
+		/** Voices render {@link RuntimeVoice#renderLevel integer levels}, mixed as integers. */
+		final boolean fixedPoint;
+
+		private final double srOS;
+		private final double outLPAlpha;
+		/** Oversampled samples per raster frame; frame ticks land on the nearest sample. */
+		private final double samplesPerFrame;
+		private int frameSamplesLeft = 0;
+		private double frameSampleRemainder = 0.0;
+		private final int[] oscState = new int[3];
+		private final double[] voiceSampleByVoice = new double[3];
+		private final boolean[] voiceRouted = new boolean[3];
+		private double outLP = 0.0;
+		/** Whether the filter and direct inputs were silent over the last block or span. */
+		private boolean wetSilent = true;
+		private boolean drySilent = true;
+		private boolean blockDone = true;
+		/** Live MIDI changes voices and filter between samples, so it is always interleaved. */
+		private final boolean liveInput;
+		/** Kernel for {@link #renderBlock} spans, or {@code null} to interleave every sample. */
+		private BlockKernel blockKernel = BlockKernel.preferred();
+		private SpanBuffers spanBuffers;
+		private double[][] spanVoices;
+		private double[] spanDry;
+		private double[] spanWet;
+		private int[][] spanVoiceLevels;
+		private int[] spanDryLevel;
+		private int[] spanWetLevel;
+		/**
+		 * Per span: voices coupled to their modulating voice, voices stepped
+		 * sample by sample, and voices with output.
+		 */
+		private final boolean[] spanModulated = new boolean[3];
+		private final boolean[] spanCoupled = new boolean[3];
+		private final boolean[] spanHeard = new boolean[3];
+
+		ChipSession(SIDScoreIR.TimedScore score, MidiSource midiSource, SidWaveforms.TableSet waveTables) {
+			this(score, midiSource, waveTables, null);
+		}
+
+		ChipSession(SIDScoreIR.TimedScore score, MidiSource midiSource, SidWaveforms.TableSet waveTables,
+				MidiLatencyMeter latencyMeter) {
+			this(score, midiSource, waveTables, latencyMeter, OscillatorMode.OVERSAMPLED, FilterModel.CHAMBERLIN,
+					SynthesisCore.FLOATING_POINT);
+		}
+
+		ChipSession(SIDScoreIR.TimedScore score, MidiSource midiSource, SidWaveforms.TableSet waveTables,
+				MidiLatencyMeter latencyMeter, OscillatorMode oscillatorMode, FilterModel filterModel,
+				SynthesisCore core) {
+			double sidClockHz = score.system() == SIDScoreIR.VideoSystem.NTSC ? SID_CLOCK_NTSC : SID_CLOCK_PAL;
+			liveInput = midiSource != null;
+			frameRate = score.system() == SIDScoreIR.VideoSystem.NTSC ? RASTER_RATE_NTSC : RASTER_RATE_PAL;
+
+			filter = new FilterRuntime();
+			filter.setModel(filterModel);
+			for (int i = 0; i < 3; i++) {
+				int voiceIndex = i + 1;
+				var tv = score.voices().get(i + 1);
+				SIDScoreIR.InstrumentIR instrument = tv != null ? tv.instrument() : DEFAULT_MIDI_INSTR;
+				RuntimeVoice primary;
+				boolean midiControlsVoice = midiSource != null && midiSource.controlsVoice(voiceIndex);
+				if (midiControlsVoice || tv == null) {
+					CompiledTimeline events = FrameEventCompiler.timeline(null, score);
+					primary = new VoiceRuntime(SILENT_INSTR, events, sidClockHz, score.tables(), filter,
+							waveTables);
+				} else {
+					CompiledTimeline events = FrameEventCompiler.timeline(tv, score);
+					primary = new VoiceRuntime(instrument, events, sidClockHz, score.tables(), filter,
+							waveTables);
+				}
+				if (midiControlsVoice) {
+					RuntimeVoice midiRuntime = new MidiRuntime(voiceIndex, instrument, midiSource, sidClockHz,
+							score.tables(), filter, waveTables, latencyMeter);
+					voices[i] = new SharedTimelineRuntimeVoice(primary, midiRuntime);
+				} else {
+					voices[i] = primary;
+				}
+			}
+			if (!score.effects().isEmpty()) {
+				Map<Integer, List<ScheduledEffect>> scheduledEffects = scheduleEffects(score.effects(), 0);
+				for (int i = 0; i < 3; i++) {
+					RuntimeVoice effectRuntime = new EffectRuntime(i + 1,
+							scheduledEffects.getOrDefault(i + 1, List.of()), sidClockHz, filter, waveTables);
+					voices[i] = new SharedTimelineRuntimeVoice(voices[i], effectRuntime);
+				}
+			}
+
+			int os = OVERSAMPLE_BASE;
+			if (effectsMayUseRing(score.effects())) {
+				os = Math.max(os, OVERSAMPLE_RING);
+			}
+			for (int i = 0; i < 3; i++) {
+				var tv = score.voices().get(i + 1);
+				SIDScoreIR.InstrumentIR instrument = tv != null ? tv.instrument()
+						: (midiSource != null && midiSource.controlsVoice(i + 1) ? DEFAULT_MIDI_INSTR : null);
+				if (instrument != null && instrument.ring()) {
+					os = Math.max(os, OVERSAMPLE_RING);
+				}
+			}
+			oversample = applyOscillatorMode(oscillatorMode, os);
+			fixedPoint = applySynthesisCore(core, oscillatorMode);
+			srOS = SAMPLE_RATE * oversample;
+			outLPAlpha = onePoleAlpha(OUTPUT_LP_HZ, srOS);
+			samplesPerFrame = srOS / frameRate;
+		}
+
+		/**
+		 * A session whose voices replay recorded register writes instead of
+		 * interpreting a score.
+		 */
+		ChipSession(SidRegisterStream stream, SidWaveforms.TableSet waveTables, OscillatorMode oscillatorMode,
+				FilterModel filterModel, SynthesisCore core) {
+			frameRate = stream.frameRate();
+			liveInput = false;
+			filter = new FilterRuntime();
+			filter.setModel(filterModel);
+			for (int i = 0; i < 3; i++) {
+				voices[i] = new RegisterRuntime(i + 1, stream, filter, waveTables);
+			}
+			oversample = applyOscillatorMode(oscillatorMode,
+					RegisterRuntime.usesRing(stream) ? OVERSAMPLE_RING : OVERSAMPLE_BASE);
+			fixedPoint = applySynthesisCore(core, oscillatorMode);
+			srOS = SAMPLE_RATE * oversample;
+			outLPAlpha = onePoleAlpha(OUTPUT_LP_HZ, srOS);
+			samplesPerFrame = srOS / frameRate;
+		}
+
+		/**
+		 * Returns the oversampling factor for {@code mode}: {@code oversample}
+		 * as computed for naive oscillators, or 1 after switching every voice
+		 * to band-limited oscillators.
+		 */
+		private int applyOscillatorMode(OscillatorMode mode, int oversample) {
+			if (mode != OscillatorMode.BAND_LIMITED) {
+				return oversample;
+			}
+			for (RuntimeVoice voice : voices) {
+				voice.useBandLimitedOsc();
+			}
+			filter.setSubsteps(BAND_LIMITED_FILTER_SUBSTEPS);
+			return 1;
+		}
+
+		/**
+		 * Switches every voice to the fixed-point core when {@code core} asks
+		 * for it and the oscillators are naive; returns whether it did.
+		 */
+		private boolean applySynthesisCore(SynthesisCore core, OscillatorMode mode) {
+			if (core != SynthesisCore.FIXED_POINT || mode == OscillatorMode.BAND_LIMITED) {
+				return false;
+			}
+			for (RuntimeVoice voice : voices) {
+				voice.useFixedPointCore();
+			}
+			return true;
+		}
+
+		/**
+		 * Starts a new output block; {@link #blockDone()} then reports whether
+		 * every voice stayed finished for all samples rendered since. Live MIDI
+		 * input is polled here, once per block.
+		 */
+		void beginBlock(int blockSamples) {
+			blockDone = true;
+			settle();
+			wetSilent = true;
+			drySilent = true;
+			for (int v = 0; v < 3; v++) {
+				voices[v].beginBlock((float) srOS, blockSamples);
+			}
+		}
+
+		/**
+		 * Flushes the filter once its input has been silent, then the output
+		 * stage once nothing at all is heard, so an idle chip renders exact
+		 * zeros without running either.
+		 */
+		private void settle() {
+			if (wetSilent) {
+				filter.settle();
+				if (drySilent && filter.settled() && Math.abs(outLP) < SETTLED_LEVEL) {
+					outLP = 0.0;
+				}
+			}
+		}
+
+		boolean blockDone() {
+			return blockDone;
+		}
+
+		/**
+		 * Selects the arithmetic of the block renderer; {@code null} renders
+		 * every block sample by sample, as live playback does.
+		 */
+		void setBlockKernel(BlockKernel kernel) {
+			blockKernel = kernel;
+		}
+
+		BlockKernel blockKernel() {
+			return blockKernel;
+		}
+
+		/**
+		 * Renders one full {@link #BUFFER_SAMPLES} block; see
+		 * {@link #renderBlock(byte[], int, float[][], double[])}.
+		 */
+		void renderBlock(byte[] pcm, float[][] voiceBuf, double[] voiceMix) {
+			renderBlock(pcm, BUFFER_SAMPLES, voiceBuf, voiceMix);
+		}
+
+		/**
+		 * Renders a block of {@code samples} output samples of 16-bit PCM into
+		 * {@code pcm}. Per-voice levels go to {@code voiceBuf} when it is
+		 * non-null, using {@code voiceMix} as scratch.
+		 * <p>
+		 * The block is rendered in spans that end at the frame ticks. Within a
+		 * span each voice that is {@link RuntimeVoice#independent() independent}
+		 * fills a whole buffer on its own, and silent voices only advance their
+		 * phase. Voices that sync or ring modulate, and the voices modulating
+		 * them, are stepped together sample by sample. The filter and output
+		 * stage then run over the mixed span, or not at all when it is silent.
+		 * Sessions with live MIDI, which may change a voice or the filter at
+		 * any sample, are rendered sample by sample throughout. Both ways give
+		 * the same samples.
+		 * </p>
+		 */
+		void renderBlock(byte[] pcm, int samples, float[][] voiceBuf, double[] voiceMix) {
+			beginBlock(samples);
+			if (blockKernel != null && !liveInput) {
+				renderSpans(pcm, samples, voiceBuf, voiceMix);
+				return;
+			}
+			for (int s = 0; s < samples; s++) {
+				renderSample(pcm, s, voiceBuf, voiceMix);
+			}
+		}
+
+		private void renderSpans(byte[] pcm, int samples, float[][] voiceBuf, double[] voiceMix) {
+			int total = samples * oversample;
+			if (spanBuffers == null || spanBuffers.kernel != blockKernel || spanWet.length < total) {
+				spanBuffers = new SpanBuffers(blockKernel, total);
+				spanVoices = new double[3][total];
+				spanDry = new double[total];
+				spanWet = new double[total];
+				if (fixedPoint) {
+					spanVoiceLevels = new int[3][total];
+					spanDryLevel = new int[total];
+					spanWetLevel = new int[total];
+				}
+			}
+			boolean meters = voiceBuf != null;
+			if (meters) {
+				Arrays.fill(voiceMix, 0.0);
+			}
+			float sr = (float) srOS;
+			boolean done = blockDone;
+			int s = 0;
+			int subSample = 0;
+			for (int pos = 0; pos < total;) {
+				if (frameSamplesLeft == 0) {
+					tickFrame();
+				}
+				int n = Math.min(frameSamplesLeft, total - pos);
+				frameSamplesLeft -= n;
+
+				if (markCoupled()) {
+					done &= interleaveCoupled(n);
+				}
+				boolean anyDry = false;
+				boolean anyWet = false;
+				for (int v = 0; v < 3; v++) {
+					boolean heard = spanCoupled[v];
+					if (!heard) {
+						heard = fixedPoint ? voices[v].renderSpanLevels(sr, spanVoiceLevels[v], n, spanBuffers)
+								: voices[v].renderSpan(sr, spanVoices[v], n, spanBuffers);
+						done &= voices[v].done();
+					}
+					spanHeard[v] = heard;
+					voiceRouted[v] = filter.routesVoice(v + 1, voices[v].filterRoute());
+					if (heard) {
+						// Silent voices are left out; adding their zeros changes nothing.
+						if (voiceRouted[v]) {
+							mixSpan(anyWet, spanWet, spanWetLevel, v, n);
+							anyWet = true;
+						} else {
+							mixSpan(anyDry, spanDry, spanDryLevel, v, n);
+							anyDry = true;
+						}
+					}
+				}
+				if (fixedPoint) {
+					if (anyWet) {
+						scaleLevels(spanWetLevel, spanWet, n);
+					}
+					if (anyDry) {
+						scaleLevels(spanDryLevel, spanDry, n);
+					}
+				}
+
+				boolean filterIdle = !anyWet && filter.settled();
+				if (!anyDry && filterIdle && outLP == 0.0) {
+					// Nothing to filter or smooth: the span is exact silence.
+					for (subSample += n; subSample >= oversample; subSample -= oversample) {
+						if (meters) {
+							writeMeters(voiceBuf, voiceMix, s);
+						}
+						writePcm(pcm, s++, 0.0);
+					}
+				} else {
+					double volumeScale = filter.volumeScale();
+					for (int i = 0; i < n; i++) {
+						double wet = anyWet ? spanWet[i] : 0.0;
+						double filtered = filterIdle ? 0.0 : filter.apply(wet, sr);
+						double mix = ((anyDry ? spanDry[i] : 0.0) + filtered) * volumeScale;
+						outLP += outLPAlpha * (mix - outLP);
+						if (meters) {
+							addMeters(voiceMix, i, wet, filtered, volumeScale);
+						}
+						if (++subSample == oversample) {
+							subSample = 0;
+							if (meters) {
+								writeMeters(voiceBuf, voiceMix, s);
+							}
+							writePcm(pcm, s++, outLP);
+						}
+					}
+				}
+				wetSilent = !anyWet;
+				drySilent = !anyDry;
+				settle();
+				pos += n;
+			}
+			blockDone = done;
+		}
+
+		/**
+		 * Marks the voices of the coming span that must be stepped sample by
+		 * sample: those coupled to their modulating voice, and that voice.
+		 * Returns whether there are any.
+		 */
+		private boolean markCoupled() {
+			boolean any = false;
+			for (int v = 0; v < 3; v++) {
+				spanModulated[v] = !voices[v].independent();
+				spanCoupled[v] = false;
+			}
+			for (int v = 0; v < 3; v++) {
+				if (spanModulated[v]) {
+					spanCoupled[v] = true;
+					spanCoupled[MOD_INDEX[v]] = true;
+					any = true;
+				}
+			}
+			return any;
+		}
+
+		/**
+		 * Renders {@code n} samples of the {@link #markCoupled coupled} voices
+		 * into their span buffers the way {@link #renderSample} does. Returns
+		 * whether they all stayed finished.
+		 */
+		private boolean interleaveCoupled(int n) {
+			RuntimeVoice[] vr = voices;
+			float sr = (float) srOS;
+			boolean done = true;
+			for (int i = 0; i < n; i++) {
+				for (int v = 0; v < 3; v++) {
+					if (spanCoupled[v]) {
+						vr[v].prepareSample(sr);
+					}
+				}
+				for (int v = 0; v < 3; v++) {
+					if (spanCoupled[v]) {
+						oscState[v] = vr[v].advanceOsc(sr);
+					}
+				}
+				for (int v = 0; v < 3; v++) {
+					if (spanCoupled[v]) {
+						// An independent modulator ignores its own modulator, which may not be stepped here.
+						int modState = spanModulated[v] ? oscState[MOD_INDEX[v]] : OscState.OFF;
+						vr[v].applySync(modState);
+						if (fixedPoint) {
+							spanVoiceLevels[v][i] = vr[v].renderLevel(sr, modState);
+						} else {
+							spanVoices[v][i] = vr[v].renderSample(sr, modState);
+						}
+						done &= vr[v].done();
+					}
+				}
+			}
+			return done;
 		}
 
-		private static boolean effectControlsVoice(SIDScoreIR.EffectIR effect) {
-			for (SIDScoreIR.EffectStepIR step : effect.steps()) {
-				SIDScoreIR.EffectParameter parameter = null;
-				if (step instanceof SIDScoreIR.EffectAssignmentIR assignment) {
-					parameter = assignment.parameter();
-				} else if (step instanceof SIDScoreIR.EffectSweepIR sweep) {
-					parameter = sweep.parameter();
+		/**
+		 * Adds voice {@code v}'s span buffer to a dry or wet sum that starts
+		 * from zero unless {@code started}; {@code levelSum} for the
+		 * fixed-point core.
+		 */
+		private void mixSpan(boolean started, double[] sum, int[] levelSum, int v, int n) {
+			if (!fixedPoint) {
+				if (!started) {
+					Arrays.fill(sum, 0, n, 0.0);
 				}
-				if (parameter != null && !isGlobalEffectParameter(parameter)) {
-					return true;
+				spanBuffers.kernel.add(spanVoices[v], sum, n);
+			} else if (!started) {
+				System.arraycopy(spanVoiceLevels[v], 0, levelSum, 0, n);
+			} else {
+				int[] level = spanVoiceLevels[v];
+				for (int i = 0; i < n; i++) {
+					levelSum[i] += level[i];
 				}
 			}
-			return false;
 		}
 
-		private static boolean isGlobalEffectParameter(SIDScoreIR.EffectParameter parameter) {
-			return parameter == SIDScoreIR.EffectParameter.FILTER
-					|| parameter == SIDScoreIR.EffectParameter.FILTERROUTE
-					|| parameter == SIDScoreIR.EffectParameter.CUTOFF
-					|| parameter == SIDScoreIR.EffectParameter.RES
-					|| parameter == SIDScoreIR.EffectParameter.VOLUME;
+		/**
+		 * Turns summed fixed-point levels into the filter's input scale; the
+		 * only floating-point step of the fixed-point mix.
+		 */
+		private static void scaleLevels(int[] levels, double[] out, int n) {
+			for (int i = 0; i < n; i++) {
+				out[i] = levels[i] * LEVEL_GAIN;
+			}
 		}
 
-		private static int clampMidi(int midi) {
-			return Math.max(0, Math.min(127, midi));
+		/**
+		 * Adds span sample {@code i} of each heard voice to its level in
+		 * {@code voiceMix}, as {@link #renderSample} does per sample.
+		 */
+		private void addMeters(double[] voiceMix, int i, double wet, double filtered, double volumeScale) {
+			for (int v = 0; v < 3; v++) {
+				if (!spanHeard[v]) {
+					continue;
+				}
+				double voiceSample = fixedPoint ? spanVoiceLevels[v][i] * LEVEL_GAIN : spanVoices[v][i];
+				if (voiceRouted[v]) {
+					if (Math.abs(wet) > 1.0e-9) {
+						voiceMix[v] += filtered * (voiceSample / wet) * volumeScale;
+					}
+				} else {
+					voiceMix[v] += voiceSample * volumeScale;
+				}
+			}
 		}
 
-		private static int clampPw(int value) {
-			return Math.max(0, Math.min(0x0FFF, value));
+		private void writeMeters(float[][] voiceBuf, double[] voiceMix, int s) {
+			for (int v = 0; v < 3; v++) {
+				voiceBuf[v][s] = (float) (voiceMix[v] / oversample);
+				voiceMix[v] = 0.0;
+			}
 		}
 
-		private static int clampCutoff(int value) {
-			return Math.max(0, Math.min(0x07FF, value));
-		}
+		private static void writePcm(byte[] pcm, int s, double level) {
+			// Safety clamp at output sample rate.
+			double mix = Math.max(-1.0, Math.min(1.0, level));
 
-		private static int clampNibble(int value) {
-			return Math.max(0, Math.min(15, value));
+			short sample = (short) (mix * 32767);
+			pcm[s * 2] = (byte) (sample & 0xFF);
+			pcm[s * 2 + 1] = (byte) ((sample >>> 8) & 0xFF);
 		}
 
-		private static double clamp01(double value) {
-			return Math.max(0.0, Math.min(1.0, value));
+		/**
+		 * Runs the control-rate half of the chip: filter table, then each voice's
+		 * events, table sequencers and effect frames. The per-sample loop is left
+		 * with oscillators, envelopes, filter and mix.
+		 */
+		private void tickFrame() {
+			double samplesExact = samplesPerFrame + frameSampleRemainder;
+			frameSamplesLeft = Math.max(1, (int) Math.round(samplesExact));
+			frameSampleRemainder = samplesExact - frameSamplesLeft;
+			float sr = (float) srOS;
+			filter.tickFrame(sr);
+			for (int v = 0; v < 3; v++) {
+				voices[v].tickFrame(sr);
+			}
 		}
 
-		private static NoteParts noteParts(int midi) {
-			int semitone = Math.floorMod(midi, 12);
-			int octave = midi / 12 - 1;
-			return switch (semitone) {
-			case 0 -> new NoteParts(0, 0, octave);
-			case 1 -> new NoteParts(0, 1, octave);
-			case 2 -> new NoteParts(1, 0, octave);
-			case 3 -> new NoteParts(1, 1, octave);
-			case 4 -> new NoteParts(2, 0, octave);
-			case 5 -> new NoteParts(3, 0, octave);
-			case 6 -> new NoteParts(3, 1, octave);
-			case 7 -> new NoteParts(4, 0, octave);
-			case 8 -> new NoteParts(4, 1, octave);
-			case 9 -> new NoteParts(5, 0, octave);
-			case 10 -> new NoteParts(5, 1, octave);
-			case 11 -> new NoteParts(6, 0, octave);
-			default -> new NoteParts(255, 0, 0);
-			};
-		}
+		/**
+		 * Renders output sample {@code s} (all oversampled sub-steps) into
+		 * {@code pcm} and, when {@code voiceBuf} is non-null, the per-voice
+		 * levels into {@code voiceBuf[v][s]}.
+		 */
+		void renderSample(byte[] pcm, int s, float[][] voiceBuf, double[] voiceMix) {
+			boolean wantsVoiceSamples = voiceBuf != null;
+			if (wantsVoiceSamples) {
+				voiceMix[0] = 0.0;
+				voiceMix[1] = 0.0;
+				voiceMix[2] = 0.0;
+			}
+			RuntimeVoice[] vr = voices;
+			boolean done = blockDone;
+			for (int os = 0; os < oversample; os++) {
+				if (frameSamplesLeft == 0) {
+					tickFrame();
+				}
+				frameSamplesLeft--;
+				for (int v = 0; v < 3; v++) {
+					vr[v].prepareSample((float) srOS);
+				}
+				for (int v = 0; v < 3; v++) {
+					oscState[v] = vr[v].advanceOsc((float) srOS);
+				}
+				for (int v = 0; v < 3; v++) {
+					vr[v].applySync(oscState[MOD_INDEX[v]]);
+				}
+
+				double dry = 0.0;
+				double wet = 0.0;
+				int dryLevel = 0;
+				int wetLevel = 0;
+				for (int v = 0; v < 3; v++) {
+					int level = 0;
+					double voiceSample;
+					if (fixedPoint) {
+						level = vr[v].renderLevel((float) srOS, oscState[MOD_INDEX[v]]);
+						voiceSample = level * LEVEL_GAIN;
+					} else {
+						voiceSample = vr[v].renderSample((float) srOS, oscState[MOD_INDEX[v]]);
+					}
+					boolean routed = filter.routesVoice(v + 1, vr[v].filterRoute());
+					if (routed) {
+						wet += voiceSample;
+						wetLevel += level;
+					} else {
+						dry += voiceSample;
+						dryLevel += level;
+					}
+					if (wantsVoiceSamples) {
+						voiceSampleByVoice[v] = voiceSample;
+						voiceRouted[v] = routed;
+					}
+					done &= vr[v].done();
+				}
+				if (fixedPoint) {
+					// The fixed-point mix is summed as integers and scaled once.
+					dry = dryLevel * LEVEL_GAIN;
+					wet = wetLevel * LEVEL_GAIN;
+				}
 
-		private static final class EffectFrameState {
-			int waveMask = 0;
-			boolean gate = false;
-			boolean sync = false;
-			boolean ring = false;
-			boolean reset = false;
-			boolean ownsVoice = false;
-			int freqReg = 0;
-			int baseMidi = -1;
-			int pw = 0x0800;
-			int attack = 0;
-			int decay = 0;
-			int sustain = 15;
-			int release = 0;
-			int filterModeMask = 0;
-			int filterRouteMask = -1;
-			int filterCutoff = 0;
-			int filterRes = 0;
-			int volume = -1;
+				wetSilent &= wet == 0.0;
+				drySilent &= dry == 0.0;
+				double filtered = filter.apply(wet, (float) srOS);
+				double volumeScale = filter.volumeScale();
+				if (wantsVoiceSamples) {
+					for (int v = 0; v < 3; v++) {
+						if (voiceRouted[v]) {
+							if (Math.abs(wet) > 1.0e-9) {
+								voiceMix[v] += filtered * (voiceSampleByVoice[v] / wet) * volumeScale;
+							}
+						} else {
+							voiceMix[v] += voiceSampleByVoice[v] * volumeScale;
+						}
+					}
+				}
+				double mix = (dry + filtered) * volumeScale;
 
-			static EffectFrameState defaults() {
-				return new EffectFrameState();
+				// Output stage smoothing (simple RC) at oversampled rate.
+				outLP += outLPAlpha * (mix - outLP);
 			}
-		}
-
-		private static final class NoteParts {
-			final int letter;
-			final int accidental;
-			final int octave;
+			blockDone = done;
+			writePcm(pcm, s, outLP);
 
-			NoteParts(int letter, int accidental, int octave) {
-				this.letter = letter;
-				this.accidental = accidental;
-				this.octave = octave;
+			if (wantsVoiceSamples) {
+				voiceBuf[0][s] = (float) (voiceMix[0] / oversample);
+				voiceBuf[1][s] = (float) (voiceMix[1] / oversample);
+				voiceBuf[2][s] = (float) (voiceMix[2] / oversample);
 			}
 		}
 	}
 
 	// -------- Global filter runtime (approximate SID filter) --------
+	/**
+	 * Coefficients come from tables indexed by the 11-bit cutoff register and
+	 * the resonance nibble, built once per sample rate, so table-driven cutoff
+	 * sweeps do not evaluate {@code sin}/{@code tan} per step.
+	 */
 	static final class FilterRuntime {
-		private final double frameRate;
+		private static final int CUTOFF_STEPS = 0x0800;
+		/** Damping per resonance value: 2.0 down to 0.5 (higher resonance, lower damping). */
+		private static final double[] DAMPING = new double[16];
+
+		static {
+			for (int r = 0; r < DAMPING.length; r++) {
+				double resNorm = r / 15.0;
+				DAMPING[r] = 2.0 - 1.5 * resNorm;
+			}
+		}
+
+		private FilterModel model = FilterModel.CHAMBERLIN;
 
 		private int modeMask = 0;
 		private int routeMask = 0;
@@ -2414,18 +3913,26 @@ public final class RealtimeAudioPlayer {
 		private SIDScoreIR.TableIR table = null;
 
 		private int step = 0;
-		private int samplesLeft = 0;
-		private double sampleRemainder = 0.0;
+		private int framesLeft = 0;
 		private boolean holding = false;
 
 		private double low = 0.0;
 		private double band = 0.0;
 		private double f = 0.0;
 		private double q = 1.0;
+		/** Chamberlin steps per sample, each at {@code substeps} times the sample rate. */
+		private int substeps = 1;
 
-		FilterRuntime(double frameRate) {
-			this.frameRate = frameRate;
-		}
+		// ZDF integrator states and the per-setting gains derived from g = tan(pi*fc/sr)
+		private double ic1 = 0.0;
+		private double ic2 = 0.0;
+		private double a1 = 1.0;
+		private double a2 = 0.0;
+		private double a3 = 0.0;
+
+		/** Per-cutoff coefficient ({@code f} or {@code g}) and the rate it was built for. */
+		private double[] cutoffTable = null;
+		private double cutoffTableRate = 0.0;
 
 		void activate(int modeMask, int cutoff, int resonance, SIDScoreIR.TableIR table, float sr) {
 			this.modeMask = modeMask;
@@ -2433,8 +3940,7 @@ public final class RealtimeAudioPlayer {
 			this.resonance = clampRes(resonance);
 			this.table = table;
 			this.step = 0;
-			this.samplesLeft = 0;
-			this.sampleRemainder = 0.0;
+			this.framesLeft = 0;
 			this.holding = false;
 			updateCoeffs(sr);
 			if (table != null && !table.steps().isEmpty()) {
@@ -2442,6 +3948,20 @@ public final class RealtimeAudioPlayer {
 			}
 		}
 
+		/**
+		 * Sets the Chamberlin substeps; the ZDF model always runs one step per
+		 * sample.
+		 */
+		void setSubsteps(int substeps) {
+			this.substeps = Math.max(1, substeps);
+			cutoffTable = null;
+		}
+
+		void setModel(FilterModel model) {
+			this.model = model != null ? model : FilterModel.CHAMBERLIN;
+			cutoffTable = null;
+		}
+
 		void setRouteMask(int routeMask) {
 			this.routeMask = routeMask & 0x0F;
 			this.routeMaskExplicit = true;
@@ -2465,16 +3985,66 @@ public final class RealtimeAudioPlayer {
 			return volume / 15.0;
 		}
 
+		/**
+		 * Steps the cutoff table once per raster frame; a table loaded by
+		 * {@link #activate} during this tick is first counted down on the next.
+		 */
+		void tickFrame(float sr) {
+			if (modeMask == 0 || table == null || table.steps().isEmpty() || holding)
+				return;
+			if (framesLeft > 0) {
+				framesLeft--;
+				if (framesLeft > 0)
+					return;
+			}
+			loadTableStep(sr);
+		}
+
+		/**
+		 * Whether a silent input gives exactly silent output, without running
+		 * {@link #apply}: the filter is bypassed or its state is all zero.
+		 */
+		boolean settled() {
+			return modeMask == 0 || (low == 0.0 && band == 0.0 && ic1 == 0.0 && ic2 == 0.0);
+		}
+
+		/**
+		 * Flushes a state that has decayed below {@link #SETTLED_LEVEL} to
+		 * zero; called after input that was silent.
+		 */
+		void settle() {
+			if (Math.abs(low) < SETTLED_LEVEL && Math.abs(band) < SETTLED_LEVEL && Math.abs(ic1) < SETTLED_LEVEL
+					&& Math.abs(ic2) < SETTLED_LEVEL) {
+				low = 0.0;
+				band = 0.0;
+				ic1 = 0.0;
+				ic2 = 0.0;
+			}
+		}
+
 		double apply(double input, float sr) {
 			if (modeMask == 0) {
 				return input;
 			}
-			advanceSeq(sr);
 
-			// State-variable filter (Chamberlin)
-			low += f * band;
-			double high = input - low - q * band;
-			band += f * high;
+			double high = 0.0;
+			if (model == FilterModel.ZDF) {
+				// Trapezoidal SVF (Zavalishin/Simper): solves the feedback loop
+				// for the current sample instead of delaying it by one.
+				double v3 = input - ic2;
+				band = a1 * ic1 + a2 * v3;
+				low = ic2 + a2 * ic1 + a3 * v3;
+				ic1 = 2.0 * band - ic1;
+				ic2 = 2.0 * low - ic2;
+				high = input - q * band - low;
+			} else {
+				// State-variable filter (Chamberlin)
+				for (int i = 0; i < substeps; i++) {
+					low += f * band;
+					high = input - low - q * band;
+					band += f * high;
+				}
+			}
 
 			double out = 0.0;
 			int count = 0;
@@ -2493,19 +4063,6 @@ public final class RealtimeAudioPlayer {
 			return count == 0 ? input : out / count;
 		}
 
-		private void advanceSeq(float sr) {
-			if (table == null || table.steps().isEmpty())
-				return;
-			if (holding)
-				return;
-			if (samplesLeft > 0) {
-				samplesLeft--;
-				if (samplesLeft > 0)
-					return;
-			}
-			loadTableStep(sr);
-		}
-
 		private void loadTableStep(float sr) {
 			if (table == null)
 				return;
@@ -2527,29 +4084,41 @@ public final class RealtimeAudioPlayer {
 			updateCoeffs(sr);
 			if (s.hold() || s.durationFrames() <= 0) {
 				holding = true;
-				samplesLeft = 0;
+				framesLeft = 0;
 				return;
 			}
-			setSamplesLeft(s.durationFrames(), sr);
+			framesLeft = s.durationFrames();
 			step++;
 		}
 
-		private void setSamplesLeft(int frames, float sr) {
-			double samplesExact = frames * (sr / frameRate) + sampleRemainder;
-			samplesLeft = Math.max(1, (int) Math.round(samplesExact));
-			sampleRemainder = samplesExact - samplesLeft;
+		private void updateCoeffs(float sampleRate) {
+			double sr = model == FilterModel.ZDF ? sampleRate : (double) sampleRate * substeps;
+			if (cutoffTable == null || cutoffTableRate != sr) {
+				cutoffTable = buildCutoffTable(model, sr);
+				cutoffTableRate = sr;
+			}
+			q = DAMPING[clampRes(resonance)];
+			if (model == FilterModel.ZDF) {
+				double g = cutoffTable[cutoff];
+				a1 = 1.0 / (1.0 + g * (g + q));
+				a2 = g * a1;
+				a3 = g * a2;
+			} else {
+				f = cutoffTable[cutoff];
+			}
 		}
 
-		private void updateCoeffs(float sr) {
-			double cutoffHz = cutoffToHz(cutoff);
-			cutoffHz = Math.min(cutoffHz, sr * 0.45);
-			if (cutoffHz <= 0.0) {
-				f = 0.0;
-				return;
+		private static double[] buildCutoffTable(FilterModel model, double sr) {
+			double[] table = new double[CUTOFF_STEPS];
+			for (int c = 0; c < CUTOFF_STEPS; c++) {
+				double cutoffHz = cutoffToHz(c);
+				if (model == FilterModel.ZDF) {
+					table[c] = Math.tan(Math.PI * Math.min(cutoffHz, sr * 0.49) / sr);
+				} else {
+					table[c] = 2.0 * Math.sin(Math.PI * Math.min(cutoffHz, sr * 0.45) / sr);
+				}
 			}
-			f = 2.0 * Math.sin(Math.PI * cutoffHz / sr);
-			double resNorm = clampRes(resonance) / 15.0;
-			q = 2.0 - 1.5 * resNorm; // 0.5..2.0 (higher resonance -> lower damping)
+			return table;
 		}
 
 		private static int clampCutoff(int v) {
@@ -2572,20 +4141,66 @@ public final class RealtimeAudioPlayer {
 		}
 	}
 
+	/**
+	 * Oscillator MSB state packed into an int so the per-sample advance does
+	 * not allocate. Band-limited oscillators also report when in the sample the
+	 * MSB changed, as a fraction of a sample in the upper 16 bits, so that
+	 * sync and ring modulation can place their discontinuities between samples.
+	 */
 	static final class OscState {
-		static final OscState OFF = new OscState(false, false);
-		final boolean msb;
-		final boolean msbRise;
+		static final int OFF = 0;
+		static final int MSB = 1;
+		static final int MSB_RISE = 1 << 1;
+		/** The MSB rose or fell during this sample. */
+		static final int MSB_FLIP = 1 << 2;
+		private static final int EDGE_SHIFT = 16;
+		private static final double EDGE_SCALE = 65536.0;
+
+		private OscState() {
+		}
+
+		/**
+		 * Time since the MSB changed, in samples ({@code 0..1}).
+		 */
+		static double edgeOffset(int state) {
+			return (state >>> EDGE_SHIFT) / EDGE_SCALE;
+		}
 
-		OscState(boolean msb, boolean msbRise) {
-			this.msb = msb;
-			this.msbRise = msbRise;
+		static int withEdge(int state, double offset) {
+			int q = (int) (Math.max(0.0, Math.min(1.0, offset)) * (EDGE_SCALE - 1.0));
+			return state | MSB_FLIP | (q << EDGE_SHIFT);
 		}
 	}
 
 	// -------- Oscillator (improved mock) --------
+	/**
+	 * The oscillator renders either naively at an oversampled rate, or
+	 * band-limited at the output rate. Band-limited oscillators run one sample
+	 * behind and smooth each waveform discontinuity with a two-sample
+	 * polynomial BLEP: wrap-around, pulse edges, hard sync resets and ring
+	 * modulation flips. Triangle corners get the integrated form (BLAMP). Noise
+	 * and waveform changes are not smoothed.
+	 * <p>
+	 * Naive oscillators can also run on a fixed-point accumulator, as the chip
+	 * does: a 24-bit integer phase with 32 fractional bits that carry the part
+	 * of the step the host rate leaves over, wrapping by masking. Rounding the
+	 * step to 32 fractional bits moves the phase by less than a tenth of a
+	 * 24-bit unit per hour of rendering.
+	 * </p>
+	 */
 	static final class Osc {
 		private static final double PHASE_SCALE = 16777216.0; // 2^24
+		private static final double PHASE_HALF = 8388608.0; // 2^23
+		/** Period of phase bit 19, which clocks the noise generator, and half of it. */
+		private static final double NOISE_PERIOD = 1048576.0; // 2^20
+		private static final double NOISE_HALF_PERIOD = 524288.0; // 2^19
+		private static final int FRACTION_BITS = 32;
+		private static final double FRACTION_SCALE = 4294967296.0; // 2^32
+		private static final long ACC_MASK = (1L << (24 + FRACTION_BITS)) - 1;
+		private static final long NOISE_PERIOD_FIXED = 1L << (20 + FRACTION_BITS);
+		private static final long NOISE_HALF_PERIOD_FIXED = 1L << (19 + FRACTION_BITS);
+		/** Longest fixed-point jump in one step; keeps the unwrapped phase below 2^63. */
+		private static final int FIXED_JUMP_SAMPLES = 2048;
 		private static final byte[] TRI_TABLE = new byte[SidWaveforms.WAVE_LEN];
 		private static final byte[] SAW_TABLE = new byte[SidWaveforms.WAVE_LEN];
 
@@ -2600,6 +4215,23 @@ public final class RealtimeAudioPlayer {
 		private int lastBit19 = 0;
 		private int lastMsb = 0;
 
+		// Band-limited mode
+		private boolean bandLimited = false;
+		/** Phase before the last advance. */
+		private double lastPhase = 0.0;
+		/** Phase at the sync reset and the time since it, or -1 without a reset. */
+		private double syncPhase = 0.0;
+		private double syncOffset = -1.0;
+		/** The naive sample awaiting output and the corrections for it and the next one. */
+		private double pendingNaive = 0.0;
+		private double blepPending = 0.0;
+		private double blepNext = 0.0;
+
+		// Fixed-point mode: 24.32 phase accumulator and step
+		private boolean fixedPoint = false;
+		private long acc = 0L;
+		private long step = 0L;
+
 		static {
 			for (int i = 0; i < SidWaveforms.WAVE_LEN; i++) {
 				int tri = (i < 2048) ? (i << 1) : ((0x0FFF - i) << 1);
@@ -2612,6 +4244,18 @@ public final class RealtimeAudioPlayer {
 			this.tables = tables;
 		}
 
+		void setBandLimited(boolean bandLimited) {
+			this.bandLimited = bandLimited;
+		}
+
+		/**
+		 * Runs the phase on the fixed-point accumulator; not combined with
+		 * {@link #setBandLimited band-limited} rendering.
+		 */
+		void setFixedPoint(boolean fixedPoint) {
+			this.fixedPoint = fixedPoint;
+		}
+
 		void setWaveMask(int waveMask, java.util.OptionalInt pw) {
 			if (pw.isPresent()) {
 				// PW is 12-bit (PW11-0); $0800 is a square wave.
@@ -2633,18 +4277,26 @@ public final class RealtimeAudioPlayer {
 		void setFreq(double hz, float sr) {
 			double f = Math.max(0.0, hz);
 			phaseInc = f * PHASE_SCALE / sr;
+			step = Math.round(phaseInc * FRACTION_SCALE);
 		}
 
-		OscState advance(float sr) {
+		int advance(float sr) {
 			if (phaseInc <= 0.0)
 				return OscState.OFF;
 
-			phaseAcc += phaseInc;
-			if (phaseAcc >= PHASE_SCALE) {
-				phaseAcc -= PHASE_SCALE * Math.floor(phaseAcc / PHASE_SCALE);
+			int phaseInt;
+			if (fixedPoint) {
+				acc = (acc + step) & ACC_MASK;
+				phaseInt = (int) (acc >>> FRACTION_BITS);
+			} else {
+				lastPhase = phaseAcc;
+				syncOffset = -1.0;
+				phaseAcc += phaseInc;
+				if (phaseAcc >= PHASE_SCALE) {
+					phaseAcc -= PHASE_SCALE * Math.floor(phaseAcc / PHASE_SCALE);
+				}
+				phaseInt = (int) phaseAcc;
 			}
-
-			int phaseInt = (int) phaseAcc;
 			int bit19 = (phaseInt >> 19) & 1;
 			if (bit19 == 1 && lastBit19 == 0) {
 				stepNoise();
@@ -2652,65 +4304,420 @@ public final class RealtimeAudioPlayer {
 			lastBit19 = bit19;
 
 			int msb = (phaseInt >> 23) & 1;
-			boolean rise = msb == 1 && lastMsb == 0;
+			int rise = msb & ~lastMsb;
+			boolean flip = msb != lastMsb;
 			lastMsb = msb;
-			return new OscState(msb == 1, rise);
-		}
-
-		void syncReset() {
+			int state = msb | (rise << 1);
+			if (bandLimited && flip) {
+				// Rises happen at half phase, falls at the wrap.
+				double edge = msb == 1 ? phaseAcc - PHASE_HALF : phaseAcc;
+				state = OscState.withEdge(state, edge / phaseInc);
+			}
+			return state;
+		}
+
+		void syncReset(int modState) {
+			if (bandLimited && phaseInc > 0.0) {
+				// Restart from the phase reached since the master's edge, and
+				// remember where the reset cut the waveform.
+				double offset = OscState.edgeOffset(modState);
+				double atEdge = phaseAcc - offset * phaseInc;
+				syncPhase = atEdge < 0.0 ? atEdge + PHASE_SCALE : atEdge;
+				syncOffset = offset;
+				phaseAcc = offset * phaseInc;
+				lastBit19 = 0;
+				lastMsb = 0;
+				return;
+			}
 			phaseAcc = 0.0;
+			acc = 0L;
 			lastBit19 = 0;
 			lastMsb = 0;
 		}
 
 		void hardReset() {
 			phaseAcc = 0.0;
+			acc = 0L;
 			lastBit19 = 0;
 			lastMsb = 0;
 			lfsr = 0x7FFFFF;
 			noiseOut8 = 0;
 		}
 
-		double output(int waveMask, boolean ring, boolean modMsb) {
+		double output(int waveMask, boolean ring, int modState) {
+			boolean modMsb = (modState & OscState.MSB) != 0;
+			if (bandLimited) {
+				return outputBandLimited(waveMask, ring, modMsb, modState);
+			}
 			if (phaseInc <= 0.0 || waveMask == 0)
 				return 0.0;
 
+			int phase12 = (phaseInt() >> 12) & 0x0FFF;
+			int value = waveValue(waveMask, phase12);
+
+			if (ring && modMsb && ringFlips(waveMask)) {
+				value = 255 - value;
+			}
+
+			return ((value - 128) / 128.0);
+		}
+
+		/**
+		 * {@link #output} of a naive oscillator as the signed 8-bit level
+		 * ({@code -128..127}) it is scaled from, for the fixed-point core.
+		 */
+		int outputLevel(int waveMask, boolean ring, int modState) {
+			if (phaseInc <= 0.0 || waveMask == 0)
+				return 0;
+
+			int value = waveValue(waveMask, (phaseInt() >> 12) & 0x0FFF);
+			if (ring && (modState & OscState.MSB) != 0 && ringFlips(waveMask)) {
+				value = 255 - value;
+			}
+			return value - 128;
+		}
+
+		private int phaseInt() {
+			return fixedPoint ? (int) (acc >>> FRACTION_BITS) : (int) phaseAcc;
+		}
+
+		/**
+		 * Advances {@code n} samples and writes what {@link #output} would
+		 * return for each into {@code buffers.wave}, without ring modulation.
+		 * The phase and noise steps run sample by sample; the waveform lookup
+		 * and level conversion run over the block.
+		 */
+		void fill(float sr, int waveMask, int n, SpanBuffers buffers) {
+			double[] out = buffers.wave;
+			if (bandLimited) {
+				for (int i = 0; i < n; i++) {
+					advance(sr);
+					out[i] = outputBandLimited(waveMask, false, false, OscState.OFF);
+				}
+				return;
+			}
+			if (phaseInc <= 0.0) {
+				Arrays.fill(out, 0, n, 0.0);
+				return;
+			}
+			boolean noise = (waveMask & SIDScoreIR.Wave.NOISE.mask) != 0;
+			int[] phase = buffers.phase;
+			double acc = phaseAcc;
+			double before = acc;
+			int phaseInt = 0;
+			int bit19Before = lastBit19;
+			for (int i = 0; i < n; i++) {
+				before = acc;
+				acc += phaseInc;
+				if (acc >= PHASE_SCALE) {
+					acc -= PHASE_SCALE * Math.floor(acc / PHASE_SCALE);
+				}
+				phaseInt = (int) acc;
+				int bit19 = (phaseInt >> 19) & 1;
+				if (bit19 == 1 && bit19Before == 0) {
+					stepNoise();
+				}
+				bit19Before = bit19;
+				if (noise) {
+					out[i] = noiseOut8;
+				} else {
+					phase[i] = (phaseInt >> 12) & 0x0FFF;
+				}
+			}
+			// Leave the state as n calls to advance() would.
+			phaseAcc = acc;
+			lastPhase = before;
+			syncOffset = -1.0;
+			lastBit19 = bit19Before;
+			lastMsb = (phaseInt >> 23) & 1;
+
+			if (waveMask == 0) {
+				Arrays.fill(out, 0, n, 0.0);
+				return;
+			}
+			if (!noise) {
+				lookup(waveMask, phase, out, n);
+			}
+			buffers.kernel.levels(out, n);
+		}
+
+		/**
+		 * {@link #waveValue} for a block of 12-bit phases, with the waveform
+		 * chosen once.
+		 */
+		private void lookup(int waveMask, int[] phase, double[] out, int n) {
+			if (waveMask == SIDScoreIR.Wave.PULSE.mask) {
+				for (int i = 0; i < n; i++) {
+					out[i] = phase[i] < pulseWidth ? 255 : 0;
+				}
+				return;
+			}
+			byte[] table = table(waveMask);
+			int offset = (waveMask & SIDScoreIR.Wave.PULSE.mask) != 0 ? pulseWidth : 0;
+			for (int i = 0; i < n; i++) {
+				out[i] = table[phase[i] + offset] & 0xFF;
+			}
+		}
+
+		/**
+		 * {@link #fill} for the fixed-point core: writes what
+		 * {@link #outputLevel} would return for each sample, without ring
+		 * modulation, into {@code buffers.waveLevel}.
+		 */
+		void fillLevels(float sr, int waveMask, int n, SpanBuffers buffers) {
+			int[] out = buffers.waveLevel;
+			if (phaseInc <= 0.0) {
+				Arrays.fill(out, 0, n, 0);
+				return;
+			}
+			boolean noise = (waveMask & SIDScoreIR.Wave.NOISE.mask) != 0;
+			int[] phase = buffers.phase;
+			long a = acc;
+			int phaseInt = 0;
+			int bit19Before = lastBit19;
+			for (int i = 0; i < n; i++) {
+				a = (a + step) & ACC_MASK;
+				phaseInt = (int) (a >>> FRACTION_BITS);
+				int bit19 = (phaseInt >> 19) & 1;
+				if (bit19 == 1 && bit19Before == 0) {
+					stepNoise();
+				}
+				bit19Before = bit19;
+				if (noise) {
+					out[i] = noiseOut8 - 128;
+				} else {
+					phase[i] = (phaseInt >> 12) & 0x0FFF;
+				}
+			}
+			acc = a;
+			lastBit19 = bit19Before;
+			lastMsb = (phaseInt >> 23) & 1;
+
+			if (waveMask == 0) {
+				Arrays.fill(out, 0, n, 0);
+			} else if (!noise) {
+				lookupLevels(waveMask, phase, out, n);
+			}
+		}
+
+		private void lookupLevels(int waveMask, int[] phase, int[] out, int n) {
+			if (waveMask == SIDScoreIR.Wave.PULSE.mask) {
+				for (int i = 0; i < n; i++) {
+					out[i] = phase[i] < pulseWidth ? 127 : -128;
+				}
+				return;
+			}
+			byte[] table = table(waveMask);
+			int offset = (waveMask & SIDScoreIR.Wave.PULSE.mask) != 0 ? pulseWidth : 0;
+			for (int i = 0; i < n; i++) {
+				out[i] = (table[phase[i] + offset] & 0xFF) - 128;
+			}
+		}
+
+		/**
+		 * Table of a waveform other than pulse or noise alone.
+		 */
+		private byte[] table(int waveMask) {
+			boolean hasTri = (waveMask & SIDScoreIR.Wave.TRI.mask) != 0;
+			boolean hasSaw = (waveMask & SIDScoreIR.Wave.SAW.mask) != 0;
+			boolean hasPulse = (waveMask & SIDScoreIR.Wave.PULSE.mask) != 0;
+			if (hasTri && hasSaw) {
+				return hasPulse ? tables.wave70 : tables.wave30;
+			} else if (hasPulse) {
+				return hasTri ? tables.wave50 : tables.wave60;
+			}
+			return hasTri ? TRI_TABLE : SAW_TABLE;
+		}
+
+		/**
+		 * Advances {@code n} samples whose output is not heard. The phase and
+		 * the noise generator jump ahead in one step; in band-limited mode the
+		 * last sample still goes through {@link #output} so the correction
+		 * pipeline is left as rendering would leave it.
+		 */
+		void skip(float sr, int waveMask, int n) {
+			jump(sr, bandLimited ? n - 1 : n);
+			if (bandLimited && n > 0) {
+				advance(sr);
+				outputBandLimited(waveMask, false, false, OscState.OFF);
+			}
+		}
+
+		private void jump(float sr, int n) {
+			if (phaseInc <= 0.0 || n <= 0) {
+				return;
+			}
+			// Above half a bit 19 period the sampled noise clock can skip
+			// edges, which only stepping sample by sample reproduces.
+			if (n < 2 || phaseInc >= NOISE_HALF_PERIOD) {
+				for (int i = 0; i < n; i++) {
+					advance(sr);
+				}
+				return;
+			}
+			// The first step leaves lastBit19 in line with the phase, so every
+			// later noise clock is a crossing of a bit 19 rising edge.
+			advance(sr);
+			if (fixedPoint) {
+				jumpFixed(n - 1);
+				return;
+			}
+			double start = phaseAcc;
+			double end = start + (n - 1) * phaseInc;
+			long clocks = (long) (Math.floor((end - NOISE_HALF_PERIOD) / NOISE_PERIOD)
+					- Math.floor((start - NOISE_HALF_PERIOD) / NOISE_PERIOD));
+			for (long i = 0; i < clocks; i++) {
+				stepNoise();
+			}
+			double before = end - phaseInc;
+			phaseAcc = end - PHASE_SCALE * Math.floor(end / PHASE_SCALE);
+			lastPhase = before - PHASE_SCALE * Math.floor(before / PHASE_SCALE);
+			syncOffset = -1.0;
 			int phaseInt = (int) phaseAcc;
-			int phase12 = (phaseInt >> 12) & 0x0FFF;
+			lastBit19 = (phaseInt >> 19) & 1;
+			lastMsb = (phaseInt >> 23) & 1;
+		}
+
+		/**
+		 * The closed form of {@link #jump} on the fixed-point accumulator,
+		 * which is exact.
+		 */
+		private void jumpFixed(int n) {
+			for (int left = n; left > 0; left -= FIXED_JUMP_SAMPLES) {
+				long start = acc;
+				long end = start + Math.min(left, FIXED_JUMP_SAMPLES) * step;
+				long clocks = Math.floorDiv(end - NOISE_HALF_PERIOD_FIXED, NOISE_PERIOD_FIXED)
+						- Math.floorDiv(start - NOISE_HALF_PERIOD_FIXED, NOISE_PERIOD_FIXED);
+				for (long i = 0; i < clocks; i++) {
+					stepNoise();
+				}
+				acc = end & ACC_MASK;
+			}
+			int phaseInt = (int) (acc >>> FRACTION_BITS);
+			lastBit19 = (phaseInt >> 19) & 1;
+			lastMsb = (phaseInt >> 23) & 1;
+		}
+
+		private double outputBandLimited(int waveMask, boolean ring, boolean modMsb, int modState) {
+			double naive = 0.0;
+			if (phaseInc > 0.0 && waveMask != 0) {
+				boolean flipped = ring && modMsb && ringFlips(waveMask);
+				naive = level(waveMask, ((int) phaseAcc >> 12) & 0x0FFF, flipped);
+				if (syncOffset >= 0.0) {
+					double before = syncPhase >= lastPhase ? syncPhase : syncPhase + PHASE_SCALE;
+					addEdges(waveMask, flipped, lastPhase, before, syncOffset);
+					int cut = ((int) syncPhase >> 12) & 0x0FFF;
+					addStep(level(waveMask, 0, flipped) - level(waveMask, cut, flipped), syncOffset);
+					addEdges(waveMask, flipped, 0.0, phaseAcc, 0.0);
+				} else {
+					addEdges(waveMask, flipped, lastPhase, phaseAcc >= lastPhase ? phaseAcc : phaseAcc + PHASE_SCALE,
+							0.0);
+				}
+				if (ring && (modState & OscState.MSB_FLIP) != 0 && ringFlips(waveMask)) {
+					double other = level(waveMask, ((int) phaseAcc >> 12) & 0x0FFF, !flipped);
+					addStep(naive - other, OscState.edgeOffset(modState));
+				}
+			}
+			double out = pendingNaive + blepPending;
+			pendingNaive = naive;
+			blepPending = blepNext;
+			blepNext = 0.0;
+			return out;
+		}
+
+		/**
+		 * Adds the corrections for the waveform edges passed while the phase
+		 * moved from {@code from} to {@code to} (unwrapped); {@code endOffset}
+		 * is the time in samples from {@code to} to the end of the sample.
+		 */
+		private void addEdges(int waveMask, boolean flipped, double from, double to, double endOffset) {
+			boolean hasTri = (waveMask & SIDScoreIR.Wave.TRI.mask) != 0;
+			boolean hasPulse = (waveMask & SIDScoreIR.Wave.PULSE.mask) != 0;
+			boolean pureTri = waveMask == SIDScoreIR.Wave.TRI.mask;
+			if (from < PHASE_SCALE && to >= PHASE_SCALE) {
+				double d = endOffset + (to - PHASE_SCALE) / phaseInc;
+				addStep(level(waveMask, 0, flipped) - level(waveMask, 0x0FFF, flipped), d);
+				if (pureTri) {
+					addRamp(flipped ? -8.0 : 8.0, d);
+				}
+			}
+			if (hasPulse && pulseWidth > 0) {
+				double edge = (double) pulseWidth * 4096.0;
+				if (edge <= from) {
+					edge += PHASE_SCALE;
+				}
+				if (edge > from && edge <= to) {
+					addStep(level(waveMask, pulseWidth, flipped) - level(waveMask, pulseWidth - 1, flipped),
+							endOffset + (to - edge) / phaseInc);
+				}
+			}
+			if (pureTri && hasTri) {
+				double top = from < PHASE_HALF ? PHASE_HALF : PHASE_HALF + PHASE_SCALE;
+				if (top > from && top <= to) {
+					addRamp(flipped ? 8.0 : -8.0, endOffset + (to - top) / phaseInc);
+				}
+			}
+		}
+
+		/**
+		 * Two-sample polyBLEP for a step of {@code height} that happened
+		 * {@code d} samples before the current sample.
+		 */
+		private void addStep(double height, double d) {
+			if (height == 0.0) {
+				return;
+			}
+			d = Math.max(0.0, Math.min(1.0, d));
+			double h = 0.5 * height;
+			blepPending += h * d * d;
+			blepNext -= h * (1.0 - d) * (1.0 - d);
+		}
+
+		/**
+		 * Two-sample polyBLAMP for a slope change of {@code slope} per cycle.
+		 */
+		private void addRamp(double slope, double d) {
+			d = Math.max(0.0, Math.min(1.0, d));
+			double m = slope * phaseInc / PHASE_SCALE;
+			double e = 1.0 - d;
+			blepPending += m * d * d * d / 6.0;
+			blepNext += m * e * e * e / 6.0;
+		}
+
+		private double level(int waveMask, int phase12, boolean flipped) {
+			int value = waveValue(waveMask, phase12);
+			return ((flipped ? 255 - value : value) - 128) / 128.0;
+		}
+
+		private static boolean ringFlips(int waveMask) {
+			return (waveMask & SIDScoreIR.Wave.TRI.mask) != 0 && (waveMask & SIDScoreIR.Wave.NOISE.mask) == 0;
+		}
 
+		private int waveValue(int waveMask, int phase12) {
 			boolean hasTri = (waveMask & SIDScoreIR.Wave.TRI.mask) != 0;
 			boolean hasSaw = (waveMask & SIDScoreIR.Wave.SAW.mask) != 0;
 			boolean hasPulse = (waveMask & SIDScoreIR.Wave.PULSE.mask) != 0;
 			boolean hasNoise = (waveMask & SIDScoreIR.Wave.NOISE.mask) != 0;
 
-			int value;
 			if (hasNoise) {
-				value = noiseOut8;
+				return noiseOut8;
 			} else if (hasTri && hasSaw && hasPulse) {
-				value = tables.wave70[phase12 + pulseWidth] & 0xFF;
+				return tables.wave70[phase12 + pulseWidth] & 0xFF;
 			} else if (hasTri && hasSaw) {
-				value = tables.wave30[phase12] & 0xFF;
+				return tables.wave30[phase12] & 0xFF;
 			} else if (hasTri && hasPulse) {
-				value = tables.wave50[phase12 + pulseWidth] & 0xFF;
+				return tables.wave50[phase12 + pulseWidth] & 0xFF;
 			} else if (hasSaw && hasPulse) {
-				value = tables.wave60[phase12 + pulseWidth] & 0xFF;
+				return tables.wave60[phase12 + pulseWidth] & 0xFF;
 			} else if (hasTri) {
-				value = TRI_TABLE[phase12] & 0xFF;
+				return TRI_TABLE[phase12] & 0xFF;
 			} else if (hasSaw) {
-				value = SAW_TABLE[phase12] & 0xFF;
+				return SAW_TABLE[phase12] & 0xFF;
 			} else if (hasPulse) {
-				value = (phase12 < pulseWidth) ? 255 : 0;
-			} else {
-				value = 0;
-			}
-
-			if (ring && modMsb && hasTri && !hasNoise) {
-				value = 255 - value;
+				return (phase12 < pulseWidth) ? 255 : 0;
 			}
-
-			return ((value - 128) / 128.0);
+			return 0;
 		}
-
 		private void stepNoise() {
 			// 23-bit LFSR with bit0 = bit22 XOR bit17.
 			int bit = ((lfsr >> 22) ^ (lfsr >> 17)) & 1;
@@ -2876,11 +4883,8 @@ public final class RealtimeAudioPlayer {
 
 		private static final int[] RELEASE_POS = new int[256];
 		private static final int[] MEASURED_VOL = new int[256];
-		private static final int[] ATTACK_RATES = new int[16];
-		private static final int[] ATTACK_RATES_P = new int[16];
-		private static final int[] DECAY_RATES = new int[16];
-		private static final int[] DECAY_RATES_P = new int[16];
-		private static volatile float ratesSr = -1f;
+		/** Rate tables per sample rate; shared read-only by concurrent sessions. */
+		private static final Map<Float, Rates> RATES = new ConcurrentHashMap<>();
 
 		static {
 			for (int i = 0; i < 256; i++) {
@@ -2902,6 +4906,7 @@ public final class RealtimeAudioPlayer {
 			}
 		}
 
+		private Rates rates;
 		private int ADSRctrl = ENVE_MUTE;
 		private int SIDAD = 0;
 		private int SIDSR = 0;
@@ -2947,13 +4952,64 @@ public final class RealtimeAudioPlayer {
 			return state == ENVE_RELEASE || state == ENVE_STARTRELEASE;
 		}
 
+		/**
+		 * Whether the envelope rests at zero until the next {@link #noteOn}:
+		 * never gated, or released all the way down.
+		 */
+		boolean isSilent() {
+			int state = ADSRctrl & ~ENVE_ALTER;
+			return state == ENVE_MUTE || (state == ENVE_RELEASE && enveStep >= RELEASE_TAB.length);
+		}
+
+		/**
+		 * Writes the next {@code n} envelope levels into {@code out}.
+		 */
+		void fill(float sr, double[] out, int n) {
+			for (int i = 0; i < n; i++) {
+				out[i] = next(sr);
+			}
+		}
+
+		/**
+		 * Writes the next {@code n} {@link #nextLevel levels} into {@code out}.
+		 */
+		void fillLevels(float sr, int[] out, int n) {
+			for (int i = 0; i < n; i++) {
+				out[i] = nextLevel(sr);
+			}
+		}
+
+		/**
+		 * Advances {@code n} samples whose levels are not needed, using
+		 * {@code scratch} unless the envelope {@link #isSilent() is silent}.
+		 */
+		void skip(float sr, int n, double[] scratch) {
+			if (!isSilent()) {
+				fill(sr, scratch, n);
+			} else if (n > 0) {
+				// One step applies a pending ADSR change; the level stays at zero.
+				next(sr);
+			}
+		}
+
 		double next(float sr) {
-			ensureRates(sr);
+			return nextLevel(sr) / 255.0;
+		}
+
+		/**
+		 * Advances one sample and returns the envelope level as the 8-bit
+		 * value the DAC sees ({@code 0-255}); {@link #next} is this over 255.
+		 */
+		int nextLevel(float sr) {
+			Rates r = rates;
+			if (r == null || Math.abs(r.sr - sr) >= 0.01f) {
+				rates = RATES.computeIfAbsent(sr, Rates::new);
+			}
 			if (ADSRctrl != ENVE_SHORTATTACK) {
 				shortAttackInit = false;
 			}
 			return switch (ADSRctrl) {
-			case ENVE_MUTE -> 0.0;
+			case ENVE_MUTE -> 0;
 			case ENVE_STARTATTACK -> startAttack();
 			case ENVE_ATTACK -> attack();
 			case ENVE_DECAY -> decay();
@@ -2977,22 +5033,22 @@ public final class RealtimeAudioPlayer {
 			};
 		}
 
-		private double startAttack() {
+		private int startAttack() {
 			ADSRctrl = ENVE_ATTACK;
 			enveStep = enveVol;
 			enveStepPnt = 0;
 			return alterAttack();
 		}
 
-		private double alterAttack() {
+		private int alterAttack() {
 			int attack = (SIDAD >> 4) & 0x0F;
-			enveStepAdd = ATTACK_RATES[attack];
-			enveStepAddPnt = ATTACK_RATES_P[attack];
+			enveStepAdd = rates.attack[attack];
+			enveStepAddPnt = rates.attackFraction[attack];
 			ADSRctrl = ENVE_ATTACK;
 			return attack();
 		}
 
-		private double attack() {
+		private int attack() {
 			if (enveStep >= ATTACK_TAB_LEN) {
 				return startDecay();
 			}
@@ -3001,22 +5057,22 @@ public final class RealtimeAudioPlayer {
 			return output();
 		}
 
-		private double startDecay() {
+		private int startDecay() {
 			ADSRctrl = ENVE_DECAY;
 			enveStep = 0;
 			enveStepPnt = 0;
 			return alterDecay();
 		}
 
-		private double alterDecay() {
+		private int alterDecay() {
 			int decay = SIDAD & 0x0F;
-			enveStepAdd = DECAY_RATES[decay];
-			enveStepAddPnt = DECAY_RATES_P[decay];
+			enveStepAdd = rates.decay[decay];
+			enveStepAddPnt = rates.decayFraction[decay];
 			ADSRctrl = ENVE_DECAY;
 			return decay();
 		}
 
-		private double decay() {
+		private int decay() {
 			if (enveStep >= RELEASE_TAB.length) {
 				enveVol = enveSusVol;
 				return alterSustain();
@@ -3030,7 +5086,7 @@ public final class RealtimeAudioPlayer {
 			return output();
 		}
 
-		private double alterSustain() {
+		private int alterSustain() {
 			if (enveVol > enveSusVol) {
 				ADSRctrl = ENVE_SUSTAINDECAY;
 				return alterSustainDecay();
@@ -3039,19 +5095,19 @@ public final class RealtimeAudioPlayer {
 			return sustain();
 		}
 
-		private double sustain() {
+		private int sustain() {
 			return output();
 		}
 
-		private double alterSustainDecay() {
+		private int alterSustainDecay() {
 			int decay = SIDAD & 0x0F;
-			enveStepAdd = DECAY_RATES[decay];
-			enveStepAddPnt = DECAY_RATES_P[decay];
+			enveStepAdd = rates.decay[decay];
+			enveStepAddPnt = rates.decayFraction[decay];
 			ADSRctrl = ENVE_SUSTAINDECAY;
 			return sustainDecay();
 		}
 
-		private double sustainDecay() {
+		private int sustainDecay() {
 			if (enveStep >= RELEASE_TAB.length) {
 				enveVol = RELEASE_TAB[RELEASE_TAB.length - 1];
 				return alterSustain();
@@ -3065,22 +5121,22 @@ public final class RealtimeAudioPlayer {
 			return output();
 		}
 
-		private double startRelease() {
+		private int startRelease() {
 			ADSRctrl = ENVE_RELEASE;
 			enveStep = RELEASE_POS[enveVol];
 			enveStepPnt = 0;
 			return alterRelease();
 		}
 
-		private double alterRelease() {
+		private int alterRelease() {
 			int rel = SIDSR & 0x0F;
-			enveStepAdd = DECAY_RATES[rel];
-			enveStepAddPnt = DECAY_RATES_P[rel];
+			enveStepAdd = rates.decay[rel];
+			enveStepAddPnt = rates.decayFraction[rel];
 			ADSRctrl = ENVE_RELEASE;
 			return release();
 		}
 
-		private double release() {
+		private int release() {
 			if (enveStep >= RELEASE_TAB.length) {
 				enveVol = RELEASE_TAB[RELEASE_TAB.length - 1];
 			} else {
@@ -3090,7 +5146,7 @@ public final class RealtimeAudioPlayer {
 			return output();
 		}
 
-		private double startShortAttack() {
+		private int startShortAttack() {
 			ADSRctrl = ENVE_SHORTATTACK;
 			enveStep = enveVol;
 			enveStepPnt = 0;
@@ -3098,15 +5154,15 @@ public final class RealtimeAudioPlayer {
 			return alterShortAttack();
 		}
 
-		private double alterShortAttack() {
+		private int alterShortAttack() {
 			int attack = (SIDAD >> 4) & 0x0F;
-			enveStepAdd = ATTACK_RATES[attack];
-			enveStepAddPnt = ATTACK_RATES_P[attack];
+			enveStepAdd = rates.attack[attack];
+			enveStepAddPnt = rates.attackFraction[attack];
 			ADSRctrl = ENVE_SHORTATTACK;
 			return shortAttack();
 		}
 
-		private double shortAttack() {
+		private int shortAttack() {
 			if (enveStep >= ATTACK_TAB_LEN || enveShortAttackCount == 0) {
 				return startDecay();
 			}
@@ -3122,19 +5178,23 @@ public final class RealtimeAudioPlayer {
 			enveStepPnt &= 0xFFFF;
 		}
 
-		private double output() {
-			int v = MEASURED_VOL[Math.max(0, Math.min(255, enveVol))];
-			return v / 255.0;
+		private int output() {
+			return MEASURED_VOL[Math.max(0, Math.min(255, enveVol))];
 		}
 
-		private static void ensureRates(float sr) {
-			if (Math.abs(ratesSr - sr) < 0.01f) {
-				return;
-			}
-			synchronized (Env.class) {
-				if (Math.abs(ratesSr - sr) < 0.01f) {
-					return;
-				}
+		/**
+		 * Attack and decay/release steps per sample, as an integer part and a
+		 * 16-bit fraction, for one sample rate.
+		 */
+		private static final class Rates {
+			final float sr;
+			final int[] attack = new int[16];
+			final int[] attackFraction = new int[16];
+			final int[] decay = new int[16];
+			final int[] decayFraction = new int[16];
+
+			Rates(float sr) {
+				this.sr = sr;
 				for (int i = 0; i < 16; i++) {
 					double scaledenvelen = (ATTACK_TIMES[i] * sr) / 1000.0;
 					if (scaledenvelen <= 0.0) {
@@ -3144,8 +5204,8 @@ public final class RealtimeAudioPlayer {
 					if (scl < 1) {
 						scl = 1;
 					}
-					ATTACK_RATES[i] = ATTACK_TAB_LEN / scl;
-					ATTACK_RATES_P[i] = (int) (((ATTACK_TAB_LEN % scl) * 65536L) / scl);
+					attack[i] = ATTACK_TAB_LEN / scl;
+					attackFraction[i] = (int) (((ATTACK_TAB_LEN % scl) * 65536L) / scl);
 
 					double scaledRelease = (DECAY_RELEASE_TIMES[i] * sr) / 1000.0;
 					if (scaledRelease <= 0.0) {
@@ -3155,10 +5215,9 @@ public final class RealtimeAudioPlayer {
 					if (sclRel < 1) {
 						sclRel = 1;
 					}
-					DECAY_RATES[i] = RELEASE_TAB.length / sclRel;
-					DECAY_RATES_P[i] = (int) (((RELEASE_TAB.length % sclRel) * 65536L) / sclRel);
+					decay[i] = RELEASE_TAB.length / sclRel;
+					decayFraction[i] = (int) (((RELEASE_TAB.length % sclRel) * 65536L) / sclRel);
 				}
-				ratesSr = sr;
 			}
 		}
 
@@ -3197,14 +5256,4 @@ public final class RealtimeAudioPlayer {
 		return 1.0 - Math.exp(-2.0 * Math.PI * cutoffHz / sr);
 	}
 
-	private static void writeWav(byte[] pcm, AudioFormat fmt, Path out) {
-		long frames = pcm.length / fmt.getFrameSize();
-		try (ByteArrayInputStream bais = new ByteArrayInputStream(pcm);
-				AudioInputStream ais = new AudioInputStream(bais, fmt, frames)) {
-			AudioSystem.write(ais, AudioFileFormat.Type.WAVE, out.toFile());
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to write WAV: " + out, e);
-		}
-	}
-
 }
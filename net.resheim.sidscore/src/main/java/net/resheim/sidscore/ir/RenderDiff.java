@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Difference between two renders of the same tune, typically the score
+ * rendered by {@link RealtimeAudioPlayer} and the exported {@code .sid}
+ * played back through the same chip model.
+ * <p>
+ * The renders are compared by their level per frame rather than sample by
+ * sample: the driver rounds frequencies to register values, so oscillator
+ * phases drift apart even when both renders sound the same. A wrong note
+ * length, envelope or filter setting still shows up as a level difference in
+ * the frames it affects.
+ * </p>
+ * <p>
+ * The driver may start a few frames later than the score, so the candidate is
+ * shifted by up to {@link #MAX_LAG_FRAMES} frames in either direction and the
+ * best aligned shift is reported. Both renders are compared over their common
+ * length only; the difference in length is reported separately.
+ * </p>
+ *
+ * @param frameRate        frames per second of the level windows
+ * @param lagFrames        frames the candidate lags the reference by
+ * @param comparedFrames   number of frames compared
+ * @param lengthDifference candidate length minus reference length, in frames
+ * @param referenceRms     RMS level of the compared part of the reference
+ * @param differenceRms    RMS of the per-frame level differences
+ * @param worstWindows     the frames with the largest level difference,
+ *                         largest first
+ */
+public final record RenderDiff(double frameRate, int lagFrames, int comparedFrames, int lengthDifference,
+		double referenceRms, double differenceRms, List<Window> worstWindows) {
+
+	/** Largest driver start-up delay searched for, in frames. */
+	public static final int MAX_LAG_FRAMES = 2;
+
+	/**
+	 * One frame of the comparison.
+	 *
+	 * @param frame          frame number in the reference
+	 * @param referenceLevel RMS level of the reference in this frame
+	 * @param candidateLevel RMS level of the candidate in this frame
+	 */
+	public static final record Window(int frame, double referenceLevel, double candidateLevel) {
+		public double difference() {
+			return Math.abs(candidateLevel - referenceLevel);
+		}
+	}
+
+	/**
+	 * Compares {@code candidate} against {@code reference}; both are 16-bit
+	 * mono samples at {@code sampleRate}.
+	 */
+	public static RenderDiff compare(short[] reference, short[] candidate, float sampleRate, double frameRate,
+			int worstCount) {
+		double[] ref = levels(reference, sampleRate / frameRate);
+		double[] cand = levels(candidate, sampleRate / frameRate);
+		int bestLag = 0;
+		double bestError = Double.POSITIVE_INFINITY;
+		for (int lag = -MAX_LAG_FRAMES; lag <= MAX_LAG_FRAMES; lag++) {
+			double error = sumSquares(ref, cand, lag) / Math.max(1, overlap(ref, cand, lag));
+			if (error < bestError) {
+				bestError = error;
+				bestLag = lag;
+			}
+		}
+
+		int start = Math.max(0, -bestLag);
+		int count = overlap(ref, cand, bestLag);
+		double refSum = 0.0;
+		double diffSum = 0.0;
+		List<Window> windows = new ArrayList<>(count);
+		for (int i = start; i < start + count; i++) {
+			Window window = new Window(i, ref[i], cand[i + bestLag]);
+			refSum += ref[i] * ref[i];
+			diffSum += window.difference() * window.difference();
+			windows.add(window);
+		}
+		List<Window> worst = windows.stream()
+				.filter(w -> w.difference() > 0.0)
+				.sorted(Comparator.comparingDouble(Window::difference).reversed())
+				.limit(Math.max(0, worstCount))
+				.toList();
+		int n = Math.max(1, count);
+		return new RenderDiff(frameRate, bestLag, count, cand.length - ref.length, Math.sqrt(refSum / n),
+				Math.sqrt(diffSum / n), worst);
+	}
+
+	/**
+	 * Level difference relative to the reference level, in dB; lower is
+	 * closer. Negative infinity when the levels are identical.
+	 */
+	public double differenceDb() {
+		if (differenceRms == 0.0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return 20.0 * Math.log10(differenceRms / Math.max(referenceRms, 1e-9));
+	}
+
+	/**
+	 * RMS level of each whole or partial frame of {@code pcm}.
+	 */
+	private static double[] levels(short[] pcm, double samplesPerFrame) {
+		double[] levels = new double[(int) Math.ceil(pcm.length / samplesPerFrame)];
+		for (int frame = 0; frame < levels.length; frame++) {
+			int from = (int) Math.round(frame * samplesPerFrame);
+			int to = Math.min(pcm.length, (int) Math.round((frame + 1) * samplesPerFrame));
+			double sum = 0.0;
+			for (int i = from; i < to; i++) {
+				double v = pcm[i] / 32768.0;
+				sum += v * v;
+			}
+			levels[frame] = to > from ? Math.sqrt(sum / (to - from)) : 0.0;
+		}
+		return levels;
+	}
+
+	private static int overlap(double[] reference, double[] candidate, int lag) {
+		int start = Math.max(0, -lag);
+		int end = Math.min(reference.length, candidate.length - lag);
+		return Math.max(0, end - start);
+	}
+
+	private static double sumSquares(double[] reference, double[] candidate, int lag) {
+		int start = Math.max(0, -lag);
+		int end = start + overlap(reference, candidate, lag);
+		double sum = 0.0;
+		for (int i = start; i < end; i++) {
+			double d = candidate[i + lag] - reference[i];
+			sum += d * d;
+		}
+		return sum;
+	}
+}
@@ -17,16 +17,15 @@ import java.nio.file.Path;
 import java.util.*;
 
 import org.antlr.v4.runtime.BaseErrorListener;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.antlr.v4.runtime.tree.RuleNode;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
-import net.resheim.sidscore.parser.SIDScoreLexer;
 import net.resheim.sidscore.parser.SIDScoreParser;
 import net.resheim.sidscore.parser.SIDScoreParserBaseListener;
 
@@ -64,6 +63,24 @@ public final class ScoreBuildingListener extends SIDScoreParserBaseListener {
 		}
 	}
 
+	/**
+	 * Walker to use with this listener. TABLE, INSTR and EFFECT statements are
+	 * built from their context on exit, so their subtrees, which make up most of
+	 * a converted score, are not descended into.
+	 */
+	public static final ParseTreeWalker WALKER = new ParseTreeWalker() {
+		@Override
+		public void walk(ParseTreeListener listener, ParseTree t) {
+			if (t instanceof SIDScoreParser.EffectStmtContext || t instanceof SIDScoreParser.TableStmtContext
+					|| t instanceof SIDScoreParser.InstrStmtContext) {
+				enterRule(listener, (RuleNode) t);
+				exitRule(listener, (RuleNode) t);
+				return;
+			}
+			super.walk(listener, t);
+		}
+	};
+
 	private final Path sourcePath;
 	private final ImportContext importContext;
 	private final boolean importMode;
@@ -120,6 +137,16 @@ public final class ScoreBuildingListener extends SIDScoreParserBaseListener {
 				Collections.unmodifiableMap(songs));
 	}
 
+	/**
+	 * Files the built IR depends on besides the source itself: imported
+	 * instrument files and {@code IMPORT AS} subtunes.
+	 */
+	Set<Path> dependencies() {
+		Set<Path> dependencies = new LinkedHashSet<>(importContext.cache.keySet());
+		dependencies.addAll(subtunes.values());
+		return dependencies;
+	}
+
 	private void validateVoiceMap(Map<Integer, SIDScoreIR.VoiceIR> voiceMap, Integer songNumber) {
 		for (var e : voiceMap.entrySet()) {
 			int vIdx = e.getKey();
@@ -208,23 +235,24 @@ public final class ScoreBuildingListener extends SIDScoreParserBaseListener {
 					"Import file not found: " + abs);
 		}
 
+		SIDScoreIR.ScoreIR persisted = IrCache.loadImport(abs);
+		if (persisted != null) {
+			ImportResult result = new ImportResult(persisted.tables(), persisted.instruments());
+			importContext.cache.put(abs, result);
+			return result;
+		}
+
 		importContext.stack.push(abs);
 		try {
-			String src = Files.readString(abs);
-			SIDScoreLexer lexer = new SIDScoreLexer(CharStreams.fromString(src));
-			CommonTokenStream tokens = new CommonTokenStream(lexer);
-			SIDScoreParser parser = new SIDScoreParser(tokens);
-			parser.removeErrorListeners();
-			parser.addErrorListener(new ThrowingErrorListener());
-
-			ParseTree tree = parser.file();
+			ParseTree tree = ScoreParsing.parse(abs, new ThrowingErrorListener());
 			ScoreBuildingListener listener = new ScoreBuildingListener(abs, importContext, true);
-			ParseTreeWalker.DEFAULT.walk(listener, tree);
+			WALKER.walk(listener, tree);
 
 			ImportResult result = new ImportResult(
 					Collections.unmodifiableMap(new LinkedHashMap<>(listener.tables)),
 					Collections.unmodifiableMap(new LinkedHashMap<>(listener.instruments)));
 			importContext.cache.put(abs, result);
+			IrCache.storeImport(abs, result.tables(), result.instruments());
 			return result;
 		} catch (IOException ex) {
 			throw new ValidationException(posLine(where), posCol(where),
@@ -1102,8 +1130,7 @@ public final class ScoreBuildingListener extends SIDScoreParserBaseListener {
 		}
 		if (ctx.effectGroup() != null) {
 			SIDScoreParser.EffectGroupContext group = ctx.effectGroup();
-			int tick = parseNonNegativeInt(group.INT().getText(), group.INT().getSymbol(),
-					"EFFECT " + effectName + " group tick");
+			int tick = parseEffectCount(group.INT(), effectName, " group tick");
 			if (group.effectAssignment().isEmpty()) {
 				throw new ValidationException(posLine(group.getStart()), posCol(group.getStart()),
 						"EFFECT " + effectName + " has empty AT/FRAME group");
@@ -1115,98 +1142,92 @@ public final class ScoreBuildingListener extends SIDScoreParserBaseListener {
 	}
 
 	private static int parseEffectTick(SIDScoreParser.EffectTickContext ctx, String effectName) {
-		return parseNonNegativeInt(ctx.INT().getText(), ctx.INT().getSymbol(),
-				"EFFECT " + effectName + " tick");
+		return parseEffectCount(ctx.INT(), effectName, " tick");
+	}
+
+	/**
+	 * Parses a non-negative tick or duration. Converted scores have one of these
+	 * per FRAME, so the error label is only built when the value is invalid.
+	 */
+	private static int parseEffectCount(TerminalNode node, String effectName, String what) {
+		String text = node.getText();
+		int value = 0;
+		for (int i = 0; i < text.length() && value >= 0; i++) {
+			int digit = text.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+				value = -1;
+			} else {
+				value = value * 10 + digit;
+			}
+		}
+		if (value >= 0 && !text.isEmpty()) {
+			return value;
+		}
+		return parseNonNegativeInt(text, node.getSymbol(), "EFFECT " + effectName + what);
 	}
 
 	private static SIDScoreIR.EffectAssignmentIR parseEffectAssignment(SIDScoreParser.EffectAssignmentContext ctx,
 			int tick) {
-		if (ctx.WAVE() != null) {
+		// Dispatch on the leading keyword; testing each alternative's token
+		// accessor in turn dominated the walk of large EFFECT timelines.
+		return switch (ctx.getStart().getType()) {
+		case SIDScoreParser.WAVE -> {
 			int mask = waveMaskFromWaveList(ctx.waveList());
 			if (mask == 0) {
 				throw new ValidationException(posLine(ctx.getStart()), posCol(ctx.getStart()),
 						"EFFECT WAVE must include at least one waveform");
 			}
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.WAVE, SIDScoreIR.EffectValueIR.wave(mask));
-		}
-		if (ctx.GATE() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.GATE, parseEffectOnOff(ctx.onOff()));
-		}
-		if (ctx.SYNC() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.SYNC, parseEffectOnOff(ctx.onOff()));
-		}
-		if (ctx.RING() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.RING, parseEffectOnOff(ctx.onOff()));
-		}
-		if (ctx.RESET() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.RESET, SIDScoreIR.EffectValueIR.none());
-		}
-		if (ctx.PITCH() != null) {
+			yield effectAssignment(tick, SIDScoreIR.EffectParameter.WAVE, SIDScoreIR.EffectValueIR.wave(mask));
+		}
+		case SIDScoreParser.GATE -> effectAssignment(tick, SIDScoreIR.EffectParameter.GATE,
+				parseEffectOnOff(ctx.onOff()));
+		case SIDScoreParser.SYNC -> effectAssignment(tick, SIDScoreIR.EffectParameter.SYNC,
+				parseEffectOnOff(ctx.onOff()));
+		case SIDScoreParser.RING -> effectAssignment(tick, SIDScoreIR.EffectParameter.RING,
+				parseEffectOnOff(ctx.onOff()));
+		case SIDScoreParser.RESET -> effectAssignment(tick, SIDScoreIR.EffectParameter.RESET,
+				SIDScoreIR.EffectValueIR.none());
+		case SIDScoreParser.PITCH -> {
 			int midi = parseEffectPitch(ctx.NOTE().getText(), ctx.NOTE().getSymbol(), "PITCH");
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.PITCH, SIDScoreIR.EffectValueIR.pitch(midi));
-		}
-		if (ctx.FREQ() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.FREQ,
-					parseEffectNumericValue(ctx.numericValue(), "FREQ", 0, 0xFFFF));
-		}
-		if (ctx.PW() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.PW,
-					parseEffectNumericValue(ctx.numericValue(), "PW", 0, 0x0FFF));
-		}
-		if (ctx.HIPULSE() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.HIPULSE,
-					parseEffectNumericValue(ctx.numericValue(), "HIPULSE", 0, 0x0F));
-		}
-		if (ctx.LOWPULSE() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.LOWPULSE,
-					parseEffectNumericValue(ctx.numericValue(), "LOWPULSE", 0, 0xFF));
-		}
-		if (ctx.ADSR() != null) {
+			yield effectAssignment(tick, SIDScoreIR.EffectParameter.PITCH, SIDScoreIR.EffectValueIR.pitch(midi));
+		}
+		case SIDScoreParser.FREQ -> effectAssignment(tick, SIDScoreIR.EffectParameter.FREQ,
+				parseEffectNumericValue(ctx.numericValue(), "FREQ", 0, 0xFFFF));
+		case SIDScoreParser.PW -> effectAssignment(tick, SIDScoreIR.EffectParameter.PW,
+				parseEffectNumericValue(ctx.numericValue(), "PW", 0, 0x0FFF));
+		case SIDScoreParser.HIPULSE -> effectAssignment(tick, SIDScoreIR.EffectParameter.HIPULSE,
+				parseEffectNumericValue(ctx.numericValue(), "HIPULSE", 0, 0x0F));
+		case SIDScoreParser.LOWPULSE -> effectAssignment(tick, SIDScoreIR.EffectParameter.LOWPULSE,
+				parseEffectNumericValue(ctx.numericValue(), "LOWPULSE", 0, 0xFF));
+		case SIDScoreParser.ADSR -> {
 			SIDScoreIR.AdsrIR adsr = new SIDScoreIR.AdsrIR(
-					parseEffectInt(ctx.INT(0).getText(), ctx.INT(0).getSymbol(), "ADSR attack", 0, 15),
-					parseEffectInt(ctx.INT(1).getText(), ctx.INT(1).getSymbol(), "ADSR decay", 0, 15),
-					parseEffectInt(ctx.INT(2).getText(), ctx.INT(2).getSymbol(), "ADSR sustain", 0, 15),
-					parseEffectInt(ctx.INT(3).getText(), ctx.INT(3).getSymbol(), "ADSR release", 0, 15));
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.ADSR, SIDScoreIR.EffectValueIR.adsr(adsr));
-		}
-		if (ctx.ATTACK() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.ATTACK,
-					parseEffectIntValue(ctx.INT(0), "ATTACK", 0, 15));
-		}
-		if (ctx.DECAY() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.DECAY,
-					parseEffectIntValue(ctx.INT(0), "DECAY", 0, 15));
-		}
-		if (ctx.SUSTAIN() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.SUSTAIN,
-					parseEffectIntValue(ctx.INT(0), "SUSTAIN", 0, 15));
-		}
-		if (ctx.RELEASE() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.RELEASE,
-					parseEffectIntValue(ctx.INT(0), "RELEASE", 0, 15));
-		}
-		if (ctx.FILTER() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.FILTER,
-					SIDScoreIR.EffectValueIR.filter(filterMaskFromFilterSpec(ctx.filterSpec())));
-		}
-		if (ctx.FILTERROUTE() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.FILTERROUTE,
-					parseEffectNumericValue(ctx.numericValue(), "FILTERROUTE", 0, 0x0F));
-		}
-		if (ctx.CUTOFF() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.CUTOFF,
-					parseEffectNumericValue(ctx.numericValue(), "CUTOFF", 0, 0x07FF));
-		}
-		if (ctx.RES() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.RES,
-					parseEffectIntValue(ctx.INT(0), "RES", 0, 15));
-		}
-		if (ctx.VOLUME() != null) {
-			return effectAssignment(tick, SIDScoreIR.EffectParameter.VOLUME,
-					parseEffectIntValue(ctx.INT(0), "VOLUME", 0, 15));
-		}
-		throw new ValidationException(posLine(ctx.getStart()), posCol(ctx.getStart()),
+				parseEffectInt(ctx.INT(0).getText(), ctx.INT(0).getSymbol(), "ADSR attack", 0, 15),
+				parseEffectInt(ctx.INT(1).getText(), ctx.INT(1).getSymbol(), "ADSR decay", 0, 15),
+				parseEffectInt(ctx.INT(2).getText(), ctx.INT(2).getSymbol(), "ADSR sustain", 0, 15),
+				parseEffectInt(ctx.INT(3).getText(), ctx.INT(3).getSymbol(), "ADSR release", 0, 15));
+			yield effectAssignment(tick, SIDScoreIR.EffectParameter.ADSR, SIDScoreIR.EffectValueIR.adsr(adsr));
+		}
+		case SIDScoreParser.ATTACK -> effectAssignment(tick, SIDScoreIR.EffectParameter.ATTACK,
+				parseEffectIntValue(ctx.INT(0), "ATTACK", 0, 15));
+		case SIDScoreParser.DECAY -> effectAssignment(tick, SIDScoreIR.EffectParameter.DECAY,
+				parseEffectIntValue(ctx.INT(0), "DECAY", 0, 15));
+		case SIDScoreParser.SUSTAIN -> effectAssignment(tick, SIDScoreIR.EffectParameter.SUSTAIN,
+				parseEffectIntValue(ctx.INT(0), "SUSTAIN", 0, 15));
+		case SIDScoreParser.RELEASE -> effectAssignment(tick, SIDScoreIR.EffectParameter.RELEASE,
+				parseEffectIntValue(ctx.INT(0), "RELEASE", 0, 15));
+		case SIDScoreParser.FILTER -> effectAssignment(tick, SIDScoreIR.EffectParameter.FILTER,
+				SIDScoreIR.EffectValueIR.filter(filterMaskFromFilterSpec(ctx.filterSpec())));
+		case SIDScoreParser.FILTERROUTE -> effectAssignment(tick, SIDScoreIR.EffectParameter.FILTERROUTE,
+				parseEffectNumericValue(ctx.numericValue(), "FILTERROUTE", 0, 0x0F));
+		case SIDScoreParser.CUTOFF -> effectAssignment(tick, SIDScoreIR.EffectParameter.CUTOFF,
+				parseEffectNumericValue(ctx.numericValue(), "CUTOFF", 0, 0x07FF));
+		case SIDScoreParser.RES -> effectAssignment(tick, SIDScoreIR.EffectParameter.RES,
+				parseEffectIntValue(ctx.INT(0), "RES", 0, 15));
+		case SIDScoreParser.VOLUME -> effectAssignment(tick, SIDScoreIR.EffectParameter.VOLUME,
+				parseEffectIntValue(ctx.INT(0), "VOLUME", 0, 15));
+		default -> throw new ValidationException(posLine(ctx.getStart()), posCol(ctx.getStart()),
 				"Invalid effect parameter");
+		};
 	}
 
 	private static SIDScoreIR.EffectAssignmentIR effectAssignment(int tick, SIDScoreIR.EffectParameter parameter,
@@ -1219,8 +1240,7 @@ public final class ScoreBuildingListener extends SIDScoreParserBaseListener {
 		SIDScoreIR.EffectParameter parameter = parseEffectSweepParameter(ctx.effectSweepParam());
 		SIDScoreIR.EffectValueIR from = parseEffectSweepValue(ctx.effectSweepValue(0), parameter);
 		SIDScoreIR.EffectValueIR to = parseEffectSweepValue(ctx.effectSweepValue(1), parameter);
-		int duration = parseNonNegativeInt(ctx.INT().getText(), ctx.INT().getSymbol(),
-				"EFFECT " + effectName + " sweep duration");
+		int duration = parseEffectCount(ctx.INT(), effectName, " sweep duration");
 		if (duration < 1) {
 			throw new ValidationException(posLine(ctx.INT().getSymbol()), posCol(ctx.INT().getSymbol()),
 					"EFFECT " + effectName + " sweep duration must be >= 1");
@@ -1439,10 +1459,11 @@ public final class ScoreBuildingListener extends SIDScoreParserBaseListener {
 	private static SIDScoreIR.EffectValueIR parseEffectNumericValue(SIDScoreParser.NumericValueContext ctx,
 			String label, int min, int max) {
 		int value;
-		if (ctx.HEX() != null) {
-			value = parseHexValue(ctx.HEX().getText(), ctx.HEX().getSymbol(), label);
+		Token token = ctx.getStart();
+		if (token.getType() == SIDScoreParser.HEX) {
+			value = parseHexValue(token.getText(), token, label);
 		} else {
-			value = parseEffectInt(ctx.INT().getText(), ctx.INT().getSymbol(), label, min, max);
+			value = parseEffectInt(token.getText(), token, label, min, max);
 		}
 		if (value < min || value > max) {
 			throw new ValidationException(posLine(ctx.getStart()), posCol(ctx.getStart()),
@@ -1593,7 +1614,7 @@ public final class ScoreBuildingListener extends SIDScoreParserBaseListener {
 			throw new ValidationException(posLine(where), posCol(where), label + " must be $-prefixed hex");
 		}
 		try {
-			v = Integer.parseInt(raw.substring(1), 16);
+			v = Integer.parseInt(raw, 1, raw.length(), 16);
 		} catch (NumberFormatException e) {
 			throw new ValidationException(posLine(where), posCol(where), label + " must be $-prefixed hex");
 		}
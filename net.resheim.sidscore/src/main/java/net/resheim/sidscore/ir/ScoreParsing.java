@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import net.resheim.sidscore.parser.SIDScoreLexer;
+import net.resheim.sidscore.parser.SIDScoreParser;
+
+/**
+ * Front end shared by the CLI, the player server, the GUI and imports: lexes
+ * and parses a {@code .sidscore} source into a parse tree.
+ * <p>
+ * Parsing first runs with SLL prediction and a bail-out error strategy, which
+ * is enough for nearly every valid input and avoids full-context LL
+ * prediction. Only if that fails is the input rewound and parsed again in LL
+ * mode with the caller's error listener, so syntax errors are reported exactly
+ * as before.
+ * </p>
+ * <p>
+ * Files are decoded straight into the lexer's code point buffer rather than
+ * through an intermediate {@code String}. The input is deliberately not
+ * streamed: the parse tree keeps every token, so an unbuffered stream only
+ * forces each token to copy its text, which costs more heap than the source.
+ * </p>
+ */
+public final class ScoreParsing {
+	private ScoreParsing() {
+	}
+
+	public static SIDScoreParser.FileContext parse(String source, ANTLRErrorListener errors) {
+		SIDScoreLexer lexer = new SIDScoreLexer(CharStreams.fromString(source != null ? source : ""));
+		return parse(lexer, errors);
+	}
+
+	public static SIDScoreParser.FileContext parse(Path sourcePath, ANTLRErrorListener errors) throws IOException {
+		return parse(new SIDScoreLexer(CharStreams.fromPath(sourcePath, StandardCharsets.UTF_8)), errors);
+	}
+
+	private static SIDScoreParser.FileContext parse(SIDScoreLexer lexer, ANTLRErrorListener errors) {
+		CommonTokenStream tokens = new CommonTokenStream(lexer);
+		SIDScoreParser parser = new SIDScoreParser(tokens);
+		parser.removeErrorListeners();
+		parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+		parser.setErrorHandler(new BailErrorStrategy());
+		try {
+			return parser.file();
+		} catch (ParseCancellationException e) {
+			tokens.seek(0);
+			parser.reset();
+			parser.addErrorListener(errors);
+			parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+			parser.setErrorHandler(new DefaultErrorStrategy());
+			return parser.file();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BlockKernel} on the incubating Vector API, at the preferred vector
+ * width of the CPU. Only compiled by the {@code vector} Maven profile and only
+ * loaded through {@link BlockKernel#vector()}, after checking that the module
+ * is present. Lanes are computed with the same IEEE
+ * operations as the scalar loops, so the results are identical.
+ */
+final class VectorBlockKernel implements BlockKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	@Override
+	public void levels(double[] values, int n) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, values, i).sub(128.0).div(128.0).intoArray(values, i);
+		}
+		for (; i < n; i++) {
+			values[i] = (values[i] - 128.0) / 128.0;
+		}
+	}
+
+	@Override
+	public void multiply(double[] a, double[] b, double[] out, int n) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, a, i).mul(DoubleVector.fromArray(SPECIES, b, i)).intoArray(out, i);
+		}
+		for (; i < n; i++) {
+			out[i] = a[i] * b[i];
+		}
+	}
+
+	@Override
+	public void scale(double[] a, double k, int n) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, a, i).mul(k).intoArray(a, i);
+		}
+		for (; i < n; i++) {
+			a[i] = k * a[i];
+		}
+	}
+
+	@Override
+	public void add(double[] src, double[] dst, int n) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, dst, i).add(DoubleVector.fromArray(SPECIES, src, i)).intoArray(dst, i);
+		}
+		for (; i < n; i++) {
+			dst[i] += src[i];
+		}
+	}
+
+	@Override
+	public String name() {
+		return "vector (" + SPECIES.length() + " lanes)";
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.ir;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams 16-bit little-endian PCM into a canonical 44-byte RIFF/WAVE file.
+ * <p>
+ * The header is written up front with zero sizes and each block is appended
+ * through a {@link FileChannel}, so memory use does not grow with the length
+ * of the render. The RIFF and data sizes are patched on {@link #close()} and
+ * also at regular intervals while writing, which leaves a playable file behind
+ * if the process dies part way through.
+ * </p>
+ */
+final class WavFileWriter implements Closeable {
+
+	private static final int HEADER_BYTES = 44;
+	private static final long MAX_DATA_BYTES = 0xFFFFFFFFL - (HEADER_BYTES - 8);
+
+	private final FileChannel channel;
+	private final ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+	private final long patchIntervalBytes;
+	private long dataBytes = 0;
+	private long lastPatchedBytes = 0;
+	private boolean closed = false;
+
+	/**
+	 * Creates (or truncates) {@code out} and writes a header for mono or
+	 * multi-channel 16-bit PCM at {@code sampleRate}. Sizes are re-patched
+	 * roughly once per second of audio.
+	 */
+	WavFileWriter(Path out, int sampleRate, int channels) throws IOException {
+		this.channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		int blockAlign = channels * 2;
+		this.patchIntervalBytes = (long) sampleRate * blockAlign;
+		ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		h.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+		h.putInt(HEADER_BYTES - 8);
+		h.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+		h.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+		h.putInt(16);
+		h.putShort((short) 1); // PCM
+		h.putShort((short) channels);
+		h.putInt(sampleRate);
+		h.putInt(sampleRate * blockAlign);
+		h.putShort((short) blockAlign);
+		h.putShort((short) 16);
+		h.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+		h.putInt(0);
+		h.flip();
+		try {
+			writeFully(h, 0);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	void write(byte[] pcm, int offset, int length) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("WAV writer is closed");
+		}
+		if (length <= 0) {
+			return;
+		}
+		if (dataBytes + length > MAX_DATA_BYTES) {
+			throw new IOException("WAV data exceeds 4 GiB limit");
+		}
+		writeFully(ByteBuffer.wrap(pcm, offset, length), HEADER_BYTES + dataBytes);
+		dataBytes += length;
+		if (dataBytes - lastPatchedBytes >= patchIntervalBytes) {
+			patchSizes();
+		}
+	}
+
+	long dataBytes() {
+		return dataBytes;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			patchSizes();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void patchSizes() throws IOException {
+		header.clear();
+		header.putInt((int) (dataBytes + HEADER_BYTES - 8));
+		header.flip();
+		writeFully(header, 4);
+		header.clear();
+		header.putInt((int) dataBytes);
+		header.flip();
+		writeFully(header, HEADER_BYTES - 4);
+		lastPatchedBytes = dataBytes;
+	}
+
+	private void writeFully(ByteBuffer src, long position) throws IOException {
+		long pos = position;
+		while (src.hasRemaining()) {
+			pos += channel.write(src, pos);
+		}
+	}
+}
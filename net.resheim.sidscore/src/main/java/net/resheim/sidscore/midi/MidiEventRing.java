@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.midi;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import net.resheim.sidscore.ir.RealtimeAudioPlayer;
+
+/**
+ * Bounded single-producer/single-consumer queue of MIDI events for one SID
+ * voice. The producer is the MIDI receiver (serialized by the router lock) and
+ * the consumer is the render thread, which never blocks or allocates.
+ * <p>
+ * When the ring is full new events are dropped; the router's published
+ * snapshot still carries the latest voice state, so the render thread catches
+ * up from it.
+ * </p>
+ */
+final class MidiEventRing {
+	/** A full ring is drained in one go without growing the render thread's queue. */
+	static final int DEFAULT_CAPACITY = RealtimeAudioPlayer.MidiSource.MAX_EVENTS_PER_DRAIN;
+
+	private final RealtimeAudioPlayer.MidiEvent[] slots;
+	private final int mask;
+	/** Next slot to read; written by the consumer only. */
+	private final AtomicLong head = new AtomicLong();
+	/** Next slot to write; written by the producer only. */
+	private final AtomicLong tail = new AtomicLong();
+	/** Events before this position were cleared by the producer and are skipped. */
+	private volatile long discardBefore = 0;
+	private long dropped = 0;
+
+	MidiEventRing(int capacity) {
+		if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Ring capacity must be a power of two, got " + capacity);
+		}
+		this.slots = new RealtimeAudioPlayer.MidiEvent[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Producer side. Returns {@code false} (and counts a drop) when the consumer
+	 * has fallen a full ring behind.
+	 */
+	boolean offer(RealtimeAudioPlayer.MidiEvent event) {
+		long t = tail.getPlain();
+		if (t - head.getAcquire() >= slots.length) {
+			dropped++;
+			return false;
+		}
+		slots[(int) t & mask] = event;
+		tail.setRelease(t + 1);
+		return true;
+	}
+
+	/**
+	 * Producer side. Marks everything offered so far as stale; the consumer
+	 * skips it on its next drain.
+	 */
+	void discard() {
+		discardBefore = tail.getPlain();
+	}
+
+	long dropped() {
+		return dropped;
+	}
+
+	/**
+	 * Consumer side. A single acquire load, cheap enough to call before every
+	 * drain.
+	 */
+	boolean hasEvents() {
+		return tail.getAcquire() != head.getPlain();
+	}
+
+	/**
+	 * Consumer side. Hands every pending event to {@code sink} in order and
+	 * returns how many were delivered.
+	 */
+	int drain(Consumer<RealtimeAudioPlayer.MidiEvent> sink) {
+		long skip = discardBefore;
+		long h = head.getPlain();
+		long t = tail.getAcquire();
+		int delivered = 0;
+		for (; h < t; h++) {
+			int i = (int) h & mask;
+			RealtimeAudioPlayer.MidiEvent event = slots[i];
+			slots[i] = null;
+			if (h >= skip) {
+				sink.accept(event);
+				delivered++;
+			}
+		}
+		head.setRelease(h);
+		return delivered;
+	}
+}
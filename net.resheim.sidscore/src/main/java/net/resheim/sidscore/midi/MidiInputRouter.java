@@ -22,20 +22,24 @@ import javax.sound.midi.Sequencer;
 import javax.sound.midi.ShortMessage;
 import javax.sound.midi.Synthesizer;
 import javax.sound.midi.Transmitter;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Routes live MIDI channel input to SID voices. Multiple voices may share one
  * MIDI channel; incoming notes are then allocated across those SID voices.
+ * <p>
+ * MIDI threads update voice state under this object's lock. The render thread
+ * never takes that lock: each voice publishes an immutable snapshot through a
+ * volatile field and hands note events over through a {@link MidiEventRing}.
+ * </p>
  */
 public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, AutoCloseable {
 
@@ -188,19 +192,46 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 	}
 
 	@Override
-	public synchronized RealtimeAudioPlayer.MidiSnapshot snapshot(int voiceIndex) {
+	public RealtimeAudioPlayer.MidiSnapshot snapshot(int voiceIndex) {
 		if (voiceIndex < 1 || voiceIndex > 3 || !controlsVoice(voiceIndex)) {
 			return RealtimeAudioPlayer.MidiSnapshot.off();
 		}
-		return slots[voiceIndex].snapshot();
+		return slots[voiceIndex].published;
 	}
 
 	@Override
-	public synchronized List<RealtimeAudioPlayer.MidiEvent> drainEvents(int voiceIndex) {
+	public boolean hasEvents(int voiceIndex) {
+		return voiceIndex >= 1 && voiceIndex <= 3 && controlsVoice(voiceIndex) && slots[voiceIndex].events.hasEvents();
+	}
+
+	@Override
+	public int drainEvents(int voiceIndex, Consumer<RealtimeAudioPlayer.MidiEvent> sink) {
 		if (voiceIndex < 1 || voiceIndex > 3 || !controlsVoice(voiceIndex)) {
+			return 0;
+		}
+		return slots[voiceIndex].events.drain(sink);
+	}
+
+	@Override
+	public List<RealtimeAudioPlayer.MidiEvent> drainEvents(int voiceIndex) {
+		if (!hasEvents(voiceIndex)) {
 			return List.of();
 		}
-		return slots[voiceIndex].drainEvents();
+		List<RealtimeAudioPlayer.MidiEvent> drained = new ArrayList<>();
+		drainEvents(voiceIndex, drained::add);
+		return drained;
+	}
+
+	/**
+	 * Number of note events dropped because the render thread fell a full ring
+	 * behind. Voice state still follows the latest snapshot when this happens.
+	 */
+	public synchronized long droppedEvents() {
+		long dropped = 0;
+		for (int i = 1; i <= 3; i++) {
+			dropped += slots[i].events.dropped();
+		}
+		return dropped;
 	}
 
 	@Override
@@ -210,8 +241,9 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 				return;
 			}
 			closed = true;
+			long now = System.nanoTime();
 			for (int i = 1; i <= 3; i++) {
-				slots[i].release(++sequence);
+				slots[i].release(++sequence, now);
 			}
 		}
 		transmitter.close();
@@ -225,12 +257,12 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 		}
 	}
 
-	private synchronized void noteOn(int channel, int note, int velocity) {
+	private synchronized void noteOn(int channel, int note, int velocity, long receivedNanos) {
 		if (closed || suspended) {
 			return;
 		}
 		if (velocity <= 0) {
-			noteOff(channel, note);
+			noteOff(channel, note, receivedNanos);
 			return;
 		}
 		List<Integer> voices = voicesByChannel.get(channel);
@@ -249,11 +281,11 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 			emit("NOTE ON ch " + channel + " note " + note + " vel " + velocity + " (unmapped)");
 			return;
 		}
-		slots[voice].start(note, velocity, pitchBendByChannel[channel], ++sequence);
+		slots[voice].start(note, velocity, pitchBendByChannel[channel], ++sequence, receivedNanos);
 		emit("NOTE ON ch " + channel + " note " + note + " vel " + velocity + " -> voice " + voice);
 	}
 
-	private synchronized void noteOff(int channel, int note) {
+	private synchronized void noteOff(int channel, int note, long receivedNanos) {
 		if (closed || suspended) {
 			return;
 		}
@@ -264,13 +296,13 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 		}
 		for (int voice : voices) {
 			if (slots[voice].gate && slots[voice].note == note) {
-				slots[voice].release(++sequence);
+				slots[voice].release(++sequence, receivedNanos);
 				emit("NOTE OFF ch " + channel + " note " + note + " <- voice " + voice);
 			}
 		}
 	}
 
-	private synchronized void allNotesOff(int channel) {
+	private synchronized void allNotesOff(int channel, long receivedNanos) {
 		if (closed || suspended) {
 			return;
 		}
@@ -279,7 +311,7 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 			return;
 		}
 		for (int voice : voices) {
-			slots[voice].release(++sequence);
+			slots[voice].release(++sequence, receivedNanos);
 		}
 		emit("ALL NOTES OFF ch " + channel);
 	}
@@ -297,18 +329,18 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 			return;
 		}
 		for (int voice : voices) {
-			slots[voice].pitchBendSemitones = semitones;
+			slots[voice].bend(semitones);
 		}
 		emit("PITCH BEND ch " + channel + " value " + value + " (" + String.format(Locale.ROOT, "%.2f", semitones)
 				+ " st)");
 	}
 
-	private void controlChange(int channel, int controller, int value) {
+	private void controlChange(int channel, int controller, int value, long receivedNanos) {
 		if (closed || suspended) {
 			return;
 		}
 		if (controller == 120 || controller == 123) {
-			allNotesOff(channel);
+			allNotesOff(channel, receivedNanos);
 		} else {
 			emit("CC ch " + channel + " #" + controller + " = " + value);
 		}
@@ -416,18 +448,25 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 		}
 	}
 
+	/**
+	 * Stamps each message with {@link System#nanoTime()} on arrival. The
+	 * device {@code timeStamp} is not used: it is -1 for many drivers and is
+	 * not on a clock the render thread can compare against.
+	 */
 	private final class RoutingReceiver implements Receiver {
 		@Override
 		public void send(MidiMessage message, long timeStamp) {
+			long receivedNanos = System.nanoTime();
 			if (closed || suspended || !(message instanceof ShortMessage shortMessage)) {
 				return;
 			}
 			int channel = shortMessage.getChannel() + 1;
 			switch (shortMessage.getCommand()) {
-			case ShortMessage.NOTE_ON -> noteOn(channel, shortMessage.getData1(), shortMessage.getData2());
-			case ShortMessage.NOTE_OFF -> noteOff(channel, shortMessage.getData1());
+			case ShortMessage.NOTE_ON -> noteOn(channel, shortMessage.getData1(), shortMessage.getData2(), receivedNanos);
+			case ShortMessage.NOTE_OFF -> noteOff(channel, shortMessage.getData1(), receivedNanos);
 			case ShortMessage.PITCH_BEND -> pitchBend(channel, shortMessage.getData1(), shortMessage.getData2());
-			case ShortMessage.CONTROL_CHANGE -> controlChange(channel, shortMessage.getData1(), shortMessage.getData2());
+			case ShortMessage.CONTROL_CHANGE ->
+				controlChange(channel, shortMessage.getData1(), shortMessage.getData2(), receivedNanos);
 			default -> {
 				emit("CMD 0x" + Integer.toHexString(shortMessage.getCommand()) + " ch " + channel + " data "
 						+ shortMessage.getData1() + "," + shortMessage.getData2());
@@ -441,6 +480,11 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 		}
 	}
 
+	/**
+	 * Per-voice state owned by the MIDI side. Every mutation republishes
+	 * {@link #published} so that the render thread only ever reads a volatile
+	 * reference.
+	 */
 	private static final class VoiceSlot {
 		int note = -1;
 		int velocity = 0;
@@ -451,9 +495,10 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 		long noteOffId = 0;
 		int lastNote = -1;
 		int lastVelocity = 0;
-		final Deque<RealtimeAudioPlayer.MidiEvent> events = new ArrayDeque<>();
+		final MidiEventRing events = new MidiEventRing(MidiEventRing.DEFAULT_CAPACITY);
+		volatile RealtimeAudioPlayer.MidiSnapshot published = RealtimeAudioPlayer.MidiSnapshot.off();
 
-		void start(int note, int velocity, double pitchBendSemitones, long sequence) {
+		void start(int note, int velocity, double pitchBendSemitones, long sequence, long receivedNanos) {
 			this.note = Math.max(0, Math.min(127, note));
 			this.velocity = Math.max(1, Math.min(127, velocity));
 			this.pitchBendSemitones = pitchBendSemitones;
@@ -462,11 +507,12 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 			this.lastNote = this.note;
 			this.lastVelocity = this.velocity;
 			this.gate = true;
-			events.addLast(new RealtimeAudioPlayer.MidiEvent(this.note, this.velocity, true, pitchBendSemitones,
-					sequence));
+			events.offer(new RealtimeAudioPlayer.MidiEvent(this.note, this.velocity, true, pitchBendSemitones,
+					sequence, receivedNanos));
+			publish();
 		}
 
-		void release(long sequence) {
+		void release(long sequence, long receivedNanos) {
 			if (!gate && noteOffId >= noteOnId) {
 				return;
 			}
@@ -478,10 +524,16 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 			if (velocity > 0) {
 				this.lastVelocity = velocity;
 			}
-			events.addLast(new RealtimeAudioPlayer.MidiEvent(this.lastNote, this.lastVelocity, false,
-					pitchBendSemitones, sequence));
+			events.offer(new RealtimeAudioPlayer.MidiEvent(this.lastNote, this.lastVelocity, false,
+					pitchBendSemitones, sequence, receivedNanos));
 			this.velocity = 0;
 			this.gate = false;
+			publish();
+		}
+
+		void bend(double semitones) {
+			this.pitchBendSemitones = semitones;
+			publish();
 		}
 
 		void clear() {
@@ -494,27 +546,20 @@ public final class MidiInputRouter implements RealtimeAudioPlayer.MidiSource, Au
 			noteOffId = 0;
 			lastNote = -1;
 			lastVelocity = 0;
-			events.clear();
+			events.discard();
+			publish();
 		}
 
-		RealtimeAudioPlayer.MidiSnapshot snapshot() {
+		private void publish() {
 			if (noteOnId == 0 || (note < 0 && lastNote < 0)) {
-				return RealtimeAudioPlayer.MidiSnapshot.off();
+				published = RealtimeAudioPlayer.MidiSnapshot.off();
+				return;
 			}
 			int snapshotNote = gate ? note : lastNote;
 			int snapshotVelocity = gate ? velocity : lastVelocity;
-			return new RealtimeAudioPlayer.MidiSnapshot(snapshotNote, snapshotVelocity, gate, pitchBendSemitones,
+			published = new RealtimeAudioPlayer.MidiSnapshot(snapshotNote, snapshotVelocity, gate, pitchBendSemitones,
 					noteOnId, noteOffId);
 		}
-
-		List<RealtimeAudioPlayer.MidiEvent> drainEvents() {
-			if (events.isEmpty()) {
-				return List.of();
-			}
-			List<RealtimeAudioPlayer.MidiEvent> drained = new ArrayList<>(events);
-			events.clear();
-			return drained;
-		}
 	}
 
 	public static final class InputDevice {
@@ -10,19 +10,20 @@ package net.resheim.sidscore.server;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.antlr.v4.runtime.Token;
 
+import net.resheim.sidscore.ir.CompiledTimeline;
+import net.resheim.sidscore.ir.FrameEventCompiler;
 import net.resheim.sidscore.ir.SIDScoreIR;
 import net.resheim.sidscore.parser.SIDScoreParser;
 
 public final class ScoreMapExporter {
-	private static final double RASTER_RATE_PAL = 50.124542;
-	private static final double RASTER_RATE_NTSC = 60.098814;
-	private static final int RETRIG_GAP_FRAMES = 1;
 
 	public record SourceEntry(int sourceId, String sourceUri, Path sourcePath) {
 	}
@@ -32,18 +33,115 @@ public final class ScoreMapExporter {
 	}
 
 	public record ScoreMap(long scoreId, List<SourceEntry> sources, List<EventEntry> events,
-			Map<Integer, List<EventEntry>> eventsByVoice) {
+			Map<Integer, List<EventEntry>> eventsByVoice, Map<Integer, VoiceTimeline> timelines) {
+		/**
+		 * Builds the per-voice lookup index from {@code eventsByVoice}. The
+		 * lists may be in any order; they are indexed by start frame.
+		 */
+		public ScoreMap(long scoreId, List<SourceEntry> sources, List<EventEntry> events,
+				Map<Integer, List<EventEntry>> eventsByVoice) {
+			this(scoreId, sources, events, eventsByVoice, indexVoices(eventsByVoice));
+		}
+
 		public int activeEventId(int voiceIndex, long frameIndex) {
-			List<EventEntry> voiceEvents = eventsByVoice.get(voiceIndex);
-			if (voiceEvents == null) {
+			VoiceTimeline timeline = timelines.get(voiceIndex);
+			return timeline != null ? timeline.activeEventId(frameIndex) : -1;
+		}
+
+		private static Map<Integer, VoiceTimeline> indexVoices(Map<Integer, List<EventEntry>> eventsByVoice) {
+			Map<Integer, VoiceTimeline> out = new LinkedHashMap<>();
+			for (var entry : eventsByVoice.entrySet()) {
+				out.put(entry.getKey(), new VoiceTimeline(entry.getValue()));
+			}
+			return Map.copyOf(out);
+		}
+	}
+
+	/**
+	 * Start-ordered frame ranges of one voice as primitive columns. Lookups
+	 * first try a cursor left by the previous call, which makes forward
+	 * playback O(1), and fall back to a binary search after a seek.
+	 * <p>
+	 * The cursor is only a hint: it is validated on every call, so concurrent
+	 * readers see correct results and at worst an extra search.
+	 * </p>
+	 */
+	public static final class VoiceTimeline {
+		private static final int CURSOR_SCAN = 4;
+
+		private final long[] startFrames;
+		private final long[] endFrames;
+		private final int[] eventIds;
+		private int cursor = 0;
+
+		VoiceTimeline(List<EventEntry> events) {
+			if (!ordered(events)) {
+				// The list sort is stable, so events sharing a start frame keep their order.
+				events = new ArrayList<>(events);
+				events.sort(Comparator.comparingLong(EventEntry::startFrame));
+			}
+			int n = events.size();
+			startFrames = new long[n];
+			endFrames = new long[n];
+			eventIds = new int[n];
+			for (int i = 0; i < n; i++) {
+				EventEntry ev = events.get(i);
+				startFrames[i] = ev.startFrame();
+				endFrames[i] = ev.endFrame();
+				eventIds[i] = ev.eventId();
+			}
+		}
+
+		private static boolean ordered(List<EventEntry> events) {
+			for (int i = 1; i < events.size(); i++) {
+				if (events.get(i).startFrame() < events.get(i - 1).startFrame()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public int size() {
+			return eventIds.length;
+		}
+
+		/**
+		 * Returns the id of the event covering {@code frameIndex}, or -1 in a
+		 * gap or outside the voice.
+		 */
+		public int activeEventId(long frameIndex) {
+			int n = startFrames.length;
+			if (n == 0 || frameIndex < startFrames[0]) {
 				return -1;
 			}
-			for (EventEntry ev : voiceEvents) {
-				if (frameIndex >= ev.startFrame() && frameIndex < ev.endFrame()) {
-					return ev.eventId();
+			int i = cursor;
+			if (i < n && startFrames[i] <= frameIndex) {
+				int limit = Math.min(n - 1, i + CURSOR_SCAN);
+				while (i < limit && startFrames[i + 1] <= frameIndex) {
+					i++;
+				}
+				if (i + 1 < n && startFrames[i + 1] <= frameIndex) {
+					i = floorIndex(frameIndex);
 				}
+			} else {
+				i = floorIndex(frameIndex);
 			}
-			return -1;
+			cursor = i;
+			return frameIndex < endFrames[i] ? eventIds[i] : -1;
+		}
+
+		private int floorIndex(long frameIndex) {
+			int i = Arrays.binarySearch(startFrames, frameIndex);
+			if (i < 0) {
+				i = -i - 2;
+			} else {
+				// Zero-length ranges can share a start frame; take the last one,
+				// as a forward scan would.
+				while (i + 1 < startFrames.length && startFrames[i + 1] == frameIndex) {
+					i++;
+				}
+			}
+			return i;
 		}
 	}
 
@@ -89,54 +187,28 @@ public final class ScoreMapExporter {
 
 	private static List<EventEntry> buildVoiceEvents(int[] nextEventId, SIDScoreIR.TimedScore score,
 			SIDScoreIR.TimedVoice voice, List<TokenSpan> spans) {
-		List<EventEntry> out = new ArrayList<>();
-		double ticksPerQuarter = score.ticksPerWhole() / 4.0;
-		double secondsPerTick = 60.0 / score.tempoBpm() / ticksPerQuarter;
-		double frameRate = score.system() == SIDScoreIR.VideoSystem.PAL ? RASTER_RATE_PAL : RASTER_RATE_NTSC;
-		int gateMin = Math.max(0, voice.instrument().gateMin());
-		double rem = 0.0;
-		long frameCursor = 0;
-		boolean lastGateOn = false;
+		CompiledTimeline timeline = FrameEventCompiler.timeline(voice, score);
 		List<SIDScoreIR.TimedEvent> events = voice.events();
+		List<EventEntry> out = new ArrayList<>(timeline.rows());
 
-		for (int i = 0; i < events.size(); i++) {
+		for (int row = 0; row < timeline.rows(); row++) {
+			int i = timeline.sourceEvent(row);
+			if (i < 0) {
+				continue;
+			}
 			SIDScoreIR.TimedEvent ev = events.get(i);
 			TokenSpan span = i < spans.size() ? spans.get(i) : TokenSpan.approximate();
-			double framesExact = ev.durationTicks() * secondsPerTick * frameRate + rem;
-			int frames = (int) Math.max(1, Math.round(framesExact));
-			rem = framesExact - frames;
-
-			if ((ev.type() == SIDScoreIR.TimedType.NOTE || ev.type() == SIDScoreIR.TimedType.NOISE) && gateMin > 0) {
-				frames = Math.max(frames, gateMin);
-			}
-
-			int noteKind = noteKind(ev);
-			int baseFlags = span.approximate ? 1 << 4 : 0;
+			int flags = span.approximate ? 1 << 4 : 0;
 			if (ev.gateMode().orElse(SIDScoreIR.GateMode.RETRIG) == SIDScoreIR.GateMode.HOLD) {
-				baseFlags |= 1 << 1;
+				flags |= 1 << 1;
 			}
-
-			if ((ev.type() == SIDScoreIR.TimedType.NOTE || ev.type() == SIDScoreIR.TimedType.NOISE)) {
-				SIDScoreIR.GateMode gate = ev.gateMode().orElse(SIDScoreIR.GateMode.RETRIG);
-				if (gate == SIDScoreIR.GateMode.RETRIG && lastGateOn && frames > RETRIG_GAP_FRAMES) {
-					out.add(event(nextEventId[0]++, voice.index(), noteKind, baseFlags | (1 << 2), frameCursor,
-							frameCursor + RETRIG_GAP_FRAMES, span, displayText(ev, span)));
-					frameCursor += RETRIG_GAP_FRAMES;
-					frames -= RETRIG_GAP_FRAMES;
-				}
-				baseFlags |= 1;
-				lastGateOn = true;
-			} else {
-				lastGateOn = false;
-			}
-
-			while (frames > 0) {
-				int chunk = Math.min(frames, 0xFFFF);
-				out.add(event(nextEventId[0]++, voice.index(), noteKind, baseFlags, frameCursor, frameCursor + chunk,
-						span, displayText(ev, span)));
-				frameCursor += chunk;
-				frames -= chunk;
+			if (timeline.retrigGap(row)) {
+				flags |= 1 << 2;
+			} else if (ev.type() == SIDScoreIR.TimedType.NOTE || ev.type() == SIDScoreIR.TimedType.NOISE) {
+				flags |= 1;
 			}
+			out.add(event(nextEventId[0]++, voice.index(), noteKind(ev), flags, timeline.startFrame(row),
+					timeline.endFrame(row), span, displayText(ev, span)));
 		}
 
 		return out;
@@ -68,6 +68,11 @@ public final class SrapProtocol {
 	public static final int REASON_PLAYBACK_ERROR = 4;
 	public static final int REASON_CONNECTION_CLOSED = 5;
 
+	public static final int LATENCY_DEFAULT = 0;
+	public static final int LATENCY_LOW = 1;
+	public static final int LATENCY_BALANCED = 2;
+	public static final int LATENCY_SAFE = 3;
+
 	public static final int ERR_UNSUPPORTED_VERSION = 1;
 	public static final int ERR_INVALID_FRAME = 2;
 	public static final int ERR_INVALID_STATE = 3;
@@ -265,6 +270,10 @@ public final class SrapProtocol {
 			return data.getLong();
 		}
 
+		public int remaining() {
+			return data.remaining();
+		}
+
 		public String str() {
 			int len = u16();
 			byte[] bytes = new byte[len];
@@ -0,0 +1,312 @@
+/**
+ * Copyright (c) 2026 Torkild Ulvøy Resheim.
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ * Torkild Ulvøy Resheim <torkildr@gmail.com> - initial API and implementation
+ */
+package net.resheim.sidscore.sid;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Immutable sequence of writes to the 25 writable SID registers
+ * ({@code $D400-$D418}), grouped by player frame.
+ * <p>
+ * Writes keep the order in which the program made them, so a gate that is
+ * cleared and set again within one frame is still seen as a retrigger. The
+ * frame rate and the SID clock are carried along so the stream can be
+ * replayed at the speed it was recorded.
+ * </p>
+ * <p>
+ * Streams are stored in a compact binary form ({@code .sidregs}): the magic
+ * {@code SIDR}, a version byte, the frame rate and clock as big-endian
+ * doubles, then the frame and write counts as big-endian ints. Each frame
+ * follows as its write count (unsigned LEB128) and that many register/value
+ * byte pairs, so an idle frame takes a single byte.
+ * </p>
+ */
+public final class SidRegisterStream {
+	/** Number of writable SID registers. */
+	public static final int REGISTERS = 25;
+
+	private static final int MAGIC = 0x53494452; // "SIDR"
+	private static final int VERSION = 1;
+	/** Largest array length the VM reliably allocates. */
+	private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+	/** Initial capacity when reading; the arrays grow as data arrives. */
+	private static final int READ_CAPACITY = 4096;
+
+	private final double frameRate;
+	private final double clockHz;
+	/** First write of each frame, plus the total write count at index {@code frames}. */
+	private final int[] frameStart;
+	private final byte[] register;
+	private final byte[] value;
+
+	private SidRegisterStream(double frameRate, double clockHz, int[] frameStart, byte[] register, byte[] value) {
+		this.frameRate = frameRate;
+		this.clockHz = clockHz;
+		this.frameStart = frameStart;
+		this.register = register;
+		this.value = value;
+	}
+
+	/**
+	 * Frames per second the stream was recorded at.
+	 */
+	public double frameRate() {
+		return frameRate;
+	}
+
+	/**
+	 * SID clock in Hz, which scales the frequency registers.
+	 */
+	public double clockHz() {
+		return clockHz;
+	}
+
+	public int frames() {
+		return frameStart.length - 1;
+	}
+
+	/**
+	 * Total number of writes.
+	 */
+	public int writes() {
+		return register.length;
+	}
+
+	/**
+	 * Index of the first write in {@code frame}; the writes of the frame run
+	 * up to {@code firstWrite(frame + 1)}.
+	 */
+	public int firstWrite(int frame) {
+		return frameStart[frame];
+	}
+
+	/**
+	 * Register number ({@code 0-24}) of write {@code index}.
+	 */
+	public int register(int index) {
+		return register[index];
+	}
+
+	public int value(int index) {
+		return value[index] & 0xFF;
+	}
+
+	/**
+	 * Writes the stream in binary form to {@code path}.
+	 */
+	public void write(Path path) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+			write(out);
+		}
+	}
+
+	/**
+	 * Writes the stream in binary form; {@code out} is flushed but not closed.
+	 */
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeByte(VERSION);
+		data.writeDouble(frameRate);
+		data.writeDouble(clockHz);
+		data.writeInt(frames());
+		data.writeInt(writes());
+		byte[] pairs = new byte[64];
+		for (int frame = 0; frame < frames(); frame++) {
+			int from = frameStart[frame];
+			int count = frameStart[frame + 1] - from;
+			writeVarint(data, count);
+			if (pairs.length < count * 2) {
+				pairs = new byte[count * 2];
+			}
+			for (int i = 0; i < count; i++) {
+				pairs[i * 2] = register[from + i];
+				pairs[i * 2 + 1] = value[from + i];
+			}
+			data.write(pairs, 0, count * 2);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads a stream written by {@link #write(Path)}.
+	 */
+	public static SidRegisterStream read(Path path) throws IOException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+			return read(in);
+		}
+	}
+
+	public static SidRegisterStream read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		try {
+			if (data.readInt() != MAGIC) {
+				throw new IOException("Not a SID register stream");
+			}
+			int version = data.readUnsignedByte();
+			if (version != VERSION) {
+				throw new IOException("Unsupported SID register stream version " + version);
+			}
+			double frameRate = data.readDouble();
+			double clockHz = data.readDouble();
+			int frames = data.readInt();
+			int writes = data.readInt();
+			if (!(frameRate > 0.0) || !(clockHz > 0.0) || frames < 1 || frames >= MAX_LENGTH || writes < 0
+					|| writes > MAX_LENGTH) {
+				throw new IOException("Corrupt SID register stream header");
+			}
+			// The declared counts are only trusted as far as the data backs them:
+			// the arrays grow as frames and writes arrive, so a corrupt header
+			// ends in a truncated stream rather than a huge allocation.
+			int[] starts = new int[Math.min(frames, READ_CAPACITY) + 1];
+			byte[] registers = new byte[Math.min(writes, READ_CAPACITY)];
+			byte[] values = new byte[registers.length];
+			int index = 0;
+			for (int frame = 0; frame < frames; frame++) {
+				if (frame + 1 == starts.length) {
+					starts = Arrays.copyOf(starts, (int) Math.min(starts.length * 2L, frames + 1L));
+				}
+				starts[frame] = index;
+				int count = readVarint(data);
+				if (count > writes - index) {
+					throw new IOException("Corrupt SID register stream: more writes than declared");
+				}
+				for (int i = 0; i < count; i++, index++) {
+					if (index == registers.length) {
+						registers = Arrays.copyOf(registers, (int) Math.min(registers.length * 2L, writes));
+						values = Arrays.copyOf(values, registers.length);
+					}
+					int reg = data.readUnsignedByte();
+					if (reg >= REGISTERS) {
+						throw new IOException("Corrupt SID register stream: register " + reg);
+					}
+					registers[index] = (byte) reg;
+					values[index] = data.readByte();
+				}
+			}
+			if (index != writes) {
+				throw new IOException("Corrupt SID register stream: fewer writes than declared");
+			}
+			starts[frames] = writes;
+			return new SidRegisterStream(frameRate, clockHz, starts, registers, values);
+		} catch (EOFException e) {
+			throw new IOException("Truncated SID register stream", e);
+		}
+	}
+
+	/**
+	 * Whether {@code path} starts like a binary register stream.
+	 */
+	public static boolean isStream(Path path) throws IOException {
+		try (InputStream in = Files.newInputStream(path)) {
+			byte[] head = in.readNBytes(4);
+			return head.length == 4 && (((head[0] & 0xFF) << 24) | ((head[1] & 0xFF) << 16)
+					| ((head[2] & 0xFF) << 8) | (head[3] & 0xFF)) == MAGIC;
+		}
+	}
+
+	private static void writeVarint(DataOutputStream out, int v) throws IOException {
+		while ((v & ~0x7F) != 0) {
+			out.writeByte((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		out.writeByte(v);
+	}
+
+	private static int readVarint(DataInputStream in) throws IOException {
+		int v = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			v |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return v;
+			}
+		}
+		throw new IOException("Corrupt SID register stream: bad frame length");
+	}
+
+	/**
+	 * Collects writes frame by frame.
+	 */
+	public static final class Builder {
+		private final double frameRate;
+		private final double clockHz;
+		private int[] frameStart = new int[64];
+		private int frames = 0;
+		private byte[] register = new byte[256];
+		private byte[] value = new byte[256];
+		private int writes = 0;
+
+		public Builder(double frameRate, double clockHz) {
+			if (!(frameRate > 0.0) || !(clockHz > 0.0)) {
+				throw new IllegalArgumentException("Frame rate and clock must be positive");
+			}
+			this.frameRate = frameRate;
+			this.clockHz = clockHz;
+		}
+
+		/**
+		 * Starts a new frame; writes made before the first call belong to
+		 * frame 0.
+		 */
+		public Builder nextFrame() {
+			if (frames + 1 >= frameStart.length) {
+				frameStart = Arrays.copyOf(frameStart, frameStart.length * 2);
+			}
+			frames++;
+			frameStart[frames] = writes;
+			return this;
+		}
+
+		public Builder write(int reg, int val) {
+			if (reg < 0 || reg >= REGISTERS) {
+				throw new IllegalArgumentException("SID register out of range (0.." + (REGISTERS - 1) + "): " + reg);
+			}
+			if (writes == register.length) {
+				register = Arrays.copyOf(register, writes * 2);
+				value = Arrays.copyOf(value, writes * 2);
+			}
+			register[writes] = (byte) reg;
+			value[writes] = (byte) val;
+			writes++;
+			return this;
+		}
+
+		/**
+		 * Number of frames started so far, including the current one.
+		 */
+		public int frames() {
+			return frames + 1;
+		}
+
+		/**
+		 * Freezes the stream with the frames started so far; the current frame
+		 * is included.
+		 */
+		public SidRegisterStream build() {
+			int[] starts = Arrays.copyOf(frameStart, frames + 2);
+			starts[frames + 1] = writes;
+			return new SidRegisterStream(frameRate, clockHz, starts, Arrays.copyOf(register, writes),
+					Arrays.copyOf(value, writes));
+		}
+	}
+}
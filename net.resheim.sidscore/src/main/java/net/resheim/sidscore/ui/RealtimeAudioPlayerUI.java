@@ -81,20 +81,19 @@ import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
 import org.antlr.v4.runtime.BaseErrorListener;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
-import org.antlr.v4.runtime.tree.ParseTree;
-import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
 import net.resheim.sidscore.export.SIDScoreExporter;
 import net.resheim.sidscore.export.driver.DriverAddresses;
+import net.resheim.sidscore.ir.CompiledTimeline;
+import net.resheim.sidscore.ir.FrameEventCompiler;
+import net.resheim.sidscore.ir.IrCache;
 import net.resheim.sidscore.ir.RealtimeAudioPlayer;
 import net.resheim.sidscore.ir.SIDScoreIR;
 import net.resheim.sidscore.ir.ScoreBuildingListener;
+import net.resheim.sidscore.ir.ScoreParsing;
 import net.resheim.sidscore.midi.MidiInputRouter;
-import net.resheim.sidscore.parser.SIDScoreLexer;
 import net.resheim.sidscore.parser.SIDScoreParser;
 import net.resheim.sidscore.sid.SidModel;
 
@@ -154,6 +153,9 @@ public final class RealtimeAudioPlayerUI {
 	private final JComboBox<MidiChannelChoice> midiVoice1ChannelCombo = new JComboBox<>(midiChannelChoices());
 	private final JComboBox<MidiChannelChoice> midiVoice2ChannelCombo = new JComboBox<>(midiChannelChoices());
 	private final JComboBox<MidiChannelChoice> midiVoice3ChannelCombo = new JComboBox<>(midiChannelChoices());
+	private final JComboBox<RealtimeAudioPlayer.LatencyProfile> latencyCombo = new JComboBox<>(
+			new RealtimeAudioPlayer.LatencyProfile[] { RealtimeAudioPlayer.LatencyProfile.LOW,
+					RealtimeAudioPlayer.LatencyProfile.BALANCED, RealtimeAudioPlayer.LatencyProfile.SAFE });
 	private final JComboBox<Integer> instrumentVoiceCombo = new JComboBox<>(new Integer[] { 1, 2, 3 });
 	private final JCheckBox instrumentLiveModeCheck = new JCheckBox("Live mode");
 	private final JToggleButton waveTriButton = new JToggleButton("TRI");
@@ -285,6 +287,8 @@ public final class RealtimeAudioPlayerUI {
 		midiPanel.add(midiVoice2ChannelCombo);
 		midiPanel.add(createSectionLabel("V3"));
 		midiPanel.add(midiVoice3ChannelCombo);
+		midiPanel.add(createSectionLabel("Latency:"));
+		midiPanel.add(latencyCombo);
 
 		styleButton(newButton);
 		styleButton(saveButton);
@@ -305,6 +309,7 @@ public final class RealtimeAudioPlayerUI {
 		styleComboBox(midiVoice1ChannelCombo);
 		styleComboBox(midiVoice2ChannelCombo);
 		styleComboBox(midiVoice3ChannelCombo);
+		styleComboBox(latencyCombo);
 		styleComboBox(instrumentVoiceCombo);
 		styleComboBox(gateModeCombo);
 		styleInstrumentToggle(waveTriButton);
@@ -320,6 +325,7 @@ public final class RealtimeAudioPlayerUI {
 		selectMidiChannel(midiVoice1ChannelCombo, 1);
 		selectMidiChannel(midiVoice2ChannelCombo, 0);
 		selectMidiChannel(midiVoice3ChannelCombo, 0);
+		latencyCombo.setSelectedItem(RealtimeAudioPlayer.LatencyProfile.BALANCED);
 		resetSongSelection();
 
 		stopButton.setEnabled(false);
@@ -337,6 +343,7 @@ public final class RealtimeAudioPlayerUI {
 		midiVoice1ChannelCombo.addActionListener(e -> onMidiSettingsChanged());
 		midiVoice2ChannelCombo.addActionListener(e -> onMidiSettingsChanged());
 		midiVoice3ChannelCombo.addActionListener(e -> onMidiSettingsChanged());
+		latencyCombo.addActionListener(e -> onMidiSettingsChanged());
 		instrumentVoiceCombo.addActionListener(e -> onInstrumentVoiceChanged());
 		instrumentLiveModeCheck.addActionListener(e -> onInstrumentLiveModeChanged());
 		newButton.addActionListener(e -> onNew());
@@ -1752,6 +1759,21 @@ public final class RealtimeAudioPlayerUI {
 		midiVoice1ChannelCombo.setEnabled(midiEnabled);
 		midiVoice2ChannelCombo.setEnabled(midiEnabled);
 		midiVoice3ChannelCombo.setEnabled(midiEnabled);
+		latencyCombo.setEnabled(editable && srap);
+	}
+
+	private RealtimeAudioPlayer.LatencyProfile selectedLatencyProfile() {
+		Object selected = latencyCombo.getSelectedItem();
+		return selected instanceof RealtimeAudioPlayer.LatencyProfile profile ? profile
+				: RealtimeAudioPlayer.LatencyProfile.BALANCED;
+	}
+
+	private void reportUnderruns(RealtimeAudioPlayer audioPlayer) {
+		RealtimeAudioPlayer.AudioLineStats stats = audioPlayer.audioLineStats();
+		if (stats.underruns() > 0) {
+			appendMessageAsync("SRAP audio underruns: " + stats.underruns() + " (line buffer grown to "
+					+ stats.lineBufferSamples() + " samples)", MSG_WARN);
+		}
 	}
 
 	private void startMidiMonitorIfNeeded(boolean showDialogs) {
@@ -1770,6 +1792,7 @@ public final class RealtimeAudioPlayerUI {
 		SIDScoreIR.TimedScore monitorScore =
 				applyLiveInstrumentOverride(liveMidiScore(sourceScore, midiConfig.voiceChannelMap()));
 		RealtimeAudioPlayer monitorPlayer = new RealtimeAudioPlayer();
+		monitorPlayer.setLatencyProfile(selectedLatencyProfile());
 		long generation = ++midiMonitorGeneration;
 		Thread thread = new Thread(() -> runMidiMonitor(monitorPlayer, midiConfig, monitorScore, generation),
 				"sidscore-midi-monitor");
@@ -1870,6 +1893,7 @@ public final class RealtimeAudioPlayerUI {
 				appendMessageAsync("MIDI monitor failed: " + e.getMessage(), MSG_ERROR);
 			}
 		} finally {
+			reportUnderruns(monitorPlayer);
 			if (midiMonitorGeneration == generation && midiMonitorInput == monitorInput) {
 				midiMonitorInput = null;
 			}
@@ -2101,6 +2125,7 @@ public final class RealtimeAudioPlayerUI {
 					"sidscore-vice-player");
 		} else {
 			RealtimeAudioPlayer currentPlayer = new RealtimeAudioPlayer();
+			currentPlayer.setLatencyProfile(selectedLatencyProfile());
 			player = currentPlayer;
 			thread = new Thread(() -> runSrapPlayback(timedForThread, currentPlayer, midiForThread),
 					"sidscore-realtime-player");
@@ -2148,6 +2173,7 @@ public final class RealtimeAudioPlayerUI {
 			if (player == currentPlayer) {
 				player = null;
 			}
+			reportUnderruns(currentPlayer);
 			markPlaybackStartIfUnset();
 			finishPlayback(Thread.currentThread());
 		}
@@ -2696,18 +2722,7 @@ public final class RealtimeAudioPlayerUI {
 
 	private SIDScoreIR.TimedScore parseScorePath(Path sourcePath, boolean showErrors, boolean showWarnings) {
 		try {
-			String text = Files.readString(sourcePath);
-			SIDScoreLexer lexer = new SIDScoreLexer(CharStreams.fromString(text));
-			CommonTokenStream tokens = new CommonTokenStream(lexer);
-			SIDScoreParser parser = new SIDScoreParser(tokens);
-			parser.removeErrorListeners();
-			parser.addErrorListener(new ThrowingErrorListener());
-
-			ParseTree tree = parser.file();
-			ScoreBuildingListener builder = new ScoreBuildingListener(sourcePath);
-			ParseTreeWalker.DEFAULT.walk(builder, tree);
-
-			SIDScoreIR.ScoreIR scoreIR = builder.buildScoreIR();
+			SIDScoreIR.ScoreIR scoreIR = IrCache.load(sourcePath, new ThrowingErrorListener());
 			SIDScoreIR.Resolver.Result result = new SIDScoreIR.Resolver().resolve(scoreIR);
 			if (result.diagnostics().hasErrors()) {
 				StringBuilder sb = new StringBuilder("Resolve errors in ").append(sourcePath).append(":\n");
@@ -2764,18 +2779,12 @@ public final class RealtimeAudioPlayerUI {
 	private SIDScoreIR.TimedScore parseScore(String src, boolean showErrors, boolean showWarnings) {
 		lastScoreIR = null;
 		try {
-			SIDScoreLexer lexer = new SIDScoreLexer(CharStreams.fromString(src));
-			CommonTokenStream tokens = new CommonTokenStream(lexer);
-			SIDScoreParser parser = new SIDScoreParser(tokens);
-			parser.removeErrorListeners();
-			parser.addErrorListener(new ThrowingErrorListener());
-
-			SIDScoreParser.FileContext tree = parser.file();
+			SIDScoreParser.FileContext tree = ScoreParsing.parse(src, new ThrowingErrorListener());
 			lastParseTree = tree;
 			Path importBase = currentSourcePath != null ? currentSourcePath
 					: (lastDirectory != null ? lastDirectory.toPath() : null);
 			ScoreBuildingListener builder = new ScoreBuildingListener(importBase);
-			ParseTreeWalker.DEFAULT.walk(builder, tree);
+			ScoreBuildingListener.WALKER.walk(builder, tree);
 
 			SIDScoreIR.ScoreIR scoreIR = builder.buildScoreIR();
 			lastScoreIR = scoreIR;
@@ -3055,24 +3064,10 @@ public final class RealtimeAudioPlayerUI {
 	}
 
 	private static List<Integer> computeFrameDurations(SIDScoreIR.TimedVoice voice, SIDScoreIR.TimedScore score) {
-		if (voice == null || voice.instrument() == null || voice.events().isEmpty()) {
-			return List.of();
-		}
-		List<Integer> out = new java.util.ArrayList<>(voice.events().size());
-		double ticksPerQuarter = score.ticksPerWhole() / 4.0;
-		double secondsPerTick = 60.0 / score.tempoBpm() / ticksPerQuarter;
-		double frameRate = score.system() == SIDScoreIR.VideoSystem.PAL ? RASTER_RATE_PAL : RASTER_RATE_NTSC;
-		double rem = 0.0;
-		int gateMin = Math.max(0, voice.instrument().gateMin());
-
-		for (SIDScoreIR.TimedEvent ev : voice.events()) {
-			double framesExact = ev.durationTicks() * secondsPerTick * frameRate + rem;
-			int frames = (int) Math.max(1, Math.round(framesExact));
-			rem = framesExact - frames;
-			if ((ev.type() == SIDScoreIR.TimedType.NOTE || ev.type() == SIDScoreIR.TimedType.NOISE) && gateMin > 0) {
-				frames = Math.max(frames, gateMin);
-			}
-			out.add(frames);
+		CompiledTimeline timeline = FrameEventCompiler.timeline(voice, score);
+		List<Integer> out = new java.util.ArrayList<>(timeline.eventCount());
+		for (int i = 0; i < timeline.eventCount(); i++) {
+			out.add(timeline.eventFrames(i));
 		}
 		return out;
 	}